@@ -0,0 +1,301 @@
+package org.pebble.benchmarks;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
+
+import java.io.IOException;
+
+/**
+ * Lists used as input of the benchmarks and their compressed representation.
+ */
+public class BenchmarkLists {
+
+    /**
+     * Total number of elements of the lists of every type, used to report the time per element.
+     */
+    public static final int ELEMENTS = 1 << 18;
+
+    /**
+     * Number of bits used to represent the values of the lists.
+     */
+    public static final int VALUE_BIT_SIZE = 20;
+
+    private static final long SEED = 0x5eed;
+    private static final int MAX_RECURSIVE_REFERENCES = 3;
+    private static final int MIN_LIST_SIZE = 1;
+
+    /**
+     * Types of lists supported by Pebble.
+     */
+    public enum ListType {
+        STRICTLY_INCREMENTAL,
+        INCREMENTAL,
+        LIST
+    }
+
+    private final byte[] bytes;
+    private final long[] offsets;
+    private final long bits;
+
+    private BenchmarkLists(final byte[] bytes, final long[] offsets, final long bits) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.bits = bits;
+    }
+
+    /**
+     * Generates the lists of <code>int</code>s of the given type.
+     * @param listType type of the lists.
+     * @return generated lists with {@link #ELEMENTS} elements in total.
+     */
+    public static IntList[] getIntLists(final ListType listType) {
+        if (listType == ListType.STRICTLY_INCREMENTAL) {
+            return ListsGenerator.getPowerLawLists(ELEMENTS, 1 << VALUE_BIT_SIZE, SEED);
+        }
+        if (listType == ListType.INCREMENTAL) {
+            return ListsGenerator.getIncrementalLists(ELEMENTS, 1 << VALUE_BIT_SIZE, SEED);
+        }
+        return ListsGenerator.getUnsortedLists(ELEMENTS, 1 << VALUE_BIT_SIZE, SEED);
+    }
+
+    /**
+     * Generates the lists of <code>long</code>s of the given type.
+     * @param listType type of the lists.
+     * @return generated lists with {@link #ELEMENTS} elements in total.
+     */
+    public static LongList[] getLongLists(final ListType listType) {
+        return ListsGenerator.toLongLists(getIntLists(listType));
+    }
+
+    /**
+     * Creates the reference lists store used to encode lists of <code>int</code>s.
+     * @param windowSize number of lists kept on the store.
+     * @return reference lists store.
+     */
+    public static IntReferenceListsStore getIntReferenceListsStore(final int windowSize) {
+        return new IntReferenceListsStore(
+            windowSize,
+            MAX_RECURSIVE_REFERENCES,
+            MIN_LIST_SIZE,
+            new InvertedListIntReferenceListsIndex()
+        );
+    }
+
+    /**
+     * Creates the reference lists store used to encode lists of <code>long</code>s.
+     * @param windowSize number of lists kept on the store.
+     * @return reference lists store.
+     */
+    public static LongReferenceListsStore getLongReferenceListsStore(final int windowSize) {
+        return new LongReferenceListsStore(
+            windowSize,
+            MAX_RECURSIVE_REFERENCES,
+            MIN_LIST_SIZE,
+            new InvertedListLongReferenceListsIndex()
+        );
+    }
+
+    /**
+     * Writes <code>lists</code> into <code>outputSuccinctStream</code>. The lists are consumed by the encoder, so they
+     * must be copied (see {@link #copy(IntList[])}) before writing them again.
+     * @param lists lists to write.
+     * @param listType type of the lists.
+     * @param windowSize number of lists kept on the reference lists store.
+     * @param outputSuccinctStream stream where the lists are written.
+     * @param offsets array where the offset in bits of every list is written, can be null.
+     * @return number of written bits.
+     * @throws IOException when there is an exception writing the lists.
+     */
+    public static long write(
+        final IntList[] lists,
+        final ListType listType,
+        final int windowSize,
+        final OutputSuccinctStream outputSuccinctStream,
+        final long[] offsets
+    ) throws IOException {
+        final IntReferenceListsStore referenceListsStore = getIntReferenceListsStore(windowSize);
+        long bits = 0L;
+        for (int i = 0; i < lists.length; i++) {
+            if (offsets != null) {
+                offsets[i] = outputSuccinctStream.writtenBits();
+            }
+            if (listType == ListType.STRICTLY_INCREMENTAL) {
+                bits += outputSuccinctStream.writeStrictlyIncrementalList(
+                    lists[i],
+                    i,
+                    VALUE_BIT_SIZE,
+                    referenceListsStore
+                );
+            } else if (listType == ListType.INCREMENTAL) {
+                bits += outputSuccinctStream.writeIncrementalList(lists[i], i, VALUE_BIT_SIZE, referenceListsStore);
+            } else {
+                bits += outputSuccinctStream.writeList(lists[i], i, VALUE_BIT_SIZE, referenceListsStore);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Writes <code>lists</code> into <code>outputSuccinctStream</code>. The lists are consumed by the encoder, so they
+     * must be copied (see {@link #copy(LongList[])}) before writing them again.
+     * @param lists lists to write.
+     * @param listType type of the lists.
+     * @param windowSize number of lists kept on the reference lists store.
+     * @param outputSuccinctStream stream where the lists are written.
+     * @param offsets array where the offset in bits of every list is written, can be null.
+     * @return number of written bits.
+     * @throws IOException when there is an exception writing the lists.
+     */
+    public static long write(
+        final LongList[] lists,
+        final ListType listType,
+        final int windowSize,
+        final OutputSuccinctStream outputSuccinctStream,
+        final long[] offsets
+    ) throws IOException {
+        final LongReferenceListsStore referenceListsStore = getLongReferenceListsStore(windowSize);
+        long bits = 0L;
+        for (int i = 0; i < lists.length; i++) {
+            if (offsets != null) {
+                offsets[i] = outputSuccinctStream.writtenBits();
+            }
+            if (listType == ListType.STRICTLY_INCREMENTAL) {
+                bits += outputSuccinctStream.writeStrictlyIncrementalList(
+                    lists[i],
+                    i,
+                    VALUE_BIT_SIZE,
+                    referenceListsStore
+                );
+            } else if (listType == ListType.INCREMENTAL) {
+                bits += outputSuccinctStream.writeIncrementalList(lists[i], i, VALUE_BIT_SIZE, referenceListsStore);
+            } else {
+                bits += outputSuccinctStream.writeList(lists[i], i, VALUE_BIT_SIZE, referenceListsStore);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Compresses a copy of <code>lists</code>, which are left untouched.
+     * @param lists lists to compress.
+     * @param listType type of the lists.
+     * @param windowSize number of lists kept on the reference lists store.
+     * @return compressed lists.
+     * @throws IOException when there is an exception writing the lists.
+     */
+    public static BenchmarkLists encode(final IntList[] lists, final ListType listType, final int windowSize)
+        throws IOException
+    {
+        final FastByteArrayOutputStream outputStream = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(outputStream);
+        final long[] offsets = new long[lists.length];
+        final long bits = write(copy(lists), listType, windowSize, outputSuccinctStream, offsets);
+        outputSuccinctStream.close();
+        return new BenchmarkLists(outputStream.array, offsets, bits);
+    }
+
+    /**
+     * Compresses a copy of <code>lists</code>, which are left untouched.
+     * @param lists lists to compress.
+     * @param listType type of the lists.
+     * @param windowSize number of lists kept on the reference lists store.
+     * @return compressed lists.
+     * @throws IOException when there is an exception writing the lists.
+     */
+    public static BenchmarkLists encode(final LongList[] lists, final ListType listType, final int windowSize)
+        throws IOException
+    {
+        final FastByteArrayOutputStream outputStream = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(outputStream);
+        final long[] offsets = new long[lists.length];
+        final long bits = write(copy(lists), listType, windowSize, outputSuccinctStream, offsets);
+        outputSuccinctStream.close();
+        return new BenchmarkLists(outputStream.array, offsets, bits);
+    }
+
+    /**
+     * Copies <code>lists</code>.
+     * @param lists lists to copy.
+     * @return copy of every list.
+     */
+    public static IntList[] copy(final IntList[] lists) {
+        final IntList[] copies = new IntList[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            copies[i] = new IntArrayList(lists[i]);
+        }
+        return copies;
+    }
+
+    /**
+     * Copies <code>lists</code>.
+     * @param lists lists to copy.
+     * @return copy of every list.
+     */
+    public static LongList[] copy(final LongList[] lists) {
+        final LongList[] copies = new LongList[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            copies[i] = new LongArrayList(lists[i]);
+        }
+        return copies;
+    }
+
+    /**
+     * Gets a bytes store over the compressed lists.
+     * @return bytes store over the compressed lists.
+     */
+    public PebbleBytesStore getBytesStore() {
+        return new BytesArrayPebbleBytesStore(bytes, offsets);
+    }
+
+    /**
+     * Gets the number of compressed lists.
+     * @return number of compressed lists.
+     */
+    public int getNumberOfLists() {
+        return offsets.length;
+    }
+
+    /**
+     * Gets the average number of bits used to compress every element of the lists.
+     * @return average number of bits per element.
+     */
+    public double getBitsPerElement() {
+        return (double) bits / ELEMENTS;
+    }
+
+    /**
+     * Prints the average number of bits per element of the compressed lists, which is reported along with the time
+     * per element of the benchmarks.
+     * @param name name of the compressed lists.
+     */
+    public void printBitsPerElement(final String name) {
+        System.out.printf("%n%s: %.3f bits/element%n", name, getBitsPerElement());
+    }
+
+}
@@ -0,0 +1,155 @@
+package org.pebble.benchmarks;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import it.unimi.dsi.io.InputBitStream;
+import it.unimi.dsi.io.OutputBitStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the word at a time reader of {@link org.pebble.core.decoding.InputBitCursor} with the byte buffered
+ * reader of {@link it.unimi.dsi.io.InputBitStream}, reading raw delta codes and decoding whole compressed lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitReaderBenchmark {
+
+    private static final int CODES = 1 << 16;
+    private static final int ELEMENTS = BenchmarkLists.ELEMENTS;
+    private static final int VALUE_BIT_SIZE = BenchmarkLists.VALUE_BIT_SIZE;
+
+    private byte[] codes;
+    private int numberOfLists;
+    private PebbleBytesStore cursorBytesStore;
+    private PebbleBytesStore streamBytesStore;
+    private InputBitCursor cursor;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Random random = new Random(0x5eed);
+        final FastByteArrayOutputStream codesOutputStream = new FastByteArrayOutputStream();
+        final OutputBitStream outputBitStream = new OutputBitStream(codesOutputStream);
+        for (int i = 0; i < CODES; i++) {
+            outputBitStream.writeDelta(random.nextInt(1 << random.nextInt(16)));
+        }
+        outputBitStream.close();
+        codes = codesOutputStream.array;
+
+        final IntList[] lists = BenchmarkLists.getIntLists(BenchmarkLists.ListType.STRICTLY_INCREMENTAL);
+        numberOfLists = lists.length;
+        final FastByteArrayOutputStream outputStream = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(outputStream);
+        final IntReferenceListsStore referenceListsStore =
+            new IntReferenceListsStore(16, 3, 1, new InvertedListIntReferenceListsIndex(64, 1024));
+        final long[] offsets = new long[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            offsets[i] = outputSuccinctStream.writtenBits();
+            outputSuccinctStream.writeStrictlyIncrementalList(lists[i], i, VALUE_BIT_SIZE, referenceListsStore);
+        }
+        outputSuccinctStream.close();
+        cursorBytesStore = new BytesArrayPebbleBytesStore(outputStream.array, offsets);
+        streamBytesStore = new BytesArrayPebbleBytesStore(outputStream.array, offsets) {
+            @Override
+            public InputBitStream getInputBitStream(final int listIndex) throws IOException {
+                final InputBitStream inputBitStream = new InputBitStream(get(listIndex));
+                inputBitStream.position(offset(listIndex));
+                return inputBitStream;
+            }
+
+            @Override
+            public InputBitStream getInputBitStream(final int listIndex, final InputBitCursor cursor)
+                throws IOException
+            {
+                return getInputBitStream(listIndex);
+            }
+        };
+        cursor = new InputBitCursor();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CODES)
+    public int readDeltasWithInputBitStream() throws IOException {
+        final InputBitStream inputBitStream = new InputBitStream(codes);
+        int sum = 0;
+        for (int i = 0; i < CODES; i++) {
+            sum += inputBitStream.readDelta();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CODES)
+    public int readDeltasWithInputBitCursor() throws IOException {
+        cursor.reset(codes, 0L);
+        int sum = 0;
+        for (int i = 0; i < CODES; i++) {
+            sum += cursor.readDelta();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void decodeListsWithInputBitStream(final Blackhole blackhole) throws IOException {
+        decodeLists(streamBytesStore, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void decodeListsWithInputBitCursor(final Blackhole blackhole) throws IOException {
+        decodeLists(cursorBytesStore, blackhole);
+    }
+
+    private void decodeLists(final PebbleBytesStore bytesStore, final Blackhole blackhole) throws IOException {
+        StrictlyIncrementalListIterator iterator;
+        for (int i = 0; i < numberOfLists; i++) {
+            iterator = StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore, cursor);
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.nextInt());
+            }
+        }
+    }
+
+}
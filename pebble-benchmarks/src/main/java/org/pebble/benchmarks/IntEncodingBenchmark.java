@@ -0,0 +1,115 @@
+package org.pebble.benchmarks;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pebble.benchmarks.BenchmarkLists.ListType;
+import org.pebble.core.encoding.OutputSuccinctStream;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time per element of compressing lists of <code>int</code>s of every type, for several sizes of the
+ * window of reference lists. The encoder consumes the lists, so every invocation writes a fresh copy of them made
+ * out of the measured time. The bits per element of the compressed lists are printed at the end of every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntEncodingBenchmark {
+
+    @Param({"8", "32", "128"})
+    public int windowSize;
+
+    private IntList[] strictlyIncrementalLists;
+    private IntList[] incrementalLists;
+    private IntList[] lists;
+    private IntList[] strictlyIncrementalCopies;
+    private IntList[] incrementalCopies;
+    private IntList[] copies;
+    private FastByteArrayOutputStream outputStream;
+
+    @Setup
+    public void setUp() {
+        strictlyIncrementalLists = BenchmarkLists.getIntLists(ListType.STRICTLY_INCREMENTAL);
+        incrementalLists = BenchmarkLists.getIntLists(ListType.INCREMENTAL);
+        lists = BenchmarkLists.getIntLists(ListType.LIST);
+        outputStream = new FastByteArrayOutputStream();
+    }
+
+    @Setup(Level.Invocation)
+    public void copyLists() {
+        strictlyIncrementalCopies = BenchmarkLists.copy(strictlyIncrementalLists);
+        incrementalCopies = BenchmarkLists.copy(incrementalLists);
+        copies = BenchmarkLists.copy(lists);
+    }
+
+    @TearDown(Level.Trial)
+    public void printBitsPerElement() throws IOException {
+        BenchmarkLists.encode(strictlyIncrementalLists, ListType.STRICTLY_INCREMENTAL, windowSize)
+            .printBitsPerElement("writeStrictlyIncrementalList");
+        BenchmarkLists.encode(incrementalLists, ListType.INCREMENTAL, windowSize)
+            .printBitsPerElement("writeIncrementalList");
+        BenchmarkLists.encode(lists, ListType.LIST, windowSize).printBitsPerElement("writeList");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkLists.ELEMENTS)
+    public long writeStrictlyIncrementalList() throws IOException {
+        return write(strictlyIncrementalCopies, ListType.STRICTLY_INCREMENTAL);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkLists.ELEMENTS)
+    public long writeIncrementalList() throws IOException {
+        return write(incrementalCopies, ListType.INCREMENTAL);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkLists.ELEMENTS)
+    public long writeList() throws IOException {
+        return write(copies, ListType.LIST);
+    }
+
+    private long write(final IntList[] lists, final ListType listType) throws IOException {
+        outputStream.reset();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(outputStream);
+        final long bits = BenchmarkLists.write(lists, listType, windowSize, outputSuccinctStream, null);
+        outputSuccinctStream.flush();
+        return bits;
+    }
+
+}
@@ -0,0 +1,149 @@
+package org.pebble.benchmarks;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic lists that resemble the adjacency lists of real graphs, used as input of the benchmarks. The
+ * lists generated have exactly the requested number of elements in total, so the benchmarks can report the time per
+ * element.
+ */
+public class ListsGenerator {
+
+    private static final int MAX_LIST_SIZE = 1024;
+
+    private ListsGenerator() {
+    }
+
+    /**
+     * Generates strictly incremental lists whose sizes follow a power law, where most of the values are close to the
+     * index of the list and the rest are drawn from a power law over all the values, as the adjacency lists of web
+     * and social graphs.
+     * @param numberOfElements total number of elements of the lists.
+     * @param numberOfValues values of the lists are between zero and <code>numberOfValues</code> - 1.
+     * @param seed seed of the random generator.
+     * @return generated lists.
+     */
+    public static IntList[] getPowerLawLists(final int numberOfElements, final int numberOfValues, final long seed) {
+        final Random random = new Random(seed);
+        final List<IntList> lists = new ArrayList<IntList>();
+        final IntSet values = new IntOpenHashSet();
+        int elements = 0;
+        int size;
+        int value;
+        while (elements < numberOfElements) {
+            values.clear();
+            size = Math.min(
+                Math.min(getPowerLawValue(random, MAX_LIST_SIZE), numberOfValues),
+                numberOfElements - elements
+            );
+            final int center = (int) ((long) lists.size() * 64 % numberOfValues);
+            while (values.size() < size) {
+                if (random.nextInt(4) == 0) {
+                    value = getPowerLawValue(random, numberOfValues) - 1;
+                } else {
+                    value = center + (int) (random.nextGaussian() * size);
+                }
+                if (value >= 0 && value < numberOfValues) {
+                    values.add(value);
+                }
+            }
+            final int[] sortedValues = values.toIntArray();
+            Arrays.sort(sortedValues);
+            lists.add(new IntArrayList(sortedValues));
+            elements += size;
+        }
+        return lists.toArray(new IntList[lists.size()]);
+    }
+
+    /**
+     * Generates incremental lists from the lists of {@link #getPowerLawLists(int, int, long)}, where one out of eight
+     * values is repeated a few times.
+     * @param numberOfElements total number of elements of the lists, counting the repetitions.
+     * @param numberOfValues values of the lists are between zero and <code>numberOfValues</code> - 1.
+     * @param seed seed of the random generator.
+     * @return generated lists.
+     */
+    public static IntList[] getIncrementalLists(final int numberOfElements, final int numberOfValues, final long seed) {
+        final Random random = new Random(seed);
+        final IntList[] lists = getPowerLawLists(numberOfElements, numberOfValues, seed);
+        int remainingElements = numberOfElements;
+        IntList list;
+        for (int i = 0; i < lists.length; i++) {
+            list = new IntArrayList();
+            for (int j = 0; j < lists[i].size() && list.size() < remainingElements; j++) {
+                list.add(lists[i].getInt(j));
+                while (random.nextInt(8) == 0 && list.size() < remainingElements) {
+                    list.add(lists[i].getInt(j));
+                }
+            }
+            lists[i] = list;
+            remainingElements -= list.size();
+        }
+        return lists;
+    }
+
+    /**
+     * Generates unsorted lists shuffling the lists of {@link #getIncrementalLists(int, int, long)}.
+     * @param numberOfElements total number of elements of the lists, counting the repetitions.
+     * @param numberOfValues values of the lists are between zero and <code>numberOfValues</code> - 1.
+     * @param seed seed of the random generator.
+     * @return generated lists.
+     */
+    public static IntList[] getUnsortedLists(final int numberOfElements, final int numberOfValues, final long seed) {
+        final Random random = new Random(seed);
+        final IntList[] lists = getIncrementalLists(numberOfElements, numberOfValues, seed);
+        for (IntList list : lists) {
+            for (int j = list.size() - 1; j > 0; j--) {
+                list.set(j, list.set(random.nextInt(j + 1), list.getInt(j)));
+            }
+        }
+        return lists;
+    }
+
+    /**
+     * Copies <code>lists</code> into lists of <code>long</code>s.
+     * @param lists lists to copy.
+     * @return lists of <code>long</code>s with the same elements than <code>lists</code>.
+     */
+    public static LongList[] toLongLists(final IntList[] lists) {
+        final LongList[] longLists = new LongList[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            longLists[i] = new LongArrayList(lists[i].size());
+            for (int j = 0; j < lists[i].size(); j++) {
+                longLists[i].add(lists[i].getInt(j));
+            }
+        }
+        return longLists;
+    }
+
+    private static int getPowerLawValue(final Random random, final int max) {
+        return (int) Math.min(max, Math.floor(1.0 / Math.pow(1.0 - random.nextDouble(), 0.9)));
+    }
+
+}
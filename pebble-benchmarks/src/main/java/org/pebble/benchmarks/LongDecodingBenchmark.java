@@ -0,0 +1,187 @@
+package org.pebble.benchmarks;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pebble.benchmarks.BenchmarkLists.ListType;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.decoding.iterators.longs.IncrementalListIterator;
+import org.pebble.core.decoding.iterators.longs.ListIterator;
+import org.pebble.core.decoding.iterators.longs.StrictlyIncrementalListIterator;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time per element of iterating and skipping compressed lists of <code>long</code>s of every type, for
+ * several sizes of the window of reference lists. The skip benchmarks skip all the elements of every list but the
+ * last one. The bits per element of the compressed lists are printed at the end of every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongDecodingBenchmark {
+
+    private static final int VALUE_BIT_SIZE = BenchmarkLists.VALUE_BIT_SIZE;
+
+    @Param({"8", "32", "128"})
+    public int windowSize;
+
+    private BenchmarkLists strictlyIncrementalLists;
+    private BenchmarkLists incrementalLists;
+    private BenchmarkLists lists;
+    private PebbleBytesStore strictlyIncrementalBytesStore;
+    private PebbleBytesStore incrementalBytesStore;
+    private PebbleBytesStore bytesStore;
+    private int[] strictlyIncrementalSizes;
+    private int[] incrementalSizes;
+    private int[] sizes;
+    private InputBitCursor cursor;
+    private long[] buffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        final LongList[] strictlyIncrementalValues = BenchmarkLists.getLongLists(ListType.STRICTLY_INCREMENTAL);
+        final LongList[] incrementalValues = BenchmarkLists.getLongLists(ListType.INCREMENTAL);
+        final LongList[] values = BenchmarkLists.getLongLists(ListType.LIST);
+        strictlyIncrementalLists =
+            BenchmarkLists.encode(strictlyIncrementalValues, ListType.STRICTLY_INCREMENTAL, windowSize);
+        incrementalLists = BenchmarkLists.encode(incrementalValues, ListType.INCREMENTAL, windowSize);
+        lists = BenchmarkLists.encode(values, ListType.LIST, windowSize);
+        strictlyIncrementalBytesStore = strictlyIncrementalLists.getBytesStore();
+        incrementalBytesStore = incrementalLists.getBytesStore();
+        bytesStore = lists.getBytesStore();
+        strictlyIncrementalSizes = getSizes(strictlyIncrementalValues);
+        incrementalSizes = getSizes(incrementalValues);
+        sizes = getSizes(values);
+        cursor = new InputBitCursor();
+        buffer = LongArrays.EMPTY_ARRAY;
+    }
+
+    @TearDown(Level.Trial)
+    public void printBitsPerElement() {
+        strictlyIncrementalLists.printBitsPerElement("StrictlyIncrementalListIterator");
+        incrementalLists.printBitsPerElement("IncrementalListIterator");
+        lists.printBitsPerElement("ListIterator");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkLists.ELEMENTS)
+    public void iterateStrictlyIncrementalLists(final Blackhole blackhole) throws IOException {
+        StrictlyIncrementalListIterator iterator;
+        for (int i = 0; i < strictlyIncrementalSizes.length; i++) {
+            iterator = StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, strictlyIncrementalBytesStore, cursor);
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.nextLong());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkLists.ELEMENTS)
+    public void iterateIncrementalLists(final Blackhole blackhole) throws IOException {
+        IncrementalListIterator iterator;
+        for (int i = 0; i < incrementalSizes.length; i++) {
+            iterator = IncrementalListIterator.build(i, VALUE_BIT_SIZE, incrementalBytesStore, cursor);
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.nextLong());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkLists.ELEMENTS)
+    public void iterateLists(final Blackhole blackhole) throws IOException {
+        ListIterator iterator;
+        for (int i = 0; i < sizes.length; i++) {
+            iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore, cursor, buffer);
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.nextLong());
+            }
+            buffer = iterator.getBuffer();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkLists.ELEMENTS)
+    public void skipStrictlyIncrementalLists(final Blackhole blackhole) throws IOException {
+        StrictlyIncrementalListIterator iterator;
+        for (int i = 0; i < strictlyIncrementalSizes.length; i++) {
+            iterator = StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, strictlyIncrementalBytesStore, cursor);
+            blackhole.consume(iterator.skip(strictlyIncrementalSizes[i] - 1));
+            if (iterator.hasNext()) {
+                blackhole.consume(iterator.nextLong());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkLists.ELEMENTS)
+    public void skipIncrementalLists(final Blackhole blackhole) throws IOException {
+        IncrementalListIterator iterator;
+        for (int i = 0; i < incrementalSizes.length; i++) {
+            iterator = IncrementalListIterator.build(i, VALUE_BIT_SIZE, incrementalBytesStore, cursor);
+            blackhole.consume(iterator.skip(incrementalSizes[i] - 1));
+            if (iterator.hasNext()) {
+                blackhole.consume(iterator.nextLong());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkLists.ELEMENTS)
+    public void skipLists(final Blackhole blackhole) throws IOException {
+        ListIterator iterator;
+        for (int i = 0; i < sizes.length; i++) {
+            iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore, cursor, buffer);
+            blackhole.consume(iterator.skip(sizes[i] - 1));
+            if (iterator.hasNext()) {
+                blackhole.consume(iterator.nextLong());
+            }
+            buffer = iterator.getBuffer();
+        }
+    }
+
+    private static int[] getSizes(final LongList[] lists) {
+        final int[] sizes = new int[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            sizes[i] = lists[i].size();
+        }
+        return sizes;
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.pebble.benchmarks;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pebble.benchmarks.BenchmarkLists.ListType;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time per element of looking up the reference list of every list of <code>int</code>s through
+ * {@link org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex#getIndexOfReferenceList},
+ * adding the lists to the store as the encoder does, for several sizes of the window of reference lists. The bits
+ * per element of the lists compressed with the same window are printed at the end of every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongReferenceListsIndexBenchmark {
+
+    @Param({"8", "32", "128", "512"})
+    public int windowSize;
+
+    private LongList[] lists;
+
+    @Setup
+    public void setUp() {
+        lists = BenchmarkLists.getLongLists(ListType.STRICTLY_INCREMENTAL);
+    }
+
+    @TearDown(Level.Trial)
+    public void printBitsPerElement() throws IOException {
+        BenchmarkLists.encode(lists, ListType.STRICTLY_INCREMENTAL, windowSize)
+            .printBitsPerElement("getIndexOfReferenceList");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkLists.ELEMENTS)
+    public void getIndexOfReferenceList(final Blackhole blackhole) {
+        final LongReferenceListsStore referenceListsStore = BenchmarkLists.getLongReferenceListsStore(windowSize);
+        for (int i = 0; i < lists.length; i++) {
+            blackhole.consume(referenceListsStore.get(lists[i], BenchmarkLists.VALUE_BIT_SIZE, i));
+            referenceListsStore.add(i, 0, lists[i]);
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/**
+ * Receives the events of the compressed lists decoded from a {@link PebbleBytesStore}, when it is set on the store
+ * (see {@link PebbleBytesStore#setDecodingMetrics(DecodingMetrics)}). Every list iterator reports into the metrics of
+ * its store, including the iterators opened to decode the reference of a list, so a list with a chain of
+ * <code>n</code> references reports <code>n + 1</code> opened lists.
+ *
+ * <p>The events are reported from the decoding loops, so implementations must be cheap, and thread safe when the
+ * store is shared across threads. The default {@link #NO_OP} metrics ignore every event, so its calls are removed
+ * by the JIT once they are inlined.</p>
+ */
+public interface DecodingMetrics {
+
+    /**
+     * Metrics that ignore every event.
+     */
+    public static final DecodingMetrics NO_OP = new DecodingMetrics() {
+
+        @Override
+        public void onListOpened(final int listIndex, final int referenceLevels, final long bits) {
+        }
+
+        @Override
+        public void onElementReturned() {
+        }
+
+        @Override
+        public void onSeek() {
+        }
+
+    };
+
+    /**
+     * Reports a list opened by an iterator.
+     * @param listIndex offset of the list.
+     * @param referenceLevels length of the chain of references of the list, which is the number of reference levels
+     *                        traversed to decode it. Zero when the list has no reference.
+     * @param bits number of bits of the reference, intervals and deltas sections of the list.
+     */
+    public void onListOpened(final int listIndex, final int referenceLevels, final long bits);
+
+    /**
+     * Reports an element returned by an iterator. The elements skipped without being returned aren't reported.
+     */
+    public void onElementReturned();
+
+    /**
+     * Reports a jump of an iterator through the skip index of a section.
+     */
+    public void onSeek();
+
+}
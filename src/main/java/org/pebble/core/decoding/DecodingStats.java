@@ -0,0 +1,126 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link DecodingMetrics} that accumulates the events of the decoded lists. It is thread safe, so it can be set on a
+ * store shared across threads.
+ */
+public class DecodingStats implements DecodingMetrics {
+
+    private final AtomicLong lists = new AtomicLong();
+    private final AtomicLong referenceLevels = new AtomicLong();
+    private final AtomicLong maxReferenceLevels = new AtomicLong();
+    private final AtomicLong bits = new AtomicLong();
+    private final AtomicLong elements = new AtomicLong();
+    private final AtomicLong seeks = new AtomicLong();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onListOpened(final int listIndex, final int referenceLevels, final long bits) {
+        lists.incrementAndGet();
+        this.referenceLevels.addAndGet(referenceLevels);
+        this.bits.addAndGet(bits);
+        long maxReferenceLevels;
+        while ((maxReferenceLevels = this.maxReferenceLevels.get()) < referenceLevels) {
+            if (this.maxReferenceLevels.compareAndSet(maxReferenceLevels, referenceLevels)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onElementReturned() {
+        elements.incrementAndGet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onSeek() {
+        seeks.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of opened lists, including the ones opened to decode references.
+     * @return number of opened lists.
+     */
+    public long getLists() {
+        return lists.get();
+    }
+
+    /**
+     * Gets the sum of the reference levels traversed by the opened lists.
+     * @return sum of the reference levels traversed by the opened lists.
+     */
+    public long getReferenceLevels() {
+        return referenceLevels.get();
+    }
+
+    /**
+     * Gets the max number of reference levels traversed to open a list.
+     * @return max number of reference levels traversed to open a list.
+     */
+    public long getMaxReferenceLevels() {
+        return maxReferenceLevels.get();
+    }
+
+    /**
+     * Gets the number of bits of the reference, intervals and deltas sections of the opened lists.
+     * @return number of bits of the sections of the opened lists.
+     */
+    public long getBits() {
+        return bits.get();
+    }
+
+    /**
+     * Gets the number of elements returned by the iterators.
+     * @return number of elements returned by the iterators.
+     */
+    public long getElements() {
+        return elements.get();
+    }
+
+    /**
+     * Gets the number of jumps through the skip indexes of the sections.
+     * @return number of jumps through the skip indexes.
+     */
+    public long getSeeks() {
+        return seeks.get();
+    }
+
+    /**
+     * Clears the accumulated metrics.
+     */
+    public void reset() {
+        lists.set(0);
+        referenceLevels.set(0);
+        maxReferenceLevels.set(0);
+        bits.set(0);
+        elements.set(0);
+        seeks.set(0);
+    }
+
+}
@@ -0,0 +1,206 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.bytes.ByteArrays;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+
+/**
+ * Directory of the offsets in bits where every compressed list starts, represented using a partitioned monotone
+ * Elias-Fano encoding. Offsets are split in blocks of {@value #BLOCK_SIZE} consecutive offsets, and each block is
+ * encoded relative to its first offset with the number of lower bits that minimizes its size, so the cost per offset
+ * depends on the average size of the compressed lists and not on the size of the whole data set. Getting an offset
+ * requires reading its lower bits and selecting its position on the upper bits of its block, which is bounded by
+ * the size of the block and therefore constant.
+ *
+ * <p>The directory can be built incrementally while the lists are being written, adding before each write the number
+ * of bits already written by the {@link org.pebble.core.encoding.OutputSuccinctStream}. Offsets of the last block
+ * that is not complete are kept uncompressed until the block is complete, and can be retrieved at any time.</p>
+ */
+public class EliasFanoOffsets {
+
+    /**
+     * Number of consecutive offsets encoded on every block.
+     */
+    public static final int BLOCK_SIZE = 256;
+
+    private static final int LOG_BLOCK_SIZE = 8;
+
+    private long[] bits;
+    private long bitsSize;
+    private long[] blocksBase;
+    private long[] blocksPointer;
+    private byte[] blocksLowBitsSize;
+    private int blocksSize;
+    private final long[] pendingOffsets;
+    private int pendingOffsetsSize;
+    private long lastOffset;
+
+    /**
+     * Initializes an empty offsets directory.
+     */
+    public EliasFanoOffsets() {
+        bits = LongArrays.EMPTY_ARRAY;
+        blocksBase = LongArrays.EMPTY_ARRAY;
+        blocksPointer = LongArrays.EMPTY_ARRAY;
+        blocksLowBitsSize = ByteArrays.EMPTY_ARRAY;
+        pendingOffsets = new long[BLOCK_SIZE];
+    }
+
+    /**
+     * Initializes an offsets directory containing the given <code>offsets</code>.
+     * @param offsets non decreasing offsets in bits of every list.
+     */
+    public EliasFanoOffsets(final long[] offsets) {
+        this();
+        for (long offset : offsets) {
+            add(offset);
+        }
+    }
+
+    /**
+     * Adds the offset in bits of the next list.
+     * @param offset in bits where the next list starts.
+     * @throws IllegalArgumentException when <code>offset</code> is smaller than the last added offset.
+     */
+    public void add(final long offset) {
+        if (size() > 0 && offset < lastOffset) {
+            throw new IllegalArgumentException(
+                String.format("Offsets are not non decreasing, found %d after %d", offset, lastOffset)
+            );
+        }
+        lastOffset = offset;
+        pendingOffsets[pendingOffsetsSize++] = offset;
+        if (pendingOffsetsSize == BLOCK_SIZE) {
+            writeBlock();
+            pendingOffsetsSize = 0;
+        }
+    }
+
+    /**
+     * Gets the offset in bits where the list associated with <code>listIndex</code> starts.
+     * @param listIndex index of list.
+     * @return the offset in bits where the list associated with <code>listIndex</code> starts.
+     * @throws IndexOutOfBoundsException when there is no offset for the given <code>listIndex</code>.
+     */
+    public long get(final int listIndex) {
+        if (listIndex < 0 || listIndex >= size()) {
+            throw new IndexOutOfBoundsException(
+                String.format("Index %d is out of bounds for %d offsets", listIndex, size())
+            );
+        }
+        final int block = listIndex >>> LOG_BLOCK_SIZE;
+        final int blockIndex = listIndex & (BLOCK_SIZE - 1);
+        if (block == blocksSize) {
+            return pendingOffsets[blockIndex];
+        }
+        final int lowBitsSize = blocksLowBitsSize[block];
+        final long lowBitsPointer = blocksPointer[block];
+        final long highBitsPointer = lowBitsPointer + ((long) BLOCK_SIZE) * lowBitsSize;
+        final long high = select(highBitsPointer, blockIndex) - highBitsPointer - blockIndex;
+        final long low = readBits(lowBitsPointer + ((long) blockIndex) * lowBitsSize, lowBitsSize);
+        return blocksBase[block] + (high << lowBitsSize | low);
+    }
+
+    /**
+     * Gets the number of offsets in the directory.
+     * @return number of offsets in the directory.
+     */
+    public int size() {
+        return (blocksSize << LOG_BLOCK_SIZE) + pendingOffsetsSize;
+    }
+
+    /**
+     * Releases the memory reserved for offsets that haven't been added yet.
+     */
+    public void trim() {
+        bits = LongArrays.trim(bits, (int) ((bitsSize + Long.SIZE - 1) >>> 6));
+        blocksBase = LongArrays.trim(blocksBase, blocksSize);
+        blocksPointer = LongArrays.trim(blocksPointer, blocksSize);
+        blocksLowBitsSize = ByteArrays.trim(blocksLowBitsSize, blocksSize);
+    }
+
+    private void writeBlock() {
+        final long base = pendingOffsets[0];
+        final long universe = pendingOffsets[BLOCK_SIZE - 1] - base;
+        final int lowBitsSize = universe < BLOCK_SIZE ?
+            0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(universe >>> LOG_BLOCK_SIZE);
+        final long lowBitsMask = (1L << lowBitsSize) - 1;
+        if (blocksSize == blocksBase.length) {
+            blocksBase = LongArrays.grow(blocksBase, blocksSize + 1);
+            blocksPointer = LongArrays.grow(blocksPointer, blocksSize + 1);
+            blocksLowBitsSize = ByteArrays.grow(blocksLowBitsSize, blocksSize + 1);
+        }
+        blocksBase[blocksSize] = base;
+        blocksPointer[blocksSize] = bitsSize;
+        blocksLowBitsSize[blocksSize] = (byte) lowBitsSize;
+        blocksSize++;
+        final long highBitsPointer = bitsSize + ((long) BLOCK_SIZE) * lowBitsSize;
+        ensureCapacity(highBitsPointer + BLOCK_SIZE + (universe >>> lowBitsSize) + 1);
+        long value;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            value = pendingOffsets[i] - base;
+            writeBits(bitsSize + ((long) i) * lowBitsSize, value & lowBitsMask, lowBitsSize);
+            writeBit(highBitsPointer + (value >>> lowBitsSize) + i);
+        }
+        bitsSize = highBitsPointer + BLOCK_SIZE + (universe >>> lowBitsSize) + 1;
+    }
+
+    private void ensureCapacity(final long size) {
+        bits = LongArrays.grow(bits, (int) ((size + Long.SIZE - 1) >>> 6));
+    }
+
+    private void writeBit(final long position) {
+        bits[(int) (position >>> 6)] |= 1L << position;
+    }
+
+    private void writeBits(final long position, final long value, final int size) {
+        final int word = (int) (position >>> 6);
+        final int shift = (int) (position & 63);
+        bits[word] |= value << shift;
+        if (shift + size > Long.SIZE) {
+            bits[word + 1] |= value >>> (Long.SIZE - shift);
+        }
+    }
+
+    private long readBits(final long position, final int size) {
+        final int word = (int) (position >>> 6);
+        final int shift = (int) (position & 63);
+        long value = bits[word] >>> shift;
+        if (shift + size > Long.SIZE) {
+            value |= bits[word + 1] << (Long.SIZE - shift);
+        }
+        return value & ((1L << size) - 1);
+    }
+
+    private long select(final long position, final int rank) {
+        int word = (int) (position >>> 6);
+        long bitsWord = bits[word] & (-1L << position);
+        int remaining = rank;
+        int count = Long.bitCount(bitsWord);
+        while (remaining >= count) {
+            remaining -= count;
+            bitsWord = bits[++word];
+            count = Long.bitCount(bitsWord);
+        }
+        for (int i = 0; i < remaining; i++) {
+            bitsWord &= bitsWord - 1;
+        }
+        return (((long) word) << 6) + Long.numberOfTrailingZeros(bitsWord);
+    }
+
+}
@@ -0,0 +1,411 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.io.InputBitStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Input bit stream over a bytes array that can be reset to read from another bytes array and offset without being
+ * allocated again. A cursor is used to read a single list at a time, and the lists referenced by it are read with
+ * the chain of cursors returned by {@link #getNext()}, one for each level of reference, so decoding a list through
+ * the same cursor once its chain is initialized doesn't allocate any input bit stream.
+ *
+ * <p>Every section of the compressed representation of a list is read through its own cursor, returned by
+ * {@link #fork(int)} positioned where the section starts, so reading a section never moves the cursor used to read
+ * the others.</p>
+ *
+ * <p>Stores that don't keep the compressed lists in bytes arrays can't read them through a cursor. Instead, they
+ * attach their own input bit stream to the cursor with {@link #attach(InputBitStream)}, and reuse it on every later
+ * read with the same cursor.</p>
+ *
+ * <p>Cursors are not thread safe. Every thread can get its own cursor through {@link #getThreadCursor()}, which can
+ * be used to decode one list at a time on that thread.</p>
+ *
+ * <p>The cursor reads the bytes array directly, loading 64 bits at a time, instead of going through the byte buffer
+ * of {@link it.unimi.dsi.io.InputBitStream}. Fixed width values are read with shifts and masks, gamma and delta codes
+ * with {@link java.lang.Long#numberOfLeadingZeros(long)}, and delta codes up to 16 bits long, which are most of the
+ * codes of the compressed lists, with a lookup table. Only the methods used to decode the compressed lists are
+ * overridden: {@link #readBit()}, {@link #readInt(int)}, {@link #readLong(int)}, {@link #readUnary()},
+ * {@link #readGamma()}, {@link #readDelta()}, {@link #skip(long)}, {@link #skipGammas(int)},
+ * {@link #skipDeltas(int)}, {@link #position()}, {@link #position(long)} and {@link #readBits()}, and they decode
+ * exactly the same values as {@link it.unimi.dsi.io.InputBitStream} does.</p>
+ */
+public class InputBitCursor extends InputBitStream {
+
+    private static final ThreadLocal<InputBitCursor> THREAD_CURSORS = new ThreadLocal<InputBitCursor>() {
+        @Override
+        protected InputBitCursor initialValue() {
+            return new InputBitCursor();
+        }
+    };
+
+    /**
+     * Section of the compressed representation that describes a list in terms of a reference list.
+     */
+    public static final int REFERENCE_SECTION = 0;
+
+    /**
+     * Section of the compressed representation that contains the intervals of a list.
+     */
+    public static final int INTERVALS_SECTION = 1;
+
+    /**
+     * Section of the compressed representation that contains the delta encoded elements of a list.
+     */
+    public static final int DELTAS_SECTION = 2;
+
+    /**
+     * Section of the compressed representation that contains the repetitions of an incremental list.
+     */
+    public static final int REPEATS_SECTION = 3;
+
+    private static final int SECTIONS = 4;
+
+    private static final int DELTA_TABLE_BITS = 16;
+
+    /**
+     * Delta codes of up to {@link #DELTA_TABLE_BITS} bits indexed by the bits they start with, with the length of the
+     * code on the upper 16 bits and the decoded value on the lower 16 bits. Zero when the code is longer.
+     */
+    private static final int[] DELTA_TABLE = new int[1 << DELTA_TABLE_BITS];
+
+    static {
+        int msb;
+        int gammaLength;
+        int length;
+        for (int value = 0; ; value++) {
+            msb = 31 - Integer.numberOfLeadingZeros(value + 1);
+            gammaLength = 2 * (31 - Integer.numberOfLeadingZeros(msb + 1)) + 1;
+            length = gammaLength + msb;
+            if (length > DELTA_TABLE_BITS) {
+                break;
+            }
+            final int code = ((msb + 1) << msb | (value + 1) & ((1 << msb) - 1)) << (DELTA_TABLE_BITS - length);
+            for (int suffix = 0; suffix < 1 << (DELTA_TABLE_BITS - length); suffix++) {
+                DELTA_TABLE[code | suffix] = length << 16 | value;
+            }
+        }
+    }
+
+    private InputBitCursor next;
+    private InputBitCursor[] forks;
+    private InputBitStream attachment;
+    private byte[] bytes;
+    private long bitPosition;
+    private long bitLength;
+    private long readBitsPosition;
+
+    /**
+     * Initializes a cursor that doesn't read from any list until it is reset.
+     */
+    public InputBitCursor() {
+        super(new byte[1]);
+        bytes = buffer;
+        bitLength = 8L;
+    }
+
+    /**
+     * Gets the cursor owned by the current thread.
+     * @return cursor owned by the current thread.
+     */
+    public static InputBitCursor getThreadCursor() {
+        return THREAD_CURSORS.get();
+    }
+
+    /**
+     * Sets the cursor on the position <code>offset</code> of <code>bytes</code>.
+     * @param bytes array that contains the compressed lists.
+     * @param offset in bits where the cursor is positioned.
+     * @throws IOException in case there is an exception positioning the cursor.
+     */
+    public void reset(final byte[] bytes, final long offset) throws IOException {
+        this.bytes = bytes;
+        bitLength = (long) bytes.length * Byte.SIZE;
+        bitPosition = offset;
+        readBitsPosition = offset;
+    }
+
+    /**
+     * Gets the cursor used to read the lists referenced by the list read by this cursor.
+     * @return cursor of the next level of reference.
+     */
+    public InputBitCursor getNext() {
+        if (next == null) {
+            next = new InputBitCursor();
+        }
+        return next;
+    }
+
+    /**
+     * Gets the input bit stream attached to this cursor by a store that doesn't keep the compressed lists in bytes
+     * arrays.
+     * @return attached input bit stream, or null when no input bit stream was attached.
+     */
+    public InputBitStream getAttachment() {
+        return attachment;
+    }
+
+    /**
+     * Attaches <code>inputBitStream</code> to this cursor, so a store that doesn't keep the compressed lists in bytes
+     * arrays can reuse it every time a list is read through this cursor.
+     * @param inputBitStream input bit stream to attach, replacing any previously attached stream.
+     */
+    public void attach(final InputBitStream inputBitStream) {
+        attachment = inputBitStream;
+    }
+
+    /**
+     * Gets the cursor used to read <code>section</code> of the list read by this cursor, positioned on the current
+     * position of this cursor.
+     * @param section one of {@link #REFERENCE_SECTION}, {@link #INTERVALS_SECTION}, {@link #DELTAS_SECTION} or
+     *                {@link #REPEATS_SECTION}.
+     * @return cursor of <code>section</code> positioned on the current position of this cursor.
+     * @throws IOException in case there is an exception positioning the cursor.
+     */
+    public InputBitCursor fork(final int section) throws IOException {
+        if (forks == null) {
+            forks = new InputBitCursor[SECTIONS];
+        }
+        if (forks[section] == null) {
+            forks[section] = new InputBitCursor();
+        }
+        forks[section].reset(bytes, bitPosition);
+        return forks[section];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long position() {
+        return bitPosition;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void position(final long position) throws IOException {
+        if (position < 0) {
+            throw new IllegalArgumentException("Illegal position: " + position);
+        }
+        bitPosition = position;
+    }
+
+    /**
+     * Gets the number of bits the cursor moved forward since it was reset or since the last call to
+     * {@link #readBits(long)}.
+     * @return number of bits read.
+     */
+    @Override
+    public long readBits() {
+        return bitPosition - readBitsPosition;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readBits(final long readBits) {
+        readBitsPosition = bitPosition - readBits;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readBit() throws IOException {
+        final long position = bitPosition;
+        consume(1);
+        return bytes[(int) (position >>> 3)] >>> (7 - (int) (position & 7)) & 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readInt(final int length) throws IOException {
+        if (length < 0 || length > Integer.SIZE) {
+            throw new IllegalArgumentException("You cannot read " + length + " bits into an integer.");
+        }
+        if (length == 0) {
+            return 0;
+        }
+        final long word = word();
+        consume(length);
+        return (int) (word >>> (Long.SIZE - length));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long readLong(final int length) throws IOException {
+        if (length < 0 || length > Long.SIZE) {
+            throw new IllegalArgumentException("You cannot read " + length + " bits into a long.");
+        }
+        if (length == 0) {
+            return 0L;
+        }
+        final long word = word();
+        consume(length);
+        return word >>> (Long.SIZE - length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readUnary() throws IOException {
+        int zeros = 0;
+        long word;
+        while ((word = word()) == 0L) {
+            consume(Long.SIZE);
+            zeros += Long.SIZE;
+        }
+        final int leadingZeros = Long.numberOfLeadingZeros(word);
+        consume(leadingZeros + 1);
+        return zeros + leadingZeros;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readGamma() throws IOException {
+        final long word = word();
+        final int leadingZeros = Long.numberOfLeadingZeros(word);
+        if (leadingZeros < Integer.SIZE) {
+            final int length = 2 * leadingZeros + 1;
+            consume(length);
+            return (int) (word >>> (Long.SIZE - length)) - 1;
+        }
+        final int msb = readUnary();
+        return ((1 << msb) | readInt(msb)) - 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readDelta() throws IOException {
+        final int code = DELTA_TABLE[peek()];
+        if (code != 0) {
+            consume(code >>> 16);
+            return code & 0xFFFF;
+        }
+        final long word = word();
+        final int leadingZeros = Long.numberOfLeadingZeros(word);
+        if (leadingZeros < 6) {
+            final int gammaLength = 2 * leadingZeros + 1;
+            final int msb = (int) (word >>> (Long.SIZE - gammaLength)) - 1;
+            if (msb < Integer.SIZE) {
+                consume(gammaLength + msb);
+                return (int) ((1L << msb | word << gammaLength >>> (Long.SIZE - msb)) - 1);
+            }
+        }
+        final int msb = readGamma();
+        return ((1 << msb) | readInt(msb)) - 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long skip(final long n) {
+        final long skipped = Math.max(0L, Math.min(n, bitLength - bitPosition));
+        bitPosition += skipped;
+        return skipped;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void skipGammas(final int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            readGamma();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void skipDeltas(final int n) throws IOException {
+        int code;
+        for (int i = 0; i < n; i++) {
+            code = DELTA_TABLE[peek()];
+            if (code != 0) {
+                consume(code >>> 16);
+            } else {
+                readDelta();
+            }
+        }
+    }
+
+    private void consume(final int bits) throws EOFException {
+        if (bitPosition + bits > bitLength) {
+            bitPosition = bitLength;
+            throw new EOFException();
+        }
+        bitPosition += bits;
+    }
+
+    /**
+     * Gets the next {@link #DELTA_TABLE_BITS} bits from the current position without moving the cursor, padded with
+     * zeros beyond the end of the bytes array.
+     */
+    private int peek() {
+        final int index = (int) (bitPosition >>> 3);
+        if (index + 2 < bytes.length) {
+            return ((bytes[index] & 0xFF) << 16 | (bytes[index + 1] & 0xFF) << 8 | bytes[index + 2] & 0xFF) >>>
+                (Byte.SIZE - (int) (bitPosition & 7)) & 0xFFFF;
+        }
+        return (int) (word() >>> (Long.SIZE - DELTA_TABLE_BITS));
+    }
+
+    /**
+     * Gets the next 64 bits from the current position without moving the cursor, padded with zeros beyond the end of
+     * the bytes array.
+     */
+    private long word() {
+        final int index = (int) (bitPosition >>> 3);
+        final int shift = (int) (bitPosition & 7);
+        long word;
+        if (index + Long.SIZE / Byte.SIZE < bytes.length) {
+            word = (bytes[index] & 0xFFL) << 56 |
+                (bytes[index + 1] & 0xFFL) << 48 |
+                (bytes[index + 2] & 0xFFL) << 40 |
+                (bytes[index + 3] & 0xFFL) << 32 |
+                (bytes[index + 4] & 0xFFL) << 24 |
+                (bytes[index + 5] & 0xFFL) << 16 |
+                (bytes[index + 6] & 0xFFL) << 8 |
+                (bytes[index + 7] & 0xFFL);
+            return shift == 0 ? word : word << shift | (bytes[index + 8] & 0xFF) >>> (Byte.SIZE - shift);
+        }
+        word = 0L;
+        for (int i = 0; i < Long.SIZE / Byte.SIZE; i++) {
+            word = word << Byte.SIZE | (index + i < bytes.length ? bytes[index + i] & 0xFFL : 0L);
+        }
+        return word << shift;
+    }
+
+}
@@ -16,7 +16,10 @@ package org.pebble.core.decoding;
  *  limitations under the License.
  */
 
+import it.unimi.dsi.bits.Fast;
 import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.encoding.DefaultParametersValues;
+import org.pebble.core.encoding.SkipIndexParameters;
 
 import java.io.IOException;
 
@@ -26,20 +29,338 @@ import java.io.IOException;
  */
 public abstract class PebbleBytesStore {
 
+    private SkipIndexParameters skipIndexParameters = SkipIndexParameters.DISABLED;
+    private boolean sizeHeader;
+    private int minIntervalSize = DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE;
+    private DecodingMetrics decodingMetrics = DecodingMetrics.NO_OP;
+
+    /**
+     * Gets the parameters of the skip index embedded in the compressed lists.
+     * @return parameters of the skip index embedded in the compressed lists.
+     */
+    public SkipIndexParameters getSkipIndexParameters() {
+        return skipIndexParameters;
+    }
+
+    /**
+     * Sets the parameters of the skip index embedded in the compressed lists, which must be enabled when
+     * {@link org.pebble.core.encoding.OutputSuccinctStream} wrote them with the skip index enabled and disabled
+     * otherwise. The sampling rate of every indexed section is read from the section, so it doesn't need to match.
+     * The skip index is disabled by default.
+     * @param skipIndexParameters parameters of the skip index.
+     */
+    public void setSkipIndexParameters(final SkipIndexParameters skipIndexParameters) {
+        this.skipIndexParameters = skipIndexParameters;
+    }
+
+    /**
+     * Checks whether the compressed lists start with their number of elements or not.
+     * @return true if the compressed lists start with their number of elements and false whether not.
+     */
+    public boolean hasSizeHeader() {
+        return sizeHeader;
+    }
+
+    /**
+     * Sets whether the compressed lists start with their number of elements or not, which must be the setting used
+     * by {@link org.pebble.core.encoding.OutputSuccinctStream} to write them. The size header is disabled by default.
+     * @param sizeHeader whether the compressed lists start with their number of elements or not.
+     */
+    public void setSizeHeader(final boolean sizeHeader) {
+        this.sizeHeader = sizeHeader;
+    }
+
+    /**
+     * Gets the min size of the intervals of the compressed lists.
+     * @return min size of the intervals of the compressed lists.
+     */
+    public int getMinIntervalSize() {
+        return minIntervalSize;
+    }
+
+    /**
+     * Sets the min size of the intervals of the compressed lists, which must be the one used by
+     * {@link org.pebble.core.encoding.OutputSuccinctStream} to write them. By default it is
+     * {@link DefaultParametersValues#DEFAULT_MIN_INTERVAL_SIZE}. The min interval size is not written into the
+     * compressed lists, so lists written with any other value must either be set here by the caller, or be written
+     * into a container by {@link org.pebble.utils.encoding.ContainerWriter}, which records it so
+     * {@link org.pebble.utils.decoding.ContainerPebbleBytesStore} sets it when the container is opened.
+     * @param minIntervalSize min size of the intervals of the compressed lists.
+     * @throws IllegalArgumentException when <code>minIntervalSize</code> is not positive.
+     */
+    public void setMinIntervalSize(final int minIntervalSize) {
+        if (minIntervalSize <= 0) {
+            throw new IllegalArgumentException(
+                String.format("Min interval size must be positive, found %d", minIntervalSize)
+            );
+        }
+        this.minIntervalSize = minIntervalSize;
+    }
+
+    /**
+     * Gets the metrics the iterators of the compressed lists report into.
+     * @return metrics the iterators of the compressed lists report into.
+     */
+    public DecodingMetrics getDecodingMetrics() {
+        return decodingMetrics;
+    }
+
+    /**
+     * Sets the metrics the iterators of the compressed lists report into. It only applies to the iterators built after
+     * it is set. By default the metrics are {@link DecodingMetrics#NO_OP}, which ignore every event.
+     * @param decodingMetrics metrics the iterators report into.
+     */
+    public void setDecodingMetrics(final DecodingMetrics decodingMetrics) {
+        this.decodingMetrics = decodingMetrics;
+    }
+
+    /**
+     * Reads the number of elements of the list associated with <code>listIndex</code> from its size header, reusing
+     * the given <code>cursor</code> when the store is able to (see {@link #getListInputBitStream(int, InputBitCursor)}).
+     * @param listIndex index of list.
+     * @param cursor cursor to reset on the beginning of the representation.
+     * @return number of elements of the list.
+     * @throws IOException in case there is an exception reading the size header.
+     * @throws IllegalStateException when the compressed lists don't have size header.
+     */
+    public int readSize(final int listIndex, final InputBitCursor cursor) throws IOException {
+        if (!sizeHeader) {
+            throw new IllegalStateException("The compressed lists don't have size header");
+        }
+        return getListInputBitStream(listIndex, cursor).readDelta();
+    }
+
+    /**
+     * Reads the number of unique elements of the list whose sections start at the current position of
+     * <code>inputBitStream</code>, from the headers of the sections and the lengths of the intervals and reference
+     * blocks, without decoding its elements. The number of elements of the reference is read through
+     * <code>cursor</code>'s next cursor (see {@link InputBitCursor#getNext()}). The cursor of
+     * <code>inputBitStream</code> is left after the number of elements of the deltas section.
+     * @param inputBitStream stream positioned on the beginning of the sections of the list.
+     * @param listIndex index of list.
+     * @param valueBitSize fixed number of bits used to represent the values of the lists.
+     * @param cursor cursor whose next cursor is used to read the reference.
+     * @param incremental whether the lists are incremental lists, which start with their repetitions, or not.
+     * @return number of unique elements of the list.
+     * @throws IOException in case there is an exception reading the list.
+     */
+    public int readValuesSize(
+        final InputBitStream inputBitStream,
+        final int listIndex,
+        final int valueBitSize,
+        final InputBitCursor cursor,
+        final boolean incremental
+    ) throws IOException {
+        return readReferenceAndIntervalsSize(inputBitStream, listIndex, valueBitSize, cursor, incremental) +
+            inputBitStream.readDelta();
+    }
+
+    /**
+     * Reads the number of elements of the list with repeated and unsorted elements whose representation starts at the
+     * current position of <code>inputBitStream</code>, after the size header when there is one, without decoding its
+     * elements (see {@link #readValuesSize(InputBitStream, int, int, InputBitCursor, boolean)}). The cursor of
+     * <code>inputBitStream</code> is left on the first index of the list.
+     * @param inputBitStream stream positioned on the beginning of the representation.
+     * @param listIndex index of list.
+     * @param valueBitSize fixed number of bits used to represent the values of the lists.
+     * @param cursor cursor whose next cursor is used to read the reference.
+     * @return number of elements of the list.
+     * @throws IOException in case there is an exception reading the list.
+     */
+    public int readListSize(
+        final InputBitStream inputBitStream,
+        final int listIndex,
+        final int valueBitSize,
+        final InputBitCursor cursor
+    ) throws IOException {
+        final int valuesSize = readReferenceAndIntervalsSize(inputBitStream, listIndex, valueBitSize, cursor, false) +
+            skipDeltaSection(inputBitStream, valueBitSize);
+        return inputBitStream.readDelta() + valuesSize;
+    }
+
     /**
      * Returns bits input stream that contains the compressed list of the given index <code>listIndex</code> with the
-     * cursor positioned on the beginning of the representation.
+     * cursor positioned on the beginning of the representation, after the size header when there is one. The returned
+     * stream is a new input bit stream (see {@link #getListInputBitStream(int)}).
      * @param listIndex index of list.
      * @return bits input stream that contains the compressed list of the given index <code>listIndex</code> with the
      * cursor positioned on the beginning of the representation.
      * @throws IOException in case there is an exception positioning the cursor in the beginning of the representation.
      */
     public InputBitStream getInputBitStream(final int listIndex) throws IOException {
-        final InputBitStream inputBitStream = new InputBitStream(get(listIndex));
-        inputBitStream.position(offset(listIndex));
+        final InputBitStream inputBitStream = getListInputBitStream(listIndex);
+        skipSizeHeader(inputBitStream);
+        return inputBitStream;
+    }
+
+    /**
+     * Returns bits input stream that contains the compressed list of the given index <code>listIndex</code> with the
+     * cursor positioned on the beginning of the representation, after the size header when there is one, reusing the
+     * given <code>cursor</code> instead of allocating a new input bit stream when the store is able to (see
+     * {@link #getListInputBitStream(int, InputBitCursor)}).
+     * @param listIndex index of list.
+     * @param cursor cursor to reset on the beginning of the representation.
+     * @return bits input stream that contains the compressed list of the given index <code>listIndex</code> with the
+     * cursor positioned on the beginning of the representation.
+     * @throws IOException in case there is an exception positioning the cursor in the beginning of the representation.
+     */
+    public InputBitStream getInputBitStream(final int listIndex, final InputBitCursor cursor) throws IOException {
+        final InputBitStream inputBitStream = getListInputBitStream(listIndex, cursor);
+        skipSizeHeader(inputBitStream);
         return inputBitStream;
     }
 
+    /**
+     * Returns bits input stream that contains the compressed list of the given index <code>listIndex</code> with the
+     * cursor positioned on the current position of <code>inputBitStream</code>, which is used to read a section of
+     * the representation without moving the cursor of <code>inputBitStream</code>. When <code>inputBitStream</code>
+     * is an {@link InputBitCursor} the returned stream is its fork for <code>section</code>, so no input bit stream is
+     * allocated.
+     * @param listIndex index of list.
+     * @param inputBitStream stream positioned on the beginning of the section.
+     * @param section section of the representation, as defined by {@link InputBitCursor}.
+     * @return bits input stream that contains the compressed list of the given index <code>listIndex</code> with the
+     * cursor positioned on the current position of <code>inputBitStream</code>.
+     * @throws IOException in case there is an exception positioning the cursor.
+     */
+    public InputBitStream getInputBitStream(
+        final int listIndex,
+        final InputBitStream inputBitStream,
+        final int section
+    ) throws IOException {
+        if (inputBitStream instanceof InputBitCursor) {
+            return ((InputBitCursor) inputBitStream).fork(section);
+        }
+        final InputBitStream sectionInputBitStream = new InputBitStream(get(listIndex));
+        sectionInputBitStream.position(inputBitStream.position());
+        return sectionInputBitStream;
+    }
+
+    private int readUniqueSize(
+        final int listIndex,
+        final int valueBitSize,
+        final InputBitCursor cursor,
+        final boolean incremental
+    ) throws IOException {
+        final InputBitStream inputBitStream = getInputBitStream(listIndex, cursor);
+        if (incremental) {
+            inputBitStream.skipDeltas(inputBitStream.readDelta() * 2);
+        }
+        return readValuesSize(inputBitStream, listIndex, valueBitSize, cursor, incremental);
+    }
+
+    private int readReferenceAndIntervalsSize(
+        final InputBitStream inputBitStream,
+        final int listIndex,
+        final int valueBitSize,
+        final InputBitCursor cursor,
+        final boolean incremental
+    ) throws IOException {
+        int size = 0;
+        final int referenceIndex = inputBitStream.readDelta();
+        if (referenceIndex > 0) {
+            final int blocks = inputBitStream.readDelta();
+            boolean copy = inputBitStream.readBit() == 0;
+            int position = 0;
+            int length;
+            for (int i = 0; i < blocks; i++) {
+                copy = !copy;
+                length = inputBitStream.readDelta() + 1;
+                if (copy) {
+                    size += length;
+                }
+                position += length;
+            }
+            if (!copy) {
+                size += readUniqueSize(listIndex - referenceIndex, valueBitSize, cursor.getNext(), incremental) -
+                    position;
+            }
+        }
+        final int intervals = inputBitStream.readDelta();
+        if (intervals == 0) {
+            return size;
+        }
+        final int samples = SkipIndexParameters.getNumberOfSamples(
+            intervals,
+            skipIndexParameters.readSamplingRate(inputBitStream, intervals)
+        );
+        if (samples > 0) {
+            final int entriesLength = inputBitStream.readDelta();
+            final int elements = inputBitStream.readDelta();
+            inputBitStream.skip(
+                (long) samples * (valueBitSize + Fast.length(elements) + Fast.length(entriesLength)) + entriesLength
+            );
+            return size + elements;
+        }
+        inputBitStream.skip((long) valueBitSize);
+        for (int i = 0; i < intervals; i++) {
+            if (i > 0) {
+                inputBitStream.skipDeltas(1);
+            }
+            size += inputBitStream.readDelta() + minIntervalSize;
+        }
+        return size;
+    }
+
+    private int skipDeltaSection(final InputBitStream inputBitStream, final int valueBitSize) throws IOException {
+        final int size = inputBitStream.readDelta();
+        if (size == 0) {
+            return size;
+        }
+        final int samples = SkipIndexParameters.getNumberOfSamples(
+            size,
+            skipIndexParameters.readSamplingRate(inputBitStream, size)
+        );
+        if (samples > 0) {
+            final int entriesLength = inputBitStream.readDelta();
+            inputBitStream.skip((long) samples * (valueBitSize + Fast.length(entriesLength)) + entriesLength);
+        } else {
+            inputBitStream.skip((long) valueBitSize);
+            inputBitStream.skipDeltas(size - 1);
+        }
+        return size;
+    }
+
+    /**
+     * Skips the size header of the list that starts at the current position of <code>inputBitStream</code>, when the
+     * compressed lists have size header.
+     * @param inputBitStream stream positioned on the beginning of the representation.
+     * @throws IOException in case there is an exception reading the size header.
+     */
+    protected void skipSizeHeader(final InputBitStream inputBitStream) throws IOException {
+        if (sizeHeader) {
+            inputBitStream.readDelta();
+        }
+    }
+
+    /**
+     * Returns a new bits input stream that contains the compressed list of the given index <code>listIndex</code>
+     * with the cursor positioned on the beginning of the representation, before the size header when there is one.
+     * By default the stream is a new {@link InputBitCursor} reset on {@link #get(int)} and {@link #offset(int)}, so
+     * the sections of the list are read through its forks.
+     * @param listIndex index of list.
+     * @return new bits input stream positioned on the beginning of the representation.
+     * @throws IOException in case there is an exception positioning the cursor in the beginning of the representation.
+     */
+    protected InputBitStream getListInputBitStream(final int listIndex) throws IOException {
+        return getListInputBitStream(listIndex, new InputBitCursor());
+    }
+
+    /**
+     * Returns bits input stream that contains the compressed list of the given index <code>listIndex</code> with the
+     * cursor positioned on the beginning of the representation, before the size header when there is one. By default
+     * <code>cursor</code> is reset on {@link #get(int)} and {@link #offset(int)}.
+     * @param listIndex index of list.
+     * @param cursor cursor to reset on the beginning of the representation.
+     * @return bits input stream positioned on the beginning of the representation.
+     * @throws IOException in case there is an exception positioning the cursor in the beginning of the representation.
+     */
+    public InputBitStream getListInputBitStream(final int listIndex, final InputBitCursor cursor)
+        throws IOException {
+        cursor.reset(get(listIndex), offset(listIndex));
+        return cursor;
+    }
+
     /**
      * Gets the bytes array which contains the data of the compressed list associated with <code>listIndex</code>.
      * @param listIndex index of list.
@@ -0,0 +1,205 @@
+package org.pebble.core.decoding.ints;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.decoding.iterators.ints.IncrementalListIterator;
+import org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator;
+
+import java.io.IOException;
+
+/**
+ * Gives random access to single elements of compressed strictly incremental and incremental lists of
+ * <code>int</code>s without decoding the whole lists. Lookups by value move the list iterators with
+ * {@link org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator#advance(int) advance}, which jumps
+ * over whole intervals, reference blocks and, when the lists have skip index, sampled positions. Lookups by position
+ * skip the elements with
+ * {@link org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator#skip(int) skip}, which jumps over the
+ * elements of the intervals at once. Sizes are read from the size header of the lists when they have one, otherwise
+ * they are computed from the headers of the sections and the lengths of the intervals and reference blocks.
+ *
+ * <p>The accessor reuses its internal cursors across calls, so it is not thread safe. Every thread should use its own
+ * accessor.</p>
+ */
+public class IntListsAccessor {
+
+    private final int valueBitSize;
+    private final PebbleBytesStore bytesStore;
+    private final InputBitCursor cursor;
+
+    /**
+     * Initializes an accessor of the lists stored at <code>bytesStore</code>.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     */
+    public IntListsAccessor(final int valueBitSize, final PebbleBytesStore bytesStore) {
+        this.valueBitSize = valueBitSize;
+        this.bytesStore = bytesStore;
+        cursor = new InputBitCursor();
+    }
+
+    /**
+     * Gets the element at <code>position</code> of the strictly incremental list associated with
+     * <code>listIndex</code>, which is also the element of rank <code>position</code>.
+     * @param listIndex index of the strictly incremental list.
+     * @param position zero based position of the element on the list.
+     * @return the element at <code>position</code>.
+     * @throws IOException when there is an exception reading the list.
+     * @throws IndexOutOfBoundsException when <code>position</code> is negative or not smaller than the list size.
+     */
+    public int get(final int listIndex, final int position) throws IOException {
+        return get(
+            StrictlyIncrementalListIterator.build(listIndex, valueBitSize, bytesStore, cursor),
+            listIndex,
+            position
+        );
+    }
+
+    /**
+     * Gets the element at <code>position</code> of the incremental list associated with <code>listIndex</code>,
+     * counting the repeated elements.
+     * @param listIndex index of the incremental list.
+     * @param position zero based position of the element on the list.
+     * @return the element at <code>position</code>.
+     * @throws IOException when there is an exception reading the list.
+     * @throws IndexOutOfBoundsException when <code>position</code> is negative or not smaller than the list size.
+     */
+    public int getIncremental(final int listIndex, final int position) throws IOException {
+        return get(IncrementalListIterator.build(listIndex, valueBitSize, bytesStore, cursor), listIndex, position);
+    }
+
+    /**
+     * Gets the number of elements smaller than <code>value</code> on the strictly incremental list associated with
+     * <code>listIndex</code>.
+     * @param listIndex index of the strictly incremental list.
+     * @param value value to rank.
+     * @return number of elements of the list smaller than <code>value</code>.
+     * @throws IOException when there is an exception reading the list.
+     */
+    public int rank(final int listIndex, final int value) throws IOException {
+        return StrictlyIncrementalListIterator.build(listIndex, valueBitSize, bytesStore, cursor).advance(value);
+    }
+
+    /**
+     * Gets the number of elements smaller than <code>value</code> on the incremental list associated with
+     * <code>listIndex</code>, counting the repeated elements.
+     * @param listIndex index of the incremental list.
+     * @param value value to rank.
+     * @return number of elements of the list smaller than <code>value</code>.
+     * @throws IOException when there is an exception reading the list.
+     */
+    public int rankIncremental(final int listIndex, final int value) throws IOException {
+        return IncrementalListIterator.build(listIndex, valueBitSize, bytesStore, cursor).advance(value);
+    }
+
+    /**
+     * Checks whether the strictly incremental list associated with <code>listIndex</code> contains
+     * <code>value</code>.
+     * @param listIndex index of the strictly incremental list.
+     * @param value value to look for.
+     * @return true when the list contains <code>value</code> and false whether not.
+     * @throws IOException when there is an exception reading the list.
+     */
+    public boolean contains(final int listIndex, final int value) throws IOException {
+        return value >= 0 &&
+            StrictlyIncrementalListIterator.build(listIndex, valueBitSize, bytesStore, cursor).skipTo(value) == value;
+    }
+
+    /**
+     * Checks whether the incremental list associated with <code>listIndex</code> contains <code>value</code>.
+     * @param listIndex index of the incremental list.
+     * @param value value to look for.
+     * @return true when the list contains <code>value</code> and false whether not.
+     * @throws IOException when there is an exception reading the list.
+     */
+    public boolean containsIncremental(final int listIndex, final int value) throws IOException {
+        return value >= 0 &&
+            IncrementalListIterator.build(listIndex, valueBitSize, bytesStore, cursor).skipTo(value) == value;
+    }
+
+    /**
+     * Gets the number of elements of the strictly incremental list associated with <code>listIndex</code>, without
+     * decoding its elements.
+     * @param listIndex index of the strictly incremental list.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the list.
+     */
+    public int size(final int listIndex) throws IOException {
+        if (bytesStore.hasSizeHeader()) {
+            return bytesStore.readSize(listIndex, cursor);
+        }
+        return bytesStore.readValuesSize(
+            bytesStore.getInputBitStream(listIndex, cursor),
+            listIndex,
+            valueBitSize,
+            cursor,
+            false
+        );
+    }
+
+    /**
+     * Gets the number of elements of the incremental list associated with <code>listIndex</code>, counting the
+     * repeated elements, without decoding its elements.
+     * @param listIndex index of the incremental list.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the list.
+     */
+    public int sizeIncremental(final int listIndex) throws IOException {
+        if (bytesStore.hasSizeHeader()) {
+            return bytesStore.readSize(listIndex, cursor);
+        }
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(listIndex, cursor);
+        int repeats = 0;
+        for (int i = inputBitStream.readDelta(); i > 0; i--) {
+            inputBitStream.skipDeltas(1);
+            repeats += inputBitStream.readDelta() + 1;
+        }
+        return repeats + bytesStore.readValuesSize(inputBitStream, listIndex, valueBitSize, cursor, true);
+    }
+
+    /**
+     * Gets the number of elements of the list associated with <code>listIndex</code>, without decoding its elements.
+     * @param listIndex index of the list.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the list.
+     */
+    public int sizeList(final int listIndex) throws IOException {
+        if (bytesStore.hasSizeHeader()) {
+            return bytesStore.readSize(listIndex, cursor);
+        }
+        return bytesStore.readListSize(
+            bytesStore.getInputBitStream(listIndex, cursor),
+            listIndex,
+            valueBitSize,
+            cursor
+        );
+    }
+
+    private static int get(final IntIterator iterator, final int listIndex, final int position) {
+        if (position < 0 || iterator.skip(position) < position || !iterator.hasNext()) {
+            throw new IndexOutOfBoundsException(
+                String.format("Position %d is out of bounds for list %d", position, listIndex)
+            );
+        }
+        return iterator.nextInt();
+    }
+
+}
@@ -0,0 +1,410 @@
+package org.pebble.core.decoding.ints;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.encoding.DefaultParametersValues;
+import org.pebble.core.encoding.SkipIndexParameters;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads compressed lists of <code>int</code>s sequentially, in the same order they were written, from a
+ * {@link org.pebble.core.decoding.PebbleBytesStore} or from an {@link java.io.InputStream} without random access.
+ * The sorted unique values of the last lists read are kept in a sliding window, and the reference of every list is
+ * copied from the window instead of being decoded again through its own chain of references, so reading all the
+ * lists takes time proportional to their total number of elements.
+ *
+ * <p>The window keeps the lists the same way the
+ * {@link org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore} used to encode them does: only the
+ * lists with at least <code>minListSize</code> values and no more than <code>maxRecursiveReferences</code> recursive
+ * references are kept, and every kept list overwrites the oldest one once <code>windowSize</code> lists are kept. When
+ * the window is built with the parameters of a store whose arena is growable, every reference is found on the window.
+ * When a list references a list out of the window, it is decoded from <code>bytesStore</code> as
+ * {@link IntListsDecoder} does, while reading from an input stream throws an
+ * {@link java.lang.IllegalStateException}.</p>
+ *
+ * <p>The reader reuses its internal buffers across calls, so it is not thread safe.</p>
+ */
+public class IntListsSequentialReader {
+
+    private final int windowSize;
+    private final int maxRecursiveReferences;
+    private final int minListSize;
+    private final int[][] window;
+    private final int[] windowSizes;
+    private final int[] windowListIndexes;
+    private final int[] windowRecursiveReferences;
+    private final Int2IntMap windowSlots;
+    private final InputBitStream inputBitStream;
+    private final SkipIndexParameters skipIndexParameters;
+    private final boolean sizeHeader;
+    private final int minIntervalSize;
+    private final WindowDecoder decoder;
+    private int listIndex;
+    private int nextSlot;
+
+    /**
+     * Initializes a reader of the lists stored at <code>bytesStore</code>, starting from the first list, which were
+     * encoded with {@link DefaultParametersValues#DEFAULT_MAX_RECURSIVE_REFERENCES} max recursive references and
+     * {@link DefaultParametersValues#DEFAULT_MIN_REFERENCE_LIST_SIZE} min reference list size.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param windowSize number of lists kept on the window to resolve the references.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @throws IllegalArgumentException when <code>windowSize</code> is not positive.
+     */
+    public IntListsSequentialReader(final int valueBitSize, final int windowSize, final PebbleBytesStore bytesStore) {
+        this(
+            valueBitSize,
+            windowSize,
+            DefaultParametersValues.DEFAULT_MAX_RECURSIVE_REFERENCES,
+            DefaultParametersValues.DEFAULT_MIN_REFERENCE_LIST_SIZE,
+            bytesStore
+        );
+    }
+
+    /**
+     * Initializes a reader of the lists stored at <code>bytesStore</code>, starting from the first list.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param windowSize number of lists kept on the window to resolve the references, which should be the size of
+     *                   the reference lists store used to encode the lists.
+     * @param maxRecursiveReferences maximum number of recursive references of the lists kept on the window, which
+     *                               should be the one of the reference lists store used to encode the lists.
+     * @param minListSize minimum size of the lists kept on the window, which should be the one of the reference lists
+     *                    store used to encode the lists.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @throws IllegalArgumentException when <code>windowSize</code> is not positive.
+     */
+    public IntListsSequentialReader(
+        final int valueBitSize,
+        final int windowSize,
+        final int maxRecursiveReferences,
+        final int minListSize,
+        final PebbleBytesStore bytesStore
+    ) {
+        this(
+            valueBitSize,
+            windowSize,
+            maxRecursiveReferences,
+            minListSize,
+            bytesStore,
+            null,
+            bytesStore.getSkipIndexParameters(),
+            false,
+            bytesStore.getMinIntervalSize()
+        );
+    }
+
+    /**
+     * Initializes a reader of the lists written to <code>inputStream</code> without size header, starting from the
+     * first list, which were encoded with {@link DefaultParametersValues#DEFAULT_MAX_RECURSIVE_REFERENCES} max
+     * recursive references and {@link DefaultParametersValues#DEFAULT_MIN_REFERENCE_LIST_SIZE} min reference list
+     * size.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param windowSize number of lists kept on the window to resolve the references.
+     * @param inputStream stream the compressed lists are read from.
+     * @param skipIndexParameters parameters of the skip index used to encode the lists.
+     * @throws IllegalArgumentException when <code>windowSize</code> is not positive.
+     */
+    public IntListsSequentialReader(
+        final int valueBitSize,
+        final int windowSize,
+        final InputStream inputStream,
+        final SkipIndexParameters skipIndexParameters
+    ) {
+        this(valueBitSize, windowSize, inputStream, skipIndexParameters, false);
+    }
+
+    /**
+     * Initializes a reader of the lists written to <code>inputStream</code>, starting from the first list, which were
+     * encoded with {@link DefaultParametersValues#DEFAULT_MAX_RECURSIVE_REFERENCES} max recursive references and
+     * {@link DefaultParametersValues#DEFAULT_MIN_REFERENCE_LIST_SIZE} min reference list size.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param windowSize number of lists kept on the window to resolve the references.
+     * @param inputStream stream the compressed lists are read from.
+     * @param skipIndexParameters parameters of the skip index used to encode the lists.
+     * @param sizeHeader whether the lists start with their number of elements or not.
+     * @throws IllegalArgumentException when <code>windowSize</code> is not positive.
+     */
+    public IntListsSequentialReader(
+        final int valueBitSize,
+        final int windowSize,
+        final InputStream inputStream,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader
+    ) {
+        this(
+            valueBitSize,
+            windowSize,
+            inputStream,
+            skipIndexParameters,
+            sizeHeader,
+            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE
+        );
+    }
+
+    /**
+     * Initializes a reader of the lists written to <code>inputStream</code>, starting from the first list, which were
+     * encoded with {@link DefaultParametersValues#DEFAULT_MAX_RECURSIVE_REFERENCES} max recursive references and
+     * {@link DefaultParametersValues#DEFAULT_MIN_REFERENCE_LIST_SIZE} min reference list size.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param windowSize number of lists kept on the window to resolve the references.
+     * @param inputStream stream the compressed lists are read from.
+     * @param skipIndexParameters parameters of the skip index used to encode the lists.
+     * @param sizeHeader whether the lists start with their number of elements or not.
+     * @param minIntervalSize min size of the intervals used to encode the lists.
+     * @throws IllegalArgumentException when <code>windowSize</code> or <code>minIntervalSize</code> are not positive.
+     */
+    public IntListsSequentialReader(
+        final int valueBitSize,
+        final int windowSize,
+        final InputStream inputStream,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader,
+        final int minIntervalSize
+    ) {
+        this(
+            valueBitSize,
+            windowSize,
+            DefaultParametersValues.DEFAULT_MAX_RECURSIVE_REFERENCES,
+            DefaultParametersValues.DEFAULT_MIN_REFERENCE_LIST_SIZE,
+            inputStream,
+            skipIndexParameters,
+            sizeHeader,
+            minIntervalSize
+        );
+    }
+
+    /**
+     * Initializes a reader of the lists written to <code>inputStream</code>, starting from the first list.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param windowSize number of lists kept on the window to resolve the references, which must be the size of the
+     *                   reference lists store used to encode the lists.
+     * @param maxRecursiveReferences maximum number of recursive references of the lists kept on the window, which
+     *                               must be the one of the reference lists store used to encode the lists.
+     * @param minListSize minimum size of the lists kept on the window, which must be the one of the reference lists
+     *                    store used to encode the lists.
+     * @param inputStream stream the compressed lists are read from.
+     * @param skipIndexParameters parameters of the skip index used to encode the lists.
+     * @param sizeHeader whether the lists start with their number of elements or not.
+     * @param minIntervalSize min size of the intervals used to encode the lists.
+     * @throws IllegalArgumentException when <code>windowSize</code> or <code>minIntervalSize</code> are not positive.
+     */
+    public IntListsSequentialReader(
+        final int valueBitSize,
+        final int windowSize,
+        final int maxRecursiveReferences,
+        final int minListSize,
+        final InputStream inputStream,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader,
+        final int minIntervalSize
+    ) {
+        this(
+            valueBitSize,
+            windowSize,
+            maxRecursiveReferences,
+            minListSize,
+            null,
+            new InputBitStream(inputStream),
+            skipIndexParameters,
+            sizeHeader,
+            minIntervalSize
+        );
+    }
+
+    private IntListsSequentialReader(
+        final int valueBitSize,
+        final int windowSize,
+        final int maxRecursiveReferences,
+        final int minListSize,
+        final PebbleBytesStore bytesStore,
+        final InputBitStream inputBitStream,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader,
+        final int minIntervalSize
+    ) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException(String.format("Window size must be positive, found %d", windowSize));
+        }
+        if (minIntervalSize <= 0) {
+            throw new IllegalArgumentException(
+                String.format("Min interval size must be positive, found %d", minIntervalSize)
+            );
+        }
+        this.windowSize = windowSize;
+        this.maxRecursiveReferences = maxRecursiveReferences;
+        this.minListSize = minListSize;
+        window = new int[windowSize][];
+        windowSizes = new int[windowSize];
+        windowListIndexes = new int[windowSize];
+        windowRecursiveReferences = new int[windowSize];
+        windowSlots = new Int2IntOpenHashMap(windowSize);
+        windowSlots.defaultReturnValue(-1);
+        for (int i = 0; i < windowSize; i++) {
+            window[i] = IntArrays.EMPTY_ARRAY;
+            windowListIndexes[i] = -1;
+        }
+        this.inputBitStream = inputBitStream;
+        this.skipIndexParameters = skipIndexParameters;
+        this.sizeHeader = sizeHeader;
+        this.minIntervalSize = minIntervalSize;
+        decoder = new WindowDecoder(valueBitSize, bytesStore);
+    }
+
+    /**
+     * Gets the index of the next list to be read.
+     * @return index of the next list to be read.
+     */
+    public int getListIndex() {
+        return listIndex;
+    }
+
+    /**
+     * Reads the next list, which must be a strictly incremental list, into <code>dst</code>.
+     * @param dst array where the elements of the list are written.
+     * @param from position of <code>dst</code> where the first element of the list is written.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the compressed list.
+     * @throws ArrayIndexOutOfBoundsException when <code>dst</code> doesn't have room for all the elements.
+     */
+    public int readStrictlyIncrementalList(final int[] dst, final int from) throws IOException {
+        final int size = decoder.decodeStrictlyIncrementalList(listIndex, dst, from);
+        listIndex++;
+        return size;
+    }
+
+    /**
+     * Reads the next list, which must be an incremental list, into <code>dst</code>.
+     * @param dst array where the elements of the list are written.
+     * @param from position of <code>dst</code> where the first element of the list is written.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the compressed list.
+     * @throws ArrayIndexOutOfBoundsException when <code>dst</code> doesn't have room for all the elements.
+     */
+    public int readIncrementalList(final int[] dst, final int from) throws IOException {
+        final int size = decoder.decodeIncrementalList(listIndex, dst, from);
+        listIndex++;
+        return size;
+    }
+
+    /**
+     * Reads the next list, which must be a list, into <code>dst</code>.
+     * @param dst array where the elements of the list are written.
+     * @param from position of <code>dst</code> where the first element of the list is written.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the compressed list.
+     * @throws ArrayIndexOutOfBoundsException when <code>dst</code> doesn't have room for all the elements.
+     */
+    public int readList(final int[] dst, final int from) throws IOException {
+        final int size = decoder.decodeList(listIndex, dst, from);
+        listIndex++;
+        return size;
+    }
+
+    private class WindowDecoder extends IntListsDecoder {
+
+        private int recursiveReferences;
+
+        private WindowDecoder(final int valueBitSize, final PebbleBytesStore bytesStore) {
+            super(valueBitSize, bytesStore);
+        }
+
+        @Override
+        InputBitStream getInputBitStream(final int listIndex) throws IOException {
+            if (inputBitStream == null) {
+                return super.getInputBitStream(listIndex);
+            }
+            if (sizeHeader) {
+                inputBitStream.readDelta();
+            }
+            return inputBitStream;
+        }
+
+        @Override
+        SkipIndexParameters getSkipIndexParameters() {
+            return skipIndexParameters;
+        }
+
+        @Override
+        int getMinIntervalSize() {
+            return minIntervalSize;
+        }
+
+        @Override
+        int readReference(
+            final int referenceListIndex,
+            final InputBitCursor cursor,
+            final int depth,
+            final boolean incremental
+        ) throws IOException {
+            final int slot = depth == 1 ? windowSlots.get(referenceListIndex) : -1;
+            if (slot >= 0) {
+                final int size = windowSizes[slot];
+                System.arraycopy(window[slot], 0, getReference(depth, size), 0, size);
+                recursiveReferences = windowRecursiveReferences[slot] + 1;
+                return size;
+            }
+            if (inputBitStream != null) {
+                throw new IllegalStateException(
+                    String.format(
+                        "List %d references list %d, which is out of the window of %d lists",
+                        listIndex,
+                        referenceListIndex,
+                        windowSize
+                    )
+                );
+            }
+            recursiveReferences = Math.max(recursiveReferences, depth);
+            return super.readReference(referenceListIndex, cursor, depth, incremental);
+        }
+
+        @Override
+        void decoded(final int[] values, final int from, final int size) {
+            if (recursiveReferences <= maxRecursiveReferences && minListSize <= size) {
+                final int slot = nextSlot;
+                if (windowListIndexes[slot] >= 0) {
+                    windowSlots.remove(windowListIndexes[slot]);
+                }
+                if (window[slot].length < size) {
+                    window[slot] = new int[size];
+                }
+                System.arraycopy(values, from, window[slot], 0, size);
+                windowSizes[slot] = size;
+                windowListIndexes[slot] = listIndex;
+                windowRecursiveReferences[slot] = recursiveReferences;
+                windowSlots.put(listIndex, slot);
+                nextSlot = (slot + 1) % windowSize;
+            }
+            recursiveReferences = 0;
+        }
+
+    }
+
+}
@@ -17,6 +17,8 @@ package org.pebble.core.decoding.iterators.ints;
  */
 
 import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.DecodingMetrics;
+import org.pebble.core.encoding.SkipIndexParameters;
 
 import java.io.IOException;
 
@@ -27,6 +29,8 @@ import java.io.IOException;
  */
 class DeltaIterator extends CompressionIterator {
 
+    private final int size;
+
     /**
      * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
      *                     between 1bit and 31 bits.
@@ -34,14 +38,31 @@ class DeltaIterator extends CompressionIterator {
      * @throws IOException when there is an exception reading from <code>inputBitStream</code>.
      */
     public DeltaIterator(final int valueBitSize, final InputBitStream inputBitStream) throws IOException {
-        super(inputBitStream);
+        this(valueBitSize, inputBitStream, SkipIndexParameters.DISABLED, DecodingMetrics.NO_OP);
+    }
+
+    /**
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param inputBitStream input bit stream used to read the compressed list representation.
+     * @param skipIndexParameters parameters of the skip index used to encode the list.
+     * @param decodingMetrics metrics the jumps through the skip index are reported into.
+     * @throws IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public DeltaIterator(
+        final int valueBitSize,
+        final InputBitStream inputBitStream,
+        final SkipIndexParameters skipIndexParameters,
+        final DecodingMetrics decodingMetrics
+    ) throws IOException {
+        super(inputBitStream, valueBitSize, false, skipIndexParameters, decodingMetrics);
+        size = remainingElements;
         if (remainingElements > 0) {
             currentValue = inputBitStream.readInt(valueBitSize);
             remainingElements--;
         } else {
             currentValue = -1;
         }
-        recordOffset();
     }
 
     /**
@@ -51,14 +72,43 @@ class DeltaIterator extends CompressionIterator {
     public int next() throws IOException {
         value = currentValue;
         if (remainingElements > 0) {
-            seek();
             currentValue = inputBitStream.readDelta() + value + 1;
             remainingElements--;
-            recordOffset();
         } else {
             currentValue = -1;
         }
         return value;
     }
 
+    /**
+     * Moves the iteration to the first element greater or equal than <code>target</code>, reading the run of deltas
+     * before it without returning its elements. When the list has skip index, the iteration jumps first to the last
+     * sampled element not greater than <code>target</code>.
+     * @param target value to move the iteration to.
+     * @return number of skipped elements.
+     * @throws IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public int advance(final int target) throws IOException {
+        int skipped = 0;
+        if (samples > 0 && currentValue != -1 && currentValue < target) {
+            final int entry = size - remainingElements - 1;
+            final int sample = findSample(entry, target);
+            if (sample > 0) {
+                final int rank = seekSample(sample);
+                skipped = rank - entry;
+                remainingElements = size - rank - 1;
+            }
+        }
+        while (currentValue != -1 && currentValue < target) {
+            skipped++;
+            if (remainingElements > 0) {
+                currentValue = inputBitStream.readDelta() + currentValue + 1;
+                remainingElements--;
+            } else {
+                currentValue = -1;
+            }
+        }
+        return skipped;
+    }
+
 }
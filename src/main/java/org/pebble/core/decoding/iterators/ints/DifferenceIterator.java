@@ -0,0 +1,109 @@
+package org.pebble.core.decoding.iterators.ints;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import org.pebble.core.decoding.PebbleBytesStore;
+
+import java.io.IOException;
+
+/**
+ * Iterator over the elements of a compressed list of <code>int</code>s that are not contained in any of the other
+ * given lists. The subtracted lists are only moved up to the next candidate element of the first list, and when the
+ * candidate is inside an interval of a subtracted list, the first list is moved past the whole interval at once.
+ * Runs of consecutive elements of the first list that don't reach the next element of the subtracted lists are
+ * returned without reading the lists.
+ */
+public class DifferenceIterator extends ListsOperationIterator {
+
+    private DifferenceIterator(final BaseListIterator[] iterators) {
+        super(iterators);
+        moveTo(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void moveTo(final int target) {
+        int candidate = target;
+        while (true) {
+            if (heads[0] != -1 && heads[0] < candidate) {
+                heads[0] = iterators[0].skipTo(candidate);
+            }
+            final int value = heads[0];
+            if (value == -1) {
+                currentValue = -1;
+                return;
+            }
+            int coveredEnd = -1;
+            int nextExcluded = Integer.MAX_VALUE;
+            for (int i = 1; i < iterators.length; i++) {
+                if (heads[i] != -1 && heads[i] < value) {
+                    heads[i] = iterators[i].skipTo(value);
+                }
+                if (heads[i] == value) {
+                    coveredEnd = Math.max(coveredEnd, iterators[i].getRunEnd(value));
+                } else if (heads[i] != -1) {
+                    nextExcluded = Math.min(nextExcluded, heads[i]);
+                }
+            }
+            if (coveredEnd == -1) {
+                currentValue = value;
+                runEnd = Math.min(iterators[0].getRunEnd(value), nextExcluded - 1);
+                return;
+            }
+            candidate = coveredEnd + 1;
+        }
+    }
+
+    /**
+     * Builds the iterator over the elements of the first given strictly incremental list that are not contained in
+     * any of the rest of given lists.
+     * @param listIndices indices of the lists, starting with the list to subtract the rest of lists from.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @return built instance.
+     * @throws IOException when there is an exception reading from <code>bytesStore</code>.
+     */
+    public static DifferenceIterator build(
+        final int[] listIndices,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore
+    ) throws IOException {
+        return new DifferenceIterator(getStrictlyIncrementalListIterators(listIndices, valueBitSize, bytesStore));
+    }
+
+    /**
+     * Builds the iterator over the distinct elements of the first given incremental list that are not contained in
+     * any of the rest of given lists.
+     * @param listIndices indices of the lists, starting with the list to subtract the rest of lists from.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @return built instance.
+     * @throws IOException when there is an exception reading from <code>bytesStore</code>.
+     */
+    public static DifferenceIterator buildIncremental(
+        final int[] listIndices,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore
+    ) throws IOException {
+        return new DifferenceIterator(getIncrementalListIterators(listIndices, valueBitSize, bytesStore));
+    }
+
+}
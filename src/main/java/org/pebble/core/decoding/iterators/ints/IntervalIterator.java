@@ -17,6 +17,8 @@ package org.pebble.core.decoding.iterators.ints;
  */
 
 import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.DecodingMetrics;
+import org.pebble.core.encoding.SkipIndexParameters;
 
 import java.io.IOException;
 
@@ -29,6 +31,8 @@ class IntervalIterator extends CompressionIterator {
 
     private final int minIntervalSize;
     private int remainingIntervals;
+    private final int size;
+    private int rank;
 
     /**
      * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
@@ -42,7 +46,27 @@ class IntervalIterator extends CompressionIterator {
         final int minIntervalSize,
         final InputBitStream inputBitStream
     ) throws IOException {
-        super(inputBitStream);
+        this(valueBitSize, minIntervalSize, inputBitStream, SkipIndexParameters.DISABLED, DecodingMetrics.NO_OP);
+    }
+
+    /**
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param minIntervalSize min interval size to be encoded as interval.
+     * @param inputBitStream input bit stream used to read the compressed list representation.
+     * @param skipIndexParameters parameters of the skip index used to encode the intervals.
+     * @param decodingMetrics metrics the jumps through the skip index are reported into.
+     * @throws IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public IntervalIterator(
+        final int valueBitSize,
+        final int minIntervalSize,
+        final InputBitStream inputBitStream,
+        final SkipIndexParameters skipIndexParameters,
+        final DecodingMetrics decodingMetrics
+    ) throws IOException {
+        super(inputBitStream, valueBitSize, true, skipIndexParameters, decodingMetrics);
+        size = remainingElements;
         this.minIntervalSize = minIntervalSize;
         if (remainingElements > 0) {
             currentValue = inputBitStream.readInt(valueBitSize);
@@ -52,7 +76,6 @@ class IntervalIterator extends CompressionIterator {
             currentValue = -1;
             remainingIntervals = 0;
         }
-        recordOffset();
     }
 
     /**
@@ -61,19 +84,84 @@ class IntervalIterator extends CompressionIterator {
     @Override
     public int next() throws IOException {
         value = currentValue;
+        rank++;
         if (remainingIntervals > 0) {
             currentValue++;
             remainingIntervals--;
         } else if (remainingElements > 0) {
-            seek();
             currentValue = inputBitStream.readDelta() + value + 2;
             remainingIntervals = inputBitStream.readDelta() + minIntervalSize - 1;
             remainingElements--;
-            recordOffset();
         } else {
             currentValue = -1;
         }
         return value;
     }
 
+    /**
+     * Moves the iteration to the first element greater or equal than <code>target</code>, jumping over the whole
+     * intervals that end before it without iterating their elements. When the intervals have skip index, the
+     * iteration jumps first to the last sampled interval that doesn't start after <code>target</code>.
+     * @param target value to move the iteration to.
+     * @return number of skipped elements.
+     * @throws IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public int advance(final int target) throws IOException {
+        int skipped = 0;
+        if (samples > 0 && currentValue != -1 && currentValue + remainingIntervals < target) {
+            final int sample = findSample(size - remainingElements - 1, target);
+            if (sample > 0) {
+                skipped = seekSample(sample) - rank;
+                remainingIntervals = inputBitStream.readDelta() + minIntervalSize - 1;
+                remainingElements = size - getSampleEntry(sample) - 1;
+            }
+        }
+        while (currentValue != -1 && currentValue < target) {
+            if (currentValue + remainingIntervals >= target) {
+                skipped += target - currentValue;
+                remainingIntervals -= target - currentValue;
+                currentValue = target;
+            } else {
+                skipped += remainingIntervals + 1;
+                value = currentValue + remainingIntervals;
+                if (remainingElements > 0) {
+                    currentValue = inputBitStream.readDelta() + value + 2;
+                    remainingIntervals = inputBitStream.readDelta() + minIntervalSize - 1;
+                    remainingElements--;
+                } else {
+                    currentValue = -1;
+                    remainingIntervals = 0;
+                }
+            }
+        }
+        rank += skipped;
+        return skipped;
+    }
+
+    /**
+     * Skips up to <code>elements</code> elements of the interval the iteration is currently in, without moving to
+     * the next interval, so the skipped elements are neither iterated nor read.
+     * @param elements max number of elements to skip.
+     * @return number of skipped elements.
+     */
+    int skip(final int elements) {
+        final int skipped = Math.min(elements, remainingIntervals);
+        currentValue += skipped;
+        remainingIntervals -= skipped;
+        rank += skipped;
+        return skipped;
+    }
+
+    /**
+     * Gets the last element of the run of consecutive elements that starts at <code>value</code>, where
+     * <code>value</code> is the last element returned by the iteration. When the iteration continues inside an
+     * interval right after <code>value</code>, the run ends with the interval, otherwise the run is just
+     * <code>value</code>.
+     * @param value last element returned by the iteration.
+     * @return last element of the run of consecutive elements that starts at <code>value</code>.
+     */
+    int getRunEnd(final int value) {
+        return currentValue == value + 1 ? currentValue + remainingIntervals : value;
+    }
+
 }
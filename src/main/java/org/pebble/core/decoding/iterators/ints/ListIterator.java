@@ -16,11 +16,10 @@ package org.pebble.core.decoding.iterators.ints;
  *  limitations under the License.
  */
 
-import it.unimi.dsi.fastutil.ints.IntArrayList;
-import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.InputBitCursor;
 import org.pebble.core.decoding.PebbleBytesStore;
-import org.pebble.core.encoding.DefaultParametersValues;
 
 import java.io.IOException;
 
@@ -28,30 +27,33 @@ import java.io.IOException;
  * Iterator over a compressed list of <code>int</code>s. See
  * {@link org.pebble.core.encoding.OutputSuccinctStream#writeList(it.unimi.dsi.fastutil.ints.IntList, int, int, org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore) writeList}
  * for details regarding the compressed representation.
+ *
+ * <p>The sorted unique values of the list are decoded into a scratch buffer, which can be provided by the caller and
+ * reused across iterators through {@link #getBuffer()}. The values are decoded lazily, only up to the greatest index
+ * referenced so far. The number of elements of the list, needed to know where the iteration ends, is read from the
+ * size header when the lists have one, otherwise it is computed from the headers of the sections of the values (see
+ * {@link PebbleBytesStore#readListSize(InputBitStream, int, int, InputBitCursor)}).</p>
  */
 public class ListIterator extends StrictlyIncrementalListIterator {
 
-    private int index;
     private int remainingElements;
     private int lastIndex;
-    private final IntList valuesMap;
+    private int[] values;
+    private int decodedValues;
 
     private ListIterator(
         final int listIndex,
         final int valueBitSize,
         final int minIntervalSize,
         final InputBitStream inputBitStream,
-        final PebbleBytesStore bytesStore
+        final PebbleBytesStore bytesStore,
+        final int size,
+        final int[] buffer
     ) throws IOException {
         super(listIndex, valueBitSize, minIntervalSize, inputBitStream, bytesStore);
-        final long offset = inputBitStream.position();
-        valuesMap = new IntArrayList();
-        int value;
-        while ((value = super.nextInt()) != -1) {
-            valuesMap.add(value);
-        }
-        inputBitStream.position(offset);
-        remainingElements = inputBitStream.readDelta() + valuesMap.size();
+        values = buffer;
+        inputBitStream.readDelta();
+        remainingElements = size;
         lastIndex = 0;
     }
 
@@ -62,14 +64,12 @@ public class ListIterator extends StrictlyIncrementalListIterator {
     public int nextInt() {
         try {
             if (hasNext()) {
-                remainingElements--;
-                index = inputBitStream.readDelta();
-                if ((index & 1) == 0) {
-                    lastIndex = index / 2 + lastIndex;
-                    return valuesMap.get(lastIndex);
+                readIndex();
+                if (lastIndex >= decodedValues) {
+                    decodeValues(lastIndex + 1);
                 }
-                lastIndex = lastIndex - (index + 1) / 2;
-                return valuesMap.get(lastIndex);
+                decodingMetrics.onElementReturned();
+                return values[lastIndex];
             }
         } catch (IOException e) {
             throw new IllegalStateException(e);
@@ -77,6 +77,50 @@ public class ListIterator extends StrictlyIncrementalListIterator {
         return -1;
     }
 
+    /**
+     * Writes the remaining elements of the iteration into <code>dst</code>, starting at position <code>from</code>.
+     * @param dst array where the elements are written.
+     * @param from position of <code>dst</code> where the first element is written.
+     * @return number of written elements.
+     */
+    public int nextInts(final int[] dst, final int from) {
+        int position = from;
+        while (hasNext()) {
+            dst[position++] = nextInt();
+        }
+        return position - from;
+    }
+
+    /**
+     * Gets the scratch buffer where the unique values of the list are decoded, which is the buffer given to the
+     * builder unless it was too small, so it can be reused to build the next iterator.
+     * @return scratch buffer where the unique values of the list are decoded.
+     */
+    public int[] getBuffer() {
+        return values;
+    }
+
+    private void readIndex() throws IOException {
+        remainingElements--;
+        final int index = inputBitStream.readDelta();
+        if ((index & 1) == 0) {
+            lastIndex = index / 2 + lastIndex;
+        } else {
+            lastIndex = lastIndex - (index + 1) / 2;
+        }
+    }
+
+    private void decodeValues(final int size) {
+        values = IntArrays.grow(values, size);
+        int value;
+        while (decodedValues < size) {
+            if ((value = decodeNextInt()) == -1) {
+                throw new IllegalStateException(String.format("Index %d is out of the unique values", lastIndex));
+            }
+            values[decodedValues++] = value;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -85,6 +129,49 @@ public class ListIterator extends StrictlyIncrementalListIterator {
         return remainingElements > 0;
     }
 
+    /**
+     * The elements of the list are not sorted, therefore the iteration can't be moved to a target value. If this
+     * method is invoked a {@link java.lang.UnsupportedOperationException} will be thrown.
+     * @param target ignored target.
+     * @return never returns.
+     */
+    @Override
+    public int skipTo(final int target) {
+        throw new UnsupportedOperationException("The list is not sorted");
+    }
+
+    /**
+     * The elements of the list are not sorted, therefore the iteration can't be moved to a target value. If this
+     * method is invoked a {@link java.lang.UnsupportedOperationException} will be thrown.
+     * @param target ignored target.
+     * @return never returns.
+     */
+    @Override
+    public int advance(final int target) {
+        throw new UnsupportedOperationException("The list is not sorted");
+    }
+
+    /**
+     * This method skips <code>i</code> elements from current element on iteration, reading their indexes without
+     * decoding their values.
+     * @param i number of elements from current iteration position to be skipped.
+     * @return the actual number of skipped elements. When the remaining elements in the iterator is smaller than
+     * <code>i</code> only the remaining elements will be skipped.
+     */
+    @Override
+    public int skip(final int i) {
+        int n = 0;
+        try {
+            while (hasNext() && n < i) {
+                readIndex();
+                n++;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return n;
+    }
+
     /**
      * Instance builder.
      * @param listIndex index of the current list.
@@ -99,12 +186,67 @@ public class ListIterator extends StrictlyIncrementalListIterator {
         final int valueBitSize,
         final PebbleBytesStore bytesStore
     ) throws IOException {
+        return build(listIndex, valueBitSize, bytesStore, new InputBitCursor());
+    }
+
+    /**
+     * Instance builder that reads the list and its references through <code>cursor</code> and the cursors chained
+     * to it, instead of allocating new input bit streams.
+     * @param listIndex index of the current list.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @param cursor cursor used to read the list, owned by the caller until the iteration finishes.
+     * @return built instance.
+     * @throws IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public static ListIterator build(
+        final int listIndex,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore,
+        final InputBitCursor cursor
+    ) throws IOException {
+        return build(listIndex, valueBitSize, bytesStore, cursor, IntArrays.EMPTY_ARRAY);
+    }
+
+    /**
+     * Instance builder that reads the list and its references through <code>cursor</code> and the cursors chained
+     * to it, and decodes the unique values of the list into <code>buffer</code>, so iterating the list doesn't
+     * allocate memory as long as the buffer is big enough.
+     * @param listIndex index of the current list.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @param cursor cursor used to read the list, owned by the caller until the iteration finishes.
+     * @param buffer scratch buffer where the unique values of the list are decoded, owned by the iterator until the
+     *               iteration finishes.
+     * @return built instance.
+     * @throws IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public static ListIterator build(
+        final int listIndex,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore,
+        final InputBitCursor cursor,
+        final int[] buffer
+    ) throws IOException {
+        final InputBitStream inputBitStream = bytesStore.getListInputBitStream(listIndex, cursor);
+        final int size;
+        if (bytesStore.hasSizeHeader()) {
+            size = inputBitStream.readDelta();
+        } else {
+            final long position = inputBitStream.position();
+            size = bytesStore.readListSize(inputBitStream, listIndex, valueBitSize, cursor);
+            inputBitStream.position(position);
+        }
         return new ListIterator(
             listIndex,
             valueBitSize,
-            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE,
-            bytesStore.getInputBitStream(listIndex),
-            bytesStore
+            bytesStore.getMinIntervalSize(),
+            inputBitStream,
+            bytesStore,
+            size,
+            buffer
         );
     }
 
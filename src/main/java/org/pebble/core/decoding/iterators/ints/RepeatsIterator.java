@@ -17,6 +17,8 @@ package org.pebble.core.decoding.iterators.ints;
  */
 
 import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.decoding.PebbleBytesStore;
 
 import java.io.IOException;
 
@@ -40,13 +42,34 @@ class RepeatsIterator extends CompressionIterator {
             currentValue = inputBitStream.readDelta();
             repetitions = inputBitStream.readDelta() + 1;
             remainingElements--;
-            recordOffset();
         } else {
             currentValue = -1;
         }
         currentIndex = 0;
     }
 
+    /**
+     * Instance builder that reads the repetitions through their own input bit stream and moves the cursor of
+     * <code>inputBitStream</code> to the end of the repetitions.
+     * @param listIndex index of the current list.
+     * @param inputBitStream input bit stream positioned on the beginning of the repetitions.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @return built instance.
+     * @throws IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public static RepeatsIterator build(
+        final int listIndex,
+        final InputBitStream inputBitStream,
+        final PebbleBytesStore bytesStore
+    ) throws IOException {
+        final RepeatsIterator repeatsIterator = new RepeatsIterator(
+            bytesStore.getInputBitStream(listIndex, inputBitStream, InputBitCursor.REPEATS_SECTION)
+        );
+        inputBitStream.position(repeatsIterator.inputBitStream.position());
+        inputBitStream.skipDeltas(repeatsIterator.remainingElements * 2);
+        return repeatsIterator;
+    }
+
     /**
      * @return the number remaining elements of current iteration.
      */
@@ -63,13 +86,37 @@ class RepeatsIterator extends CompressionIterator {
             repetitions--;
             return 1;
         } else if (currentIndex >= currentValue && remainingElements > 0) {
-            seek();
             currentValue = inputBitStream.readDelta() + currentValue + 1;
             repetitions = inputBitStream.readDelta() + 1;
             remainingElements--;
-            recordOffset();
         }
         currentIndex++;
         return 0;
     }
+
+    /**
+     * Moves the iteration forward by <code>uniqueElements</code> distinct elements of the list, dropping the pending
+     * repetitions of the elements left behind.
+     * @param uniqueElements number of distinct elements to move the iteration forward.
+     * @return number of dropped repetitions.
+     * @throws IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public int skip(final int uniqueElements) throws IOException {
+        final int index = currentIndex + uniqueElements;
+        int skipped = 0;
+        while (currentValue < index) {
+            skipped += repetitions;
+            if (remainingElements > 0) {
+                currentValue = inputBitStream.readDelta() + currentValue + 1;
+                repetitions = inputBitStream.readDelta() + 1;
+                remainingElements--;
+            } else {
+                repetitions = 0;
+                break;
+            }
+        }
+        currentIndex = index;
+        return skipped;
+    }
+
 }
@@ -0,0 +1,93 @@
+package org.pebble.core.decoding.iterators.ints;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import org.pebble.core.decoding.PebbleBytesStore;
+
+import java.io.IOException;
+
+/**
+ * Iterator over the union of compressed lists of <code>int</code>s. Elements are merged from the lists in increasing
+ * order without repetitions. When the next element starts an interval of any of the lists, the whole interval is
+ * returned without reading the lists, and the lists are moved past it at once, so the elements of the other lists
+ * covered by the interval are skipped instead of being iterated.
+ */
+public class UnionIterator extends ListsOperationIterator {
+
+    private UnionIterator(final BaseListIterator[] iterators) {
+        super(iterators);
+        moveTo(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void moveTo(final int target) {
+        int value = -1;
+        for (int i = 0; i < iterators.length; i++) {
+            if (heads[i] != -1 && heads[i] < target) {
+                heads[i] = iterators[i].skipTo(target);
+            }
+            if (heads[i] != -1 && (value == -1 || heads[i] < value)) {
+                value = heads[i];
+            }
+        }
+        currentValue = value;
+        runEnd = value;
+        for (int i = 0; i < iterators.length; i++) {
+            if (heads[i] == value) {
+                runEnd = Math.max(runEnd, iterators[i].getRunEnd(value));
+            }
+        }
+    }
+
+    /**
+     * Builds the iterator over the union of the given strictly incremental lists.
+     * @param listIndices indices of the lists to merge.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @return built instance.
+     * @throws IOException when there is an exception reading from <code>bytesStore</code>.
+     */
+    public static UnionIterator build(
+        final int[] listIndices,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore
+    ) throws IOException {
+        return new UnionIterator(getStrictlyIncrementalListIterators(listIndices, valueBitSize, bytesStore));
+    }
+
+    /**
+     * Builds the iterator over the union of the distinct elements of the given incremental lists.
+     * @param listIndices indices of the lists to merge.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @return built instance.
+     * @throws IOException when there is an exception reading from <code>bytesStore</code>.
+     */
+    public static UnionIterator buildIncremental(
+        final int[] listIndices,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore
+    ) throws IOException {
+        return new UnionIterator(getIncrementalListIterators(listIndices, valueBitSize, bytesStore));
+    }
+
+}
@@ -18,6 +18,8 @@ package org.pebble.core.decoding.iterators.longs;
 
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.DecodingMetrics;
+import org.pebble.core.decoding.InputBitCursor;
 import org.pebble.core.decoding.PebbleBytesStore;
 
 import java.io.IOException;
@@ -47,12 +49,20 @@ abstract class BaseListIterator implements LongIterator {
      */
     protected final PebbleBytesStore bytesStore;
 
-    private final CompressionIterator referenceIt;
-    private final CompressionIterator intervalIt;
-    private final CompressionIterator deltaIt;
+    /**
+     * Metrics of <code>bytesStore</code> the iteration is reported into.
+     */
+    protected final DecodingMetrics decodingMetrics;
+
+    private final ReferenceIterator referenceIt;
+    private final IntervalIterator intervalIt;
+    private final DeltaIterator deltaIt;
 
     /**
-     * Initializes the iterators of each piece of the compressed representation of a list.
+     * Initializes the iterators of each piece of the compressed representation of a list. Every iterator reads its
+     * piece through its own input bit stream, so iterating never moves the cursor of the others, while the cursor of
+     * <code>inputBitStream</code> is left at the end of the last piece. The list is reported as opened into the metrics
+     * of <code>bytesStore</code> once its pieces are initialized.
      * <ul>
      *     <li>Reference iterator.</li>
      *     <li>Intervals iterator.</li>
@@ -77,12 +87,44 @@ abstract class BaseListIterator implements LongIterator {
         this.minIntervalSize = minIntervalSize;
         this.inputBitStream = inputBitStream;
         this.bytesStore = bytesStore;
-        referenceIt = initializeReferenceIterator(listIndex, inputBitStream);
-        inputBitStream.skipDeltas(referenceIt.remainingElements);
-        intervalIt = new IntervalIterator(valueBitSize, minIntervalSize, inputBitStream);
-        inputBitStream.skipDeltas(intervalIt.remainingElements * 2);
-        deltaIt = new DeltaIterator(valueBitSize, inputBitStream);
-        inputBitStream.skipDeltas(deltaIt.remainingElements);
+        decodingMetrics = bytesStore.getDecodingMetrics();
+        final long position = inputBitStream.position();
+        InputBitStream sectionInputBitStream =
+            bytesStore.getInputBitStream(listIndex, inputBitStream, InputBitCursor.REFERENCE_SECTION);
+        referenceIt = initializeReferenceIterator(listIndex, sectionInputBitStream);
+        skipSection(sectionInputBitStream, referenceIt, referenceIt.remainingElements);
+        sectionInputBitStream =
+            bytesStore.getInputBitStream(listIndex, inputBitStream, InputBitCursor.INTERVALS_SECTION);
+        intervalIt = new IntervalIterator(
+            valueBitSize,
+            minIntervalSize,
+            sectionInputBitStream,
+            bytesStore.getSkipIndexParameters(),
+            decodingMetrics
+        );
+        skipSection(sectionInputBitStream, intervalIt, intervalIt.remainingElements * 2);
+        sectionInputBitStream = bytesStore.getInputBitStream(listIndex, inputBitStream, InputBitCursor.DELTAS_SECTION);
+        deltaIt = new DeltaIterator(
+            valueBitSize,
+            sectionInputBitStream,
+            bytesStore.getSkipIndexParameters(),
+            decodingMetrics
+        );
+        skipSection(sectionInputBitStream, deltaIt, deltaIt.remainingElements);
+        decodingMetrics.onListOpened(listIndex, referenceIt.getReferenceLevels(), inputBitStream.position() - position);
+    }
+
+    private void skipSection(
+        final InputBitStream sectionInputBitStream,
+        final CompressionIterator iterator,
+        final int deltas
+    ) throws IOException {
+        if (iterator.samples > 0) {
+            inputBitStream.position(iterator.sectionEnd);
+        } else {
+            inputBitStream.position(sectionInputBitStream.position());
+            inputBitStream.skipDeltas(deltas);
+        }
     }
 
     /**
@@ -91,6 +133,19 @@ abstract class BaseListIterator implements LongIterator {
      */
     @Override
     public long nextLong() {
+        final long value = decodeNextLong();
+        if (value != -1L) {
+            decodingMetrics.onElementReturned();
+        }
+        return value;
+    }
+
+    /**
+     * Decodes the next element of the pieces of the compressed representation, without reporting it as returned into
+     * the metrics. When there is no more elements returns -1.
+     * @return the next decoded element.
+     */
+    protected long decodeNextLong() {
         try {
             if (
                 referenceIt.currentValue != -1L &&
@@ -133,7 +188,56 @@ abstract class BaseListIterator implements LongIterator {
     }
 
     /**
-     * This method skips <code>i</code> elements from current element on iteration.
+     * Moves the iteration to the first remaining element greater or equal than <code>target</code> and returns it.
+     * The intervals and the blocks of the reference that end before <code>target</code> are skipped without iterating
+     * their elements. When there is no such element returns -1.
+     * @param target value to move the iteration to.
+     * @return the first remaining element greater or equal than <code>target</code>, or -1 when there is none.
+     */
+    public long skipTo(final long target) {
+        try {
+            advance(target);
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception.getMessage());
+        }
+        return nextLong();
+    }
+
+    /**
+     * Gets the last element of the run of consecutive elements of the list that starts at <code>value</code>, where
+     * <code>value</code> is the last element returned by the iteration. The rest of the run can be skipped without
+     * iterating its elements.
+     * @param value last element returned by the iteration.
+     * @return last element of the run of consecutive elements that starts at <code>value</code>.
+     */
+    long getRunEnd(final long value) {
+        return intervalIt.getRunEnd(value);
+    }
+
+    /**
+     * Gets the length of the chain of references of the list, which is zero when the list has no reference.
+     * @return length of the chain of references of the list.
+     */
+    int getReferenceLevels() {
+        return referenceIt.getReferenceLevels();
+    }
+
+    /**
+     * Moves the iteration so the next element returned is the first remaining element greater or equal than
+     * <code>target</code>. The number of skipped elements is the rank of <code>target</code> on the list when the
+     * iteration hasn't started yet.
+     * @param target value to move the iteration to.
+     * @return number of skipped elements.
+     * @throws java.io.IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public int advance(final long target) throws IOException {
+        return referenceIt.advance(target) + intervalIt.advance(target) + deltaIt.advance(target);
+    }
+
+    /**
+     * This method skips <code>i</code> elements from current element on iteration. The intervals are runs of
+     * consecutive values, so no element of the reference or the deltas can fall inside them, and the remaining
+     * elements of the interval the iteration is in are skipped at once, without iterating them.
      * @param i number of elements from current iteration position to be skipped.
      * @return the actual number of skipped elements. When the remaining elements in the iterator is smaller than
      * <code>i</code> only the remaining elements will be skipped.
@@ -142,7 +246,14 @@ abstract class BaseListIterator implements LongIterator {
     public int skip(final int i) {
         int n = 0;
         while (hasNext() && n < i) {
-            nextLong();
+            if (
+                intervalIt.currentValue != -1L &&
+                (referenceIt.currentValue == -1L || intervalIt.currentValue < referenceIt.currentValue) &&
+                (deltaIt.currentValue == -1L || intervalIt.currentValue < deltaIt.currentValue)
+            ) {
+                n += intervalIt.skip(i - n - 1);
+            }
+            decodeNextLong();
             n++;
         }
         return n;
@@ -16,7 +16,10 @@ package org.pebble.core.decoding.iterators.longs;
  *  limitations under the License.
  */
 
+import it.unimi.dsi.bits.Fast;
 import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.DecodingMetrics;
+import org.pebble.core.encoding.SkipIndexParameters;
 
 import java.io.IOException;
 
@@ -26,7 +29,7 @@ import java.io.IOException;
 abstract class CompressionIterator {
 
     /**
-     * stream to read from.
+     * stream to read from, used only by this iterator, so its cursor is always positioned on the next element.
      */
     protected final InputBitStream inputBitStream;
 
@@ -46,9 +49,24 @@ abstract class CompressionIterator {
     protected int remainingElements;
 
     /**
-     * current offset of the cursor in the input stream.
+     * number of samples of the skip index of the section, zero when the section has no skip index.
      */
-    protected long offset;
+    protected int samples;
+
+    /**
+     * position in bits where the section ends, only available when the section has skip index.
+     */
+    protected long sectionEnd;
+
+    private int valueBitSize;
+    private int samplingRate;
+    private int rankBitSize;
+    private int offsetBitSize;
+    private long samplesPosition;
+    private long entriesPosition;
+    private int nextSample;
+    private long nextSampleValue;
+    private DecodingMetrics decodingMetrics = DecodingMetrics.NO_OP;
 
     /**
      * @param inputBitStream stream to read from.
@@ -61,20 +79,102 @@ abstract class CompressionIterator {
     }
 
     /**
-     * records internally the current position of the cursor at the <code>inputBitStream</code>. This is useful
-     * to come back to the current position to continue reading after reading other sections of
-     * <code>inputBitStream</code>.
+     * Reads the number of elements in the iteration and the header of the skip index of the section, when the section
+     * has one, leaving <code>inputBitStream</code> positioned on the first entry of the section.
+     * @param inputBitStream stream to read from.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @param ranked whether the samples of the skip index contain the number of elements before them or not.
+     * @param skipIndexParameters parameters of the skip index, which must be enabled when the section was encoded with
+     *                            the skip index enabled.
+     * @param decodingMetrics metrics the jumps through the skip index are reported into.
+     * @throws java.io.IOException when there is an exception reading from <code>inputBitStream</code>.
      */
-    protected void recordOffset() {
-        offset = inputBitStream.position();
+    public CompressionIterator(
+        final InputBitStream inputBitStream,
+        final int valueBitSize,
+        final boolean ranked,
+        final SkipIndexParameters skipIndexParameters,
+        final DecodingMetrics decodingMetrics
+    ) throws IOException {
+        this(inputBitStream);
+        this.decodingMetrics = decodingMetrics;
+        samplingRate = skipIndexParameters.readSamplingRate(inputBitStream, remainingElements);
+        samples = SkipIndexParameters.getNumberOfSamples(remainingElements, samplingRate);
+        if (samples > 0) {
+            this.valueBitSize = valueBitSize;
+            final int entriesLength = inputBitStream.readDelta();
+            rankBitSize = ranked ? Fast.length(inputBitStream.readDelta()) : 0;
+            offsetBitSize = Fast.length(entriesLength);
+            samplesPosition = inputBitStream.position();
+            entriesPosition = samplesPosition + (long) samples * (valueBitSize + rankBitSize + offsetBitSize);
+            sectionEnd = entriesPosition + entriesLength;
+            inputBitStream.position(entriesPosition);
+        }
     }
 
     /**
-     * Sets the cursor of <code>inputBitStream</code> in the latest recorded offset.
-     * @throws java.io.IOException when there is an exception moving the cursor of <code>inputBitStream</code>.
+     * Finds the last sample of the skip index whose value is smaller or equal than <code>target</code>, among the
+     * samples after the entry <code>entry</code> of the section. Only can be used when the section has skip index.
+     * @param entry index of the current entry of the section.
+     * @param target value to move the iteration to.
+     * @return number of the found sample, starting from one, or zero when there is no such sample.
+     * @throws java.io.IOException when there is an exception reading from <code>inputBitStream</code>.
      */
-    public void seek() throws IOException {
-        inputBitStream.position(offset);
+    protected int findSample(final int entry, final long target) throws IOException {
+        int low = entry / samplingRate + 1;
+        if (low > samples) {
+            return 0;
+        }
+        if (low != nextSample) {
+            final long position = inputBitStream.position();
+            nextSample = low;
+            nextSampleValue = readSampleValue(low);
+            inputBitStream.position(position);
+        }
+        if (nextSampleValue > target) {
+            return 0;
+        }
+        int high = samples;
+        int middle;
+        while (low < high) {
+            middle = (low + high + 1) >>> 1;
+            if (readSampleValue(middle) <= target) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Moves the iteration to the entry of the section sampled by <code>sample</code>, setting its value as the
+     * current value and positioning <code>inputBitStream</code> right after the value of the entry.
+     * @param sample number of the sample, starting from one.
+     * @return number of elements of the section before the sampled entry.
+     * @throws java.io.IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    protected int seekSample(final int sample) throws IOException {
+        decodingMetrics.onSeek();
+        currentValue = readSampleValue(sample);
+        final int rank = rankBitSize == 0 ? getSampleEntry(sample) : inputBitStream.readInt(rankBitSize);
+        inputBitStream.position(entriesPosition + inputBitStream.readInt(offsetBitSize));
+        return rank;
+    }
+
+    /**
+     * Gets the index of the entry of the section sampled by <code>sample</code>.
+     * @param sample number of the sample, starting from one.
+     * @return index of the entry of the section sampled by <code>sample</code>.
+     */
+    protected int getSampleEntry(final int sample) {
+        return sample * samplingRate;
+    }
+
+    private long readSampleValue(final int sample) throws IOException {
+        inputBitStream.position(samplesPosition + (long) (sample - 1) * (valueBitSize + rankBitSize + offsetBitSize));
+        return inputBitStream.readLong(valueBitSize);
     }
 
     /**
@@ -17,8 +17,8 @@ package org.pebble.core.decoding.iterators.longs;
  */
 
 import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.InputBitCursor;
 import org.pebble.core.decoding.PebbleBytesStore;
-import org.pebble.core.encoding.DefaultParametersValues;
 
 import java.io.IOException;
 
@@ -43,7 +43,7 @@ public class IncrementalListIterator extends IncrementalListUniqueIterator {
     ) throws IOException {
         super(listIndex, valueBitSize, minIntervalSize, inputBitStream, bytesStore);
         this.repeatsIterator = repeatsIterator;
-        currentValue = super.nextLong();
+        currentValue = decodeNextLong();
     }
 
     /**
@@ -59,10 +59,17 @@ public class IncrementalListIterator extends IncrementalListUniqueIterator {
      */
     @Override
     public long nextLong() {
+        if (currentValue != -1L) {
+            decodingMetrics.onElementReturned();
+        }
+        return moveNext();
+    }
+
+    private long moveNext() {
         value = currentValue;
         try {
             if (repeatsIterator.next() != 1L) {
-                currentValue = super.nextLong();
+                currentValue = decodeNextLong();
             }
         } catch (IOException exception) {
             throw new IllegalStateException(exception.getMessage());
@@ -70,6 +77,42 @@ public class IncrementalListIterator extends IncrementalListUniqueIterator {
         return value;
     }
 
+    /**
+     * Moves the iteration so the next element returned is the first remaining element greater or equal than
+     * <code>target</code>. The repeated elements are counted on the number of skipped elements, so it is the rank of
+     * <code>target</code> on the list when the iteration hasn't started yet.
+     * @param target value to move the iteration to.
+     * @return number of skipped elements.
+     * @throws java.io.IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    @Override
+    public int advance(final long target) throws IOException {
+        int skipped = 0;
+        if (currentValue != -1L && currentValue < target) {
+            final int uniqueElements = super.advance(target) + 1;
+            skipped = uniqueElements + repeatsIterator.skip(uniqueElements);
+            currentValue = decodeNextLong();
+        }
+        return skipped;
+    }
+
+    /**
+     * This method skips <code>i</code> elements from current element on iteration, iterating the skipped elements so
+     * the repeated elements are counted.
+     * @param i number of elements from current iteration position to be skipped.
+     * @return the actual number of skipped elements. When the remaining elements in the iterator is smaller than
+     * <code>i</code> only the remaining elements will be skipped.
+     */
+    @Override
+    public int skip(final int i) {
+        int n = 0;
+        while (hasNext() && n < i) {
+            moveNext();
+            n++;
+        }
+        return n;
+    }
+
     /**
      * Instance builder.
      * @param listIndex index of the current list.
@@ -85,12 +128,40 @@ public class IncrementalListIterator extends IncrementalListUniqueIterator {
         final PebbleBytesStore bytesStore
     ) throws IOException {
         final InputBitStream inputBitStream = bytesStore.getInputBitStream(listIndex);
-        RepeatsIterator repeatsIterator = new RepeatsIterator(inputBitStream);
-        inputBitStream.skipDeltas(repeatsIterator.getRemainingElements() * 2);
+        final RepeatsIterator repeatsIterator = RepeatsIterator.build(listIndex, inputBitStream, bytesStore);
+        return new IncrementalListIterator(
+            listIndex,
+            valueBitSize,
+            bytesStore.getMinIntervalSize(),
+            inputBitStream,
+            bytesStore,
+            repeatsIterator
+        );
+    }
+
+    /**
+     * Instance builder that reads the list and its references through <code>cursor</code> and the cursors chained
+     * to it, instead of allocating new input bit streams.
+     * @param listIndex index of the current list.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @param cursor cursor used to read the list, owned by the caller until the iteration finishes.
+     * @return built instance.
+     * @throws java.io.IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public static IncrementalListIterator build(
+        final int listIndex,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore,
+        final InputBitCursor cursor
+    ) throws IOException {
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(listIndex, cursor);
+        final RepeatsIterator repeatsIterator = RepeatsIterator.build(listIndex, inputBitStream, bytesStore);
         return new IncrementalListIterator(
             listIndex,
             valueBitSize,
-            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE,
+            bytesStore.getMinIntervalSize(),
             inputBitStream,
             bytesStore,
             repeatsIterator
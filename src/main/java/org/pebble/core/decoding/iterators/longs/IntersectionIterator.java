@@ -0,0 +1,106 @@
+package org.pebble.core.decoding.iterators.longs;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import org.pebble.core.decoding.PebbleBytesStore;
+
+import java.io.IOException;
+
+/**
+ * Iterator over the intersection of compressed lists of <code>long</code>s. Every list is moved to the greatest
+ * element found so far, so the cost of the intersection depends on the number of jumps required to find the common
+ * elements instead of on the length of the longer list: the jumps over intervals and reference blocks of the lists
+ * don't iterate their elements. When the common element is inside an interval of every list, the whole overlap of
+ * the intervals is part of the intersection and is returned without reading the lists again.
+ */
+public class IntersectionIterator extends ListsOperationIterator {
+
+    private IntersectionIterator(final BaseListIterator[] iterators) {
+        super(iterators);
+        moveTo(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void moveTo(final long target) {
+        if (iterators.length == 0) {
+            currentValue = -1;
+            return;
+        }
+        long candidate = target;
+        int matches = 0;
+        int i = 0;
+        while (matches < iterators.length) {
+            if (heads[i] < candidate) {
+                heads[i] = iterators[i].skipTo(candidate);
+                if (heads[i] == -1) {
+                    currentValue = -1;
+                    return;
+                }
+            }
+            if (heads[i] == candidate) {
+                matches++;
+            } else {
+                candidate = heads[i];
+                matches = 1;
+            }
+            i = i + 1 == iterators.length ? 0 : i + 1;
+        }
+        currentValue = candidate;
+        runEnd = iterators[0].getRunEnd(candidate);
+        for (i = 1; i < iterators.length; i++) {
+            runEnd = Math.min(runEnd, iterators[i].getRunEnd(candidate));
+        }
+    }
+
+    /**
+     * Builds the iterator over the intersection of the given strictly incremental lists.
+     * @param listIndices indices of the lists to intersect.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @return built instance.
+     * @throws IOException when there is an exception reading from <code>bytesStore</code>.
+     */
+    public static IntersectionIterator build(
+        final int[] listIndices,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore
+    ) throws IOException {
+        return new IntersectionIterator(getStrictlyIncrementalListIterators(listIndices, valueBitSize, bytesStore));
+    }
+
+    /**
+     * Builds the iterator over the intersection of the distinct elements of the given incremental lists.
+     * @param listIndices indices of the lists to intersect.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @return built instance.
+     * @throws IOException when there is an exception reading from <code>bytesStore</code>.
+     */
+    public static IntersectionIterator buildIncremental(
+        final int[] listIndices,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore
+    ) throws IOException {
+        return new IntersectionIterator(getIncrementalListIterators(listIndices, valueBitSize, bytesStore));
+    }
+
+}
@@ -0,0 +1,198 @@
+package org.pebble.core.decoding.iterators.longs;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import org.pebble.core.decoding.PebbleBytesStore;
+
+import java.io.IOException;
+
+/**
+ * Base class for implementing the iterators of set operations over compressed lists. The operations are computed
+ * over the iterators of the lists, moving them forward with {@link BaseListIterator#skipTo(long)}, so the elements of
+ * the lists that can't be part of the result are skipped without being iterated. Runs of consecutive elements
+ * encoded as intervals are handled as a whole: once the first element of a run is known to be part of the result,
+ * the rest of the run is returned without reading the lists.
+ */
+abstract class ListsOperationIterator implements LongIterator {
+
+    /**
+     * Iterators of the operands of the operation.
+     */
+    protected final BaseListIterator[] iterators;
+
+    /**
+     * Last element returned by each iterator of <code>iterators</code>, or -1 when the iterator has no more elements.
+     */
+    protected final long[] heads;
+
+    /**
+     * Next element of the iteration, or -1 when there is no more elements.
+     */
+    protected long currentValue;
+
+    /**
+     * Last element of the run of consecutive elements starting at <code>currentValue</code> that belong to the result.
+     */
+    protected long runEnd;
+
+    /**
+     * @param iterators iterators of the operands of the operation.
+     */
+    protected ListsOperationIterator(final BaseListIterator[] iterators) {
+        this.iterators = iterators;
+        heads = new long[iterators.length];
+        for (int i = 0; i < iterators.length; i++) {
+            heads[i] = iterators[i].nextLong();
+        }
+    }
+
+    /**
+     * Moves the iteration to the first element of the result greater or equal than <code>target</code>, setting
+     * <code>currentValue</code> and <code>runEnd</code>.
+     * @param target value to move the iteration to.
+     */
+    protected abstract void moveTo(long target);
+
+    /**
+     * Returns the next <code>long</code> in the iteration. When there is no more elements returns -1
+     * @return the next <code>long</code> in the iteration
+     */
+    @Override
+    public long nextLong() {
+        final long value = currentValue;
+        if (value != -1) {
+            if (value < runEnd) {
+                currentValue++;
+            } else {
+                moveTo(value + 1);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Moves the iteration to the first remaining element greater or equal than <code>target</code> and returns it.
+     * When there is no such element returns -1.
+     * @param target value to move the iteration to.
+     * @return the first remaining element greater or equal than <code>target</code>, or -1 when there is none.
+     */
+    public long skipTo(final long target) {
+        if (currentValue != -1 && currentValue < target) {
+            if (target <= runEnd) {
+                currentValue = target;
+            } else {
+                moveTo(target);
+            }
+        }
+        return nextLong();
+    }
+
+    /**
+     * checks whether the iteration has remaining elements or not.
+     * @return true if there is remaining elements in the iteration and false whether not.
+     */
+    @Override
+    public boolean hasNext() {
+        return currentValue != -1;
+    }
+
+    /**
+     * Returns the next {@link java.lang.Long} in the iteration. When there is no more elements returns null. This
+     * method wrap into an {@link java.lang.Long} the result from {@link #nextLong()} method.
+     * @return the next {@link java.lang.Long} in the iteration.
+     */
+    @Override
+    public Long next() {
+        long value = nextLong();
+        return value == -1 ? null : value;
+    }
+
+    /**
+     * This method skips <code>i</code> elements from current element on iteration.
+     * @param i number of elements from current iteration position to be skipped.
+     * @return the actual number of skipped elements. When the remaining elements in the iterator is smaller than
+     * <code>i</code> only the remaining elements will be skipped.
+     */
+    @Override
+    public int skip(final int i) {
+        int n = 0;
+        while (hasNext() && n < i) {
+            nextLong();
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * The result of the operation is immutable, therefore elements can't be removed. If this method is invoked a
+     * {@link java.lang.UnsupportedOperationException} will be thrown.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("The list is immutable");
+    }
+
+    /**
+     * Builds the iterators of the given strictly incremental lists.
+     * @param listIndices indices of the lists.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @return iterators of the lists.
+     * @throws IOException when there is an exception reading from <code>bytesStore</code>.
+     */
+    protected static BaseListIterator[] getStrictlyIncrementalListIterators(
+        final int[] listIndices,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore
+    ) throws IOException {
+        final BaseListIterator[] iterators = new BaseListIterator[listIndices.length];
+        for (int i = 0; i < listIndices.length; i++) {
+            iterators[i] = StrictlyIncrementalListIterator.build(listIndices[i], valueBitSize, bytesStore);
+        }
+        return iterators;
+    }
+
+    /**
+     * Builds the iterators of the distinct elements of the given incremental lists.
+     * @param listIndices indices of the lists.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @return iterators of the lists.
+     * @throws IOException when there is an exception reading from <code>bytesStore</code>.
+     */
+    protected static BaseListIterator[] getIncrementalListIterators(
+        final int[] listIndices,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore
+    ) throws IOException {
+        final BaseListIterator[] iterators = new BaseListIterator[listIndices.length];
+        for (int i = 0; i < listIndices.length; i++) {
+            iterators[i] = IncrementalListUniqueIterator.build(
+                listIndices[i],
+                valueBitSize,
+                bytesStore.getMinIntervalSize(),
+                bytesStore.getInputBitStream(listIndices[i]),
+                bytesStore
+            );
+        }
+        return iterators;
+    }
+
+}
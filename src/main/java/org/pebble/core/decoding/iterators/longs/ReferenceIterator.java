@@ -18,6 +18,7 @@ package org.pebble.core.decoding.iterators.longs;
 
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.InputBitCursor;
 import org.pebble.core.decoding.PebbleBytesStore;
 
 import java.io.IOException;
@@ -30,6 +31,7 @@ abstract class ReferenceIterator extends CompressionIterator {
     private final LongIterator referenceListIterator;
     private boolean currentBit;
     private int remainingBlockElements;
+    private final int referenceLevels;
 
     /**
      * Fixed number of bits used to represent the values without compression in the compressed list.
@@ -70,21 +72,41 @@ abstract class ReferenceIterator extends CompressionIterator {
         if (index > 0) {
             remainingElements = inputBitStream.readDelta();
             final int i = listIndex - index;
-            referenceListIterator = getReferenceListIterator(i, bytesStore.getInputBitStream(i));
+            referenceListIterator = getReferenceListIterator(i, getReferenceInputBitStream(i, inputBitStream));
+            referenceLevels = referenceListIterator instanceof BaseListIterator ?
+                ((BaseListIterator) referenceListIterator).getReferenceLevels() + 1 :
+                1;
             currentBit = inputBitStream.readBit() == 0;
             remainingBlockElements = 0;
-            recordOffset();
             currentValue = getNextReferenceListMatchingElement();
         } else {
             currentValue = -1;
             remainingElements = 0;
             referenceListIterator = null;
+            referenceLevels = 0;
             currentBit = false;
             remainingBlockElements = 0;
-            recordOffset();
         }
     }
 
+    private InputBitStream getReferenceInputBitStream(
+        final int listIndex,
+        final InputBitStream inputBitStream
+    ) throws IOException {
+        if (inputBitStream instanceof InputBitCursor) {
+            return bytesStore.getInputBitStream(listIndex, ((InputBitCursor) inputBitStream).getNext());
+        }
+        return bytesStore.getInputBitStream(listIndex);
+    }
+
+    /**
+     * Gets the length of the chain of references of the list, which is zero when the list has no reference.
+     * @return length of the chain of references of the list.
+     */
+    int getReferenceLevels() {
+        return referenceLevels;
+    }
+
     /**
      * Initializes the specific reference iterator.
      * @return iterator of reference list.
@@ -106,6 +128,56 @@ abstract class ReferenceIterator extends CompressionIterator {
         return value;
     }
 
+    /**
+     * Moves the iteration to the first element greater or equal than <code>target</code>. When the reference list is
+     * iterated by a Pebble list iterator, it is moved to <code>target</code> and the blocks of the reference are
+     * skipped by their lengths, without iterating the elements they contain.
+     * @param target value to move the iteration to.
+     * @return number of skipped elements.
+     * @throws java.io.IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public int advance(final long target) throws IOException {
+        int skipped = 0;
+        if (referenceListIterator instanceof BaseListIterator) {
+            if (currentValue != -1L && currentValue < target) {
+                skipped = 1 + skipReferenceListElements(((BaseListIterator) referenceListIterator).advance(target));
+                currentValue = getNextReferenceListMatchingElement();
+            }
+            return skipped;
+        }
+        while (currentValue != -1L && currentValue < target) {
+            skipped++;
+            currentValue = getNextReferenceListMatchingElement();
+        }
+        return skipped;
+    }
+
+    private int skipReferenceListElements(final int referenceListElements) throws IOException {
+        int remainingReferenceListElements = referenceListElements;
+        int skipped = 0;
+        int blockElements;
+        while (remainingReferenceListElements > 0) {
+            if (remainingBlockElements > 0) {
+                blockElements = Math.min(remainingBlockElements, remainingReferenceListElements);
+                if (currentBit) {
+                    skipped += blockElements;
+                }
+                remainingBlockElements -= blockElements;
+                remainingReferenceListElements -= blockElements;
+            } else if (remainingElements > 0) {
+                currentBit = !currentBit;
+                remainingBlockElements = inputBitStream.readDelta() + 1;
+                remainingElements--;
+            } else {
+                if (!currentBit) {
+                    skipped += remainingReferenceListElements;
+                }
+                remainingReferenceListElements = 0;
+            }
+        }
+        return skipped;
+    }
+
     private long getNextReferenceListMatchingElement() throws IOException {
         if (remainingBlockElements > 0) {
             if (currentBit) {
@@ -118,10 +190,8 @@ abstract class ReferenceIterator extends CompressionIterator {
         }
         if (remainingElements > 0) {
             currentBit = !currentBit;
-            seek();
             remainingBlockElements = inputBitStream.readDelta() + 1;
             remainingElements--;
-            recordOffset();
             return getNextReferenceListMatchingElement();
         }
         if (!currentBit && referenceListIterator.hasNext()) {
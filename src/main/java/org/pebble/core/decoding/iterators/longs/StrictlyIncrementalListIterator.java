@@ -17,8 +17,8 @@ package org.pebble.core.decoding.iterators.longs;
  */
 
 import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.InputBitCursor;
 import org.pebble.core.decoding.PebbleBytesStore;
-import org.pebble.core.encoding.DefaultParametersValues;
 
 import java.io.IOException;
 
@@ -73,10 +73,36 @@ public class StrictlyIncrementalListIterator extends BaseListIterator {
         return new StrictlyIncrementalListIterator(
             listIndex,
             valueBitSize,
-            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE,
+            bytesStore.getMinIntervalSize(),
             bytesStore.getInputBitStream(listIndex),
             bytesStore
         );
     }
 
+    /**
+     * Instance builder that reads the list and its references through <code>cursor</code> and the cursors chained
+     * to it, instead of allocating new input bit streams.
+     * @param listIndex index of the current list.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     * @param cursor cursor used to read the list, owned by the caller until the iteration finishes.
+     * @return built instance.
+     * @throws java.io.IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public static StrictlyIncrementalListIterator build(
+        final int listIndex,
+        final int valueBitSize,
+        final PebbleBytesStore bytesStore,
+        final InputBitCursor cursor
+    ) throws IOException {
+        return new StrictlyIncrementalListIterator(
+            listIndex,
+            valueBitSize,
+            bytesStore.getMinIntervalSize(),
+            bytesStore.getInputBitStream(listIndex, cursor),
+            bytesStore
+        );
+    }
+
 }
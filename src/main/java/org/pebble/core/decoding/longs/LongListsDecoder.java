@@ -0,0 +1,481 @@
+package org.pebble.core.decoding.longs;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.encoding.SkipIndexParameters;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.LongBuffer;
+
+/**
+ * Decodes whole compressed lists into arrays or buffers of <code>long</code>. Unlike the list iterators, which merge
+ * the reference, intervals and delta sections element by element moving the cursor between the sections, this
+ * decoder reads each section sequentially in a single pass, copying the blocks of referenced elements in bulk from
+ * the decoded reference list, and then merges the three sorted sections into the destination.
+ *
+ * <p>The decoder reuses its internal buffers and cursors across calls, so it is not thread safe. Every thread should
+ * use its own decoder.</p>
+ */
+public class LongListsDecoder {
+
+    private static final int STRICTLY_INCREMENTAL_LIST = 0;
+    private static final int INCREMENTAL_LIST = 1;
+    private static final int LIST = 2;
+
+    private final int valueBitSize;
+    private final PebbleBytesStore bytesStore;
+    private final InputBitCursor cursor;
+    private Sections[] sections;
+    private long[] values;
+    private int valuesSize;
+    private int[] repeatsIndexes;
+    private int[] repeatsCounts;
+    private int repeatsSize;
+    private InputBitStream inputBitStream;
+    private long[] output;
+
+    /**
+     * Initializes a decoder of the lists stored at <code>bytesStore</code>.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @param bytesStore mapping between list offsets and data bytes arrays and bytes offsets.
+     */
+    public LongListsDecoder(final int valueBitSize, final PebbleBytesStore bytesStore) {
+        this.valueBitSize = valueBitSize;
+        this.bytesStore = bytesStore;
+        cursor = new InputBitCursor();
+        sections = new Sections[0];
+        values = LongArrays.EMPTY_ARRAY;
+        repeatsIndexes = IntArrays.EMPTY_ARRAY;
+        repeatsCounts = IntArrays.EMPTY_ARRAY;
+        output = LongArrays.EMPTY_ARRAY;
+    }
+
+    /**
+     * Decodes the strictly incremental list associated with <code>listIndex</code> into <code>dst</code>.
+     * @param listIndex index of list.
+     * @param dst array where the elements of the list are written.
+     * @param from position of <code>dst</code> where the first element of the list is written.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the compressed list.
+     * @throws ArrayIndexOutOfBoundsException when <code>dst</code> doesn't have room for all the elements.
+     */
+    public int decodeStrictlyIncrementalList(final int listIndex, final long[] dst, final int from) throws IOException {
+        return decode(STRICTLY_INCREMENTAL_LIST, listIndex, dst, from);
+    }
+
+    /**
+     * Decodes the strictly incremental list associated with <code>listIndex</code> into <code>dst</code>, starting
+     * at its current position, which is moved after the last element of the list.
+     * @param listIndex index of list.
+     * @param dst buffer where the elements of the list are written.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the compressed list.
+     * @throws BufferOverflowException when <code>dst</code> doesn't have room for all the elements.
+     */
+    public int decodeStrictlyIncrementalList(final int listIndex, final LongBuffer dst) throws IOException {
+        return decode(STRICTLY_INCREMENTAL_LIST, listIndex, dst);
+    }
+
+    /**
+     * Decodes the incremental list associated with <code>listIndex</code> into <code>dst</code>.
+     * @param listIndex index of list.
+     * @param dst array where the elements of the list are written.
+     * @param from position of <code>dst</code> where the first element of the list is written.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the compressed list.
+     * @throws ArrayIndexOutOfBoundsException when <code>dst</code> doesn't have room for all the elements.
+     */
+    public int decodeIncrementalList(final int listIndex, final long[] dst, final int from) throws IOException {
+        return decode(INCREMENTAL_LIST, listIndex, dst, from);
+    }
+
+    /**
+     * Decodes the incremental list associated with <code>listIndex</code> into <code>dst</code>, starting at its
+     * current position, which is moved after the last element of the list.
+     * @param listIndex index of list.
+     * @param dst buffer where the elements of the list are written.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the compressed list.
+     * @throws BufferOverflowException when <code>dst</code> doesn't have room for all the elements.
+     */
+    public int decodeIncrementalList(final int listIndex, final LongBuffer dst) throws IOException {
+        return decode(INCREMENTAL_LIST, listIndex, dst);
+    }
+
+    /**
+     * Decodes the list associated with <code>listIndex</code> into <code>dst</code>.
+     * @param listIndex index of list.
+     * @param dst array where the elements of the list are written.
+     * @param from position of <code>dst</code> where the first element of the list is written.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the compressed list.
+     * @throws ArrayIndexOutOfBoundsException when <code>dst</code> doesn't have room for all the elements.
+     */
+    public int decodeList(final int listIndex, final long[] dst, final int from) throws IOException {
+        return decode(LIST, listIndex, dst, from);
+    }
+
+    /**
+     * Decodes the list associated with <code>listIndex</code> into <code>dst</code>, starting at its current
+     * position, which is moved after the last element of the list.
+     * @param listIndex index of list.
+     * @param dst buffer where the elements of the list are written.
+     * @return number of elements of the list.
+     * @throws IOException when there is an exception reading the compressed list.
+     * @throws BufferOverflowException when <code>dst</code> doesn't have room for all the elements.
+     */
+    public int decodeList(final int listIndex, final LongBuffer dst) throws IOException {
+        return decode(LIST, listIndex, dst);
+    }
+
+    private int decode(final int type, final int listIndex, final long[] dst, final int from) throws IOException {
+        final int size = prepare(type, listIndex);
+        if (from + size > dst.length) {
+            throw new ArrayIndexOutOfBoundsException(from + size - 1);
+        }
+        write(type, dst, from, size);
+        return size;
+    }
+
+    private int decode(final int type, final int listIndex, final LongBuffer dst) throws IOException {
+        final int size = prepare(type, listIndex);
+        if (dst.remaining() < size) {
+            throw new BufferOverflowException();
+        }
+        if (dst.hasArray()) {
+            write(type, dst.array(), dst.arrayOffset() + dst.position(), size);
+            dst.position(dst.position() + size);
+        } else {
+            output = LongArrays.grow(output, size);
+            write(type, output, 0, size);
+            dst.put(output, 0, size);
+        }
+        return size;
+    }
+
+    private int prepare(final int type, final int listIndex) throws IOException {
+        inputBitStream = getInputBitStream(listIndex);
+        if (type == STRICTLY_INCREMENTAL_LIST) {
+            return readSections(inputBitStream, listIndex, cursor, 0, false);
+        }
+        if (type == INCREMENTAL_LIST) {
+            final int repeats = readRepeats(inputBitStream);
+            valuesSize = readSections(inputBitStream, listIndex, cursor, 0, true);
+            values = LongArrays.grow(values, valuesSize);
+            merge(sections[0], values, 0);
+            return repeats + valuesSize;
+        }
+        valuesSize = readSections(inputBitStream, listIndex, cursor, 0, false);
+        values = LongArrays.grow(values, valuesSize);
+        merge(sections[0], values, 0);
+        return inputBitStream.readDelta() + valuesSize;
+    }
+
+    private void write(final int type, final long[] dst, final int from, final int size) throws IOException {
+        if (type == STRICTLY_INCREMENTAL_LIST) {
+            merge(sections[0], dst, from);
+            decoded(dst, from, size);
+        } else if (type == INCREMENTAL_LIST) {
+            writeRepeats(dst, from);
+            decoded(values, 0, valuesSize);
+        } else {
+            writeList(dst, from, size);
+            decoded(values, 0, valuesSize);
+        }
+    }
+
+    /**
+     * Gets the input bit stream positioned at the beginning of the list associated with <code>listIndex</code>.
+     * @param listIndex index of list.
+     * @return input bit stream positioned at the beginning of the list.
+     * @throws IOException when there is an exception reading from the bytes store.
+     */
+    InputBitStream getInputBitStream(final int listIndex) throws IOException {
+        return bytesStore.getInputBitStream(listIndex, cursor);
+    }
+
+    /**
+     * Gets the parameters of the skip index of the intervals and deltas sections.
+     * @return parameters of the skip index.
+     */
+    SkipIndexParameters getSkipIndexParameters() {
+        return bytesStore.getSkipIndexParameters();
+    }
+
+    /**
+     * Gets the min size of the intervals of the compressed lists.
+     * @return min size of the intervals.
+     */
+    int getMinIntervalSize() {
+        return bytesStore.getMinIntervalSize();
+    }
+
+    /**
+     * Invoked after a list is decoded with the sorted unique values the list is encoded from, which are the values
+     * other lists take from it when they use it as reference.
+     * @param values array containing the sorted unique values of the list.
+     * @param from position of <code>values</code> where the first value is.
+     * @param size number of values.
+     */
+    void decoded(final long[] values, final int from, final int size) {
+    }
+
+    private int readRepeats(final InputBitStream inputBitStream) throws IOException {
+        repeatsSize = inputBitStream.readDelta();
+        repeatsIndexes = IntArrays.grow(repeatsIndexes, repeatsSize);
+        repeatsCounts = IntArrays.grow(repeatsCounts, repeatsSize);
+        int index = -1;
+        int repeats = 0;
+        for (int i = 0; i < repeatsSize; i++) {
+            index += inputBitStream.readDelta() + 1;
+            repeatsIndexes[i] = index;
+            repeatsCounts[i] = inputBitStream.readDelta() + 1;
+            repeats += repeatsCounts[i];
+        }
+        return repeats;
+    }
+
+    private void writeRepeats(final long[] dst, final int from) {
+        int position = from;
+        int repeat = 0;
+        long value;
+        for (int i = 0; i < valuesSize; i++) {
+            value = values[i];
+            dst[position++] = value;
+            if (repeat < repeatsSize && repeatsIndexes[repeat] == i) {
+                for (int j = repeatsCounts[repeat]; j > 0; j--) {
+                    dst[position++] = value;
+                }
+                repeat++;
+            }
+        }
+    }
+
+    private void writeList(final long[] dst, final int from, final int size) throws IOException {
+        int index = 0;
+        int delta;
+        for (int i = from; i < from + size; i++) {
+            delta = inputBitStream.readDelta();
+            if ((delta & 1) == 0) {
+                index += delta >>> 1;
+            } else {
+                index -= (delta + 1) >>> 1;
+            }
+            dst[i] = values[index];
+        }
+    }
+
+    private int readSections(
+        final InputBitStream inputBitStream,
+        final int listIndex,
+        final InputBitCursor cursor,
+        final int depth,
+        final boolean incremental
+    ) throws IOException {
+        final Sections sections = getSections(depth);
+        readReferenceSection(inputBitStream, listIndex, cursor, depth, incremental, sections);
+        readIntervalsSection(inputBitStream, sections);
+        readDeltaSection(inputBitStream, sections);
+        return sections.referencedSize + sections.intervalsSize + sections.deltasSize;
+    }
+
+    private void readReferenceSection(
+        final InputBitStream inputBitStream,
+        final int listIndex,
+        final InputBitCursor cursor,
+        final int depth,
+        final boolean incremental,
+        final Sections sections
+    ) throws IOException {
+        sections.referencedSize = 0;
+        final int referenceIndex = inputBitStream.readDelta();
+        if (referenceIndex == 0) {
+            return;
+        }
+        final int blocks = inputBitStream.readDelta();
+        boolean copy = inputBitStream.readBit() == 0;
+        final int referenceSize = readReference(listIndex - referenceIndex, cursor.getNext(), depth + 1, incremental);
+        final long[] reference = sections.reference;
+        final long[] referenced = sections.referenced = LongArrays.grow(sections.referenced, referenceSize);
+        int position = 0;
+        int size = 0;
+        int length;
+        for (int i = 0; i < blocks; i++) {
+            copy = !copy;
+            length = inputBitStream.readDelta() + 1;
+            if (copy) {
+                System.arraycopy(reference, position, referenced, size, length);
+                size += length;
+            }
+            position += length;
+        }
+        if (!copy) {
+            System.arraycopy(reference, position, referenced, size, referenceSize - position);
+            size += referenceSize - position;
+        }
+        sections.referencedSize = size;
+    }
+
+    /**
+     * Decodes the sorted unique values of the list associated with <code>listIndex</code>, which is referenced by
+     * the list decoded at <code>depth - 1</code>, into the reference of that list.
+     * @param listIndex index of the referenced list.
+     * @param cursor cursor used to read the referenced list.
+     * @param depth depth of the referenced list on the chain of references.
+     * @param incremental whether the referenced list is an incremental list or not.
+     * @return number of values of the referenced list.
+     * @throws IOException when there is an exception reading the compressed list.
+     */
+    int readReference(
+        final int listIndex,
+        final InputBitCursor cursor,
+        final int depth,
+        final boolean incremental
+    ) throws IOException {
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(listIndex, cursor);
+        if (incremental) {
+            inputBitStream.skipDeltas(inputBitStream.readDelta() * 2);
+        }
+        final int size = readSections(inputBitStream, listIndex, cursor, depth, incremental);
+        merge(sections[depth], getReference(depth, size), 0);
+        return size;
+    }
+
+    /**
+     * Gets the array where the values of the list referenced by the list decoded at <code>depth - 1</code> are
+     * written, with room for at least <code>size</code> values.
+     * @param depth depth of the referenced list on the chain of references.
+     * @param size number of values of the referenced list.
+     * @return array where the values of the referenced list are written.
+     */
+    long[] getReference(final int depth, final int size) {
+        final Sections parentSections = sections[depth - 1];
+        return parentSections.reference = LongArrays.grow(parentSections.reference, size);
+    }
+
+    private void readIntervalsSection(final InputBitStream inputBitStream, final Sections sections) throws IOException {
+        sections.intervalsSize = 0;
+        final int intervals = inputBitStream.readDelta();
+        if (intervals == 0) {
+            return;
+        }
+        skipIndex(inputBitStream, intervals, true);
+        final int minIntervalSize = getMinIntervalSize();
+        long value = inputBitStream.readLong(valueBitSize);
+        int length;
+        int size = 0;
+        long[] values = sections.intervals;
+        for (int i = 0; i < intervals; i++) {
+            if (i > 0) {
+                value += inputBitStream.readDelta() + 2;
+            }
+            length = inputBitStream.readDelta() + minIntervalSize;
+            values = LongArrays.grow(values, size + length);
+            for (int j = 0; j < length; j++) {
+                values[size++] = value + j;
+            }
+            value += length - 1;
+        }
+        sections.intervals = values;
+        sections.intervalsSize = size;
+    }
+
+    private void readDeltaSection(final InputBitStream inputBitStream, final Sections sections) throws IOException {
+        final int size = inputBitStream.readDelta();
+        sections.deltasSize = size;
+        if (size == 0) {
+            return;
+        }
+        skipIndex(inputBitStream, size, false);
+        final long[] values = sections.deltas = LongArrays.grow(sections.deltas, size);
+        long value = inputBitStream.readLong(valueBitSize);
+        values[0] = value;
+        for (int i = 1; i < size; i++) {
+            value += inputBitStream.readDelta() + 1;
+            values[i] = value;
+        }
+    }
+
+    private void skipIndex(final InputBitStream inputBitStream, final int size, final boolean ranked) throws IOException {
+        final int samples = SkipIndexParameters.getNumberOfSamples(
+            size,
+            getSkipIndexParameters().readSamplingRate(inputBitStream, size)
+        );
+        if (samples > 0) {
+            final int offsetBitSize = Fast.length(inputBitStream.readDelta());
+            final int rankBitSize = ranked ? Fast.length(inputBitStream.readDelta()) : 0;
+            inputBitStream.skip((long) samples * (valueBitSize + rankBitSize + offsetBitSize));
+        }
+    }
+
+    private Sections getSections(final int depth) {
+        if (depth == sections.length) {
+            final Sections[] sections = new Sections[depth + 1];
+            System.arraycopy(this.sections, 0, sections, 0, depth);
+            sections[depth] = new Sections();
+            this.sections = sections;
+        }
+        return sections[depth];
+    }
+
+    private static void merge(final Sections sections, final long[] dst, final int from) {
+        final int mergedSize = sections.referencedSize + sections.intervalsSize;
+        sections.merged = LongArrays.grow(sections.merged, mergedSize);
+        merge(sections.referenced, sections.referencedSize, sections.intervals, sections.intervalsSize, sections.merged, 0);
+        merge(sections.merged, mergedSize, sections.deltas, sections.deltasSize, dst, from);
+    }
+
+    private static void merge(
+        final long[] a,
+        final int aSize,
+        final long[] b,
+        final int bSize,
+        final long[] dst,
+        final int from
+    ) {
+        int i = 0;
+        int j = 0;
+        int position = from;
+        while (i < aSize && j < bSize) {
+            dst[position++] = a[i] < b[j] ? a[i++] : b[j++];
+        }
+        System.arraycopy(a, i, dst, position, aSize - i);
+        System.arraycopy(b, j, dst, position + aSize - i, bSize - j);
+    }
+
+    private static class Sections {
+
+        private long[] reference = LongArrays.EMPTY_ARRAY;
+        private long[] referenced = LongArrays.EMPTY_ARRAY;
+        private int referencedSize;
+        private long[] intervals = LongArrays.EMPTY_ARRAY;
+        private int intervalsSize;
+        private long[] deltas = LongArrays.EMPTY_ARRAY;
+        private int deltasSize;
+        private long[] merged = LongArrays.EMPTY_ARRAY;
+
+    }
+
+}
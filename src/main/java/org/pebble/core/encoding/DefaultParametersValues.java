@@ -43,6 +43,13 @@ public class DefaultParametersValues {
      */
     public static final int DEFAULT_REFERENCE_WINDOW_SIZE = 1000;
 
+    /**
+     * Maximum number of values of the lists kept on the reference lists buffer. When the values of the lists don't
+     * fit, the oldest lists are removed from the buffer, so the memory used by the buffer is bounded regardless of the
+     * size of the lists.
+     */
+    public static final int DEFAULT_REFERENCE_ARENA_SIZE = 1 << 22;
+
     /**
      * Minimum size of reference list. Smaller lists are discarded from the potential candidates set.
      */
@@ -55,6 +62,41 @@ public class DefaultParametersValues {
      */
     public static final int DEFAULT_MAX_RECURSIVE_REFERENCES = 3;
 
+    /**
+     * Number of bands used by the MinHash reference lists index. Increasing this number increases the chances of
+     * finding lists with few values in common, but it will increase the time required to index a list and the number
+     * of candidates to be evaluated.
+     */
+    public static final int DEFAULT_MIN_HASH_BANDS = 16;
+
+    /**
+     * Number of MinHash values on each band of the MinHash reference lists index. Increasing this number reduces the
+     * chances of evaluating candidates with few values in common, but only very similar lists will be found.
+     */
+    public static final int DEFAULT_MIN_HASH_ROWS_PER_BAND = 2;
+
+    /**
+     * Maximum number of reference list candidates that are fully evaluated by the MinHash reference lists index.
+     */
+    public static final int DEFAULT_MIN_HASH_MAX_CANDIDATES = 16;
+
+    /**
+     * Maximum number of lists sharing a band that are taken into account by the MinHash reference lists index for
+     * each band of the list to be referenced. Only the lists most recently added to the store are taken into account.
+     */
+    public static final int DEFAULT_MIN_HASH_MAX_POSTING_LIST_SIZE = 64;
+
+    /**
+     * Number of entries between consecutive samples of the skip index of a section. Decreasing this number reduces
+     * the number of entries decoded after jumping to a sample, but it will increase the size of the index.
+     */
+    public static final int DEFAULT_SKIP_INDEX_SAMPLING_RATE = 64;
+
+    /**
+     * Min number of entries of a section to embed a skip index on it. Smaller sections are encoded without index.
+     */
+    public static final int DEFAULT_SKIP_INDEX_MIN_SECTION_SIZE = 1024;
+
     private DefaultParametersValues() {
 
     }
@@ -0,0 +1,50 @@
+package org.pebble.core.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/**
+ * Receives the statistics of the lists compressed by an {@link OutputSuccinctStream}, when it is set on the stream
+ * (see {@link OutputSuccinctStream#setEncodingListener(EncodingListener)}). The events of a list are reported while
+ * it is written, followed by {@link #onList(int, int, int)} once the list is complete.
+ */
+public interface EncodingListener {
+
+    /**
+     * Reports a section of the list being written.
+     * @param section written section.
+     * @param entries number of entries of the section, see {@link EncodingSection}.
+     * @param bits number of bits written for the section.
+     */
+    public void onSection(final EncodingSection section, final int entries, final int bits);
+
+    /**
+     * Reports the search of a reference list for the list being written.
+     * @param candidates number of candidates evaluated by the reference lists index.
+     * @param recursiveReferences number of recursive references of the list being written, this is the length of its
+     *                            chain of references. Zero when no reference list was found.
+     */
+    public void onReferenceLookup(final int candidates, final int recursiveReferences);
+
+    /**
+     * Reports a written list.
+     * @param listIndex offset of the list.
+     * @param size number of elements of the list.
+     * @param bits number of bits written for the list.
+     */
+    public void onList(final int listIndex, final int size, final int bits);
+
+}
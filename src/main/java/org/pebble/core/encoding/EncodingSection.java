@@ -0,0 +1,64 @@
+package org.pebble.core.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/**
+ * Sections of the compressed representation of a list, as reported to an {@link EncodingListener}.
+ */
+public enum EncodingSection {
+
+    /**
+     * Number of elements of the list, written when the size header is enabled.
+     */
+    SIZE_HEADER,
+
+    /**
+     * Repetitions of incremental lists, whose entries are the runs of repeated values.
+     */
+    REPETITIONS,
+
+    /**
+     * Relative offset of the reference list, zero when the list has no reference. It has an entry per list.
+     */
+    REFERENCE_OFFSET,
+
+    /**
+     * Difference between the list and its reference list, whose entries are the blocks of the difference.
+     */
+    DIFFERENCE_BLOCKS,
+
+    /**
+     * Intervals of consecutive values, whose entries are the intervals.
+     */
+    INTERVALS,
+
+    /**
+     * Deltas between the values not covered by the reference list or the intervals, whose entries are the values.
+     */
+    DELTAS,
+
+    /**
+     * Skip index embedded in the intervals and deltas sections, whose entries are the samples.
+     */
+    SKIP_INDEX,
+
+    /**
+     * Indexes of the elements of unsorted lists into their unique values, whose entries are the elements.
+     */
+    INDEXES
+
+}
@@ -0,0 +1,234 @@
+package org.pebble.core.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrays;
+
+/**
+ * {@link EncodingListener} that accumulates the bits and entries of every section, the hit rate of the reference
+ * lists, the histogram of the length of the chains of references and the number of candidates evaluated on every
+ * search of a reference list. It's useful to tune the parameters of the compression, such as the size of the window
+ * of reference lists, the min interval size or the max number of recursive references, and its summary (see
+ * {@link #getSummary()}) can be exported at the end of an encoding job. This class is not thread safe, so an instance
+ * must not be shared by streams written from different threads.
+ */
+public class EncodingStats implements EncodingListener {
+
+    private static final EncodingSection[] SECTIONS = EncodingSection.values();
+
+    private final long[] sectionsBits;
+    private final long[] sectionsEntries;
+    private long[] chainsLengths;
+    private long lists;
+    private long elements;
+    private long bits;
+    private long referenceLookups;
+    private long referenceHits;
+    private long candidates;
+    private int maxCandidates;
+
+    /**
+     * Initializes the statistics with every counter set to zero.
+     */
+    public EncodingStats() {
+        sectionsBits = new long[SECTIONS.length];
+        sectionsEntries = new long[SECTIONS.length];
+        chainsLengths = LongArrays.EMPTY_ARRAY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onSection(final EncodingSection section, final int entries, final int bits) {
+        sectionsBits[section.ordinal()] += bits;
+        sectionsEntries[section.ordinal()] += entries;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onReferenceLookup(final int candidates, final int recursiveReferences) {
+        referenceLookups++;
+        if (recursiveReferences > 0) {
+            referenceHits++;
+        }
+        this.candidates += candidates;
+        maxCandidates = Math.max(maxCandidates, candidates);
+        if (chainsLengths.length <= recursiveReferences) {
+            chainsLengths = LongArrays.setLength(chainsLengths, recursiveReferences + 1);
+        }
+        chainsLengths[recursiveReferences]++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onList(final int listIndex, final int size, final int bits) {
+        lists++;
+        elements += size;
+        this.bits += bits;
+    }
+
+    /**
+     * Gets the number of bits written for <code>section</code>.
+     * @param section section of the lists.
+     * @return number of bits written for <code>section</code>.
+     */
+    public long getBits(final EncodingSection section) {
+        return sectionsBits[section.ordinal()];
+    }
+
+    /**
+     * Gets the number of entries written for <code>section</code> (see {@link EncodingSection}).
+     * @param section section of the lists.
+     * @return number of entries written for <code>section</code>.
+     */
+    public long getEntries(final EncodingSection section) {
+        return sectionsEntries[section.ordinal()];
+    }
+
+    /**
+     * Gets the number of written lists.
+     * @return number of written lists.
+     */
+    public long getLists() {
+        return lists;
+    }
+
+    /**
+     * Gets the number of elements of the written lists.
+     * @return number of elements of the written lists.
+     */
+    public long getElements() {
+        return elements;
+    }
+
+    /**
+     * Gets the number of bits written for all the lists.
+     * @return number of bits written for all the lists.
+     */
+    public long getBits() {
+        return bits;
+    }
+
+    /**
+     * Gets the number of searches of a reference list.
+     * @return number of searches of a reference list.
+     */
+    public long getReferenceLookups() {
+        return referenceLookups;
+    }
+
+    /**
+     * Gets the number of searches that found a reference list.
+     * @return number of searches that found a reference list.
+     */
+    public long getReferenceHits() {
+        return referenceHits;
+    }
+
+    /**
+     * Gets the number of candidates evaluated by all the searches of a reference list.
+     * @return number of candidates evaluated by all the searches of a reference list.
+     */
+    public long getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Gets the max number of candidates evaluated by a single search of a reference list.
+     * @return max number of candidates evaluated by a single search of a reference list.
+     */
+    public int getMaxCandidates() {
+        return maxCandidates;
+    }
+
+    /**
+     * Gets the histogram of the length of the chains of references, where the element <code>i</code> is the number
+     * of lists with <code>i</code> recursive references. The first element is the number of lists without reference.
+     * @return histogram of the length of the chains of references.
+     */
+    public long[] getChainsLengths() {
+        return chainsLengths.clone();
+    }
+
+    /**
+     * Gets a human readable summary of the statistics. For example:
+     * <pre>
+     * lists: 2, elements: 20, bits: 85, bits/element: 4.250
+     * section                entries           bits  bits/element
+     * SIZE_HEADER                  0              0         0.000
+     * REPETITIONS                  0              0         0.000
+     * REFERENCE_OFFSET             2              4         0.200
+     * DIFFERENCE_BLOCKS            3             10         0.500
+     * INTERVALS                    1             14         0.700
+     * DELTAS                       8             57         2.850
+     * SKIP_INDEX                   0              0         0.000
+     * INDEXES                      0              0         0.000
+     * reference lookups: 2, hits: 1, hit rate: 0.500
+     * candidates: 1, candidates/lookup: 0.500, max candidates: 1
+     * chains lengths: [1, 1]
+     * </pre>
+     * @return summary of the statistics.
+     */
+    public String getSummary() {
+        final StringBuilder summary = new StringBuilder();
+        summary.append(String.format(
+            "lists: %d, elements: %d, bits: %d, bits/element: %.3f%n",
+            lists,
+            elements,
+            bits,
+            ratio(bits, elements)
+        ));
+        summary.append(String.format("%-17s %12s %14s %13s%n", "section", "entries", "bits", "bits/element"));
+        for (EncodingSection section : SECTIONS) {
+            summary.append(String.format(
+                "%-17s %12d %14d %13.3f%n",
+                section,
+                getEntries(section),
+                getBits(section),
+                ratio(getBits(section), elements)
+            ));
+        }
+        summary.append(String.format(
+            "reference lookups: %d, hits: %d, hit rate: %.3f%n",
+            referenceLookups,
+            referenceHits,
+            ratio(referenceHits, referenceLookups)
+        ));
+        summary.append(String.format(
+            "candidates: %d, candidates/lookup: %.3f, max candidates: %d%n",
+            candidates,
+            ratio(candidates, referenceLookups),
+            maxCandidates
+        ));
+        summary.append("chains lengths: [");
+        for (int i = 0; i < chainsLengths.length; i++) {
+            if (i > 0) {
+                summary.append(", ");
+            }
+            summary.append(chainsLengths[i]);
+        }
+        summary.append(String.format("]%n"));
+        return summary.toString();
+    }
+
+    private static double ratio(final long dividend, final long divisor) {
+        return divisor == 0 ? 0.0 : (double) dividend / divisor;
+    }
+
+}
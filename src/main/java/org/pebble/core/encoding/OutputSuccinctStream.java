@@ -30,6 +30,7 @@ import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongList;
 import it.unimi.dsi.fastutil.longs.LongRBTreeSet;
 import it.unimi.dsi.fastutil.longs.LongSortedSet;
+import it.unimi.dsi.bits.Fast;
 import it.unimi.dsi.io.OutputBitStream;
 import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
 import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
@@ -44,10 +45,14 @@ import java.io.OutputStream;
  */
 public class OutputSuccinctStream extends OutputBitStream {
 
-    private final int minIntervalSize;
+    private int minIntervalSize;
     private final IntList repeatsBuffer;
     private final IntList blocksBuffer;
     private final IntList intervalsBuffer;
+    private final IntList samplesBuffer;
+    private SkipIndexParameters skipIndexParameters;
+    private boolean sizeHeader;
+    private EncodingListener encodingListener;
 
     /**
      * Initialize a stream that will write into the bytes array <code>a</code>.
@@ -59,6 +64,8 @@ public class OutputSuccinctStream extends OutputBitStream {
         repeatsBuffer = new IntArrayList();
         blocksBuffer = new IntArrayList();
         intervalsBuffer = new IntArrayList();
+        samplesBuffer = new IntArrayList();
+        skipIndexParameters = SkipIndexParameters.DISABLED;
     }
 
     /**
@@ -71,6 +78,82 @@ public class OutputSuccinctStream extends OutputBitStream {
         repeatsBuffer = new IntArrayList();
         blocksBuffer = new IntArrayList();
         intervalsBuffer = new IntArrayList();
+        samplesBuffer = new IntArrayList();
+        skipIndexParameters = SkipIndexParameters.DISABLED;
+    }
+
+    /**
+     * Initialize a stream that will write into the output stream <code>os</code> through a buffer of
+     * <code>bufferSize</code> bytes. When <code>bufferSize</code> is zero, every byte is written into
+     * <code>os</code> as soon as it is complete.
+     * @param os output of the stream.
+     * @param bufferSize size in bytes of the buffer.
+     */
+    public OutputSuccinctStream(final OutputStream os, final int bufferSize) {
+        super(os, bufferSize);
+        minIntervalSize = DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE;
+        repeatsBuffer = new IntArrayList();
+        blocksBuffer = new IntArrayList();
+        intervalsBuffer = new IntArrayList();
+        samplesBuffer = new IntArrayList();
+        skipIndexParameters = SkipIndexParameters.DISABLED;
+    }
+
+    /**
+     * Sets the parameters of the skip index embedded in the intervals and deltas sections of the lists written from
+     * now on. The skip index is disabled by default, see {@link SkipIndexParameters} for details.
+     * @param skipIndexParameters parameters of the skip index.
+     */
+    public void setSkipIndexParameters(final SkipIndexParameters skipIndexParameters) {
+        this.skipIndexParameters = skipIndexParameters;
+    }
+
+    /**
+     * Gets the min size of the intervals of the lists written from now on.
+     * @return min size of the intervals.
+     */
+    public int getMinIntervalSize() {
+        return minIntervalSize;
+    }
+
+    /**
+     * Sets the min size of the runs of consecutive values of the lists written from now on that are encoded as
+     * intervals, while shorter runs are encoded as deltas. Smaller sizes move more values into intervals, which
+     * are decoded faster, at the cost of encoding every interval length. By default it is
+     * {@link DefaultParametersValues#DEFAULT_MIN_INTERVAL_SIZE}. The min interval size is not written into the
+     * stream, and the lists must be decoded with the same min interval size. Use
+     * {@link org.pebble.utils.encoding.ContainerWriter} to record it with the lists, otherwise it must be passed to the
+     * decoders, see {@link org.pebble.core.decoding.PebbleBytesStore#setMinIntervalSize(int)}. The reference lists
+     * store the lists are written with estimates the size of its candidates with the same min interval size.
+     * @param minIntervalSize min size of the intervals.
+     * @throws IllegalArgumentException when <code>minIntervalSize</code> is not positive.
+     */
+    public void setMinIntervalSize(final int minIntervalSize) {
+        if (minIntervalSize <= 0) {
+            throw new IllegalArgumentException(
+                String.format("Min interval size must be positive, found %d", minIntervalSize)
+            );
+        }
+        this.minIntervalSize = minIntervalSize;
+    }
+
+    /**
+     * Sets whether the lists written from now on start with their number of elements, using delta encoding, so their
+     * size can be read without decoding them. The size header is disabled by default.
+     * @param sizeHeader whether the lists start with their number of elements or not.
+     */
+    public void setSizeHeader(final boolean sizeHeader) {
+        this.sizeHeader = sizeHeader;
+    }
+
+    /**
+     * Sets the listener that receives the statistics of the lists written from now on (see {@link EncodingStats}),
+     * or null to stop reporting them. No listener is set by default, so the statistics don't add any cost unless
+     * they are requested.
+     * @param encodingListener listener of the statistics of the written lists.
+     */
+    public void setEncodingListener(final EncodingListener encodingListener) {
+        this.encodingListener = encodingListener;
     }
 
     /**
@@ -152,6 +235,7 @@ public class OutputSuccinctStream extends OutputBitStream {
             offset += writeDelta(repeatsIterator.nextInt() - 1);
             lastRepetitionStartIndex = repetitionStartIndex;
         }
+        notifySection(EncodingSection.REPETITIONS, repeatsBuffer.size() / 2, offset);
         return offset;
     }
 
@@ -234,6 +318,7 @@ public class OutputSuccinctStream extends OutputBitStream {
             offset += writeDelta(repeatsIterator.nextInt() - 1);
             lastRepetitionStartIndex = repetitionStartIndex;
         }
+        notifySection(EncodingSection.REPETITIONS, repeatsBuffer.size() / 2, offset);
         return offset;
     }
 
@@ -287,16 +372,25 @@ public class OutputSuccinctStream extends OutputBitStream {
         final IntReferenceListsStore referenceListsStore
     ) throws IOException {
         int offset = 0;
+        referenceListsStore.setMinIntervalSize(minIntervalSize);
         IntReferenceListsStore.ReferenceList referenceList = referenceListsStore.get(list, valueBitSize, listIndex);
+        if (encodingListener != null) {
+            encodingListener.onReferenceLookup(
+                referenceListsStore.getNumberOfCandidates(),
+                referenceList == null ? 0 : referenceList.getRecursiveReferences() + 1
+            );
+        }
         if (referenceList == null) {
             referenceListsStore.add(listIndex, 0, list);
             offset += writeDelta(0);
+            notifySection(EncodingSection.REFERENCE_OFFSET, 1, offset);
         } else {
             if (referenceList.getList().equals(list)) {
                 referenceListsStore.remove(referenceList);
             }
             referenceListsStore.add(listIndex, referenceList.getRecursiveReferences() + 1, list);
             offset += writeDelta(listIndex - referenceList.getOffset());
+            notifySection(EncodingSection.REFERENCE_OFFSET, 1, offset);
             offset += writeDifference(list, referenceList.getList());
         }
         return offset;
@@ -352,16 +446,25 @@ public class OutputSuccinctStream extends OutputBitStream {
         final LongReferenceListsStore referenceListsStore
     ) throws IOException {
         int offset = 0;
+        referenceListsStore.setMinIntervalSize(minIntervalSize);
         LongReferenceListsStore.ReferenceList referenceList = referenceListsStore.get(list, valueBitSize, listIndex);
+        if (encodingListener != null) {
+            encodingListener.onReferenceLookup(
+                referenceListsStore.getNumberOfCandidates(),
+                referenceList == null ? 0 : referenceList.getRecursiveReferences() + 1
+            );
+        }
         if (referenceList == null) {
             referenceListsStore.add(listIndex, 0, list);
             offset += writeDelta(0);
+            notifySection(EncodingSection.REFERENCE_OFFSET, 1, offset);
         } else {
             if (referenceList.getList().equals(list)) {
                 referenceListsStore.remove(referenceList);
             }
             referenceListsStore.add(listIndex, referenceList.getRecursiveReferences() + 1, list);
             offset += writeDelta(listIndex - referenceList.getOffset());
+            notifySection(EncodingSection.REFERENCE_OFFSET, 1, offset);
             offset += writeDifference(list, referenceList.getList());
         }
         return offset;
@@ -493,6 +596,7 @@ public class OutputSuccinctStream extends OutputBitStream {
         while (blocksIterator.hasNext()) {
             offset += writeDelta(blocksIterator.nextInt() - 1);
         }
+        notifySection(EncodingSection.DIFFERENCE_BLOCKS, blocksBuffer.size(), offset);
         return offset;
     }
 
@@ -622,6 +726,7 @@ public class OutputSuccinctStream extends OutputBitStream {
         while (blocksIterator.hasNext()) {
             offset += writeDelta(blocksIterator.nextInt() - 1);
         }
+        notifySection(EncodingSection.DIFFERENCE_BLOCKS, blocksBuffer.size(), offset);
         return offset;
     }
 
@@ -631,6 +736,10 @@ public class OutputSuccinctStream extends OutputBitStream {
      * <ul>
      *     <li>Number of intervals.</li>
      *     <li>
+     *         Skip index of the intervals, only when the number of intervals is big enough (see
+     *         {@link #writeIntervalsSkipIndex(it.unimi.dsi.fastutil.ints.IntList, int) writeIntervalsSkipIndex}).
+     *     </li>
+     *     <li>
      *         For each interval:
      *         <ul>
      *             <li>
@@ -668,6 +777,7 @@ public class OutputSuccinctStream extends OutputBitStream {
      */
     protected int writeIntervals(final IntList list, final int valueBitSize) throws IOException {
         int offset = 0;
+        int skipIndexOffset = 0;
         intervalsBuffer.clear();
         if (list.size() >= minIntervalSize) {
             IntIterator listIterator = list.iterator();
@@ -697,6 +807,8 @@ public class OutputSuccinctStream extends OutputBitStream {
                 intervalsBuffer.add(index - intervalInitialIndex);
             }
             offset += writeDelta(intervalsBuffer.size() / 2);
+            skipIndexOffset = writeIntervalsSkipIndex(list, valueBitSize);
+            offset += skipIndexOffset;
             if (!intervalsBuffer.isEmpty()) {
                 IntIterator intervalIterator = intervalsBuffer.iterator();
                 intervalInitialIndex = intervalIterator.nextInt();
@@ -733,6 +845,7 @@ public class OutputSuccinctStream extends OutputBitStream {
         } else {
             offset += writeDelta(0);
         }
+        notifySection(EncodingSection.INTERVALS, intervalsBuffer.size() / 2, offset - skipIndexOffset);
         return offset;
     }
 
@@ -742,6 +855,10 @@ public class OutputSuccinctStream extends OutputBitStream {
      * <ul>
      *     <li>Number of intervals.</li>
      *     <li>
+     *         Skip index of the intervals, only when the number of intervals is big enough (see
+     *         {@link #writeIntervalsSkipIndex(it.unimi.dsi.fastutil.longs.LongList, int) writeIntervalsSkipIndex}).
+     *     </li>
+     *     <li>
      *         For each interval:
      *         <ul>
      *             <li>
@@ -779,6 +896,7 @@ public class OutputSuccinctStream extends OutputBitStream {
      */
     protected int writeIntervals(final LongList list, final int valueBitSize) throws IOException {
         int offset = 0;
+        int skipIndexOffset = 0;
         intervalsBuffer.clear();
         if (list.size() >= minIntervalSize) {
             LongIterator listIterator = list.iterator();
@@ -808,6 +926,8 @@ public class OutputSuccinctStream extends OutputBitStream {
                 intervalsBuffer.add(index - intervalInitialIndex);
             }
             offset += writeDelta(intervalsBuffer.size() / 2);
+            skipIndexOffset = writeIntervalsSkipIndex(list, valueBitSize);
+            offset += skipIndexOffset;
             if (!intervalsBuffer.isEmpty()) {
                 IntIterator intervalIterator = intervalsBuffer.iterator();
                 intervalInitialIndex = intervalIterator.nextInt();
@@ -847,6 +967,7 @@ public class OutputSuccinctStream extends OutputBitStream {
         } else {
             offset += writeDelta(0);
         }
+        notifySection(EncodingSection.INTERVALS, intervalsBuffer.size() / 2, offset - skipIndexOffset);
         return offset;
     }
 
@@ -855,6 +976,10 @@ public class OutputSuccinctStream extends OutputBitStream {
      * <ul>
      *     <li>List length.</li>
      *     <li>
+     *         Skip index of the list, only when the list is big enough (see
+     *         {@link #writeDeltaSkipIndex(it.unimi.dsi.fastutil.ints.IntList, int) writeDeltaSkipIndex}).
+     *     </li>
+     *     <li>
      *         For each element in the list:
      *         <ul>
      *             <li>
@@ -886,6 +1011,8 @@ public class OutputSuccinctStream extends OutputBitStream {
     protected int writeDelta(final IntList list, final int valueBitSize) throws IOException {
         final IntIterator listIterator = list.iterator();
         int offset = writeDelta(list.size());
+        final int skipIndexOffset = writeDeltaSkipIndex(list, valueBitSize);
+        offset += skipIndexOffset;
         if (listIterator.hasNext()) {
             int value;
             int deltaValue;
@@ -901,6 +1028,7 @@ public class OutputSuccinctStream extends OutputBitStream {
                 lastValue = value;
             }
         }
+        notifySection(EncodingSection.DELTAS, list.size(), offset - skipIndexOffset);
         return offset;
     }
 
@@ -909,6 +1037,10 @@ public class OutputSuccinctStream extends OutputBitStream {
      * <ul>
      *     <li>List length.</li>
      *     <li>
+     *         Skip index of the list, only when the list is big enough (see
+     *         {@link #writeDeltaSkipIndex(it.unimi.dsi.fastutil.longs.LongList, int) writeDeltaSkipIndex}).
+     *     </li>
+     *     <li>
      *         For each element in the list:
      *         <ul>
      *             <li>
@@ -940,6 +1072,8 @@ public class OutputSuccinctStream extends OutputBitStream {
     protected int writeDelta(final LongList list, final int valueBitSize) throws IOException {
         final LongIterator listIterator = list.iterator();
         int offset = writeDelta(list.size());
+        final int skipIndexOffset = writeDeltaSkipIndex(list, valueBitSize);
+        offset += skipIndexOffset;
         if (listIterator.hasNext()) {
             long value;
             long deltaValue;
@@ -957,6 +1091,7 @@ public class OutputSuccinctStream extends OutputBitStream {
                 lastValue = value;
             }
         }
+        notifySection(EncodingSection.DELTAS, list.size(), offset - skipIndexOffset);
         return offset;
     }
 
@@ -964,6 +1099,10 @@ public class OutputSuccinctStream extends OutputBitStream {
      * Writes the compressed representation of an strictly incremental list with positive numbers, including zero.
      * <ul>
      *     <li>
+     *         Writes the number of elements of the list using delta encoding, when the size header is enabled (see
+     *         {@link #setSizeHeader(boolean) setSizeHeader}).
+     *     </li>
+     *     <li>
      *         Writes the reference (see
      *         {@link #writeReference(it.unimi.dsi.fastutil.ints.IntList, int, int, org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore) writeReference}).
      *     </li>
@@ -991,16 +1130,19 @@ public class OutputSuccinctStream extends OutputBitStream {
         final int valueBitSize,
         final IntReferenceListsStore referenceListsStore
     ) throws IOException {
-        int offset = writeReference(list, listIndex, valueBitSize, referenceListsStore);
-        offset += writeIntervals(list, valueBitSize);
-        offset += writeDelta(list, valueBitSize);
-        return offset;
+        final int size = list.size();
+        final int offset = writeSizeHeader(size) + writeSections(list, listIndex, valueBitSize, referenceListsStore);
+        return notifyList(listIndex, size, offset);
     }
 
     /**
      * Writes the compressed representation of an strictly incremental list with positive numbers, including zero.
      * <ul>
      *     <li>
+     *         Writes the number of elements of the list using delta encoding, when the size header is enabled (see
+     *         {@link #setSizeHeader(boolean) setSizeHeader}).
+     *     </li>
+     *     <li>
      *         Writes the reference (see
      *         {@link #writeReference(it.unimi.dsi.fastutil.longs.LongList, int, int, org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore) writeReference}).
      *     </li>
@@ -1028,16 +1170,19 @@ public class OutputSuccinctStream extends OutputBitStream {
         final int valueBitSize,
         final LongReferenceListsStore referenceListsStore
     ) throws IOException {
-        int offset = writeReference(list, listIndex, valueBitSize, referenceListsStore);
-        offset += writeIntervals(list, valueBitSize);
-        offset += writeDelta(list, valueBitSize);
-        return offset;
+        final int size = list.size();
+        final int offset = writeSizeHeader(size) + writeSections(list, listIndex, valueBitSize, referenceListsStore);
+        return notifyList(listIndex, size, offset);
     }
 
     /**
      * Writes the compressed representation of an incremental list with positive numbers, including zero.
      * <ul>
      *     <li>
+     *         Writes the number of elements of the list using delta encoding, when the size header is enabled (see
+     *         {@link #setSizeHeader(boolean) setSizeHeader}).
+     *     </li>
+     *     <li>
      *         Writes the repetitions (see
      *         {@link #writeRepetitions(it.unimi.dsi.fastutil.ints.IntList) writeRepetitions}).
      *     </li>
@@ -1069,17 +1214,23 @@ public class OutputSuccinctStream extends OutputBitStream {
         final int valueBitSize,
         final IntReferenceListsStore referenceListsStore
     ) throws IOException {
-        int offset = writeRepetitions(list);
+        final int size = list.size();
+        int offset = writeSizeHeader(size);
+        offset += writeRepetitions(list);
         offset += writeReference(list, listIndex, valueBitSize, referenceListsStore);
         offset += writeIntervals(list, valueBitSize);
         offset += writeDelta(list, valueBitSize);
-        return offset;
+        return notifyList(listIndex, size, offset);
     }
 
     /**
      * Writes the compressed representation of an incremental list with positive numbers, including zero.
      * <ul>
      *     <li>
+     *         Writes the number of elements of the list using delta encoding, when the size header is enabled (see
+     *         {@link #setSizeHeader(boolean) setSizeHeader}).
+     *     </li>
+     *     <li>
      *         Writes the repetitions (see
      *         {@link #writeRepetitions(it.unimi.dsi.fastutil.longs.LongList) writeRepetitions}).
      *     </li>
@@ -1111,17 +1262,23 @@ public class OutputSuccinctStream extends OutputBitStream {
         final int valueBitSize,
         final LongReferenceListsStore referenceListsStore
     ) throws IOException {
-        int offset = writeRepetitions(list);
+        final int size = list.size();
+        int offset = writeSizeHeader(size);
+        offset += writeRepetitions(list);
         offset += writeReference(list, listIndex, valueBitSize, referenceListsStore);
         offset += writeIntervals(list, valueBitSize);
         offset += writeDelta(list, valueBitSize);
-        return offset;
+        return notifyList(listIndex, size, offset);
     }
 
     /**
      * Writes the compressed representation of a list with positive numbers, including zero.
      * <ul>
      *     <li>
+     *         Writes the number of elements of the list using delta encoding, when the size header is enabled (see
+     *         {@link #setSizeHeader(boolean) setSizeHeader}).
+     *     </li>
+     *     <li>
      *         Writes values in lists as strictly incremental list (see
      *         {@link #writeStrictlyIncrementalList(it.unimi.dsi.fastutil.ints.IntList, int, int, org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore) writeStrictlyIncrementalList}).
      *     </li>
@@ -1177,18 +1334,15 @@ public class OutputSuccinctStream extends OutputBitStream {
     ) throws IOException {
         final int listSize = list.size();
         final IntSortedSet values = new IntRBTreeSet(list);
-        int offset = writeStrictlyIncrementalList(
-            new IntArrayList(values),
-            listIndex,
-            valueBitSize,
-            referenceListsStore
-        );
+        int offset = writeSizeHeader(listSize);
+        offset += writeSections(new IntArrayList(values), listIndex, valueBitSize, referenceListsStore);
         final Int2IntMap valuesIndex = new Int2IntRBTreeMap();
         final IntIterator valuesIterator = values.iterator();
         int index = 0;
         while (valuesIterator.hasNext()) {
             valuesIndex.put(valuesIterator.nextInt(), index++);
         }
+        final int indexesOffset = offset;
         offset += writeDelta(listSize - values.size());
         final IntIterator listIterator = list.iterator();
         int lastIndex = 0;
@@ -1201,13 +1355,18 @@ public class OutputSuccinctStream extends OutputBitStream {
             }
             lastIndex = index;
         }
-        return offset;
+        notifySection(EncodingSection.INDEXES, listSize, offset - indexesOffset);
+        return notifyList(listIndex, listSize, offset);
     }
 
     /**
      * Writes the compressed representation of a list with positive numbers, including zero.
      * <ul>
      *     <li>
+     *         Writes the number of elements of the list using delta encoding, when the size header is enabled (see
+     *         {@link #setSizeHeader(boolean) setSizeHeader}).
+     *     </li>
+     *     <li>
      *         Writes values in lists as strictly incremental list (see
      *         {@link #writeStrictlyIncrementalList(it.unimi.dsi.fastutil.longs.LongList, int, int, org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore) writeStrictlyIncrementalList}).
      *     </li>
@@ -1263,18 +1422,15 @@ public class OutputSuccinctStream extends OutputBitStream {
     ) throws IOException {
         final int listSize = list.size();
         final LongSortedSet values = new LongRBTreeSet(list);
-        int offset = writeStrictlyIncrementalList(
-            new LongArrayList(values),
-            listIndex,
-            valueBitSize,
-            referenceListsStore
-        );
+        int offset = writeSizeHeader(listSize);
+        offset += writeSections(new LongArrayList(values), listIndex, valueBitSize, referenceListsStore);
         final Long2IntMap valuesIndex = new Long2IntRBTreeMap();
         final LongIterator valuesIterator = values.iterator();
         int index = 0;
         while (valuesIterator.hasNext()) {
             valuesIndex.put(valuesIterator.nextLong(), index++);
         }
+        final int indexesOffset = offset;
         offset += writeDelta(listSize - values.size());
         final LongIterator listIterator = list.iterator();
         int lastIndex = 0;
@@ -1287,7 +1443,317 @@ public class OutputSuccinctStream extends OutputBitStream {
             }
             lastIndex = index;
         }
+        notifySection(EncodingSection.INDEXES, listSize, offset - indexesOffset);
+        return notifyList(listIndex, listSize, offset);
+    }
+
+    /**
+     * Writes the skip index of the intervals of <code>list</code> found on <code>intervalsBuffer</code>, when there
+     * is enough intervals to sample (see {@link SkipIndexParameters#getNumberOfSamples(int)}). When the skip index is
+     * enabled and there are intervals, but not enough to sample, only a zero bit is written. Otherwise nothing is
+     * written.
+     * <ul>
+     *     <li>A one bit, telling that the intervals are indexed.</li>
+     *     <li>Sampling rate of the index, using delta encoding.</li>
+     *     <li>Length in bits of the intervals that follow the index, using delta encoding.</li>
+     *     <li>Number of elements of the intervals, using delta encoding.</li>
+     *     <li>
+     *         For each sampled interval:
+     *         <ul>
+     *             <li>Its first value, using <code>valueBitSize</code> bits.</li>
+     *             <li>
+     *                 Number of elements of the previous intervals, using the number of bits required to represent
+     *                 the number of elements of the intervals.
+     *             </li>
+     *             <li>
+     *                 Offset in bits from the first interval to the length of the sampled interval, using the number
+     *                 of bits required to represent the length of the intervals.
+     *             </li>
+     *         </ul>
+     *     </li>
+     * </ul>
+     * @param list from which the intervals were extracted, before removing their elements.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @return number of written bits.
+     * @throws IOException when there is an exception writing into <code>out</code>.
+     */
+    protected int writeIntervalsSkipIndex(final IntList list, final int valueBitSize) throws IOException {
+        final int intervals = intervalsBuffer.size() / 2;
+        final int samples = skipIndexParameters.getNumberOfSamples(intervals);
+        if (samples <= 0) {
+            return writeSkipIndexHeader(intervals, samples);
+        }
+        final int samplingRate = skipIndexParameters.getSamplingRate();
+        samplesBuffer.clear();
+        int length = valueBitSize;
+        int elements = 0;
+        int lastValue = 0;
+        int value;
+        int intervalLength;
+        for (int i = 0; i < intervals; i++) {
+            value = list.getInt(intervalsBuffer.getInt(i * 2));
+            intervalLength = intervalsBuffer.getInt(i * 2 + 1);
+            if (i > 0) {
+                length += getDeltaLength(value - lastValue - 2);
+                if (i % samplingRate == 0) {
+                    samplesBuffer.add(elements);
+                    samplesBuffer.add(length);
+                }
+            }
+            length += getDeltaLength(intervalLength - minIntervalSize);
+            elements += intervalLength;
+            lastValue = value + intervalLength - 1;
+        }
+        final int rankBitSize = Fast.length(elements);
+        final int offsetBitSize = Fast.length(length);
+        int offset = writeSkipIndexHeader(intervals, samples);
+        offset += writeDelta(length);
+        offset += writeDelta(elements);
+        for (int i = 0; i < samples; i++) {
+            offset += writeInt(list.getInt(intervalsBuffer.getInt((i + 1) * samplingRate * 2)), valueBitSize);
+            offset += writeInt(samplesBuffer.getInt(i * 2), rankBitSize);
+            offset += writeInt(samplesBuffer.getInt(i * 2 + 1), offsetBitSize);
+        }
+        notifySection(EncodingSection.SKIP_INDEX, samples, offset);
+        return offset;
+    }
+
+    /**
+     * Writes the skip index of the strictly incremental <code>list</code> encoded with
+     * {@link #writeDelta(it.unimi.dsi.fastutil.ints.IntList, int) writeDelta}, when the list is big enough to be
+     * sampled (see {@link SkipIndexParameters#getNumberOfSamples(int)}). When the skip index is enabled and the list
+     * is not empty, but not big enough to be sampled, only a zero bit is written. Otherwise nothing is written.
+     * <ul>
+     *     <li>A one bit, telling that the list is indexed.</li>
+     *     <li>Sampling rate of the index, using delta encoding.</li>
+     *     <li>Length in bits of the elements that follow the index, using delta encoding.</li>
+     *     <li>
+     *         For each sampled element:
+     *         <ul>
+     *             <li>Its value, using <code>valueBitSize</code> bits.</li>
+     *             <li>
+     *                 Offset in bits from the first element to the element after the sampled one, using the number of
+     *                 bits required to represent the length of the elements.
+     *             </li>
+     *         </ul>
+     *     </li>
+     * </ul>
+     * @param list to encode. List must be strictly incremental with positives (including zero) values.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @return number of written bits.
+     * @throws IOException when there is an exception writing into <code>out</code>.
+     */
+    protected int writeDeltaSkipIndex(final IntList list, final int valueBitSize) throws IOException {
+        final int samples = skipIndexParameters.getNumberOfSamples(list.size());
+        if (samples <= 0) {
+            return writeSkipIndexHeader(list.size(), samples);
+        }
+        final int samplingRate = skipIndexParameters.getSamplingRate();
+        samplesBuffer.clear();
+        int length = valueBitSize;
+        for (int i = 1; i < list.size(); i++) {
+            length += getDeltaLength(list.getInt(i) - list.getInt(i - 1) - 1);
+            if (i % samplingRate == 0) {
+                samplesBuffer.add(length);
+            }
+        }
+        final int offsetBitSize = Fast.length(length);
+        int offset = writeSkipIndexHeader(list.size(), samples);
+        offset += writeDelta(length);
+        for (int i = 0; i < samples; i++) {
+            offset += writeInt(list.getInt((i + 1) * samplingRate), valueBitSize);
+            offset += writeInt(samplesBuffer.getInt(i), offsetBitSize);
+        }
+        notifySection(EncodingSection.SKIP_INDEX, samples, offset);
+        return offset;
+    }
+
+    /**
+     * Writes the skip index of the intervals of <code>list</code> found on <code>intervalsBuffer</code>, when there
+     * is enough intervals to sample (see {@link SkipIndexParameters#getNumberOfSamples(int)}). When the skip index is
+     * enabled and there are intervals, but not enough to sample, only a zero bit is written. Otherwise nothing is
+     * written.
+     * <ul>
+     *     <li>A one bit, telling that the intervals are indexed.</li>
+     *     <li>Sampling rate of the index, using delta encoding.</li>
+     *     <li>Length in bits of the intervals that follow the index, using delta encoding.</li>
+     *     <li>Number of elements of the intervals, using delta encoding.</li>
+     *     <li>
+     *         For each sampled interval:
+     *         <ul>
+     *             <li>Its first value, using <code>valueBitSize</code> bits.</li>
+     *             <li>
+     *                 Number of elements of the previous intervals, using the number of bits required to represent
+     *                 the number of elements of the intervals.
+     *             </li>
+     *             <li>
+     *                 Offset in bits from the first interval to the length of the sampled interval, using the number
+     *                 of bits required to represent the length of the intervals.
+     *             </li>
+     *         </ul>
+     *     </li>
+     * </ul>
+     * @param list from which the intervals were extracted, before removing their elements.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @return number of written bits.
+     * @throws IOException when there is an exception writing into <code>out</code>.
+     */
+    protected int writeIntervalsSkipIndex(final LongList list, final int valueBitSize) throws IOException {
+        final int intervals = intervalsBuffer.size() / 2;
+        final int samples = skipIndexParameters.getNumberOfSamples(intervals);
+        if (samples <= 0) {
+            return writeSkipIndexHeader(intervals, samples);
+        }
+        final int samplingRate = skipIndexParameters.getSamplingRate();
+        samplesBuffer.clear();
+        int length = valueBitSize;
+        int elements = 0;
+        long lastValue = 0;
+        long value;
+        int intervalLength;
+        for (int i = 0; i < intervals; i++) {
+            value = list.getLong(intervalsBuffer.getInt(i * 2));
+            intervalLength = intervalsBuffer.getInt(i * 2 + 1);
+            if (i > 0) {
+                length += getDeltaLength((int) (value - lastValue - 2));
+                if (i % samplingRate == 0) {
+                    samplesBuffer.add(elements);
+                    samplesBuffer.add(length);
+                }
+            }
+            length += getDeltaLength(intervalLength - minIntervalSize);
+            elements += intervalLength;
+            lastValue = value + intervalLength - 1;
+        }
+        final int rankBitSize = Fast.length(elements);
+        final int offsetBitSize = Fast.length(length);
+        int offset = writeSkipIndexHeader(intervals, samples);
+        offset += writeDelta(length);
+        offset += writeDelta(elements);
+        for (int i = 0; i < samples; i++) {
+            offset += writeLong(list.getLong(intervalsBuffer.getInt((i + 1) * samplingRate * 2)), valueBitSize);
+            offset += writeInt(samplesBuffer.getInt(i * 2), rankBitSize);
+            offset += writeInt(samplesBuffer.getInt(i * 2 + 1), offsetBitSize);
+        }
+        notifySection(EncodingSection.SKIP_INDEX, samples, offset);
+        return offset;
+    }
+
+    /**
+     * Writes the skip index of the strictly incremental <code>list</code> encoded with
+     * {@link #writeDelta(it.unimi.dsi.fastutil.longs.LongList, int) writeDelta}, when the list is big enough to be
+     * sampled (see {@link SkipIndexParameters#getNumberOfSamples(int)}). When the skip index is enabled and the list
+     * is not empty, but not big enough to be sampled, only a zero bit is written. Otherwise nothing is written.
+     * <ul>
+     *     <li>A one bit, telling that the list is indexed.</li>
+     *     <li>Sampling rate of the index, using delta encoding.</li>
+     *     <li>Length in bits of the elements that follow the index, using delta encoding.</li>
+     *     <li>
+     *         For each sampled element:
+     *         <ul>
+     *             <li>Its value, using <code>valueBitSize</code> bits.</li>
+     *             <li>
+     *                 Offset in bits from the first element to the element after the sampled one, using the number of
+     *                 bits required to represent the length of the elements.
+     *             </li>
+     *         </ul>
+     *     </li>
+     * </ul>
+     * @param list to encode. List must be strictly incremental with positives (including zero) values.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @return number of written bits.
+     * @throws IOException when there is an exception writing into <code>out</code>.
+     */
+    protected int writeDeltaSkipIndex(final LongList list, final int valueBitSize) throws IOException {
+        final int samples = skipIndexParameters.getNumberOfSamples(list.size());
+        if (samples <= 0) {
+            return writeSkipIndexHeader(list.size(), samples);
+        }
+        final int samplingRate = skipIndexParameters.getSamplingRate();
+        samplesBuffer.clear();
+        int length = valueBitSize;
+        for (int i = 1; i < list.size(); i++) {
+            length += getDeltaLength((int) (list.getLong(i) - list.getLong(i - 1) - 1));
+            if (i % samplingRate == 0) {
+                samplesBuffer.add(length);
+            }
+        }
+        final int offsetBitSize = Fast.length(length);
+        int offset = writeSkipIndexHeader(list.size(), samples);
+        offset += writeDelta(length);
+        for (int i = 0; i < samples; i++) {
+            offset += writeLong(list.getLong((i + 1) * samplingRate), valueBitSize);
+            offset += writeInt(samplesBuffer.getInt(i), offsetBitSize);
+        }
+        notifySection(EncodingSection.SKIP_INDEX, samples, offset);
+        return offset;
+    }
+
+    private int writeSizeHeader(final int size) throws IOException {
+        if (!sizeHeader) {
+            return 0;
+        }
+        final int offset = writeDelta(size);
+        notifySection(EncodingSection.SIZE_HEADER, 1, offset);
+        return offset;
+    }
+
+    private int writeSections(
+        final IntList list,
+        final int listIndex,
+        final int valueBitSize,
+        final IntReferenceListsStore referenceListsStore
+    ) throws IOException {
+        int offset = writeReference(list, listIndex, valueBitSize, referenceListsStore);
+        offset += writeIntervals(list, valueBitSize);
+        offset += writeDelta(list, valueBitSize);
+        return offset;
+    }
+
+    private int writeSections(
+        final LongList list,
+        final int listIndex,
+        final int valueBitSize,
+        final LongReferenceListsStore referenceListsStore
+    ) throws IOException {
+        int offset = writeReference(list, listIndex, valueBitSize, referenceListsStore);
+        offset += writeIntervals(list, valueBitSize);
+        offset += writeDelta(list, valueBitSize);
         return offset;
     }
 
+    private int writeSkipIndexHeader(final int sectionSize, final int samples) throws IOException {
+        if (sectionSize == 0 || !skipIndexParameters.isEnabled()) {
+            return 0;
+        }
+        if (samples <= 0) {
+            final int offset = writeBit(0);
+            notifySection(EncodingSection.SKIP_INDEX, 0, offset);
+            return offset;
+        }
+        return writeBit(1) + writeDelta(skipIndexParameters.getSamplingRate());
+    }
+
+    private void notifySection(final EncodingSection section, final int entries, final int bits) {
+        if (encodingListener != null) {
+            encodingListener.onSection(section, entries, bits);
+        }
+    }
+
+    private int notifyList(final int listIndex, final int size, final int bits) {
+        if (encodingListener != null) {
+            encodingListener.onList(listIndex, size, bits);
+        }
+        return bits;
+    }
+
+    private static int getDeltaLength(final int value) {
+        final int msb = Fast.mostSignificantBit(value + 1);
+        return 2 * Fast.mostSignificantBit(msb + 1) + 1 + msb;
+    }
+
 }
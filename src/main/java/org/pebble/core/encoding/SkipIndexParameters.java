@@ -0,0 +1,137 @@
+package org.pebble.core.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.io.InputBitStream;
+
+import java.io.IOException;
+
+/**
+ * Parameters of the skip index embedded in the intervals and deltas sections of the compressed lists. When a section
+ * has at least <code>minSectionSize</code> entries, every <code>samplingRate</code> entries its value and its
+ * offset in bits from the beginning of the section are sampled, so iterators can jump to the closest sample before
+ * the value they are looking for instead of decoding every previous entry. Sections below the threshold are not
+ * indexed, so small lists only pay the bit of the section header that tells that they aren't.
+ *
+ * <p>When the skip index is enabled, the header of every non-empty intervals and deltas section tells whether the
+ * section is indexed and, when it is, the sampling rate of its index. So the lists can be decoded with any enabled
+ * parameters, but lists encoded with the skip index enabled can't be decoded with {@link #DISABLED} parameters, nor the
+ * other way around.</p>
+ */
+public class SkipIndexParameters {
+
+    /**
+     * Parameters that disable the skip index on every section.
+     */
+    public static final SkipIndexParameters DISABLED = new SkipIndexParameters(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final int samplingRate;
+    private final int minSectionSize;
+
+    /**
+     * Initializes the parameters with default sampling rate and min section size.
+     */
+    public SkipIndexParameters() {
+        this(
+            DefaultParametersValues.DEFAULT_SKIP_INDEX_SAMPLING_RATE,
+            DefaultParametersValues.DEFAULT_SKIP_INDEX_MIN_SECTION_SIZE
+        );
+    }
+
+    /**
+     * @param samplingRate number of entries of a section between consecutive samples.
+     * @param minSectionSize min number of entries of a section to be indexed.
+     * @throws IllegalArgumentException when <code>samplingRate</code> is not positive or <code>minSectionSize</code>
+     * is negative.
+     */
+    public SkipIndexParameters(final int samplingRate, final int minSectionSize) {
+        if (samplingRate <= 0) {
+            throw new IllegalArgumentException(String.format("Sampling rate must be positive, found %d", samplingRate));
+        }
+        if (minSectionSize < 0) {
+            throw new IllegalArgumentException(
+                String.format("Min section size can't be negative, found %d", minSectionSize)
+            );
+        }
+        this.samplingRate = samplingRate;
+        this.minSectionSize = minSectionSize;
+    }
+
+    /**
+     * Gets the number of entries of a section between consecutive samples.
+     * @return number of entries of a section between consecutive samples.
+     */
+    public int getSamplingRate() {
+        return samplingRate;
+    }
+
+    /**
+     * Gets the min number of entries of a section to be indexed.
+     * @return min number of entries of a section to be indexed.
+     */
+    public int getMinSectionSize() {
+        return minSectionSize;
+    }
+
+    /**
+     * Gets the number of samples of the skip index of a section with <code>sectionSize</code> entries. The first entry
+     * is never sampled, given that iterators always start on it, so empty sections are never indexed.
+     * @param sectionSize number of entries of the section.
+     * @return number of samples of the skip index of the section, or zero when the section is not indexed.
+     */
+    public int getNumberOfSamples(final int sectionSize) {
+        return sectionSize == 0 || sectionSize < minSectionSize ? 0 : (sectionSize - 1) / samplingRate;
+    }
+
+    /**
+     * Checks whether the skip index is enabled or not, which is the only parameter that must match between the
+     * encoding and the decoding of the lists.
+     * @return true if the skip index is enabled and false whether not.
+     */
+    public boolean isEnabled() {
+        return minSectionSize != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Reads the sampling rate of the skip index of a section with <code>sectionSize</code> entries from
+     * <code>inputBitStream</code>, positioned after the number of entries of the section. When the skip index is
+     * enabled the header of every non-empty section has a bit which is one when the section is indexed, followed by
+     * the sampling rate using delta encoding. Otherwise nothing is read.
+     * @param inputBitStream stream positioned after the number of entries of the section.
+     * @param sectionSize number of entries of the section.
+     * @return sampling rate of the skip index of the section, or zero when the section is not indexed.
+     * @throws IOException when there is an exception reading from <code>inputBitStream</code>.
+     */
+    public int readSamplingRate(final InputBitStream inputBitStream, final int sectionSize) throws IOException {
+        if (sectionSize == 0 || !isEnabled() || inputBitStream.readBit() == 0) {
+            return 0;
+        }
+        return inputBitStream.readDelta();
+    }
+
+    /**
+     * Gets the number of samples of the skip index of a section with <code>sectionSize</code> entries, sampled every
+     * <code>samplingRate</code> entries.
+     * @param sectionSize number of entries of the section.
+     * @param samplingRate sampling rate of the skip index of the section, or zero when the section is not indexed.
+     * @return number of samples of the skip index of the section, or zero when the section is not indexed.
+     */
+    public static int getNumberOfSamples(final int sectionSize, final int samplingRate) {
+        return sectionSize == 0 || samplingRate == 0 ? 0 : (sectionSize - 1) / samplingRate;
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.pebble.core.encoding.commons;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+/**
+ * Posting list of an inverted list index. Holds the indexes of the lists that contain a given value, in the same
+ * order they were added, together with the generation the index had when the list was added. When a list is
+ * removed from the inverted list index, the generation of its index is increased instead of searching for its
+ * entries, so these entries become stale and are discarded lazily once they are the majority of the posting list.
+ */
+public class InvertedListPostings {
+
+    private int[] indexes;
+    private int[] generations;
+    private int size;
+    private int liveSize;
+
+    /**
+     * Initializes an empty posting list.
+     */
+    public InvertedListPostings() {
+        this(IntArrays.EMPTY_ARRAY);
+    }
+
+    /**
+     * Initializes a posting list with the given <code>indexes</code> on its first generation.
+     * @param indexes of the lists that contain the value.
+     */
+    public InvertedListPostings(final int[] indexes) {
+        this.indexes = indexes.clone();
+        generations = new int[indexes.length];
+        size = indexes.length;
+        liveSize = size;
+    }
+
+    /**
+     * Adds a new entry at the end of the posting list.
+     * @param index of the list that contains the value.
+     * @param generation current generation of the <code>index</code>.
+     */
+    public void add(final int index, final int generation) {
+        if (size == indexes.length) {
+            indexes = IntArrays.grow(indexes, size + 1);
+            generations = IntArrays.grow(generations, size + 1);
+        }
+        indexes[size] = index;
+        generations[size] = generation;
+        size++;
+        liveSize++;
+    }
+
+    /**
+     * Notifies that one of the entries of the posting list became stale. When more than half of the entries are
+     * stale they are discarded.
+     * @param currentGenerations current generation of every index.
+     * @return number of entries that are not stale.
+     */
+    public int removeStaleEntry(final int[] currentGenerations) {
+        liveSize--;
+        if (liveSize << 1 < size) {
+            int j = 0;
+            for (int i = 0; i < size; i++) {
+                if (isLive(i, currentGenerations)) {
+                    indexes[j] = indexes[i];
+                    generations[j] = generations[i];
+                    j++;
+                }
+            }
+            size = j;
+        }
+        return liveSize;
+    }
+
+    /**
+     * Checks whether the entry at position <code>i</code> belongs to a list that hasn't been removed.
+     * @param i position of the entry.
+     * @param currentGenerations current generation of every index.
+     * @return true when the entry is not stale and false when it is.
+     */
+    public boolean isLive(final int i, final int[] currentGenerations) {
+        return generations[i] == currentGenerations[indexes[i]];
+    }
+
+    /**
+     * Gets the index of the entry at position <code>i</code>.
+     * @param i position of the entry.
+     * @return index of the list of the entry.
+     */
+    public int getIndex(final int i) {
+        return indexes[i];
+    }
+
+    /**
+     * Gets the number of entries of the posting list, including the stale ones.
+     * @return number of entries of the posting list.
+     */
+    public int size() {
+        return size;
+    }
+
+}
@@ -0,0 +1,33 @@
+package org.pebble.core.encoding.commons;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/**
+ * Optional interface of the reference lists indexes that estimate the size of the intervals of the lists. When the
+ * index of a reference lists store implements it, the store passes on the min interval size of the
+ * {@link org.pebble.core.encoding.OutputSuccinctStream} that writes the lists, so the candidates are scored with the
+ * same intervals the stream writes.
+ */
+public interface MinIntervalSizeAware {
+
+    /**
+     * Sets the min size of the intervals of the lists written from now on.
+     * @param minIntervalSize min size of the intervals.
+     */
+    public void setMinIntervalSize(int minIntervalSize);
+
+}
@@ -302,10 +302,21 @@ public class OutputOffset {
     protected final IntList blocksBuffer;
 
     /**
-     * Initializes instance of {@link OutputOffset}.
+     * Initializes instance of {@link OutputOffset} that estimates the size of intervals of at least
+     * {@link DefaultParametersValues#DEFAULT_MIN_INTERVAL_SIZE} elements.
      */
     public OutputOffset() {
-        minIntervalSize = DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE;
+        this(DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE);
+    }
+
+    /**
+     * Initializes instance of {@link OutputOffset} that estimates the size of intervals of at least
+     * <code>minIntervalSize</code> elements, which must be the min interval size of the stream that writes the lists
+     * (see {@link org.pebble.core.encoding.OutputSuccinctStream#setMinIntervalSize(int)}).
+     * @param minIntervalSize min size of intervals used to encode the compressed list.
+     */
+    public OutputOffset(final int minIntervalSize) {
+        this.minIntervalSize = minIntervalSize;
         intervalsBuffer = new IntArrayList();
         blocksBuffer = new IntArrayList();
     }
@@ -0,0 +1,164 @@
+package org.pebble.core.encoding.commons;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import it.unimi.dsi.fastutil.ints.IntHeaps;
+
+/**
+ * Selects the reference list candidates of a list from the posting lists of the values, or of the MinHash bands, it
+ * shares with the stored lists. Every candidate counts the number of posting lists it was found on, and only the
+ * <code>maxCandidates</code> candidates with the highest counts are kept. For every posting list, at most the
+ * <code>maxPostingListSize</code> lists most recently added to the store are taken into account. The selection
+ * doesn't depend on the type of the values of the lists, {@link org.pebble.core.encoding.ints.IntReferenceCandidates}
+ * and {@link org.pebble.core.encoding.longs.LongReferenceCandidates} compute the number of bits required by every
+ * selected candidate.
+ */
+public class ReferenceCandidates {
+
+    private final int maxCandidates;
+    private final int maxPostingListSize;
+    private final IntComparator overlapsComparator;
+    private int[] overlaps;
+
+    /**
+     * indexes of the selected candidates.
+     */
+    protected int[] candidates;
+
+    /**
+     * number of selected candidates.
+     */
+    protected int candidatesSize;
+
+    /**
+     * Initializes instance of {@link ReferenceCandidates}.
+     * @param maxCandidates maximum number of selected candidates.
+     * @param maxPostingListSize maximum number of lists taken into account for each posting list.
+     */
+    public ReferenceCandidates(final int maxCandidates, final int maxPostingListSize) {
+        this.maxCandidates = maxCandidates;
+        this.maxPostingListSize = maxPostingListSize;
+        overlapsComparator = new AbstractIntComparator() {
+            @Override
+            public int compare(final int index1, final int index2) {
+                return overlaps[index1] - overlaps[index2];
+            }
+        };
+        overlaps = IntArrays.EMPTY_ARRAY;
+        candidates = IntArrays.EMPTY_ARRAY;
+    }
+
+    /**
+     * Discards the candidates of the previous list, so the candidates of a new list can be added.
+     * @param storeSize number of lists of the store, every candidate index must be smaller.
+     */
+    public void clear(final int storeSize) {
+        if (overlaps.length < storeSize) {
+            overlaps = new int[storeSize];
+            candidates = new int[storeSize];
+        }
+        candidatesSize = 0;
+    }
+
+    /**
+     * Adds as candidates the lists of the live entries of <code>postings</code>, or increases their count when they
+     * were already added.
+     * @param postings posting list shared by the list to be referenced.
+     * @param generations current generation of every index.
+     */
+    public void add(final InvertedListPostings postings, final int[] generations) {
+        final int postingsSize = postings.size();
+        int index;
+        for (int i = getPostingsStart(postings, postingsSize, generations); i < postingsSize; i++) {
+            if (postings.isLive(i, generations)) {
+                index = postings.getIndex(i);
+                if (overlaps[index]++ == 0) {
+                    candidates[candidatesSize++] = index;
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the <code>maxCandidates</code> added candidates found on the most posting lists. It must be called once
+     * all the posting lists shared by the list to be referenced are added.
+     */
+    public void select() {
+        if (candidatesSize > maxCandidates) {
+            selectCandidatesWithMaxOverlap();
+        }
+        for (int i = 0; i < candidatesSize; i++) {
+            overlaps[candidates[i]] = 0;
+        }
+    }
+
+    /**
+     * Gets the number of selected candidates.
+     * @return number of selected candidates.
+     */
+    public int size() {
+        return candidatesSize;
+    }
+
+    /**
+     * Gets the index of the selected candidate at position <code>i</code>.
+     * @param i position of the candidate.
+     * @return index of the list of the candidate.
+     */
+    public int get(final int i) {
+        return candidates[i];
+    }
+
+    private int getPostingsStart(
+        final InvertedListPostings postings,
+        final int postingsSize,
+        final int[] generations
+    ) {
+        int start = 0;
+        if (postingsSize > maxPostingListSize) {
+            start = postingsSize;
+            int liveEntries = 0;
+            while (liveEntries < maxPostingListSize && start > 0) {
+                start--;
+                if (postings.isLive(start, generations)) {
+                    liveEntries++;
+                }
+            }
+        }
+        return start;
+    }
+
+    private void selectCandidatesWithMaxOverlap() {
+        IntHeaps.makeHeap(candidates, maxCandidates, overlapsComparator);
+        int index;
+        for (int i = maxCandidates; i < candidatesSize; i++) {
+            index = candidates[i];
+            if (overlaps[index] > overlaps[candidates[0]]) {
+                overlaps[candidates[0]] = 0;
+                candidates[0] = index;
+                IntHeaps.downHeap(candidates, maxCandidates, 0, overlapsComparator);
+            } else {
+                overlaps[index] = 0;
+            }
+        }
+        candidatesSize = maxCandidates;
+    }
+
+}
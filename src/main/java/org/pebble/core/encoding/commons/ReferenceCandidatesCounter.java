@@ -0,0 +1,33 @@
+package org.pebble.core.encoding.commons;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/**
+ * Optional interface of the reference lists indexes that count the candidates they evaluate. When the index of a
+ * reference lists store implements it, the count is reported to the
+ * {@link org.pebble.core.encoding.EncodingListener} of the stream that writes the lists.
+ */
+public interface ReferenceCandidatesCounter {
+
+    /**
+     * Returns the number of candidates whose representation size was computed by the last search of a reference
+     * list, which is the main cost of finding a reference list.
+     * @return number of candidates evaluated by the last search of a reference list.
+     */
+    public int getNumberOfCandidates();
+
+}
@@ -0,0 +1,229 @@
+package org.pebble.core.encoding.ints.datastructures;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import org.pebble.core.encoding.DefaultParametersValues;
+import org.pebble.core.encoding.commons.InvertedListPostings;
+import org.pebble.core.encoding.commons.MinIntervalSizeAware;
+import org.pebble.core.encoding.commons.ReferenceCandidatesCounter;
+import org.pebble.core.encoding.ints.IntReferenceCandidates;
+
+import java.util.Random;
+
+/**
+ * Implements a locality sensitive hashing index used to find reference lists similar to the list to be referenced
+ * without inspecting every list that shares a value with it. Every indexed list is summarized by a MinHash signature
+ * of <code>bands * rowsPerBand</code> values, which is split into <code>bands</code> bands. Lists that share at least
+ * one band are considered candidates and only the <code>maxCandidates</code> candidates sharing the most bands are
+ * evaluated computing the number of bits required to describe its representation, as
+ * {@link InvertedListIntReferenceListsIndex} does. Two lists with Jaccard similarity <code>s</code> share at least one
+ * band with probability <code>1 - (1 - s^rowsPerBand)^bands</code>, so increasing <code>bands</code> finds more
+ * reference lists (recall) while increasing <code>rowsPerBand</code> discards more dissimilar candidates (precision).
+ * For every band of the list to be referenced, at most the <code>maxPostingListSize</code> lists most recently added
+ * to the store that share the band are taken into account, so the time required to index, remove or find a reference
+ * list depends on the list size, the signature size and <code>maxPostingListSize</code> but not on the number of stored
+ * lists.
+ */
+public class MinHashIntReferenceListsIndex
+    implements IntReferenceListsIndex, ReferenceCandidatesCounter, MinIntervalSizeAware {
+
+    private static final long SEED = 0x5eed5eedL;
+
+    protected final Long2ReferenceMap<InvertedListPostings> bandsIndex;
+    private final int bands;
+    private final int rowsPerBand;
+    private final int[] seeds;
+    private final int[] signature;
+    private final long[] listBandKeys;
+    private final IntReferenceCandidates candidates;
+    private long[] bandKeys;
+    protected int[] generations;
+
+    /**
+     * Initializes an index with {@link DefaultParametersValues#DEFAULT_MIN_HASH_BANDS} bands of
+     * {@link DefaultParametersValues#DEFAULT_MIN_HASH_ROWS_PER_BAND} rows that evaluates at most
+     * {@link DefaultParametersValues#DEFAULT_MIN_HASH_MAX_CANDIDATES} candidates, taking into account at most
+     * {@link DefaultParametersValues#DEFAULT_MIN_HASH_MAX_POSTING_LIST_SIZE} lists for each band.
+     */
+    public MinHashIntReferenceListsIndex() {
+        this(
+            DefaultParametersValues.DEFAULT_MIN_HASH_BANDS,
+            DefaultParametersValues.DEFAULT_MIN_HASH_ROWS_PER_BAND,
+            DefaultParametersValues.DEFAULT_MIN_HASH_MAX_CANDIDATES
+        );
+    }
+
+    /**
+     * Initializes an index with the given locality sensitive hashing parameters that takes into account at most
+     * {@link DefaultParametersValues#DEFAULT_MIN_HASH_MAX_POSTING_LIST_SIZE} lists for each band.
+     * @param bands number of bands of the MinHash signature.
+     * @param rowsPerBand number of MinHash values on each band.
+     * @param maxCandidates maximum number of candidates whose representation size is computed.
+     */
+    public MinHashIntReferenceListsIndex(final int bands, final int rowsPerBand, final int maxCandidates) {
+        this(bands, rowsPerBand, maxCandidates, DefaultParametersValues.DEFAULT_MIN_HASH_MAX_POSTING_LIST_SIZE);
+    }
+
+    /**
+     * Initializes an index with the given locality sensitive hashing parameters.
+     * @param bands number of bands of the MinHash signature.
+     * @param rowsPerBand number of MinHash values on each band.
+     * @param maxCandidates maximum number of candidates whose representation size is computed.
+     * @param maxPostingListSize maximum number of lists taken into account for each band of the list.
+     */
+    public MinHashIntReferenceListsIndex(
+        final int bands,
+        final int rowsPerBand,
+        final int maxCandidates,
+        final int maxPostingListSize
+    ) {
+        final Random random = new Random(SEED);
+        this.bands = bands;
+        this.rowsPerBand = rowsPerBand;
+        seeds = new int[bands * rowsPerBand];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextInt();
+        }
+        signature = new int[seeds.length];
+        listBandKeys = new long[bands];
+        bandsIndex = new Long2ReferenceOpenHashMap<InvertedListPostings>();
+        candidates = new IntReferenceCandidates(maxCandidates, maxPostingListSize);
+        bandKeys = LongArrays.EMPTY_ARRAY;
+        generations = IntArrays.EMPTY_ARRAY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getIndexOfReferenceList(
+        final IntList list,
+        final int valueBitSize,
+        final int listIndex,
+        final IntList[] lists,
+        final int[] offsets,
+        final int[] recursiveReferences
+    ) {
+        setCandidates(list, lists.length);
+        return candidates.getIndexOfBestCandidate(list, valueBitSize, listIndex, lists, offsets, recursiveReferences);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getNumberOfCandidates() {
+        return candidates.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setMinIntervalSize(final int minIntervalSize) {
+        candidates.setMinIntervalSize(minIntervalSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addListIntoListsInvertedIndex(final int index, final IntList list) {
+        ensureCapacity(index + 1);
+        setBandKeys(list);
+        InvertedListPostings postings;
+        for (int band = 0; band < bands; band++) {
+            bandKeys[index * bands + band] = listBandKeys[band];
+            postings = bandsIndex.get(listBandKeys[band]);
+            if (postings == null) {
+                postings = new InvertedListPostings();
+                bandsIndex.put(listBandKeys[band], postings);
+            }
+            postings.add(index, generations[index]);
+        }
+    }
+
+    /**
+     * {@inheritDoc} The MinHash signature of the removed list is not computed again, the bands stored when the list
+     * was added are used instead.
+     */
+    public void removeListFromListsInvertedIndex(final int index, final IntList list) {
+        generations[index]++;
+        long bandKey;
+        for (int band = 0; band < bands; band++) {
+            bandKey = bandKeys[index * bands + band];
+            if (bandsIndex.get(bandKey).removeStaleEntry(generations) == 0) {
+                bandsIndex.remove(bandKey);
+            }
+        }
+    }
+
+    private void setBandKeys(final IntList list) {
+        final int listSize = list.size();
+        int value;
+        int hash;
+        for (int i = 0; i < signature.length; i++) {
+            signature[i] = Integer.MAX_VALUE;
+        }
+        for (int j = 0; j < listSize; j++) {
+            value = list.getInt(j);
+            for (int i = 0; i < signature.length; i++) {
+                hash = mix(value ^ seeds[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        for (int band = 0; band < bands; band++) {
+            hash = 0;
+            for (int row = band * rowsPerBand; row < (band + 1) * rowsPerBand; row++) {
+                hash = 31 * hash + signature[row];
+            }
+            listBandKeys[band] = ((long) band << 32) | (mix(hash) & 0xFFFFFFFFL);
+        }
+    }
+
+    private void setCandidates(final IntList list, final int storeSize) {
+        ensureCapacity(storeSize);
+        candidates.clear(storeSize);
+        setBandKeys(list);
+        InvertedListPostings postings;
+        for (int band = 0; band < bands; band++) {
+            postings = bandsIndex.get(listBandKeys[band]);
+            if (postings != null) {
+                candidates.add(postings, generations);
+            }
+        }
+        candidates.select();
+    }
+
+    private void ensureCapacity(final int storeSize) {
+        generations = IntArrays.grow(generations, storeSize);
+        bandKeys = LongArrays.grow(bandKeys, storeSize * bands);
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+}
@@ -17,6 +17,7 @@ package org.pebble.core.encoding.longs;
  */
 
 import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.longs.LongArrays;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongList;
 import org.pebble.core.encoding.DefaultParametersValues;
@@ -29,11 +30,27 @@ import org.pebble.core.encoding.commons.OutputOffset;
  */
 public class LongOutputOffset extends OutputOffset {
 
+    /**
+     * Array used to temporarily store the values of a list that are not described by its reference list.
+     */
+    private long[] valuesBuffer;
+
     /**
      * Initializes instance of {@link LongOutputOffset}.
      */
     public LongOutputOffset() {
         super();
+        valuesBuffer = LongArrays.EMPTY_ARRAY;
+    }
+
+    /**
+     * Initializes instance of {@link LongOutputOffset} that estimates the size of intervals of at least
+     * <code>minIntervalSize</code> elements.
+     * @param minIntervalSize min size of intervals used to encode the compressed list.
+     */
+    public LongOutputOffset(final int minIntervalSize) {
+        super(minIntervalSize);
+        valuesBuffer = LongArrays.EMPTY_ARRAY;
     }
 
     /**
@@ -229,6 +246,126 @@ public class LongOutputOffset extends OutputOffset {
         return offset;
     }
 
+    /**
+     * Estimates the number of bits required for the succinct intervals and delta representations of the strictly
+     * incremental <code>list</code>, when it is encoded without a reference list. The result is equal to
+     * {@link #getWriteIntervalsOffset(LongList, int) getWriteIntervalsOffset} followed by
+     * {@link #getWriteDeltaOffset(LongList, int) getWriteDeltaOffset}, but the given <code>list</code> is not modified
+     * and no objects are allocated once the internal buffer is big enough.
+     * @param list to encode. List must be strictly incremental with positives (including zero) values.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @return number of representation bits.
+     */
+    public int getWriteIntervalsAndDeltaOffset(final LongList list, final int valueBitSize) {
+        final int size = list.size();
+        valuesBuffer = LongArrays.grow(valuesBuffer, size);
+        list.getElements(0, valuesBuffer, 0, size);
+        return getWriteIntervalsAndDeltaOffset(valuesBuffer, size, valueBitSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Estimates the number of bits required for the succinct difference, intervals and delta representations of the
+     * strictly incremental <code>list</code>, when it is encoded using <code>referenceList</code>. The result is equal
+     * to {@link #getWriteDifferenceOffset(LongList, LongList) getWriteDifferenceOffset} followed by
+     * {@link #getWriteIntervalsOffset(LongList, int) getWriteIntervalsOffset} and
+     * {@link #getWriteDeltaOffset(LongList, int) getWriteDeltaOffset}, but the given lists are not modified and no
+     * objects are allocated once the internal buffer is big enough. The estimation stops as soon as the partial
+     * number of bits exceeds <code>maxOffset</code>, therefore the returned value is exact only when it is not
+     * greater than <code>maxOffset</code>.
+     * @param list from which it will encode the difference with the closest reference. List must be strictly
+     *             incremental, non empty and with positives (including zero) values.
+     * @param referenceList reference list from which the difference will be computed. List must be strictly
+     *                      incremental, non empty and with positives (including zero) values.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @param maxOffset number of bits from which the estimation is not required to be exact.
+     * @return number of representation bits when it is not greater than <code>maxOffset</code>, otherwise a number
+     *         greater than <code>maxOffset</code>.
+     */
+    public int getWriteDifferenceIntervalsAndDeltaOffset(
+        final LongList list,
+        final LongList referenceList,
+        final int valueBitSize,
+        final int maxOffset
+    ) {
+        final int listSize = list.size();
+        final int referenceListSize = referenceList.size();
+        valuesBuffer = LongArrays.grow(valuesBuffer, listSize);
+        int valuesSize = 0;
+        int listIndex = 0;
+        int referenceListIndex = 0;
+        long listValue = list.getLong(listIndex);
+        long referenceListValue = referenceList.getLong(referenceListIndex);
+        int numberOfBlocks = 0;
+        int blockSize = 0;
+        boolean pendingReference = false;
+        boolean intersected = true;
+        int offset = 0;
+        while (true) {
+            if (listValue == referenceListValue) {
+                if (intersected) {
+                    blockSize++;
+                } else {
+                    offset += getWriteDeltaOffset(blockSize - 1);
+                    numberOfBlocks++;
+                    if (offset > maxOffset) {
+                        return offset;
+                    }
+                    blockSize = 1;
+                    intersected = true;
+                }
+                pendingReference = false;
+                listIndex++;
+                if (listIndex == listSize || referenceListIndex + 1 == referenceListSize) {
+                    break;
+                }
+                listValue = list.getLong(listIndex);
+                referenceListValue = referenceList.getLong(++referenceListIndex);
+                pendingReference = true;
+            } else if (listValue < referenceListValue) {
+                valuesBuffer[valuesSize++] = listValue;
+                listIndex++;
+                if (listIndex == listSize) {
+                    break;
+                }
+                listValue = list.getLong(listIndex);
+            } else {
+                if (intersected) {
+                    if (blockSize > 0) {
+                        offset += getWriteDeltaOffset(blockSize - 1);
+                        numberOfBlocks++;
+                        if (offset > maxOffset) {
+                            return offset;
+                        }
+                    }
+                    blockSize = 1;
+                    intersected = false;
+                } else {
+                    blockSize++;
+                }
+                pendingReference = false;
+                if (referenceListIndex + 1 == referenceListSize) {
+                    break;
+                }
+                referenceListValue = referenceList.getLong(++referenceListIndex);
+                pendingReference = true;
+            }
+        }
+        if (intersected && (pendingReference || referenceListIndex + 1 < referenceListSize) && blockSize > 0) {
+            offset += getWriteDeltaOffset(blockSize - 1);
+            numberOfBlocks++;
+        }
+        offset += getWriteDeltaOffset(numberOfBlocks) + writeBitOffset(true);
+        if (offset > maxOffset) {
+            return offset;
+        }
+        while (listIndex < listSize) {
+            valuesBuffer[valuesSize++] = list.getLong(listIndex++);
+        }
+        return offset + getWriteIntervalsAndDeltaOffset(valuesBuffer, valuesSize, valueBitSize, maxOffset - offset);
+    }
+
     /**
      * Estimates the number of bits required for the delta encoding of <code>x</code>.
      * @param x positive number (including zero).
@@ -242,6 +379,50 @@ public class LongOutputOffset extends OutputOffset {
         return (int) (log2x + 2 * lower_bound_log2(log2x + 1) + 1);
     }
 
+    private int getWriteIntervalsAndDeltaOffset(
+        final long[] values,
+        final int size,
+        final int valueBitSize,
+        final int maxOffset
+    ) {
+        int offset = 0;
+        int numberOfIntervals = 0;
+        int numberOfDeltas = 0;
+        long lastIntervalValue = 0;
+        long lastDeltaValue = 0;
+        int intervalInitialIndex = 0;
+        int index;
+        for (int i = 1; i <= size; i++) {
+            if (i == size || values[i] - values[i - 1] > 1) {
+                if (i - intervalInitialIndex >= minIntervalSize) {
+                    if (numberOfIntervals == 0) {
+                        offset += writeLongOffset(values[intervalInitialIndex], valueBitSize);
+                    } else {
+                        offset += getWriteDeltaOffset(values[intervalInitialIndex] - lastIntervalValue - 2);
+                    }
+                    offset += getWriteDeltaOffset(i - intervalInitialIndex - minIntervalSize);
+                    lastIntervalValue = values[i - 1];
+                    numberOfIntervals++;
+                } else {
+                    for (index = intervalInitialIndex; index < i; index++) {
+                        if (numberOfDeltas == 0) {
+                            offset += writeLongOffset(values[index], valueBitSize);
+                        } else {
+                            offset += getWriteDeltaOffset(values[index] - lastDeltaValue - 1);
+                        }
+                        lastDeltaValue = values[index];
+                        numberOfDeltas++;
+                    }
+                }
+                if (offset > maxOffset) {
+                    return offset;
+                }
+                intervalInitialIndex = i;
+            }
+        }
+        return offset + getWriteDeltaOffset(numberOfIntervals) + getWriteDeltaOffset(numberOfDeltas);
+    }
+
     private static int writeLongOffset(final long x, final int valueBitSize) {
         return valueBitSize;
     }
@@ -0,0 +1,105 @@
+package org.pebble.core.encoding.longs;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.pebble.core.encoding.DefaultParametersValues;
+import org.pebble.core.encoding.commons.MinIntervalSizeAware;
+import org.pebble.core.encoding.commons.ReferenceCandidates;
+
+/**
+ * Selects the reference list candidates of a list of <code>long</code>s (see {@link ReferenceCandidates}) and finds
+ * the one that generates the maximum compression. The number of bits required to describe the representation of the
+ * list with every candidate is computed, and the candidate that generates the minimal number of bits is selected. In
+ * case the minimal number of bits is achieved without using a reference list, none candidate is selected. In the case
+ * of many candidates generating the same number of bits, the candidate with the minimal number of recursive
+ * references is selected to increase reading speed. Candidates are scored without copying or modifying the lists and
+ * the scoring of a candidate stops as soon as it can't improve the best candidate found so far.
+ */
+public class LongReferenceCandidates extends ReferenceCandidates implements MinIntervalSizeAware {
+
+    private LongOutputOffset outputOffset;
+    private int minIntervalSize;
+
+    /**
+     * Initializes instance of {@link LongReferenceCandidates}.
+     * @param maxCandidates maximum number of candidates whose representation size is computed.
+     * @param maxPostingListSize maximum number of lists taken into account for each posting list.
+     */
+    public LongReferenceCandidates(final int maxCandidates, final int maxPostingListSize) {
+        super(maxCandidates, maxPostingListSize);
+        minIntervalSize = DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE;
+        outputOffset = new LongOutputOffset(minIntervalSize);
+    }
+
+    /**
+     * Finds the selected candidate that generates the minimal number of bits to encode <code>list</code>.
+     * @param list list to be referenced.
+     * @param valueBitSize maximum number of bits required to represent the lists values in binary representation.
+     * @param listIndex index of the list to be referenced.
+     * @param lists lists of the store.
+     * @param offsets indexes of the lists of the store.
+     * @param recursiveReferences number of recursive references of the lists of the store.
+     * @return index of the best candidate, or -1 when it is better to not use a reference list.
+     */
+    public int getIndexOfBestCandidate(
+        final LongList list,
+        final int valueBitSize,
+        final int listIndex,
+        final LongList[] lists,
+        final int[] offsets,
+        final int[] recursiveReferences
+    ) {
+        int size;
+        int minSize = 1 + outputOffset.getWriteIntervalsAndDeltaOffset(list, valueBitSize);
+        int bestReferenceIndex = -1;
+        int bestRecursiveReferences = 0;
+        int candidateIndex;
+        for (int i = 0; i < candidatesSize; i++) {
+            candidateIndex = candidates[i];
+            size = LongOutputOffset.getWriteDeltaOffset(listIndex - offsets[candidateIndex]);
+            if (size < minSize) {
+                size += outputOffset.getWriteDifferenceIntervalsAndDeltaOffset(
+                    list,
+                    lists[candidateIndex],
+                    valueBitSize,
+                    minSize - size
+                );
+                if (
+                    size < minSize ||
+                    (size == minSize && bestRecursiveReferences > recursiveReferences[candidateIndex])
+                ) {
+                    bestReferenceIndex = candidateIndex;
+                    minSize = size;
+                    bestRecursiveReferences = recursiveReferences[candidateIndex];
+                }
+            }
+        }
+        return bestReferenceIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setMinIntervalSize(final int minIntervalSize) {
+        if (this.minIntervalSize != minIntervalSize) {
+            this.minIntervalSize = minIntervalSize;
+            outputOffset = new LongOutputOffset(minIntervalSize);
+        }
+    }
+
+}
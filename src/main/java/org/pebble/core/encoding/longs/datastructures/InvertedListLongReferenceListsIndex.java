@@ -16,17 +16,16 @@ package org.pebble.core.encoding.longs.datastructures;
  *  limitations under the License.
  */
 
-import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import it.unimi.dsi.fastutil.ints.IntIterator;
-import it.unimi.dsi.fastutil.ints.IntList;
-import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
-import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
-import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongList;
-import org.pebble.core.encoding.longs.LongOutputOffset;
+import org.pebble.core.encoding.commons.InvertedListPostings;
+import org.pebble.core.encoding.commons.MinIntervalSizeAware;
+import org.pebble.core.encoding.commons.ReferenceCandidatesCounter;
+import org.pebble.core.encoding.longs.LongReferenceCandidates;
 
 /**
  * Implements an inverted list index used to find reference lists that at least has one matching value with the list
@@ -36,18 +35,37 @@ import org.pebble.core.encoding.longs.LongOutputOffset;
  * each potential candidate and selects the one that generates the minimal number of bits. In case the minimal number
  * of bits is achieved without using a reference list, none reference list index will be returned. In the case of
  * many reference list candidates generates the same number of bits, the candidate with the minimal number of recursive
- * references will be selected to increase reading speed.
+ * references will be selected to increase reading speed. Candidates are scored without copying or modifying the
+ * lists and the scoring of a candidate stops as soon as it can't improve the best candidate found so far.
  */
-public class InvertedListLongReferenceListsIndex implements LongReferenceListsIndex {
+public class InvertedListLongReferenceListsIndex
+    implements LongReferenceListsIndex, ReferenceCandidatesCounter, MinIntervalSizeAware {
 
-    protected final Long2ReferenceMap<IntList> listsInvertedIndex;
-    private final IntSet candidates;
-    private final LongOutputOffset outputOffset;
+    protected final Long2ReferenceMap<InvertedListPostings> listsInvertedIndex;
+    private final LongReferenceCandidates candidates;
+    protected int[] generations;
 
+    /**
+     * Initializes an index that computes the number of bits required for every list in the store that shares at least
+     * one value with the list to be referenced.
+     */
     public InvertedListLongReferenceListsIndex() {
-        listsInvertedIndex = new Long2ReferenceOpenHashMap<IntList>();
-        candidates = new IntOpenHashSet();
-        outputOffset = new LongOutputOffset();
+        this(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Initializes an index that only computes the number of bits required for the <code>maxCandidates</code> lists
+     * in the store that share the most values with the list to be referenced. For every value of the list to be
+     * referenced, at most the <code>maxPostingListSize</code> lists most recently added to the store that contain
+     * the value are taken into account. Bounding both parameters makes the time required to find a reference list
+     * independent of the store size when a few values appear in almost every list.
+     * @param maxCandidates maximum number of candidates whose representation size is computed.
+     * @param maxPostingListSize maximum number of lists taken into account for each value of the list.
+     */
+    public InvertedListLongReferenceListsIndex(final int maxCandidates, final int maxPostingListSize) {
+        listsInvertedIndex = new Long2ReferenceOpenHashMap<InvertedListPostings>();
+        candidates = new LongReferenceCandidates(maxCandidates, maxPostingListSize);
+        generations = IntArrays.EMPTY_ARRAY;
     }
 
     /**
@@ -61,87 +79,76 @@ public class InvertedListLongReferenceListsIndex implements LongReferenceListsIn
         final int[] offsets,
         final int[] recursiveReferences
     ) {
-        setCandidates(list);
-        int size;
-        LongList cloneList = new LongArrayList(list);
-        int minSize = 1 + outputOffset.getWriteIntervalsOffset(cloneList, valueBitSize);
-        minSize += outputOffset.getWriteDeltaOffset(cloneList, valueBitSize);
-        int bestReferenceIndex = -1;
-        int bestRecursiveReferences = 0;
-        IntIterator candidatesIterator = candidates.iterator();
-        int candidateIndex;
-        while (candidatesIterator.hasNext()) {
-            candidateIndex = candidatesIterator.nextInt();
-            cloneList = new LongArrayList(list);
-            size = LongOutputOffset.getWriteDeltaOffset(listIndex - offsets[candidateIndex]);
-            size += outputOffset.getWriteDifferenceOffset(cloneList, lists[candidateIndex]);
-            if (size < minSize) {
-                size += outputOffset.getWriteIntervalsOffset(cloneList, valueBitSize);
-                if (size < minSize) {
-                    size += outputOffset.getWriteDeltaOffset(cloneList, valueBitSize);
-                    if (
-                        size < minSize ||
-                        (size == minSize && bestRecursiveReferences > recursiveReferences[candidateIndex])
-                    ) {
-                        bestReferenceIndex = candidateIndex;
-                        minSize = size;
-                        bestRecursiveReferences = recursiveReferences[candidateIndex];
-                    }
-                }
-            }
-        }
-        return bestReferenceIndex;
+        setCandidates(list, lists.length);
+        return candidates.getIndexOfBestCandidate(list, valueBitSize, listIndex, lists, offsets, recursiveReferences);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getNumberOfCandidates() {
+        return candidates.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setMinIntervalSize(final int minIntervalSize) {
+        candidates.setMinIntervalSize(minIntervalSize);
     }
 
     /**
      * {@inheritDoc}
      */
     public void addListIntoListsInvertedIndex(final int index, final LongList list) {
+        if (generations.length <= index) {
+            generations = IntArrays.grow(generations, index + 1);
+        }
         final LongIterator listIterator = list.iterator();
-        IntList listsIndexes;
+        InvertedListPostings postings;
         long value;
         while (listIterator.hasNext()) {
             value = listIterator.nextLong();
-            listsIndexes = listsInvertedIndex.get(value);
-            if (listsIndexes == null) {
-                listsIndexes = new IntArrayList();
-                listsInvertedIndex.put(value, listsIndexes);
+            postings = listsInvertedIndex.get(value);
+            if (postings == null) {
+                postings = new InvertedListPostings();
+                listsInvertedIndex.put(value, postings);
             }
-            listsIndexes.add(index);
+            postings.add(index, generations[index]);
         }
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc} Entries of the removed list are not searched on the postings lists, they are marked as stale by
+     * increasing the generation of the <code>index</code> and discarded later.
      */
     public void removeListFromListsInvertedIndex(final int index, final LongList list) {
+        if (generations.length <= index) {
+            generations = IntArrays.grow(generations, index + 1);
+        }
+        generations[index]++;
         final LongIterator listIterator = list.iterator();
         long value;
-        IntList listsIndexes;
         while (listIterator.hasNext()) {
             value = listIterator.nextLong();
-            listsIndexes = listsInvertedIndex.get(value);
-            listsIndexes.remove((Integer) index);
-            if (listsIndexes.isEmpty()) {
+            if (listsInvertedIndex.get(value).removeStaleEntry(generations) == 0) {
                 listsInvertedIndex.remove(value);
             }
         }
     }
 
-    private void setCandidates(final LongList list) {
-        IntList listsIndexes;
-        IntIterator indexesIterator;
+    private void setCandidates(final LongList list, final int storeSize) {
+        generations = IntArrays.grow(generations, storeSize);
+        candidates.clear(storeSize);
         final LongIterator listIterator = list.iterator();
-        candidates.clear();
+        InvertedListPostings postings;
         while (listIterator.hasNext()) {
-            listsIndexes = listsInvertedIndex.get(listIterator.nextLong());
-            if (listsIndexes != null) {
-                indexesIterator = listsIndexes.iterator();
-                while (indexesIterator.hasNext()) {
-                    candidates.add(indexesIterator.nextInt());
-                }
+            postings = listsInvertedIndex.get(listIterator.nextLong());
+            if (postings != null) {
+                candidates.add(postings, generations);
             }
         }
+        candidates.select();
     }
 
 }
@@ -16,50 +16,115 @@ package org.pebble.core.encoding.longs.datastructures;
  *  limitations under the License.
  */
 
+import it.unimi.dsi.fastutil.longs.AbstractLongList;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongList;
+import org.pebble.core.encoding.DefaultParametersValues;
+import org.pebble.core.encoding.commons.MinIntervalSizeAware;
+import org.pebble.core.encoding.commons.ReferenceCandidatesCounter;
 
 /**
  * Handles the storage of reference lists used in Pebble's compression algorithm. Provides useful methods to
  * store and retrieve these lists.
+ *
+ * <p>The values of the stored lists are kept in a single ring structured arena, where every slot of the store keeps
+ * the start and the size of its list, so storing a list doesn't allocate any object and the lists evaluated as
+ * reference candidates are contiguous in memory. The reference lists index and the cost estimations read the stored
+ * lists through views of the arena that are allocated once per slot, so they must not keep the given lists after
+ * the call returns.</p>
  */
 public class LongReferenceListsStore {
 
+    private static final int INITIAL_ARENA_SIZE = 1024;
+
     private final int maxRecursiveReferences;
     private final int[] recursiveReferences;
     private final int minListSize;
     private final int[] offsets;
     private final LongList[] lists;
+    private final ArenaList[] slots;
+    private final ArenaList removedList;
+    private final LongArrayList referenceListBuffer;
     private final LongReferenceListsIndex referenceListIndex;
+    private final int maxArenaSize;
+    private long[] arena;
+    private int arenaPosition;
+    private int oldestIndex;
+    private int numberOfLists;
     private int index;
 
     /**
      * Initializes a <code>LongReferenceListsStore</code> capable to store at most <code>size</code> lists with no more
-     * than <code>maxRecursiveReferences</code> recursive references. If the number of lists exceeds <code>size</code>,
-     * it will overwrite the oldest list on the store.
+     * than <code>maxRecursiveReferences</code> recursive references, whose values are kept in an arena of at most
+     * {@link DefaultParametersValues#DEFAULT_REFERENCE_ARENA_SIZE} values (see
+     * {@link #LongReferenceListsStore(int, int, int, int, LongReferenceListsIndex)}).
+     * @param size maximum numbers of lists to be stored.
+     * @param maxRecursiveReferences maximum number of allowed recursive references.
+     * @param minListSize Minimum size of list required to be added to the store.
+     * @param referenceListIndex index used to find the best reference list candidate.
+     */
+    public LongReferenceListsStore(
+        final int size,
+        final int maxRecursiveReferences,
+        final int minListSize,
+        LongReferenceListsIndex referenceListIndex
+    ) {
+        this(
+            size,
+            maxRecursiveReferences,
+            minListSize,
+            DefaultParametersValues.DEFAULT_REFERENCE_ARENA_SIZE,
+            referenceListIndex
+        );
+    }
+
+    /**
+     * Initializes a <code>LongReferenceListsStore</code> capable to store at most <code>size</code> lists with no more
+     * than <code>maxRecursiveReferences</code> recursive references, whose values are kept in an arena that grows as
+     * required up to <code>arenaSize</code> values. If the number of lists exceeds <code>size</code> or their values
+     * don't fit in the arena, it will overwrite the oldest lists on the store, and lists bigger than the arena are not
+     * stored, so the memory used by the store doesn't depend on the size of the lists. Lists bigger than the arena
+     * still take their place on the ring of <code>size</code> lists, so the lists kept by a decoder window of
+     * <code>size</code> lists always include the lists kept by the store, and the lists can be decoded without
+     * knowing <code>arenaSize</code>.
      * @param size maximum numbers of lists to be stored.
      * @param maxRecursiveReferences maximum number of allowed recursive references.
      * @param minListSize Minimum size of list required to be added to the store.
+     * @param arenaSize maximum number of values of the stored lists.
      * @param referenceListIndex index used to find the best reference list candidate.
+     * @throws IllegalArgumentException when <code>arenaSize</code> is not positive.
      */
     public LongReferenceListsStore(
         final int size,
         final int maxRecursiveReferences,
         final int minListSize,
+        final int arenaSize,
         LongReferenceListsIndex referenceListIndex
     ) {
+        if (arenaSize <= 0) {
+            throw new IllegalArgumentException(String.format("Arena size must be positive, found %d", arenaSize));
+        }
         index = 0;
         this.maxRecursiveReferences = maxRecursiveReferences;
         recursiveReferences = new int[size];
         this.minListSize = minListSize;
         offsets = new int[size];
         lists = new LongList[size];
+        slots = new ArenaList[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ArenaList();
+        }
+        removedList = new ArenaList();
+        referenceListBuffer = new LongArrayList();
         this.referenceListIndex = referenceListIndex;
+        maxArenaSize = arenaSize;
+        arena = new long[Math.min(INITIAL_ARENA_SIZE, arenaSize)];
     }
 
     /**
      * Adds to the store the <code>list</code>. In case the store is full it will overwrite the oldest list on the
-     * store.
+     * store. A list with more values than the arena is not stored, but it still overwrites the list on its place of
+     * the ring, the same as a stored list does.
      *
      * @param offset position of the <code>list</code> respect to the list of lists, starting from zero.
      * @param recursiveReferences number of recursive reference of the <code>list</code>.
@@ -67,14 +132,28 @@ public class LongReferenceListsStore {
      * @return true when the <code>list</code> is added to the store and false when is not.
      */
     public boolean add(final int offset, final int recursiveReferences, final LongList list) {
-        if (recursiveReferences <= maxRecursiveReferences && minListSize <= list.size()) {
+        final int listSize = list.size();
+        if (recursiveReferences <= maxRecursiveReferences && minListSize <= listSize) {
             if (lists[index] != null) {
-                referenceListIndex.removeListFromListsInvertedIndex(index, lists[index]);
+                removeSlot(index);
             }
+            if (listSize > maxArenaSize) {
+                index = (index + 1) % offsets.length;
+                return false;
+            }
+            final ArenaList slot = slots[index];
+            slot.start = allocate(listSize);
+            if (numberOfLists == 0) {
+                oldestIndex = index;
+            }
+            slot.size = listSize;
+            list.getElements(0, arena, slot.start, listSize);
+            arenaPosition = slot.start + listSize;
             this.recursiveReferences[index] = recursiveReferences;
             offsets[index] = offset;
-            lists[index] = new LongArrayList(list);
-            referenceListIndex.addListIntoListsInvertedIndex(index, lists[index]);
+            lists[index] = slot;
+            numberOfLists++;
+            referenceListIndex.addListIntoListsInvertedIndex(index, list);
             index = (index + 1) % offsets.length;
             return true;
         }
@@ -86,8 +165,7 @@ public class LongReferenceListsStore {
      * @param list List to be removed from the store.
      */
     public void remove(ReferenceList list) {
-        referenceListIndex.removeListFromListsInvertedIndex(list.index, list.list);
-        lists[list.index] = null;
+        removeSlot(list.index);
     }
 
     /**
@@ -96,7 +174,7 @@ public class LongReferenceListsStore {
      * @param valueBitSize maximum number of bits required to represent the lists values in binary representation.
      * @param listIndex index of the given <code>list</code>.
      * @return The best reference list in the store to encode <code>list.</code>. Can be null when there is not a good
-     * candidate available.
+     * candidate available. The values of the returned list are only valid until the next call.
      */
     public ReferenceList get(final LongList list, final int valueBitSize, final int listIndex) {
         final int i = referenceListIndex.getIndexOfReferenceList(
@@ -108,11 +186,125 @@ public class LongReferenceListsStore {
             recursiveReferences
         );
         if (i >= 0) {
-            return new ReferenceList(lists[i], offsets[i], recursiveReferences[i], i);
+            referenceListBuffer.size(slots[i].size);
+            slots[i].getElements(0, referenceListBuffer.elements(), 0, slots[i].size);
+            return new ReferenceList(referenceListBuffer, offsets[i], recursiveReferences[i], i);
         }
         return null;
     }
 
+    /**
+     * Returns the number of candidates evaluated by the reference lists index on the last call of
+     * {@link #get}, when the index counts them (see {@link ReferenceCandidatesCounter}).
+     * @return number of candidates evaluated by the last search of a reference list, or zero when the index doesn't
+     * count them.
+     */
+    public int getNumberOfCandidates() {
+        if (referenceListIndex instanceof ReferenceCandidatesCounter) {
+            return ((ReferenceCandidatesCounter) referenceListIndex).getNumberOfCandidates();
+        }
+        return 0;
+    }
+
+    /**
+     * Sets the min size of the intervals of the lists written from now on, which the reference lists index uses to
+     * estimate the size of every candidate when it implements {@link MinIntervalSizeAware}.
+     * @param minIntervalSize min size of the intervals.
+     */
+    public void setMinIntervalSize(final int minIntervalSize) {
+        if (referenceListIndex instanceof MinIntervalSizeAware) {
+            ((MinIntervalSizeAware) referenceListIndex).setMinIntervalSize(minIntervalSize);
+        }
+    }
+
+    private void removeSlot(final int slotIndex) {
+        removedList.start = slots[slotIndex].start;
+        removedList.size = slots[slotIndex].size;
+        referenceListIndex.removeListFromListsInvertedIndex(slotIndex, removedList);
+        if (lists[slotIndex] != null) {
+            lists[slotIndex] = null;
+            numberOfLists--;
+            while (numberOfLists > 0 && lists[oldestIndex] == null) {
+                oldestIndex = (oldestIndex + 1) % lists.length;
+            }
+        }
+    }
+
+    private int allocate(final int size) {
+        while (numberOfLists > 0) {
+            final int head = slots[oldestIndex].start;
+            if (arenaPosition > head) {
+                if (arenaPosition + size <= arena.length) {
+                    return arenaPosition;
+                }
+                if (size <= head) {
+                    return 0;
+                }
+            } else if (arenaPosition + size <= head) {
+                return arenaPosition;
+            }
+            if (arena.length < maxArenaSize) {
+                growArena(size);
+            } else {
+                removeSlot(oldestIndex);
+            }
+        }
+        if (size > arena.length) {
+            growArena(size);
+        }
+        return arenaPosition + size <= arena.length ? arenaPosition : 0;
+    }
+
+    private void growArena(final int size) {
+        final long[] grownArena = new long[
+            (int) Math.min(Math.max((long) arena.length << 1, (long) arena.length + size), maxArenaSize)
+        ];
+        int position = 0;
+        for (int i = 0, slotIndex = oldestIndex; i < lists.length; i++, slotIndex = (slotIndex + 1) % lists.length) {
+            if (lists[slotIndex] != null) {
+                System.arraycopy(arena, slots[slotIndex].start, grownArena, position, slots[slotIndex].size);
+                slots[slotIndex].start = position;
+                position += slots[slotIndex].size;
+            }
+        }
+        arena = grownArena;
+        arenaPosition = position;
+    }
+
+    /**
+     * View of the values of a stored list on the arena.
+     */
+    private class ArenaList extends AbstractLongList {
+
+        private int start;
+        private int size;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getLong(final int position) {
+            return arena[start + position];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void getElements(final int from, final long[] a, final int offset, final int length) {
+            System.arraycopy(arena, start + from, a, offset, length);
+        }
+
+    }
+
     /**
      * Class that represents a reference list and its number of recursive references.
      */
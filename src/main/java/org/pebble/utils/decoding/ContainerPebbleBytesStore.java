@@ -0,0 +1,242 @@
+package org.pebble.utils.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.io.ByteBufferInputStream;
+import org.pebble.core.encoding.SkipIndexParameters;
+import org.pebble.utils.encoding.ContainerWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Implementation of {@link org.pebble.core.decoding.PebbleBytesStore} backed by a memory mapped container written by
+ * {@link ContainerWriter}. The value bit size, the type of every list and the parameters needed to decode them are
+ * recorded in the container, so it can be decoded without any other knowledge about how it was written. The offsets
+ * directory and the type tags are read straight from the mapping, so opening the container doesn't load them into
+ * the heap.
+ *
+ * <p>Every input bit stream returned by this store reads from its own view of the mapped segments, so lists can be
+ * decoded concurrently from different threads.</p>
+ */
+public class ContainerPebbleBytesStore extends InputStreamPebbleBytesStore {
+
+    private final ByteBufferInputStream store;
+    private final ByteBuffer tags;
+    private final LongBuffer offsets;
+    private final int numberOfLists;
+    private final int valueBitSize;
+    private final boolean longValues;
+
+    private ContainerPebbleBytesStore(
+        final ByteBufferInputStream store,
+        final ByteBuffer tags,
+        final LongBuffer offsets,
+        final int numberOfLists,
+        final int valueBitSize,
+        final boolean longValues,
+        final int bufferSize
+    ) {
+        super(bufferSize);
+        this.store = store;
+        this.tags = tags;
+        this.offsets = offsets;
+        this.numberOfLists = numberOfLists;
+        this.valueBitSize = valueBitSize;
+        this.longValues = longValues;
+    }
+
+    /**
+     * Memory maps the container located at <code>path</code> (see {@link ContainerWriter}) and configures the store
+     * with the parameters recorded in its header. Only the header and the footer are read, so it takes the same time
+     * regardless of the size of the container.
+     * @param path location of the container.
+     * @return pebble byte store that decodes the lists straight from the mapped container.
+     * @throws IOException when there is an exception opening or mapping the file, or it is not a valid container.
+     */
+    public static ContainerPebbleBytesStore open(final Path path) throws IOException {
+        return open(path, MappedPebbleBytesStore.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Memory maps the container located at <code>path</code> (see {@link ContainerWriter}) and configures the store
+     * with the parameters recorded in its header. Only the header and the footer are read, so it takes the same time
+     * regardless of the size of the container.
+     * @param path location of the container.
+     * @param bufferSize size in bytes of the buffer used by every input bit stream to read from the mapped container.
+     * @return pebble byte store that decodes the lists straight from the mapped container.
+     * @throws IOException when there is an exception opening or mapping the file, or it is not a valid container.
+     */
+    public static ContainerPebbleBytesStore open(final Path path, final int bufferSize) throws IOException {
+        final FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            final long size = fileChannel.size();
+            if (size < ContainerWriter.HEADER_SIZE + ContainerWriter.FOOTER_SIZE) {
+                throw new IOException(String.format("Container is too small, found %d bytes", size));
+            }
+            final ByteBuffer header =
+                fileChannel.map(FileChannel.MapMode.READ_ONLY, 0L, ContainerWriter.HEADER_SIZE);
+            final ByteBuffer footer = fileChannel.map(
+                FileChannel.MapMode.READ_ONLY,
+                size - ContainerWriter.FOOTER_SIZE,
+                ContainerWriter.FOOTER_SIZE
+            );
+            checkMagic(header.getInt(0));
+            checkMagic(footer.getInt(20));
+            if (header.getInt(4) != ContainerWriter.VERSION) {
+                throw new IOException(String.format("Unsupported container version %d", header.getInt(4)));
+            }
+            final long tagsPosition = footer.getLong(0);
+            final long directoryPosition = footer.getLong(8);
+            final int numberOfLists = footer.getInt(16);
+            final int flags = header.getInt(12);
+            final ContainerPebbleBytesStore bytesStore = new ContainerPebbleBytesStore(
+                ByteBufferInputStream.map(fileChannel, FileChannel.MapMode.READ_ONLY),
+                fileChannel.map(FileChannel.MapMode.READ_ONLY, tagsPosition, (numberOfLists + 3) >> 2),
+                fileChannel.map(FileChannel.MapMode.READ_ONLY, directoryPosition, numberOfLists * 8L).asLongBuffer(),
+                numberOfLists,
+                header.getInt(8),
+                (flags & ContainerWriter.LONG_VALUES_FLAG) != 0,
+                bufferSize
+            );
+            bytesStore.setSizeHeader((flags & ContainerWriter.SIZE_HEADER_FLAG) != 0);
+            bytesStore.setMinIntervalSize(header.getInt(16));
+            bytesStore.setSkipIndexParameters(new SkipIndexParameters(header.getInt(20), header.getInt(24)));
+            return bytesStore;
+        } finally {
+            fileChannel.close();
+        }
+    }
+
+    private static void checkMagic(final int magic) throws IOException {
+        if (magic != ContainerWriter.MAGIC) {
+            throw new IOException(String.format("Invalid container magic number %x", magic));
+        }
+    }
+
+    /**
+     * Gets the number of lists stored in the container.
+     * @return number of lists.
+     */
+    public int size() {
+        return numberOfLists;
+    }
+
+    /**
+     * Gets the fixed number of bits used to represent the values of the lists.
+     * @return value bit size of the lists.
+     */
+    public int getValueBitSize() {
+        return valueBitSize;
+    }
+
+    /**
+     * Gets whether the container stores long lists or int lists.
+     * @return true when the container stores long lists.
+     */
+    public boolean hasLongValues() {
+        return longValues;
+    }
+
+    /**
+     * Gets the type tag of the list of the given index <code>listIndex</code>, that is one of
+     * {@link ContainerWriter#STRICTLY_INCREMENTAL_LIST}, {@link ContainerWriter#INCREMENTAL_LIST} or
+     * {@link ContainerWriter#LIST}.
+     * @param listIndex index of list.
+     * @return type tag of the list.
+     */
+    public int getListType(final int listIndex) {
+        return (tags.get(listIndex >> 2) >> ((listIndex & 3) << 1)) & 3;
+    }
+
+    /**
+     * Builds the iterator that corresponds to the type of the int list of the given index <code>listIndex</code>.
+     * @param listIndex index of list.
+     * @return iterator of the list.
+     * @throws IOException when there is an exception decoding the list.
+     * @throws IllegalStateException when the container stores long lists.
+     */
+    public IntIterator intIterator(final int listIndex) throws IOException {
+        if (longValues) {
+            throw new IllegalStateException("Container stores long lists");
+        }
+        final int listType = getListType(listIndex);
+        if (listType == ContainerWriter.STRICTLY_INCREMENTAL_LIST) {
+            return org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator.build(
+                listIndex,
+                valueBitSize,
+                this
+            );
+        }
+        if (listType == ContainerWriter.INCREMENTAL_LIST) {
+            return org.pebble.core.decoding.iterators.ints.IncrementalListIterator.build(listIndex, valueBitSize, this);
+        }
+        return org.pebble.core.decoding.iterators.ints.ListIterator.build(listIndex, valueBitSize, this);
+    }
+
+    /**
+     * Builds the iterator that corresponds to the type of the long list of the given index <code>listIndex</code>.
+     * @param listIndex index of list.
+     * @return iterator of the list.
+     * @throws IOException when there is an exception decoding the list.
+     * @throws IllegalStateException when the container stores int lists.
+     */
+    public LongIterator longIterator(final int listIndex) throws IOException {
+        if (!longValues) {
+            throw new IllegalStateException("Container stores int lists");
+        }
+        final int listType = getListType(listIndex);
+        if (listType == ContainerWriter.STRICTLY_INCREMENTAL_LIST) {
+            return org.pebble.core.decoding.iterators.longs.StrictlyIncrementalListIterator.build(
+                listIndex,
+                valueBitSize,
+                this
+            );
+        }
+        if (listType == ContainerWriter.INCREMENTAL_LIST) {
+            return org.pebble.core.decoding.iterators.longs.IncrementalListIterator.build(
+                listIndex,
+                valueBitSize,
+                this
+            );
+        }
+        return org.pebble.core.decoding.iterators.longs.ListIterator.build(listIndex, valueBitSize, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ByteBufferInputStream newInputStream() {
+        return store.copy();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long offset(final int listIndex) {
+        return ContainerWriter.HEADER_SIZE * 8L + offsets.get(listIndex);
+    }
+
+}
@@ -0,0 +1,162 @@
+package org.pebble.utils.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.io.InputBitStream;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.decoding.PebbleBytesStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Abstract class of Pebble's compressed data stores that read the compressed lists through input bit streams over
+ * repositionable input streams, instead of keeping them in bytes arrays. Cursors can only read from bytes arrays, so
+ * the input bit stream used to read the lists through an {@link InputBitCursor} is attached to the cursor (see
+ * {@link InputBitCursor#attach(InputBitStream)}) and repositioned on every later read with the same cursor. Every
+ * input bit stream returned by the store keeps the streams used to read the sections of its list, so reading lists
+ * through the same cursor doesn't allocate any input bit stream once its streams are initialized.
+ */
+public abstract class InputStreamPebbleBytesStore extends PebbleBytesStore {
+
+    private static final int SECTIONS = InputBitCursor.REPEATS_SECTION + 1;
+
+    private final int bufferSize;
+
+    /**
+     * @param bufferSize size in bytes of the buffer used by every input bit stream to read the compressed lists.
+     */
+    protected InputStreamPebbleBytesStore(final int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Creates a new view of the compressed lists, independent from every other view.
+     * @return new input stream that contains the compressed lists, which must implement
+     * {@link it.unimi.dsi.fastutil.io.RepositionableStream}.
+     */
+    protected abstract InputStream newInputStream();
+
+    /**
+     * Returns a new input bit stream positioned on the beginning of the representation of the list.
+     * @param listIndex index of list.
+     * @return new bits input stream positioned on the beginning of the representation.
+     * @throws IOException in case there is an exception positioning the cursor in the beginning of the representation.
+     */
+    @Override
+    protected InputBitStream getListInputBitStream(final int listIndex) throws IOException {
+        final ListInputBitStream inputBitStream = new ListInputBitStream();
+        inputBitStream.position(offset(listIndex));
+        return inputBitStream;
+    }
+
+    /**
+     * Returns the input bit stream attached to <code>cursor</code> positioned on the beginning of the representation
+     * of the list, attaching a new one the first time the cursor is used with this store.
+     * @param listIndex index of list.
+     * @param cursor cursor whose attached input bit stream is reused.
+     * @return bits input stream positioned on the beginning of the representation.
+     * @throws IOException in case there is an exception positioning the cursor in the beginning of the representation.
+     */
+    @Override
+    public InputBitStream getListInputBitStream(final int listIndex, final InputBitCursor cursor)
+        throws IOException {
+        ListInputBitStream inputBitStream = getListInputBitStream(cursor.getAttachment());
+        if (inputBitStream == null) {
+            inputBitStream = new ListInputBitStream();
+            cursor.attach(inputBitStream);
+        }
+        inputBitStream.position(offset(listIndex));
+        return inputBitStream;
+    }
+
+    /**
+     * Returns the stream kept by <code>inputBitStream</code> to read <code>section</code>, positioned on the current
+     * position of <code>inputBitStream</code>, when it was returned by this store.
+     * @param listIndex index of list.
+     * @param inputBitStream stream positioned on the beginning of the section.
+     * @param section section of the representation, as defined by {@link InputBitCursor}.
+     * @return bits input stream that contains the compressed list of the given index <code>listIndex</code> with the
+     * cursor positioned on the current position of <code>inputBitStream</code>.
+     * @throws IOException in case there is an exception positioning the cursor.
+     */
+    @Override
+    public InputBitStream getInputBitStream(
+        final int listIndex,
+        final InputBitStream inputBitStream,
+        final int section
+    ) throws IOException {
+        final ListInputBitStream listInputBitStream = getListInputBitStream(inputBitStream);
+        if (listInputBitStream != null) {
+            return listInputBitStream.fork(section);
+        }
+        final InputBitStream sectionInputBitStream = new ListInputBitStream();
+        sectionInputBitStream.position(inputBitStream.position());
+        return sectionInputBitStream;
+    }
+
+    /**
+     * Compressed data is not stored in a bytes array, use {@link #getInputBitStream(int)} instead.
+     * @param listIndex index of list.
+     * @return never returns.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    protected byte[] get(final int listIndex) {
+        throw new UnsupportedOperationException("Compressed data is not stored in bytes arrays");
+    }
+
+    private ListInputBitStream getListInputBitStream(final InputBitStream inputBitStream) {
+        if (inputBitStream instanceof ListInputBitStream) {
+            final ListInputBitStream listInputBitStream = (ListInputBitStream) inputBitStream;
+            if (listInputBitStream.getStore() == this) {
+                return listInputBitStream;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Input bit stream over a view of the compressed lists of the store, which keeps the streams used to read the
+     * sections of the list it reads.
+     */
+    private class ListInputBitStream extends InputBitStream {
+
+        private ListInputBitStream[] forks;
+
+        private ListInputBitStream() {
+            super(newInputStream(), bufferSize);
+        }
+
+        private InputStreamPebbleBytesStore getStore() {
+            return InputStreamPebbleBytesStore.this;
+        }
+
+        private ListInputBitStream fork(final int section) throws IOException {
+            if (forks == null) {
+                forks = new ListInputBitStream[SECTIONS];
+            }
+            if (forks[section] == null) {
+                forks[section] = new ListInputBitStream();
+            }
+            forks[section].position(position());
+            return forks[section];
+        }
+
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.pebble.utils.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.io.ByteBufferInputStream;
+import org.pebble.core.decoding.EliasFanoOffsets;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Implementation of {@link org.pebble.core.decoding.PebbleBytesStore} backed by a memory mapped file. The file is
+ * mapped as multiple read only segments of {@link it.unimi.dsi.io.ByteBufferInputStream#CHUNK_SIZE} bytes, so the
+ * size of the compressed data is not limited by the maximum size of an array and it is never copied into the heap.
+ * Lists and their references are decoded straight from the mapping, and the pages of the file are shared through
+ * the operating system page cache with every other process mapping the same file.
+ *
+ * <p>Every input bit stream returned by this store reads from its own view of the mapped segments, so lists can be
+ * decoded concurrently from different threads.</p>
+ */
+public class MappedPebbleBytesStore extends InputStreamPebbleBytesStore {
+
+    /**
+     * Default size in bytes of the buffer used by every input bit stream to read from the mapped segments.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64;
+
+    private final ByteBufferInputStream store;
+    private final EliasFanoOffsets offsets;
+
+    /**
+     * Initialize a pebble byte store containing the compressed lists stored on the mapped segments of
+     * <code>store</code> and its respective offsets contained at <code>offsets</code>.
+     * @param store mapped segments containing the bits of the compressed lists. It is only used as a template to
+     *              create views, so it must not be read from elsewhere.
+     * @param offsets directory of the offsets indicating the start in bits of each compressed list representation
+     *                stored in <code>store</code>.
+     * @param bufferSize size in bytes of the buffer used by every input bit stream to read from <code>store</code>.
+     */
+    public MappedPebbleBytesStore(
+        final ByteBufferInputStream store,
+        final EliasFanoOffsets offsets,
+        final int bufferSize
+    ) {
+        super(bufferSize);
+        this.store = store;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Memory maps the compressed lists stored at the file located at <code>path</code>. Mapping doesn't read the
+     * file, so it takes the same time regardless of its size.
+     * @param path location of the file containing the bits of the compressed lists.
+     * @param offsets directory of the offsets indicating the start in bits of each compressed list representation
+     *                stored in the file.
+     * @return pebble byte store that decodes the lists straight from the mapped file.
+     * @throws IOException when there is an exception opening or mapping the file.
+     */
+    public static MappedPebbleBytesStore map(final Path path, final EliasFanoOffsets offsets) throws IOException {
+        return map(path, offsets, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Memory maps the compressed lists stored at the file located at <code>path</code>. Mapping doesn't read the
+     * file, so it takes the same time regardless of its size.
+     * @param path location of the file containing the bits of the compressed lists.
+     * @param offsets directory of the offsets indicating the start in bits of each compressed list representation
+     *                stored in the file.
+     * @param bufferSize size in bytes of the buffer used by every input bit stream to read from the mapped file.
+     * @return pebble byte store that decodes the lists straight from the mapped file.
+     * @throws IOException when there is an exception opening or mapping the file.
+     */
+    public static MappedPebbleBytesStore map(
+        final Path path,
+        final EliasFanoOffsets offsets,
+        final int bufferSize
+    ) throws IOException {
+        final FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedPebbleBytesStore(
+                ByteBufferInputStream.map(fileChannel, FileChannel.MapMode.READ_ONLY),
+                offsets,
+                bufferSize
+            );
+        } finally {
+            fileChannel.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ByteBufferInputStream newInputStream() {
+        return store.copy();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long offset(final int listIndex) {
+        return offsets.get(listIndex);
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.pebble.utils.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import org.pebble.core.decoding.EliasFanoOffsets;
+import org.pebble.utils.encoding.PagedArena;
+
+import java.io.InputStream;
+
+/**
+ * Implementation of {@link org.pebble.core.decoding.PebbleBytesStore} that decodes the compressed lists in place
+ * from the pages of a {@link org.pebble.utils.encoding.PagedArena}. Given that the arena can still be written while
+ * it is read, lists can be served as soon as they are written, without copying the compressed data into another
+ * array or file.
+ *
+ * <p>Offsets can also be added while the lists are decoded. When lists are encoded and decoded from different threads,
+ * accesses to <code>offsets</code> must be synchronized by the caller.</p>
+ */
+public class PagedArenaPebbleBytesStore extends InputStreamPebbleBytesStore {
+
+    /**
+     * Default size in bytes of the buffer used by every input bit stream to read from the arena.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64;
+
+    private final PagedArena arena;
+    private final EliasFanoOffsets offsets;
+
+    /**
+     * Initialize a pebble byte store containing the compressed lists written into <code>arena</code> and its
+     * respective offsets contained at <code>offsets</code>.
+     * @param arena arena containing the bits of the compressed lists.
+     * @param offsets directory of the offsets indicating the start in bits of each compressed list representation
+     *                stored in <code>arena</code>.
+     */
+    public PagedArenaPebbleBytesStore(final PagedArena arena, final EliasFanoOffsets offsets) {
+        this(arena, offsets, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Initialize a pebble byte store containing the compressed lists written into <code>arena</code> and its
+     * respective offsets contained at <code>offsets</code>.
+     * @param arena arena containing the bits of the compressed lists.
+     * @param offsets directory of the offsets indicating the start in bits of each compressed list representation
+     *                stored in <code>arena</code>.
+     * @param bufferSize size in bytes of the buffer used by every input bit stream to read from <code>arena</code>.
+     */
+    public PagedArenaPebbleBytesStore(final PagedArena arena, final EliasFanoOffsets offsets, final int bufferSize) {
+        super(bufferSize);
+        this.arena = arena;
+        this.offsets = offsets;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected InputStream newInputStream() {
+        return arena.getInputStream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long offset(final int listIndex) {
+        return offsets.get(listIndex);
+    }
+
+}
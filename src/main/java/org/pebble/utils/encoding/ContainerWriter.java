@@ -0,0 +1,440 @@
+package org.pebble.utils.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.pebble.core.encoding.DefaultParametersValues;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.SkipIndexParameters;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes compressed lists into a self-describing container, in a single pass, so they can be decoded without knowing
+ * how they were written (see {@link org.pebble.utils.decoding.ContainerPebbleBytesStore#open(java.nio.file.Path)}).
+ * Every section starts at a known position, so the container can be memory mapped without parsing it:
+ * <ul>
+ *     <li>
+ *         Header of {@link #HEADER_SIZE} bytes: magic number, format version, value bit size, flags (long values and
+ *         size header), min interval size, skip index sampling rate and skip index min section size, as ints.
+ *     </li>
+ *     <li>Compressed lists, padded to the next byte.</li>
+ *     <li>Type tag of each list, using two bits per list.</li>
+ *     <li>
+ *         Offsets directory, aligned to eight bytes, with the start in bits of each compressed list relative to the
+ *         end of the header, as longs.
+ *     </li>
+ *     <li>
+ *         Footer of {@link #FOOTER_SIZE} bytes: position in bytes of the type tags and of the offsets directory, as
+ *         longs, number of lists and magic number, as ints.
+ *     </li>
+ * </ul>
+ * All the numbers are written in big-endian order. References are decoded as lists of the same type of the list
+ * that refers to them, so every type of list has its own reference lists store, and the stores can't be shared. The
+ * lists given to the writer are modified while they are compressed, same as with {@link OutputSuccinctStream}.
+ */
+public class ContainerWriter implements Closeable {
+
+    /**
+     * Magic number at the beginning and at the end of every container.
+     */
+    public static final int MAGIC = 0x5042424c;
+
+    /**
+     * Version of the container format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size in bytes of the header.
+     */
+    public static final int HEADER_SIZE = 32;
+
+    /**
+     * Size in bytes of the footer.
+     */
+    public static final int FOOTER_SIZE = 24;
+
+    /**
+     * Flag of the header set when the container stores long lists.
+     */
+    public static final int LONG_VALUES_FLAG = 1;
+
+    /**
+     * Flag of the header set when the lists start with their number of elements.
+     */
+    public static final int SIZE_HEADER_FLAG = 2;
+
+    /**
+     * Type tag of strictly incremental lists.
+     */
+    public static final int STRICTLY_INCREMENTAL_LIST = 0;
+
+    /**
+     * Type tag of incremental lists.
+     */
+    public static final int INCREMENTAL_LIST = 1;
+
+    /**
+     * Type tag of unsorted lists.
+     */
+    public static final int LIST = 2;
+
+    private final DataOutputStream dataOutputStream;
+    private final OutputSuccinctStream outputSuccinctStream;
+    private final int valueBitSize;
+    private final IntReferenceListsStore[] intReferenceListsStores;
+    private final LongReferenceListsStore[] longReferenceListsStores;
+    private final ByteArrayList tags;
+    private final LongArrayList offsets;
+    private boolean closed;
+
+    /**
+     * Initializes a writer of a container of int lists without skip index nor size header, using the default min
+     * interval size.
+     * @param outputStream output of the container.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param strictlyIncrementalReferenceListsStore store that contains the available references of the strictly
+     *                                               incremental lists.
+     * @param incrementalReferenceListsStore store that contains the available references of the incremental lists.
+     * @param referenceListsStore store that contains the available references of the unsorted lists.
+     * @throws IOException when there is an exception writing the header into <code>outputStream</code>.
+     */
+    public ContainerWriter(
+        final OutputStream outputStream,
+        final int valueBitSize,
+        final IntReferenceListsStore strictlyIncrementalReferenceListsStore,
+        final IntReferenceListsStore incrementalReferenceListsStore,
+        final IntReferenceListsStore referenceListsStore
+    ) throws IOException {
+        this(
+            outputStream,
+            valueBitSize,
+            strictlyIncrementalReferenceListsStore,
+            incrementalReferenceListsStore,
+            referenceListsStore,
+            SkipIndexParameters.DISABLED,
+            false,
+            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE
+        );
+    }
+
+    /**
+     * Initializes a writer of a container of int lists.
+     * @param outputStream output of the container.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 31 bits.
+     * @param strictlyIncrementalReferenceListsStore store that contains the available references of the strictly
+     *                                               incremental lists.
+     * @param incrementalReferenceListsStore store that contains the available references of the incremental lists.
+     * @param referenceListsStore store that contains the available references of the unsorted lists.
+     * @param skipIndexParameters parameters of the skip index of the lists.
+     * @param sizeHeader whether the lists start with their number of elements or not.
+     * @param minIntervalSize min size of the intervals of the lists.
+     * @throws IOException when there is an exception writing the header into <code>outputStream</code>.
+     * @throws IllegalArgumentException when <code>minIntervalSize</code> is not positive.
+     */
+    public ContainerWriter(
+        final OutputStream outputStream,
+        final int valueBitSize,
+        final IntReferenceListsStore strictlyIncrementalReferenceListsStore,
+        final IntReferenceListsStore incrementalReferenceListsStore,
+        final IntReferenceListsStore referenceListsStore,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader,
+        final int minIntervalSize
+    ) throws IOException {
+        this(
+            outputStream,
+            valueBitSize,
+            new IntReferenceListsStore[] {
+                strictlyIncrementalReferenceListsStore,
+                incrementalReferenceListsStore,
+                referenceListsStore
+            },
+            null,
+            skipIndexParameters,
+            sizeHeader,
+            minIntervalSize
+        );
+    }
+
+    /**
+     * Initializes a writer of a container of long lists without skip index nor size header, using the default min
+     * interval size.
+     * @param outputStream output of the container.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @param strictlyIncrementalReferenceListsStore store that contains the available references of the strictly
+     *                                               incremental lists.
+     * @param incrementalReferenceListsStore store that contains the available references of the incremental lists.
+     * @param referenceListsStore store that contains the available references of the unsorted lists.
+     * @throws IOException when there is an exception writing the header into <code>outputStream</code>.
+     */
+    public ContainerWriter(
+        final OutputStream outputStream,
+        final int valueBitSize,
+        final LongReferenceListsStore strictlyIncrementalReferenceListsStore,
+        final LongReferenceListsStore incrementalReferenceListsStore,
+        final LongReferenceListsStore referenceListsStore
+    ) throws IOException {
+        this(
+            outputStream,
+            valueBitSize,
+            strictlyIncrementalReferenceListsStore,
+            incrementalReferenceListsStore,
+            referenceListsStore,
+            SkipIndexParameters.DISABLED,
+            false,
+            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE
+        );
+    }
+
+    /**
+     * Initializes a writer of a container of long lists.
+     * @param outputStream output of the container.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded. It can be any value
+     *                     between 1bit and 63 bits.
+     * @param strictlyIncrementalReferenceListsStore store that contains the available references of the strictly
+     *                                               incremental lists.
+     * @param incrementalReferenceListsStore store that contains the available references of the incremental lists.
+     * @param referenceListsStore store that contains the available references of the unsorted lists.
+     * @param skipIndexParameters parameters of the skip index of the lists.
+     * @param sizeHeader whether the lists start with their number of elements or not.
+     * @param minIntervalSize min size of the intervals of the lists.
+     * @throws IOException when there is an exception writing the header into <code>outputStream</code>.
+     * @throws IllegalArgumentException when <code>minIntervalSize</code> is not positive.
+     */
+    public ContainerWriter(
+        final OutputStream outputStream,
+        final int valueBitSize,
+        final LongReferenceListsStore strictlyIncrementalReferenceListsStore,
+        final LongReferenceListsStore incrementalReferenceListsStore,
+        final LongReferenceListsStore referenceListsStore,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader,
+        final int minIntervalSize
+    ) throws IOException {
+        this(
+            outputStream,
+            valueBitSize,
+            null,
+            new LongReferenceListsStore[] {
+                strictlyIncrementalReferenceListsStore,
+                incrementalReferenceListsStore,
+                referenceListsStore
+            },
+            skipIndexParameters,
+            sizeHeader,
+            minIntervalSize
+        );
+    }
+
+    private ContainerWriter(
+        final OutputStream outputStream,
+        final int valueBitSize,
+        final IntReferenceListsStore[] intReferenceListsStores,
+        final LongReferenceListsStore[] longReferenceListsStores,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader,
+        final int minIntervalSize
+    ) throws IOException {
+        this.valueBitSize = valueBitSize;
+        this.intReferenceListsStores = intReferenceListsStores;
+        this.longReferenceListsStores = longReferenceListsStores;
+        dataOutputStream = new DataOutputStream(outputStream);
+        outputSuccinctStream = new OutputSuccinctStream(dataOutputStream);
+        outputSuccinctStream.setMinIntervalSize(minIntervalSize);
+        outputSuccinctStream.setSkipIndexParameters(skipIndexParameters);
+        outputSuccinctStream.setSizeHeader(sizeHeader);
+        tags = new ByteArrayList();
+        offsets = new LongArrayList();
+        dataOutputStream.writeInt(MAGIC);
+        dataOutputStream.writeInt(VERSION);
+        dataOutputStream.writeInt(valueBitSize);
+        dataOutputStream.writeInt(
+            (longReferenceListsStores == null ? 0 : LONG_VALUES_FLAG) | (sizeHeader ? SIZE_HEADER_FLAG : 0)
+        );
+        dataOutputStream.writeInt(minIntervalSize);
+        dataOutputStream.writeInt(skipIndexParameters.getSamplingRate());
+        dataOutputStream.writeInt(skipIndexParameters.getMinSectionSize());
+        dataOutputStream.writeInt(0);
+    }
+
+    /**
+     * Writes the compressed representation of an strictly incremental list as the next list of the container (see
+     * {@link OutputSuccinctStream#writeStrictlyIncrementalList(IntList, int, int, IntReferenceListsStore)}).
+     * @param list list to be written. The list must be strictly incremental with positives (including zero) values.
+     * @return numbers of written bits.
+     * @throws IOException when there is an exception writing into the output of the container.
+     * @throws IllegalStateException when the container stores long lists or it is closed.
+     */
+    public int writeStrictlyIncrementalList(final IntList list) throws IOException {
+        final int listIndex = startList(STRICTLY_INCREMENTAL_LIST, intReferenceListsStores);
+        return outputSuccinctStream.writeStrictlyIncrementalList(
+            list,
+            listIndex,
+            valueBitSize,
+            intReferenceListsStores[STRICTLY_INCREMENTAL_LIST]
+        );
+    }
+
+    /**
+     * Writes the compressed representation of an strictly incremental list as the next list of the container (see
+     * {@link OutputSuccinctStream#writeStrictlyIncrementalList(LongList, int, int, LongReferenceListsStore)}).
+     * @param list list to be written. The list must be strictly incremental with positives (including zero) values.
+     * @return numbers of written bits.
+     * @throws IOException when there is an exception writing into the output of the container.
+     * @throws IllegalStateException when the container stores int lists or it is closed.
+     */
+    public int writeStrictlyIncrementalList(final LongList list) throws IOException {
+        final int listIndex = startList(STRICTLY_INCREMENTAL_LIST, longReferenceListsStores);
+        return outputSuccinctStream.writeStrictlyIncrementalList(
+            list,
+            listIndex,
+            valueBitSize,
+            longReferenceListsStores[STRICTLY_INCREMENTAL_LIST]
+        );
+    }
+
+    /**
+     * Writes the compressed representation of an incremental list as the next list of the container (see
+     * {@link OutputSuccinctStream#writeIncrementalList(IntList, int, int, IntReferenceListsStore)}).
+     * @param list list to be written. The list must be incremental with positives (including zero) values.
+     * @return numbers of written bits.
+     * @throws IOException when there is an exception writing into the output of the container.
+     * @throws IllegalStateException when the container stores long lists or it is closed.
+     */
+    public int writeIncrementalList(final IntList list) throws IOException {
+        final int listIndex = startList(INCREMENTAL_LIST, intReferenceListsStores);
+        return outputSuccinctStream.writeIncrementalList(
+            list,
+            listIndex,
+            valueBitSize,
+            intReferenceListsStores[INCREMENTAL_LIST]
+        );
+    }
+
+    /**
+     * Writes the compressed representation of an incremental list as the next list of the container (see
+     * {@link OutputSuccinctStream#writeIncrementalList(LongList, int, int, LongReferenceListsStore)}).
+     * @param list list to be written. The list must be incremental with positives (including zero) values.
+     * @return numbers of written bits.
+     * @throws IOException when there is an exception writing into the output of the container.
+     * @throws IllegalStateException when the container stores int lists or it is closed.
+     */
+    public int writeIncrementalList(final LongList list) throws IOException {
+        final int listIndex = startList(INCREMENTAL_LIST, longReferenceListsStores);
+        return outputSuccinctStream.writeIncrementalList(
+            list,
+            listIndex,
+            valueBitSize,
+            longReferenceListsStores[INCREMENTAL_LIST]
+        );
+    }
+
+    /**
+     * Writes the compressed representation of an unsorted list as the next list of the container (see
+     * {@link OutputSuccinctStream#writeList(IntList, int, int, IntReferenceListsStore)}).
+     * @param list list to be written. The list must contain positives (including zero) values.
+     * @return numbers of written bits.
+     * @throws IOException when there is an exception writing into the output of the container.
+     * @throws IllegalStateException when the container stores long lists or it is closed.
+     */
+    public int writeList(final IntList list) throws IOException {
+        final int listIndex = startList(LIST, intReferenceListsStores);
+        return outputSuccinctStream.writeList(list, listIndex, valueBitSize, intReferenceListsStores[LIST]);
+    }
+
+    /**
+     * Writes the compressed representation of an unsorted list as the next list of the container (see
+     * {@link OutputSuccinctStream#writeList(LongList, int, int, LongReferenceListsStore)}).
+     * @param list list to be written. The list must contain positives (including zero) values.
+     * @return numbers of written bits.
+     * @throws IOException when there is an exception writing into the output of the container.
+     * @throws IllegalStateException when the container stores int lists or it is closed.
+     */
+    public int writeList(final LongList list) throws IOException {
+        final int listIndex = startList(LIST, longReferenceListsStores);
+        return outputSuccinctStream.writeList(list, listIndex, valueBitSize, longReferenceListsStores[LIST]);
+    }
+
+    /**
+     * Gets the number of lists written into the container.
+     * @return number of written lists.
+     */
+    public int size() {
+        return offsets.size();
+    }
+
+    /**
+     * Writes the type tags, the offsets directory and the footer, and closes the output of the container. Further
+     * calls don't have any effect.
+     * @throws IOException when there is an exception writing into or closing the output of the container.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        outputSuccinctStream.flush();
+        final long tagsPosition = HEADER_SIZE + (outputSuccinctStream.writtenBits() + 7L) / 8L;
+        dataOutputStream.write(tags.elements(), 0, tags.size());
+        final long tagsEnd = tagsPosition + tags.size();
+        final long directoryPosition = (tagsEnd + 7L) & -8L;
+        for (long position = tagsEnd; position < directoryPosition; position++) {
+            dataOutputStream.writeByte(0);
+        }
+        for (int i = 0; i < offsets.size(); i++) {
+            dataOutputStream.writeLong(offsets.getLong(i));
+        }
+        dataOutputStream.writeLong(tagsPosition);
+        dataOutputStream.writeLong(directoryPosition);
+        dataOutputStream.writeInt(offsets.size());
+        dataOutputStream.writeInt(MAGIC);
+        dataOutputStream.close();
+    }
+
+    private int startList(final int tag, final Object[] referenceListsStores) {
+        if (closed) {
+            throw new IllegalStateException("Container is closed");
+        }
+        if (referenceListsStores == null) {
+            throw new IllegalStateException(
+                String.format("Container stores %s lists", intReferenceListsStores == null ? "long" : "int")
+            );
+        }
+        final int listIndex = offsets.size();
+        if ((listIndex & 3) == 0) {
+            tags.add((byte) 0);
+        }
+        tags.set(listIndex >> 2, (byte) (tags.getByte(listIndex >> 2) | tag << ((listIndex & 3) << 1)));
+        offsets.add(outputSuccinctStream.writtenBits());
+        return listIndex;
+    }
+
+}
@@ -0,0 +1,191 @@
+package org.pebble.utils.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.io.RepositionableStream;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * In memory sink and source of compressed lists made of fixed size pages that are allocated as they are needed, so
+ * it grows without copying the data already written. The arena is an output stream where an
+ * {@link org.pebble.core.encoding.OutputSuccinctStream} can write the compressed lists, and at the same time it
+ * provides input streams that read in place the bytes already written, so lists can be decoded through a
+ * {@link org.pebble.utils.decoding.PagedArenaPebbleBytesStore} while the encoding continues. Pages can be allocated
+ * on the heap or as direct buffers outside of it.
+ *
+ * <p>The arena supports a single writer and any number of readers, from any thread. Readers only see the bytes
+ * written before they read, so a list can be decoded once all its bytes have been written into the arena, which
+ * happens when the encoder buffer is flushed, or straight away when the encoder doesn't have a buffer.</p>
+ */
+public class PagedArena extends OutputStream {
+
+    /**
+     * Default base 2 logarithm of the size in bytes of the pages.
+     */
+    public static final int DEFAULT_LOG_PAGE_SIZE = 16;
+
+    private final int logPageSize;
+    private final int pageSize;
+    private final boolean direct;
+    private volatile ByteBuffer[] pages;
+    private volatile long length;
+
+    /**
+     * Initializes an empty arena with heap pages of <code>2^{@value #DEFAULT_LOG_PAGE_SIZE}</code> bytes.
+     */
+    public PagedArena() {
+        this(DEFAULT_LOG_PAGE_SIZE, false);
+    }
+
+    /**
+     * Initializes an empty arena.
+     * @param logPageSize base 2 logarithm of the size in bytes of the pages. It can be any value between 0 and 30.
+     * @param direct true to allocate the pages as direct buffers and false to allocate them on the heap.
+     */
+    public PagedArena(final int logPageSize, final boolean direct) {
+        this.logPageSize = logPageSize;
+        this.pageSize = 1 << logPageSize;
+        this.direct = direct;
+        pages = new ByteBuffer[0];
+    }
+
+    /**
+     * Writes the byte <code>b</code> at the end of the arena.
+     * @param b byte to write.
+     */
+    @Override
+    public void write(final int b) {
+        final long length = this.length;
+        getPage(length).put((int) (length & (pageSize - 1)), (byte) b);
+        this.length = length + 1;
+    }
+
+    /**
+     * Writes <code>len</code> bytes from <code>b</code> starting at <code>off</code> at the end of the arena.
+     * @param b bytes to write.
+     * @param off position of the first byte to write.
+     * @param len number of bytes to write.
+     */
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+        long length = this.length;
+        int written = 0;
+        int pageOffset;
+        int size;
+        ByteBuffer page;
+        while (written < len) {
+            pageOffset = (int) (length & (pageSize - 1));
+            size = Math.min(len - written, pageSize - pageOffset);
+            page = getPage(length).duplicate();
+            page.position(pageOffset);
+            page.put(b, off + written, size);
+            written += size;
+            length += size;
+        }
+        this.length = length;
+    }
+
+    /**
+     * Gets the number of bytes written into the arena.
+     * @return number of bytes written into the arena.
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Gets a new input stream that reads the bytes written into the arena. The returned stream supports
+     * repositioning, and it is independent of any other stream returned by the arena.
+     * @return input stream positioned on the beginning of the arena.
+     */
+    public InputStream getInputStream() {
+        return new ArenaInputStream();
+    }
+
+    private ByteBuffer getPage(final long position) {
+        final int page = (int) (position >>> logPageSize);
+        if (page == pages.length) {
+            final ByteBuffer[] pages = Arrays.copyOf(this.pages, page + 1);
+            pages[page] = direct ? ByteBuffer.allocateDirect(pageSize) : ByteBuffer.allocate(pageSize);
+            this.pages = pages;
+        }
+        return pages[page];
+    }
+
+    private class ArenaInputStream extends InputStream implements RepositionableStream {
+
+        private long position;
+
+        @Override
+        public int read() {
+            if (position >= length) {
+                return -1;
+            }
+            final int b = pages[(int) (position >>> logPageSize)].get((int) (position & (pageSize - 1))) & 0xFF;
+            position++;
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            final long available = length - position;
+            if (len == 0) {
+                return 0;
+            }
+            if (available <= 0) {
+                return -1;
+            }
+            final ByteBuffer[] pages = PagedArena.this.pages;
+            final int size = (int) Math.min(len, available);
+            int read = 0;
+            int pageOffset;
+            int pageReadSize;
+            ByteBuffer page;
+            while (read < size) {
+                pageOffset = (int) (position & (pageSize - 1));
+                pageReadSize = Math.min(size - read, pageSize - pageOffset);
+                page = pages[(int) (position >>> logPageSize)].duplicate();
+                page.position(pageOffset);
+                page.get(b, off + read, pageReadSize);
+                read += pageReadSize;
+                position += pageReadSize;
+            }
+            return size;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, length - position));
+        }
+
+        @Override
+        public void position(final long newPosition) {
+            position = newPosition;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+    }
+
+}
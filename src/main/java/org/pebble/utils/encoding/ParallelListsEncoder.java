@@ -0,0 +1,439 @@
+package org.pebble.utils.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.pebble.core.encoding.DefaultParametersValues;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Compresses a set of lists using several threads. The lists are split into contiguous chunks of
+ * <code>chunkSize</code> lists, each chunk is compressed by a task of the given executor service with its own
+ * {@link org.pebble.core.encoding.OutputSuccinctStream} and reference lists store, so reference lists are only
+ * searched inside the chunk. The compressed chunks are written in order into a single output, each one starting at a
+ * byte boundary, and the absolute offset in bits of every list is returned. The output can be read with a
+ * {@link org.pebble.utils.decoding.BytesArrayPebbleBytesStore} and the regular list iterators. Bigger chunks find
+ * more reference lists, increasing compression, while smaller chunks increase the number of lists compressed in
+ * parallel. As {@link org.pebble.core.encoding.OutputSuccinctStream} does, the given lists can be modified while
+ * they are compressed.
+ *
+ * <p>At most <code>maxPendingChunks</code> chunks are compressed or waiting to be written at the same time, and the
+ * reference lists store of a chunk is only created when its task starts, so the memory used doesn't depend on the
+ * number of lists.</p>
+ */
+public class ParallelListsEncoder {
+
+    private final int chunkSize;
+    private final int referenceWindowSize;
+    private final int maxRecursiveReferences;
+    private final int minReferenceListSize;
+    private final int maxPendingChunks;
+    private final ExecutorService executorService;
+
+    /**
+     * Initializes an encoder that compresses chunks of <code>chunkSize</code> lists using the default reference lists
+     * store parameters, with at most two pending chunks per available processor.
+     * @param chunkSize number of contiguous lists compressed by each task.
+     * @param executorService executor service used to compress the chunks.
+     * @throws IllegalArgumentException when <code>chunkSize</code> is not positive.
+     */
+    public ParallelListsEncoder(final int chunkSize, final ExecutorService executorService) {
+        this(
+            chunkSize,
+            DefaultParametersValues.DEFAULT_REFERENCE_WINDOW_SIZE,
+            DefaultParametersValues.DEFAULT_MAX_RECURSIVE_REFERENCES,
+            DefaultParametersValues.DEFAULT_MIN_REFERENCE_LIST_SIZE,
+            executorService
+        );
+    }
+
+    /**
+     * Initializes an encoder that compresses chunks of <code>chunkSize</code> lists, with at most two pending chunks
+     * per available processor.
+     * @param chunkSize number of contiguous lists compressed by each task.
+     * @param referenceWindowSize maximum number of lists stored in the reference lists store of each chunk.
+     * @param maxRecursiveReferences maximum number of allowed recursive references.
+     * @param minReferenceListSize minimum size of list required to be used as reference list.
+     * @param executorService executor service used to compress the chunks.
+     * @throws IllegalArgumentException when <code>chunkSize</code> is not positive.
+     */
+    public ParallelListsEncoder(
+        final int chunkSize,
+        final int referenceWindowSize,
+        final int maxRecursiveReferences,
+        final int minReferenceListSize,
+        final ExecutorService executorService
+    ) {
+        this(
+            chunkSize,
+            referenceWindowSize,
+            maxRecursiveReferences,
+            minReferenceListSize,
+            2 * Runtime.getRuntime().availableProcessors(),
+            executorService
+        );
+    }
+
+    /**
+     * Initializes an encoder that compresses chunks of <code>chunkSize</code> lists.
+     * @param chunkSize number of contiguous lists compressed by each task.
+     * @param referenceWindowSize maximum number of lists stored in the reference lists store of each chunk.
+     * @param maxRecursiveReferences maximum number of allowed recursive references.
+     * @param minReferenceListSize minimum size of list required to be used as reference list.
+     * @param maxPendingChunks maximum number of chunks compressed or waiting to be written at the same time.
+     * @param executorService executor service used to compress the chunks.
+     * @throws IllegalArgumentException when <code>chunkSize</code> or <code>maxPendingChunks</code> are not positive.
+     */
+    public ParallelListsEncoder(
+        final int chunkSize,
+        final int referenceWindowSize,
+        final int maxRecursiveReferences,
+        final int minReferenceListSize,
+        final int maxPendingChunks,
+        final ExecutorService executorService
+    ) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException(String.format("Chunk size must be positive, found %d", chunkSize));
+        }
+        if (maxPendingChunks <= 0) {
+            throw new IllegalArgumentException(
+                String.format("Max pending chunks must be positive, found %d", maxPendingChunks)
+            );
+        }
+        this.chunkSize = chunkSize;
+        this.referenceWindowSize = referenceWindowSize;
+        this.maxRecursiveReferences = maxRecursiveReferences;
+        this.minReferenceListSize = minReferenceListSize;
+        this.maxPendingChunks = maxPendingChunks;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Writes the compressed representation of strictly incremental <code>lists</code> into <code>out</code> (see
+     * {@link OutputSuccinctStream#writeStrictlyIncrementalList(IntList, int, int, IntReferenceListsStore)}).
+     * @param lists lists to be written.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @param out output where the compressed lists are written.
+     * @return offsets in bits of each compressed list respect to the beginning of <code>out</code>.
+     * @throws IOException when there is an exception compressing or writing the lists.
+     */
+    public long[] writeStrictlyIncrementalLists(
+        final IntList[] lists,
+        final int valueBitSize,
+        final OutputStream out
+    ) throws IOException {
+        return write(lists.length, out, new IntListWriter() {
+            @Override
+            int writeList(
+                final OutputSuccinctStream output,
+                final int listIndex,
+                final IntReferenceListsStore referenceListsStore
+            ) throws IOException {
+                return output.writeStrictlyIncrementalList(
+                    lists[listIndex],
+                    listIndex,
+                    valueBitSize,
+                    referenceListsStore
+                );
+            }
+        });
+    }
+
+    /**
+     * Writes the compressed representation of strictly incremental <code>lists</code> into <code>out</code> (see
+     * {@link OutputSuccinctStream#writeStrictlyIncrementalList(LongList, int, int, LongReferenceListsStore)}).
+     * @param lists lists to be written.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @param out output where the compressed lists are written.
+     * @return offsets in bits of each compressed list respect to the beginning of <code>out</code>.
+     * @throws IOException when there is an exception compressing or writing the lists.
+     */
+    public long[] writeStrictlyIncrementalLists(
+        final LongList[] lists,
+        final int valueBitSize,
+        final OutputStream out
+    ) throws IOException {
+        return write(lists.length, out, new LongListWriter() {
+            @Override
+            int writeList(
+                final OutputSuccinctStream output,
+                final int listIndex,
+                final LongReferenceListsStore referenceListsStore
+            ) throws IOException {
+                return output.writeStrictlyIncrementalList(
+                    lists[listIndex],
+                    listIndex,
+                    valueBitSize,
+                    referenceListsStore
+                );
+            }
+        });
+    }
+
+    /**
+     * Writes the compressed representation of incremental <code>lists</code> into <code>out</code> (see
+     * {@link OutputSuccinctStream#writeIncrementalList(IntList, int, int, IntReferenceListsStore)}).
+     * @param lists lists to be written.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @param out output where the compressed lists are written.
+     * @return offsets in bits of each compressed list respect to the beginning of <code>out</code>.
+     * @throws IOException when there is an exception compressing or writing the lists.
+     */
+    public long[] writeIncrementalLists(
+        final IntList[] lists,
+        final int valueBitSize,
+        final OutputStream out
+    ) throws IOException {
+        return write(lists.length, out, new IntListWriter() {
+            @Override
+            int writeList(
+                final OutputSuccinctStream output,
+                final int listIndex,
+                final IntReferenceListsStore referenceListsStore
+            ) throws IOException {
+                return output.writeIncrementalList(lists[listIndex], listIndex, valueBitSize, referenceListsStore);
+            }
+        });
+    }
+
+    /**
+     * Writes the compressed representation of incremental <code>lists</code> into <code>out</code> (see
+     * {@link OutputSuccinctStream#writeIncrementalList(LongList, int, int, LongReferenceListsStore)}).
+     * @param lists lists to be written.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @param out output where the compressed lists are written.
+     * @return offsets in bits of each compressed list respect to the beginning of <code>out</code>.
+     * @throws IOException when there is an exception compressing or writing the lists.
+     */
+    public long[] writeIncrementalLists(
+        final LongList[] lists,
+        final int valueBitSize,
+        final OutputStream out
+    ) throws IOException {
+        return write(lists.length, out, new LongListWriter() {
+            @Override
+            int writeList(
+                final OutputSuccinctStream output,
+                final int listIndex,
+                final LongReferenceListsStore referenceListsStore
+            ) throws IOException {
+                return output.writeIncrementalList(lists[listIndex], listIndex, valueBitSize, referenceListsStore);
+            }
+        });
+    }
+
+    /**
+     * Writes the compressed representation of <code>lists</code> into <code>out</code> (see
+     * {@link OutputSuccinctStream#writeList(IntList, int, int, IntReferenceListsStore)}).
+     * @param lists lists to be written.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @param out output where the compressed lists are written.
+     * @return offsets in bits of each compressed list respect to the beginning of <code>out</code>.
+     * @throws IOException when there is an exception compressing or writing the lists.
+     */
+    public long[] writeLists(
+        final IntList[] lists,
+        final int valueBitSize,
+        final OutputStream out
+    ) throws IOException {
+        return write(lists.length, out, new IntListWriter() {
+            @Override
+            int writeList(
+                final OutputSuccinctStream output,
+                final int listIndex,
+                final IntReferenceListsStore referenceListsStore
+            ) throws IOException {
+                return output.writeList(lists[listIndex], listIndex, valueBitSize, referenceListsStore);
+            }
+        });
+    }
+
+    /**
+     * Writes the compressed representation of <code>lists</code> into <code>out</code> (see
+     * {@link OutputSuccinctStream#writeList(LongList, int, int, LongReferenceListsStore)}).
+     * @param lists lists to be written.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @param out output where the compressed lists are written.
+     * @return offsets in bits of each compressed list respect to the beginning of <code>out</code>.
+     * @throws IOException when there is an exception compressing or writing the lists.
+     */
+    public long[] writeLists(
+        final LongList[] lists,
+        final int valueBitSize,
+        final OutputStream out
+    ) throws IOException {
+        return write(lists.length, out, new LongListWriter() {
+            @Override
+            int writeList(
+                final OutputSuccinctStream output,
+                final int listIndex,
+                final LongReferenceListsStore referenceListsStore
+            ) throws IOException {
+                return output.writeList(lists[listIndex], listIndex, valueBitSize, referenceListsStore);
+            }
+        });
+    }
+
+    private <T> long[] write(
+        final int numberOfLists,
+        final OutputStream out,
+        final ListWriter<T> listWriter
+    ) throws IOException {
+        final Deque<Future<Chunk>> chunks = new ArrayDeque<Future<Chunk>>(maxPendingChunks);
+        final long[] offsets = new long[numberOfLists];
+        long chunkOffset = 0L;
+        int listIndex = 0;
+        int from = 0;
+        int to;
+        Chunk chunk;
+        try {
+            while (from < numberOfLists || !chunks.isEmpty()) {
+                while (from < numberOfLists && chunks.size() < maxPendingChunks) {
+                    to = (int) Math.min(numberOfLists, (long) from + chunkSize);
+                    chunks.add(executorService.submit(new ChunkWriter<T>(listWriter, from, to)));
+                    from = to;
+                }
+                chunk = getChunk(chunks.peek());
+                chunks.poll();
+                for (long offset : chunk.offsets) {
+                    offsets[listIndex++] = chunkOffset + offset;
+                }
+                out.write(chunk.bytes, 0, chunk.length);
+                chunkOffset += (long) chunk.length * Byte.SIZE;
+            }
+        } finally {
+            for (Future<Chunk> future : chunks) {
+                future.cancel(true);
+            }
+        }
+        return offsets;
+    }
+
+    private static Chunk getChunk(final Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Writes the lists of a chunk using a reference lists store of type <code>T</code>.
+     * @param <T> type of the reference lists store.
+     */
+    private abstract static class ListWriter<T> {
+
+        abstract T newReferenceListsStore();
+
+        abstract int writeList(OutputSuccinctStream output, int listIndex, T referenceListsStore) throws IOException;
+
+    }
+
+    private abstract class IntListWriter extends ListWriter<IntReferenceListsStore> {
+
+        @Override
+        IntReferenceListsStore newReferenceListsStore() {
+            return new IntReferenceListsStore(
+                referenceWindowSize,
+                maxRecursiveReferences,
+                minReferenceListSize,
+                new InvertedListIntReferenceListsIndex()
+            );
+        }
+
+    }
+
+    private abstract class LongListWriter extends ListWriter<LongReferenceListsStore> {
+
+        @Override
+        LongReferenceListsStore newReferenceListsStore() {
+            return new LongReferenceListsStore(
+                referenceWindowSize,
+                maxRecursiveReferences,
+                minReferenceListSize,
+                new InvertedListLongReferenceListsIndex()
+            );
+        }
+
+    }
+
+    private static class ChunkWriter<T> implements Callable<Chunk> {
+
+        private final ListWriter<T> listWriter;
+        private final int from;
+        private final int to;
+
+        ChunkWriter(final ListWriter<T> listWriter, final int from, final int to) {
+            this.listWriter = listWriter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Chunk call() throws IOException {
+            final T referenceListsStore = listWriter.newReferenceListsStore();
+            final FastByteArrayOutputStream buffer = new FastByteArrayOutputStream();
+            final OutputSuccinctStream output = new OutputSuccinctStream(buffer);
+            final long[] offsets = new long[to - from];
+            long offset = 0L;
+            for (int i = from; i < to; i++) {
+                offsets[i - from] = offset;
+                offset += listWriter.writeList(output, i, referenceListsStore);
+            }
+            output.flush();
+            return new Chunk(buffer.array, buffer.length, offsets);
+        }
+
+    }
+
+    private static class Chunk {
+
+        private final byte[] bytes;
+        private final int length;
+        private final long[] offsets;
+
+        private Chunk(final byte[] bytes, final int length, final long[] offsets) {
+            this.bytes = bytes;
+            this.length = length;
+            this.offsets = offsets;
+        }
+
+    }
+
+}
@@ -0,0 +1,579 @@
+package org.pebble.utils.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Searches the compression parameters that best fit a set of lists. A sample of <code>sampleSize</code> contiguous
+ * lists is taken from the given lists, so the references among them are kept, and it is compressed with every
+ * combination of the given reference window sizes, max recursive references, min reference list sizes and min
+ * interval sizes. Each combination is compressed and decoded by a task of the given executor service, measuring the
+ * size of the compressed sample and the time required to iterate all of its lists. The combinations run
+ * concurrently, so their decoding times are only comparable among the results of the same search. The given lists
+ * aren't modified.
+ */
+public class ParametersTuner {
+
+    private static final long SEED = 0x5eedL;
+    private static final int DECODING_ROUNDS = 3;
+
+    private enum ListType {
+        STRICTLY_INCREMENTAL,
+        INCREMENTAL,
+        LIST
+    }
+
+    private final int sampleSize;
+    private final List<Parameters> combinations;
+    private final ExecutorService executorService;
+
+    /**
+     * Initializes a tuner that evaluates every combination of the given parameters.
+     * @param sampleSize number of contiguous lists compressed for each combination.
+     * @param referenceWindowSizes reference window sizes to be evaluated.
+     * @param maxRecursiveReferences max numbers of recursive references to be evaluated.
+     * @param minReferenceListSizes min sizes of the reference lists to be evaluated.
+     * @param minIntervalSizes min sizes of the intervals to be evaluated.
+     * @param executorService executor service used to evaluate the combinations.
+     * @throws IllegalArgumentException when <code>sampleSize</code> or any min interval size is not positive.
+     */
+    public ParametersTuner(
+        final int sampleSize,
+        final int[] referenceWindowSizes,
+        final int[] maxRecursiveReferences,
+        final int[] minReferenceListSizes,
+        final int[] minIntervalSizes,
+        final ExecutorService executorService
+    ) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException(String.format("Sample size must be positive, found %d", sampleSize));
+        }
+        this.sampleSize = sampleSize;
+        this.executorService = executorService;
+        combinations = new ArrayList<Parameters>();
+        for (int minIntervalSize : minIntervalSizes) {
+            if (minIntervalSize <= 0) {
+                throw new IllegalArgumentException(
+                    String.format("Min interval size must be positive, found %d", minIntervalSize)
+                );
+            }
+            for (int referenceWindowSize : referenceWindowSizes) {
+                for (int maxRecursiveReference : maxRecursiveReferences) {
+                    for (int minReferenceListSize : minReferenceListSizes) {
+                        combinations.add(new Parameters(
+                            referenceWindowSize,
+                            maxRecursiveReference,
+                            minReferenceListSize,
+                            minIntervalSize
+                        ));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates the combinations of parameters compressing strictly incremental <code>lists</code>.
+     * @param lists lists the sample is taken from.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @return results of the combinations, sorted by the size of the compressed sample.
+     * @throws IOException when there is an exception compressing or decoding the lists.
+     */
+    public List<Result> tuneStrictlyIncrementalLists(final IntList[] lists, final int valueBitSize) throws IOException {
+        return tune(lists, valueBitSize, ListType.STRICTLY_INCREMENTAL);
+    }
+
+    /**
+     * Evaluates the combinations of parameters compressing strictly incremental <code>lists</code>.
+     * @param lists lists the sample is taken from.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @return results of the combinations, sorted by the size of the compressed sample.
+     * @throws IOException when there is an exception compressing or decoding the lists.
+     */
+    public List<Result> tuneStrictlyIncrementalLists(
+        final LongList[] lists,
+        final int valueBitSize
+    ) throws IOException {
+        return tune(lists, valueBitSize, ListType.STRICTLY_INCREMENTAL);
+    }
+
+    /**
+     * Evaluates the combinations of parameters compressing incremental <code>lists</code>.
+     * @param lists lists the sample is taken from.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @return results of the combinations, sorted by the size of the compressed sample.
+     * @throws IOException when there is an exception compressing or decoding the lists.
+     */
+    public List<Result> tuneIncrementalLists(final IntList[] lists, final int valueBitSize) throws IOException {
+        return tune(lists, valueBitSize, ListType.INCREMENTAL);
+    }
+
+    /**
+     * Evaluates the combinations of parameters compressing incremental <code>lists</code>.
+     * @param lists lists the sample is taken from.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @return results of the combinations, sorted by the size of the compressed sample.
+     * @throws IOException when there is an exception compressing or decoding the lists.
+     */
+    public List<Result> tuneIncrementalLists(final LongList[] lists, final int valueBitSize) throws IOException {
+        return tune(lists, valueBitSize, ListType.INCREMENTAL);
+    }
+
+    /**
+     * Evaluates the combinations of parameters compressing unsorted <code>lists</code>.
+     * @param lists lists the sample is taken from.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @return results of the combinations, sorted by the size of the compressed sample.
+     * @throws IOException when there is an exception compressing or decoding the lists.
+     */
+    public List<Result> tuneLists(final IntList[] lists, final int valueBitSize) throws IOException {
+        return tune(lists, valueBitSize, ListType.LIST);
+    }
+
+    /**
+     * Evaluates the combinations of parameters compressing unsorted <code>lists</code>.
+     * @param lists lists the sample is taken from.
+     * @param valueBitSize fixed number of bits used to represent value in list to be encoded.
+     * @return results of the combinations, sorted by the size of the compressed sample.
+     * @throws IOException when there is an exception compressing or decoding the lists.
+     */
+    public List<Result> tuneLists(final LongList[] lists, final int valueBitSize) throws IOException {
+        return tune(lists, valueBitSize, ListType.LIST);
+    }
+
+    private List<Result> tune(
+        final IntList[] lists,
+        final int valueBitSize,
+        final ListType listType
+    ) throws IOException {
+        final int from = getSampleOffset(lists.length);
+        final IntList[] sample = new IntList[Math.min(sampleSize, lists.length)];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = lists[from + i];
+        }
+        final List<Trial> trials = new ArrayList<Trial>(combinations.size());
+        for (Parameters parameters : combinations) {
+            trials.add(new IntTrial(parameters, sample, valueBitSize, listType));
+        }
+        return run(trials);
+    }
+
+    private List<Result> tune(
+        final LongList[] lists,
+        final int valueBitSize,
+        final ListType listType
+    ) throws IOException {
+        final int from = getSampleOffset(lists.length);
+        final LongList[] sample = new LongList[Math.min(sampleSize, lists.length)];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = lists[from + i];
+        }
+        final List<Trial> trials = new ArrayList<Trial>(combinations.size());
+        for (Parameters parameters : combinations) {
+            trials.add(new LongTrial(parameters, sample, valueBitSize, listType));
+        }
+        return run(trials);
+    }
+
+    private int getSampleOffset(final int numberOfLists) {
+        return numberOfLists > sampleSize ? new Random(SEED).nextInt(numberOfLists - sampleSize + 1) : 0;
+    }
+
+    private List<Result> run(final List<Trial> trials) throws IOException {
+        final List<Future<Result>> futures = new ArrayList<Future<Result>>(trials.size());
+        final List<Result> results = new ArrayList<Result>(trials.size());
+        try {
+            for (Trial trial : trials) {
+                futures.add(executorService.submit(trial));
+            }
+            for (Future<Result> future : futures) {
+                results.add(getResult(future));
+            }
+        } finally {
+            for (Future<Result> future : futures) {
+                future.cancel(true);
+            }
+        }
+        Collections.sort(results, new Comparator<Result>() {
+            @Override
+            public int compare(final Result result1, final Result result2) {
+                return result1.bits < result2.bits ? -1 : (result1.bits == result2.bits ? 0 : 1);
+            }
+        });
+        return results;
+    }
+
+    private static Result getResult(final Future<Result> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Result of the evaluation of a combination of parameters.
+     */
+    public static class Result {
+
+        private final Parameters parameters;
+        private final long bits;
+        private final long elements;
+        private final long decodingNanos;
+
+        private Result(final Parameters parameters, final long bits, final long elements, final long decodingNanos) {
+            this.parameters = parameters;
+            this.bits = bits;
+            this.elements = elements;
+            this.decodingNanos = decodingNanos;
+        }
+
+        /**
+         * Gets the evaluated reference window size.
+         * @return evaluated reference window size.
+         */
+        public int getReferenceWindowSize() {
+            return parameters.referenceWindowSize;
+        }
+
+        /**
+         * Gets the evaluated max number of recursive references.
+         * @return evaluated max number of recursive references.
+         */
+        public int getMaxRecursiveReferences() {
+            return parameters.maxRecursiveReferences;
+        }
+
+        /**
+         * Gets the evaluated min size of the reference lists.
+         * @return evaluated min size of the reference lists.
+         */
+        public int getMinReferenceListSize() {
+            return parameters.minReferenceListSize;
+        }
+
+        /**
+         * Gets the evaluated min size of the intervals.
+         * @return evaluated min size of the intervals.
+         */
+        public int getMinIntervalSize() {
+            return parameters.minIntervalSize;
+        }
+
+        /**
+         * Gets the number of bits of the compressed sample.
+         * @return number of bits of the compressed sample.
+         */
+        public long getBits() {
+            return bits;
+        }
+
+        /**
+         * Gets the number of elements of the sample.
+         * @return number of elements of the sample.
+         */
+        public long getElements() {
+            return elements;
+        }
+
+        /**
+         * Gets the average number of bits per element of the compressed sample.
+         * @return average number of bits per element.
+         */
+        public double getBitsPerElement() {
+            return elements == 0 ? 0.0 : (double) bits / elements;
+        }
+
+        /**
+         * Gets the shortest time required to iterate all the lists of the compressed sample, in nanoseconds.
+         * @return time required to iterate the compressed sample.
+         */
+        public long getDecodingNanos() {
+            return decodingNanos;
+        }
+
+        /**
+         * Gets the average time required to iterate an element of the compressed sample, in nanoseconds.
+         * @return average time required to iterate an element.
+         */
+        public double getNanosPerElement() {
+            return elements == 0 ? 0.0 : (double) decodingNanos / elements;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "referenceWindowSize=%d maxRecursiveReferences=%d minReferenceListSize=%d minIntervalSize=%d " +
+                    "bits=%d bitsPerElement=%.3f nanosPerElement=%.3f",
+                parameters.referenceWindowSize,
+                parameters.maxRecursiveReferences,
+                parameters.minReferenceListSize,
+                parameters.minIntervalSize,
+                bits,
+                getBitsPerElement(),
+                getNanosPerElement()
+            );
+        }
+
+    }
+
+    private static class Parameters {
+
+        private final int referenceWindowSize;
+        private final int maxRecursiveReferences;
+        private final int minReferenceListSize;
+        private final int minIntervalSize;
+
+        private Parameters(
+            final int referenceWindowSize,
+            final int maxRecursiveReferences,
+            final int minReferenceListSize,
+            final int minIntervalSize
+        ) {
+            this.referenceWindowSize = referenceWindowSize;
+            this.maxRecursiveReferences = maxRecursiveReferences;
+            this.minReferenceListSize = minReferenceListSize;
+            this.minIntervalSize = minIntervalSize;
+        }
+
+    }
+
+    private abstract static class Trial implements Callable<Result> {
+
+        protected final Parameters parameters;
+        protected final int valueBitSize;
+        protected final ListType listType;
+        private final int numberOfLists;
+
+        Trial(final Parameters parameters, final int valueBitSize, final ListType listType, final int numberOfLists) {
+            this.parameters = parameters;
+            this.valueBitSize = valueBitSize;
+            this.listType = listType;
+            this.numberOfLists = numberOfLists;
+        }
+
+        protected abstract int writeList(final OutputSuccinctStream output, final int listIndex) throws IOException;
+
+        protected abstract long decodeList(
+            final PebbleBytesStore bytesStore,
+            final int listIndex,
+            final InputBitCursor cursor
+        ) throws IOException;
+
+        @Override
+        public Result call() throws IOException {
+            final FastByteArrayOutputStream buffer = new FastByteArrayOutputStream();
+            final OutputSuccinctStream output = new OutputSuccinctStream(buffer);
+            output.setMinIntervalSize(parameters.minIntervalSize);
+            final long[] offsets = new long[numberOfLists];
+            long bits = 0L;
+            for (int i = 0; i < numberOfLists; i++) {
+                offsets[i] = bits;
+                bits += writeList(output, i);
+            }
+            output.flush();
+            final PebbleBytesStore bytesStore = new BytesArrayPebbleBytesStore(buffer.array, offsets);
+            bytesStore.setMinIntervalSize(parameters.minIntervalSize);
+            final InputBitCursor cursor = new InputBitCursor();
+            long elements = 0L;
+            long decodingNanos = Long.MAX_VALUE;
+            for (int round = 0; round < DECODING_ROUNDS; round++) {
+                elements = 0L;
+                final long start = System.nanoTime();
+                for (int i = 0; i < numberOfLists; i++) {
+                    elements += decodeList(bytesStore, i, cursor);
+                }
+                decodingNanos = Math.min(decodingNanos, System.nanoTime() - start);
+            }
+            return new Result(parameters, bits, elements, decodingNanos);
+        }
+
+    }
+
+    private static class IntTrial extends Trial {
+
+        private final IntList[] lists;
+        private final IntReferenceListsStore referenceListsStore;
+
+        IntTrial(final Parameters parameters, final IntList[] lists, final int valueBitSize, final ListType listType) {
+            super(parameters, valueBitSize, listType, lists.length);
+            this.lists = lists;
+            referenceListsStore = new IntReferenceListsStore(
+                parameters.referenceWindowSize,
+                parameters.maxRecursiveReferences,
+                parameters.minReferenceListSize,
+                new InvertedListIntReferenceListsIndex()
+            );
+        }
+
+        @Override
+        protected int writeList(final OutputSuccinctStream output, final int listIndex) throws IOException {
+            final IntList list = new IntArrayList(lists[listIndex]);
+            if (listType == ListType.STRICTLY_INCREMENTAL) {
+                return output.writeStrictlyIncrementalList(list, listIndex, valueBitSize, referenceListsStore);
+            }
+            if (listType == ListType.INCREMENTAL) {
+                return output.writeIncrementalList(list, listIndex, valueBitSize, referenceListsStore);
+            }
+            return output.writeList(list, listIndex, valueBitSize, referenceListsStore);
+        }
+
+        @Override
+        protected long decodeList(
+            final PebbleBytesStore bytesStore,
+            final int listIndex,
+            final InputBitCursor cursor
+        ) throws IOException {
+            final IntIterator iterator;
+            if (listType == ListType.STRICTLY_INCREMENTAL) {
+                iterator = org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator.build(
+                    listIndex,
+                    valueBitSize,
+                    bytesStore,
+                    cursor
+                );
+            } else if (listType == ListType.INCREMENTAL) {
+                iterator = org.pebble.core.decoding.iterators.ints.IncrementalListIterator.build(
+                    listIndex,
+                    valueBitSize,
+                    bytesStore,
+                    cursor
+                );
+            } else {
+                iterator = org.pebble.core.decoding.iterators.ints.ListIterator.build(
+                    listIndex,
+                    valueBitSize,
+                    bytesStore,
+                    cursor
+                );
+            }
+            long elements = 0L;
+            while (iterator.hasNext()) {
+                iterator.nextInt();
+                elements++;
+            }
+            return elements;
+        }
+
+    }
+
+    private static class LongTrial extends Trial {
+
+        private final LongList[] lists;
+        private final LongReferenceListsStore referenceListsStore;
+
+        LongTrial(
+            final Parameters parameters,
+            final LongList[] lists,
+            final int valueBitSize,
+            final ListType listType
+        ) {
+            super(parameters, valueBitSize, listType, lists.length);
+            this.lists = lists;
+            referenceListsStore = new LongReferenceListsStore(
+                parameters.referenceWindowSize,
+                parameters.maxRecursiveReferences,
+                parameters.minReferenceListSize,
+                new InvertedListLongReferenceListsIndex()
+            );
+        }
+
+        @Override
+        protected int writeList(final OutputSuccinctStream output, final int listIndex) throws IOException {
+            final LongList list = new LongArrayList(lists[listIndex]);
+            if (listType == ListType.STRICTLY_INCREMENTAL) {
+                return output.writeStrictlyIncrementalList(list, listIndex, valueBitSize, referenceListsStore);
+            }
+            if (listType == ListType.INCREMENTAL) {
+                return output.writeIncrementalList(list, listIndex, valueBitSize, referenceListsStore);
+            }
+            return output.writeList(list, listIndex, valueBitSize, referenceListsStore);
+        }
+
+        @Override
+        protected long decodeList(
+            final PebbleBytesStore bytesStore,
+            final int listIndex,
+            final InputBitCursor cursor
+        ) throws IOException {
+            final LongIterator iterator;
+            if (listType == ListType.STRICTLY_INCREMENTAL) {
+                iterator = org.pebble.core.decoding.iterators.longs.StrictlyIncrementalListIterator.build(
+                    listIndex,
+                    valueBitSize,
+                    bytesStore,
+                    cursor
+                );
+            } else if (listType == ListType.INCREMENTAL) {
+                iterator = org.pebble.core.decoding.iterators.longs.IncrementalListIterator.build(
+                    listIndex,
+                    valueBitSize,
+                    bytesStore,
+                    cursor
+                );
+            } else {
+                iterator = org.pebble.core.decoding.iterators.longs.ListIterator.build(
+                    listIndex,
+                    valueBitSize,
+                    bytesStore,
+                    cursor
+                );
+            }
+            long elements = 0L;
+            while (iterator.hasNext()) {
+                iterator.nextLong();
+                elements++;
+            }
+            return elements;
+        }
+
+    }
+
+}
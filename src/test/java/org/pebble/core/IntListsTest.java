@@ -19,6 +19,7 @@ package org.pebble.core;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.pebble.FastIntegrationTest;
@@ -30,9 +31,11 @@ import org.pebble.core.encoding.OutputSuccinctStream;
 import org.pebble.core.encoding.ints.datastructures.IntReferenceListsIndex;
 import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
 import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.core.encoding.ints.datastructures.MinHashIntReferenceListsIndex;
 import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
 
 import java.io.IOException;
+import java.util.Random;
 
 import static junit.framework.TestCase.assertEquals;
 import static org.pebble.core.decoding.iterators.Helper.getInput;
@@ -125,4 +128,62 @@ public class IntListsTest {
         );
     }
 
+    private static void assertCompressAndDecompress(
+        final IntReferenceListsStore referenceListsStore
+    ) throws IOException {
+        final int valueBitSize = 6;
+        final Random random = new Random(0x5eed);
+        final IntList[] expectedLists = new IntList[200];
+        final long[] offsets = new long[expectedLists.length];
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(out);
+        long offset = 0;
+        for (int i = 0; i < expectedLists.length; i++) {
+            if (i % 5 == 4) {
+                expectedLists[i] = expectedLists[i - 1];
+            } else {
+                expectedLists[i] = new IntArrayList();
+                for (int j = 1 + random.nextInt(24); j > 0; j--) {
+                    expectedLists[i].add(random.nextInt(64));
+                }
+            }
+            offsets[i] = offset;
+            offset += outputSuccinctStream.writeList(
+                new IntArrayList(expectedLists[i]),
+                i,
+                valueBitSize,
+                referenceListsStore
+            );
+        }
+        outputSuccinctStream.close();
+        final PebbleBytesStore bytesStore = new BytesArrayPebbleBytesStore(out.array, offsets);
+        final IntList[] lists = new IntList[expectedLists.length];
+        IntIterator iterator;
+
+        for (int i = 0; i < lists.length; i++) {
+            iterator = ListIterator.build(i, valueBitSize, bytesStore);
+            lists[i] = new IntArrayList();
+            while (iterator.hasNext()) {
+                lists[i].add(iterator.nextInt());
+            }
+        }
+
+        assertEquals(
+            Helper.<Integer, IntList>translateToUtilsCollection(expectedLists),
+            Helper.<Integer, IntList>translateToUtilsCollection(lists)
+        );
+    }
+
+    @Test
+    public void whenArenaIsFixedItShouldCompressAndDecompressLists() throws IOException {
+        assertCompressAndDecompress(
+            new IntReferenceListsStore(16, 3, 1, 40, new InvertedListIntReferenceListsIndex())
+        );
+    }
+
+    @Test
+    public void whenUsingMinHashIndexItShouldCompressAndDecompressLists() throws IOException {
+        assertCompressAndDecompress(new IntReferenceListsStore(1000, 3, 1, new MinHashIntReferenceListsIndex()));
+    }
+
 }
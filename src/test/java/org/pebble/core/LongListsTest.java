@@ -16,6 +16,7 @@ package org.pebble.core;
  *  limitations under the License.
  */
 
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongList;
@@ -30,9 +31,11 @@ import org.pebble.core.encoding.OutputSuccinctStream;
 import org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex;
 import org.pebble.core.encoding.longs.datastructures.LongReferenceListsIndex;
 import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+import org.pebble.core.encoding.longs.datastructures.MinHashLongReferenceListsIndex;
 import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
 
 import java.io.IOException;
+import java.util.Random;
 
 import static junit.framework.TestCase.assertEquals;
 import static org.pebble.core.decoding.iterators.Helper.getInput;
@@ -125,4 +128,62 @@ public class LongListsTest {
         );
     }
 
+    private static void assertCompressAndDecompress(
+        final LongReferenceListsStore referenceListsStore
+    ) throws IOException {
+        final int valueBitSize = 6;
+        final Random random = new Random(0x5eed);
+        final LongList[] expectedLists = new LongList[200];
+        final long[] offsets = new long[expectedLists.length];
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(out);
+        long offset = 0;
+        for (int i = 0; i < expectedLists.length; i++) {
+            if (i % 5 == 4) {
+                expectedLists[i] = expectedLists[i - 1];
+            } else {
+                expectedLists[i] = new LongArrayList();
+                for (int j = 1 + random.nextInt(24); j > 0; j--) {
+                    expectedLists[i].add((long) random.nextInt(64));
+                }
+            }
+            offsets[i] = offset;
+            offset += outputSuccinctStream.writeList(
+                new LongArrayList(expectedLists[i]),
+                i,
+                valueBitSize,
+                referenceListsStore
+            );
+        }
+        outputSuccinctStream.close();
+        final PebbleBytesStore bytesStore = new BytesArrayPebbleBytesStore(out.array, offsets);
+        final LongList[] lists = new LongList[expectedLists.length];
+        LongIterator iterator;
+
+        for (int i = 0; i < lists.length; i++) {
+            iterator = ListIterator.build(i, valueBitSize, bytesStore);
+            lists[i] = new LongArrayList();
+            while (iterator.hasNext()) {
+                lists[i].add(iterator.nextLong());
+            }
+        }
+
+        assertEquals(
+            Helper.<Long, LongList>translateToUtilsCollection(expectedLists),
+            Helper.<Long, LongList>translateToUtilsCollection(lists)
+        );
+    }
+
+    @Test
+    public void whenArenaIsFixedItShouldCompressAndDecompressLists() throws IOException {
+        assertCompressAndDecompress(
+            new LongReferenceListsStore(16, 3, 1, 40, new InvertedListLongReferenceListsIndex())
+        );
+    }
+
+    @Test
+    public void whenUsingMinHashIndexItShouldCompressAndDecompressLists() throws IOException {
+        assertCompressAndDecompress(new LongReferenceListsStore(1000, 3, 1, new MinHashLongReferenceListsIndex()));
+    }
+
 }
@@ -0,0 +1,71 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+
+import static org.junit.Assert.assertEquals;
+
+@Category(UnitTest.class)
+public class DecodingStatsTest {
+
+    @Test
+    public void itShouldAccumulateTheReportedEvents() {
+        final DecodingStats stats = new DecodingStats();
+
+        stats.onListOpened(3, 0, 20);
+        stats.onListOpened(4, 2, 30);
+        stats.onListOpened(5, 1, 10);
+        stats.onElementReturned();
+        stats.onElementReturned();
+        stats.onSeek();
+
+        assertEquals(3, stats.getLists());
+        assertEquals(3, stats.getReferenceLevels());
+        assertEquals(2, stats.getMaxReferenceLevels());
+        assertEquals(60, stats.getBits());
+        assertEquals(2, stats.getElements());
+        assertEquals(1, stats.getSeeks());
+    }
+
+    @Test
+    public void itShouldBeReset() {
+        final DecodingStats stats = new DecodingStats();
+        stats.onListOpened(3, 2, 20);
+        stats.onElementReturned();
+        stats.onSeek();
+
+        stats.reset();
+
+        assertEquals(0, stats.getLists());
+        assertEquals(0, stats.getReferenceLevels());
+        assertEquals(0, stats.getMaxReferenceLevels());
+        assertEquals(0, stats.getBits());
+        assertEquals(0, stats.getElements());
+        assertEquals(0, stats.getSeeks());
+    }
+
+    @Test
+    public void noOpMetricsShouldIgnoreTheReportedEvents() {
+        DecodingMetrics.NO_OP.onListOpened(3, 2, 20);
+        DecodingMetrics.NO_OP.onElementReturned();
+        DecodingMetrics.NO_OP.onSeek();
+    }
+
+}
@@ -0,0 +1,147 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.UnitTest;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+@Category(UnitTest.class)
+public class EliasFanoOffsetsTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static long[] getRandomOffsets(final Random random, final int size, final int maxGap) {
+        final long[] offsets = new long[size];
+        long offset = 0L;
+        for (int i = 0; i < size; i++) {
+            offsets[i] = offset;
+            offset += random.nextInt(maxGap);
+        }
+        return offsets;
+    }
+
+    private static void assertOffsets(final long[] expectedOffsets, final EliasFanoOffsets offsets) {
+        assertEquals(expectedOffsets.length, offsets.size());
+        for (int i = 0; i < expectedOffsets.length; i++) {
+            assertEquals(expectedOffsets[i], offsets.get(i));
+        }
+    }
+
+    @Test
+    public void getShouldReturnAddedOffsetsSuccessfully() {
+        final long[] expectedOffsets = getRandomOffsets(new Random(0x5eed), 10 * EliasFanoOffsets.BLOCK_SIZE + 17, 200);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+
+        for (long offset : expectedOffsets) {
+            offsets.add(offset);
+        }
+
+        assertOffsets(expectedOffsets, offsets);
+    }
+
+    @Test
+    public void getShouldReturnOffsetsGivenOnConstructionSuccessfully() {
+        final long[] expectedOffsets = getRandomOffsets(new Random(0x5eed), 3 * EliasFanoOffsets.BLOCK_SIZE, 1 << 20);
+
+        final EliasFanoOffsets offsets = new EliasFanoOffsets(expectedOffsets);
+
+        assertOffsets(expectedOffsets, offsets);
+    }
+
+    @Test
+    public void getShouldReturnOffsetsWhileTheyAreBeingAddedSuccessfully() {
+        final long[] expectedOffsets = getRandomOffsets(new Random(0x5eed), 2 * EliasFanoOffsets.BLOCK_SIZE + 3, 50);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+
+        for (int i = 0; i < expectedOffsets.length; i++) {
+            offsets.add(expectedOffsets[i]);
+            assertEquals(i + 1, offsets.size());
+            assertEquals(expectedOffsets[i], offsets.get(i));
+            assertEquals(expectedOffsets[i >>> 1], offsets.get(i >>> 1));
+        }
+    }
+
+    @Test
+    public void whenOffsetsAreRepeatedGetShouldReturnAddedOffsetsSuccessfully() {
+        final long[] expectedOffsets = new long[2 * EliasFanoOffsets.BLOCK_SIZE];
+        for (int i = 0; i < expectedOffsets.length; i++) {
+            expectedOffsets[i] = 7L + (i >>> 5);
+        }
+
+        final EliasFanoOffsets offsets = new EliasFanoOffsets(expectedOffsets);
+
+        assertOffsets(expectedOffsets, offsets);
+    }
+
+    @Test
+    public void whenOffsetsAreVeryFarApartGetShouldReturnAddedOffsetsSuccessfully() {
+        final Random random = new Random(0x5eed);
+        final long[] expectedOffsets = new long[2 * EliasFanoOffsets.BLOCK_SIZE + 1];
+        for (int i = 1; i < expectedOffsets.length; i++) {
+            expectedOffsets[i] = expectedOffsets[i - 1] + (random.nextLong() >>> 12);
+        }
+
+        final EliasFanoOffsets offsets = new EliasFanoOffsets(expectedOffsets);
+
+        assertOffsets(expectedOffsets, offsets);
+    }
+
+    @Test
+    public void getShouldReturnAddedOffsetsAfterTrimSuccessfully() {
+        final long[] expectedOffsets = getRandomOffsets(new Random(0x5eed), 5 * EliasFanoOffsets.BLOCK_SIZE + 1, 90);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets(expectedOffsets);
+
+        offsets.trim();
+
+        assertOffsets(expectedOffsets, offsets);
+    }
+
+    @Test
+    public void whenOffsetIsSmallerThanLastOffsetAddShouldThrowAnException() {
+        final EliasFanoOffsets offsets = new EliasFanoOffsets(new long[] {0L, 10L});
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Offsets are not non decreasing, found 9 after 10");
+
+        offsets.add(9L);
+    }
+
+    @Test
+    public void whenListIndexIsNegativeGetShouldThrowAnException() {
+        final EliasFanoOffsets offsets = new EliasFanoOffsets(new long[] {0L, 10L});
+        expectedException.expect(IndexOutOfBoundsException.class);
+
+        offsets.get(-1);
+    }
+
+    @Test
+    public void whenListIndexIsNotSmallerThanSizeGetShouldThrowAnException() {
+        final EliasFanoOffsets offsets = new EliasFanoOffsets(new long[] {0L, 10L});
+        expectedException.expect(IndexOutOfBoundsException.class);
+        expectedException.expectMessage("Index 2 is out of bounds for 2 offsets");
+
+        offsets.get(2);
+    }
+
+}
@@ -0,0 +1,358 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import it.unimi.dsi.io.InputBitStream;
+import it.unimi.dsi.io.OutputBitStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.UnitTest;
+import org.pebble.core.decoding.iterators.Helper.Input;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.pebble.core.decoding.iterators.Helper.getInput;
+
+@Category(UnitTest.class)
+public class InputBitCursorTest {
+
+    private static final int CODES = 20000;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static int getRandomValue(final Random random) {
+        final int bits = random.nextInt(4) == 0 ? random.nextInt(31) : random.nextInt(10);
+        return random.nextInt(1 << bits);
+    }
+
+    private static byte[] writeRandomCodes(final long seed, final int offset) throws IOException {
+        final Random random = new Random(seed);
+        final FastByteArrayOutputStream outputStream = new FastByteArrayOutputStream();
+        final OutputBitStream outputBitStream = new OutputBitStream(outputStream);
+        outputBitStream.writeInt(0, offset);
+        int length;
+        for (int i = 0; i < CODES; i++) {
+            switch (random.nextInt(6)) {
+                case 0:
+                    outputBitStream.writeBit(random.nextBoolean());
+                    break;
+                case 1:
+                    length = random.nextInt(33);
+                    outputBitStream.writeInt(random.nextInt() >>> (32 - length) & (int) ((1L << length) - 1), length);
+                    break;
+                case 2:
+                    length = random.nextInt(65);
+                    outputBitStream.writeLong(length == 0 ? 0L : random.nextLong() >>> (64 - length), length);
+                    break;
+                case 3:
+                    outputBitStream.writeUnary(random.nextInt(100));
+                    break;
+                case 4:
+                    outputBitStream.writeGamma(getRandomValue(random));
+                    break;
+                default:
+                    outputBitStream.writeDelta(getRandomValue(random));
+                    break;
+            }
+        }
+        outputBitStream.close();
+        return outputStream.array;
+    }
+
+    private static void assertSameCodes(final long seed, final int offset) throws IOException {
+        final byte[] bytes = writeRandomCodes(seed, offset);
+        final Random random = new Random(seed);
+        final InputBitStream expected = new InputBitStream(bytes);
+        final InputBitCursor cursor = new InputBitCursor();
+        expected.position(offset);
+        cursor.reset(bytes, offset);
+        int length;
+        for (int i = 0; i < CODES; i++) {
+            switch (random.nextInt(6)) {
+                case 0:
+                    random.nextBoolean();
+                    assertEquals(expected.readBit(), cursor.readBit());
+                    break;
+                case 1:
+                    length = random.nextInt(33);
+                    random.nextInt();
+                    assertEquals(expected.readInt(length), cursor.readInt(length));
+                    break;
+                case 2:
+                    length = random.nextInt(65);
+                    if (length > 0) {
+                        random.nextLong();
+                    }
+                    assertEquals(expected.readLong(length), cursor.readLong(length));
+                    break;
+                case 3:
+                    random.nextInt(100);
+                    assertEquals(expected.readUnary(), cursor.readUnary());
+                    break;
+                case 4:
+                    getRandomValue(random);
+                    if (i % 3 == 0) {
+                        expected.skipGammas(1);
+                        cursor.skipGammas(1);
+                    } else {
+                        assertEquals(expected.readGamma(), cursor.readGamma());
+                    }
+                    break;
+                default:
+                    getRandomValue(random);
+                    if (i % 3 == 0) {
+                        expected.skipDeltas(1);
+                        cursor.skipDeltas(1);
+                    } else {
+                        assertEquals(expected.readDelta(), cursor.readDelta());
+                    }
+                    break;
+            }
+            assertEquals(expected.position(), cursor.position());
+        }
+    }
+
+    @Test
+    public void resetShouldPositionCursorOnGivenOffset() throws Exception {
+        final Input input = getInput("1 1 1 0 1 0 1 1 0 1");
+        final InputBitCursor cursor = new InputBitCursor();
+
+        cursor.reset(input.buffer, 3);
+
+        assertEquals(3L, cursor.position());
+        assertEquals(0, cursor.readBit());
+        assertEquals(1, cursor.readBit());
+        assertEquals(0, cursor.readBit());
+    }
+
+    @Test
+    public void resetShouldPositionCursorOnGivenOffsetOfAnotherArray() throws Exception {
+        final Input firstInput = getInput("0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0");
+        final Input secondInput = getInput("1 1 1 1 1 1 1 1 1 0 1 1");
+        final InputBitCursor cursor = new InputBitCursor();
+        cursor.reset(firstInput.buffer, 11);
+        cursor.readInt(5);
+
+        cursor.reset(secondInput.buffer, 9);
+
+        assertEquals(9L, cursor.position());
+        assertEquals(0L, cursor.readBits());
+        assertEquals(0, cursor.readBit());
+        assertEquals(1, cursor.readBit());
+    }
+
+    @Test
+    public void getNextShouldReturnSameCursorOfNextLevel() {
+        final InputBitCursor cursor = new InputBitCursor();
+
+        final InputBitCursor next = cursor.getNext();
+
+        assertNotSame(cursor, next);
+        assertSame(next, cursor.getNext());
+        assertNotSame(next, next.getNext());
+    }
+
+    @Test
+    public void forkShouldReturnSameCursorOfSectionPositionedOnCurrentPosition() throws Exception {
+        final Input input = getInput("1 1 1 0 1 0 1 1 0 1");
+        final InputBitCursor cursor = new InputBitCursor();
+        cursor.reset(input.buffer, 2);
+        cursor.readBit();
+
+        final InputBitCursor fork = cursor.fork(InputBitCursor.INTERVALS_SECTION);
+        fork.readInt(4);
+
+        assertNotSame(cursor, fork);
+        assertNotSame(fork, cursor.fork(InputBitCursor.DELTAS_SECTION));
+        assertEquals(3L, cursor.position());
+        assertEquals(0, cursor.readBit());
+        assertSame(fork, cursor.fork(InputBitCursor.INTERVALS_SECTION));
+        assertEquals(4L, fork.position());
+    }
+
+    @Test
+    public void getThreadCursorShouldReturnACursorPerThread() throws Exception {
+        final InputBitCursor cursor = InputBitCursor.getThreadCursor();
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final InputBitCursor otherThreadCursor;
+        try {
+            otherThreadCursor = executorService.submit(new Callable<InputBitCursor>() {
+                @Override
+                public InputBitCursor call() {
+                    return InputBitCursor.getThreadCursor();
+                }
+            }).get();
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertSame(cursor, InputBitCursor.getThreadCursor());
+        assertNotSame(cursor, otherThreadCursor);
+    }
+
+    @Test
+    public void itShouldDecodeSameCodesThanInputBitStream() throws Exception {
+        for (int offset = 0; offset < 8; offset++) {
+            assertSameCodes(0x5eed + offset, offset);
+        }
+    }
+
+    @Test
+    public void whenDeltaCodeDoesNotFitInAnIntItShouldDecodeSameValueThanInputBitStream() throws Exception {
+        final Input input = getInput("00000 100001 11111111 11111111 11111111 11111111 0000000000");
+        final InputBitCursor cursor = new InputBitCursor();
+        cursor.reset(input.buffer, 0);
+
+        assertEquals(input.stream.readDelta(), cursor.readDelta());
+        assertEquals(input.stream.position(), cursor.position());
+    }
+
+    @Test
+    public void readBitsShouldReturnNumberOfBitsReadSinceLastReset() throws Exception {
+        final Input input = getInput("0 1 0 1 0 1 0 1 0 1 1 1 1 1 1 0");
+        final InputBitCursor cursor = new InputBitCursor();
+        cursor.reset(input.buffer, 2);
+        cursor.readInt(5);
+        cursor.skip(2);
+
+        assertEquals(7L, cursor.readBits());
+        cursor.readBits(1L);
+        cursor.readBit();
+        assertEquals(2L, cursor.readBits());
+        cursor.position(0L);
+        assertEquals(0L, cursor.position());
+    }
+
+    @Test
+    public void readingZeroBitsShouldReturnZero() throws Exception {
+        final Input input = getInput("1 1 1 1 1 1 1 1");
+        final InputBitCursor cursor = new InputBitCursor();
+        cursor.reset(input.buffer, 0);
+
+        assertEquals(0, cursor.readInt(0));
+        assertEquals(0L, cursor.readLong(0));
+        assertEquals(0L, cursor.position());
+    }
+
+    @Test
+    public void skipShouldNotMoveCursorBeyondTheEndOfTheBytes() throws Exception {
+        final Input input = getInput("1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1");
+        final InputBitCursor cursor = new InputBitCursor();
+        cursor.reset(input.buffer, 3);
+
+        assertEquals(13L, cursor.skip(20));
+        assertEquals(0L, cursor.skip(-1));
+        assertEquals(16L, cursor.position());
+    }
+
+    @Test
+    public void whenReadingBeyondTheEndOfTheBytesItShouldThrowAnEOFException() throws Exception {
+        final Input input = getInput("0 0 0 0 0 0 0 0");
+        final InputBitCursor cursor = new InputBitCursor();
+        cursor.reset(input.buffer, 0);
+        expectedException.expect(EOFException.class);
+
+        cursor.readDelta();
+    }
+
+    @Test
+    public void whenReadingBitBeyondTheEndOfTheBytesItShouldThrowAnEOFException() throws Exception {
+        final Input input = getInput("1 1 1 1 1 1 1 1");
+        final InputBitCursor cursor = new InputBitCursor();
+        cursor.reset(input.buffer, 8);
+        expectedException.expect(EOFException.class);
+
+        cursor.readBit();
+    }
+
+    @Test
+    public void whenGammaCodeIsLongerThan64BitsItShouldDecodeSameValueThanInputBitStream() throws Exception {
+        final Input input = getInput(
+            "0000000000 0000000000 0000000000 00 1 0101010101 0101010101 0101010101 01 0000000000"
+        );
+        final InputBitCursor cursor = new InputBitCursor();
+        cursor.reset(input.buffer, 0);
+
+        assertEquals(input.stream.readGamma(), cursor.readGamma());
+        assertEquals(input.stream.position(), cursor.position());
+    }
+
+    @Test
+    public void whenGammaCodeIsTooLongItShouldThrowAnIllegalArgumentException() throws Exception {
+        final Input input = getInput(
+            "0000000000 0000000000 0000000000 000 1 0000000000 0000000000 0000000000 000 0000000000"
+        );
+        final InputBitCursor cursor = new InputBitCursor();
+        cursor.reset(input.buffer, 0);
+        expectedException.expect(IllegalArgumentException.class);
+
+        cursor.readGamma();
+    }
+
+    @Test
+    public void whenIntLengthIsNegativeItShouldThrowAnIllegalArgumentException() throws Exception {
+        final InputBitCursor cursor = new InputBitCursor();
+        expectedException.expect(IllegalArgumentException.class);
+
+        cursor.readInt(-1);
+    }
+
+    @Test
+    public void whenIntLengthIsGreaterThan32ItShouldThrowAnIllegalArgumentException() throws Exception {
+        final InputBitCursor cursor = new InputBitCursor();
+        expectedException.expect(IllegalArgumentException.class);
+
+        cursor.readInt(33);
+    }
+
+    @Test
+    public void whenLongLengthIsNegativeItShouldThrowAnIllegalArgumentException() throws Exception {
+        final InputBitCursor cursor = new InputBitCursor();
+        expectedException.expect(IllegalArgumentException.class);
+
+        cursor.readLong(-1);
+    }
+
+    @Test
+    public void whenLongLengthIsGreaterThan64ItShouldThrowAnIllegalArgumentException() throws Exception {
+        final InputBitCursor cursor = new InputBitCursor();
+        expectedException.expect(IllegalArgumentException.class);
+
+        cursor.readLong(65);
+    }
+
+    @Test
+    public void whenPositionIsNegativeItShouldThrowAnIllegalArgumentException() throws Exception {
+        final InputBitCursor cursor = new InputBitCursor();
+        expectedException.expect(IllegalArgumentException.class);
+
+        cursor.position(-1L);
+    }
+
+}
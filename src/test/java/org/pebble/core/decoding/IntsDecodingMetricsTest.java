@@ -0,0 +1,167 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.ints.IntListsDecoderHelper.ListType;
+import org.pebble.core.decoding.iterators.ints.IncrementalListIterator;
+import org.pebble.core.decoding.iterators.ints.ListIterator;
+import org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator;
+import org.pebble.core.encoding.SkipIndexParameters;
+import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class IntsDecodingMetricsTest {
+
+    private static final int NUMBER_OF_LISTS = 50;
+    private static final SkipIndexParameters SKIP_INDEX_PARAMETERS = new SkipIndexParameters(2, 4);
+
+    private static IntList[] getChainOfLists(final ListType listType) {
+        final IntList[] lists = new IntList[4];
+        lists[0] = new IntArrayList();
+        for (int value = 2; value <= 60; value += 2) {
+            lists[0].add(value);
+            if (listType == ListType.INCREMENTAL && value % 10 == 0) {
+                lists[0].add(value);
+            }
+        }
+        lists[1] = new IntArrayList(lists[0]);
+        lists[1].add(61);
+        lists[2] = new IntArrayList(lists[1]);
+        lists[2].add(63);
+        lists[3] = new IntArrayList(new int[] {1});
+        return lists;
+    }
+
+    private static PebbleBytesStore getBytesStore(final IntList[] lists, final ListType listType, final long[] offsets)
+        throws IOException
+    {
+        return new BytesArrayPebbleBytesStore(write(lists, listType, SkipIndexParameters.DISABLED, offsets), offsets);
+    }
+
+    private static int iterate(final IntIterator iterator) {
+        int elements = 0;
+        while (iterator.hasNext()) {
+            iterator.nextInt();
+            elements++;
+        }
+        return elements;
+    }
+
+    @Test
+    public void itShouldReportTheListsOpenedThroughTheChainOfReferences() throws IOException {
+        final IntList[] lists = getChainOfLists(ListType.STRICTLY_INCREMENTAL);
+        final long[] offsets = new long[lists.length];
+        final PebbleBytesStore bytesStore = getBytesStore(lists, ListType.STRICTLY_INCREMENTAL, offsets);
+        final DecodingStats stats = new DecodingStats();
+        bytesStore.setDecodingMetrics(stats);
+
+        assertEquals(lists[2].size(), iterate(StrictlyIncrementalListIterator.build(2, VALUE_BIT_SIZE, bytesStore)));
+
+        assertSame(stats, bytesStore.getDecodingMetrics());
+        assertEquals(3, stats.getLists());
+        assertEquals(3, stats.getReferenceLevels());
+        assertEquals(2, stats.getMaxReferenceLevels());
+        assertEquals(offsets[3] - offsets[0], stats.getBits());
+        assertEquals(lists[0].size() + lists[1].size() + lists[2].size(), stats.getElements());
+        assertEquals(0, stats.getSeeks());
+    }
+
+    @Test
+    public void itShouldReportTheElementsReturnedByIncrementalLists() throws IOException {
+        final IntList[] lists = getChainOfLists(ListType.INCREMENTAL);
+        final PebbleBytesStore bytesStore = getBytesStore(lists, ListType.INCREMENTAL, new long[lists.length]);
+        final DecodingStats stats = new DecodingStats();
+        bytesStore.setDecodingMetrics(stats);
+        final IncrementalListIterator iterator = IncrementalListIterator.build(0, VALUE_BIT_SIZE, bytesStore);
+
+        assertEquals(2, iterator.skip(2));
+        assertEquals(lists[0].size() - 2, iterate(iterator));
+        assertEquals(-1, iterator.nextInt());
+
+        assertEquals(1, stats.getLists());
+        assertEquals(0, stats.getReferenceLevels());
+        assertEquals(lists[0].size() - 2, stats.getElements());
+    }
+
+    @Test
+    public void itShouldReportTheElementsReturnedByLists() throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.LIST);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST);
+        final DecodingStats stats = new DecodingStats();
+        bytesStore.setDecodingMetrics(stats);
+
+        for (int i = 0; i < lists.length; i++) {
+            stats.reset();
+            final ListIterator iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore);
+            final int skipped = iterator.skip(3);
+            final int elements = iterate(iterator);
+
+            assertEquals(lists[i].size(), skipped + elements);
+            assertTrue(stats.getLists() > stats.getMaxReferenceLevels());
+            assertTrue(stats.getElements() >= elements);
+        }
+    }
+
+    @Test
+    public void itShouldReportTheSeeksThroughTheSkipIndex() throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL, SKIP_INDEX_PARAMETERS);
+        final DecodingStats stats = new DecodingStats();
+        bytesStore.setDecodingMetrics(stats);
+
+        for (int i = 0; i < lists.length; i++) {
+            iterate(StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore));
+        }
+        assertEquals(0, stats.getSeeks());
+
+        for (int i = 0; i < lists.length; i++) {
+            StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore).skipTo(2000);
+        }
+        assertTrue(stats.getSeeks() > 0);
+    }
+
+    @Test
+    public void byDefaultItShouldNotReportIntoAnyMetrics() throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL, SKIP_INDEX_PARAMETERS);
+
+        for (int i = 0; i < lists.length; i++) {
+            assertEquals(
+                lists[i].size(),
+                iterate(StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore))
+            );
+            StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore).skipTo(2000);
+        }
+        assertSame(DecodingMetrics.NO_OP, bytesStore.getDecodingMetrics());
+    }
+
+}
@@ -0,0 +1,110 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntList;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.ints.IntListsDecoderHelper.ListType;
+import org.pebble.core.decoding.iterators.ints.ListIterator;
+import org.pebble.core.encoding.SkipIndexParameters;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class IntsListIteratorDecodingTest {
+
+    private static final int NUMBER_OF_LISTS = 100;
+    private static final SkipIndexParameters SKIP_INDEX_PARAMETERS = new SkipIndexParameters(2, 4);
+
+    private static void assertNextInts(final SkipIndexParameters skipIndexParameters, final boolean sizeHeader)
+        throws IOException
+    {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.LIST);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST, skipIndexParameters, sizeHeader);
+        final InputBitCursor cursor = new InputBitCursor();
+        final int[] values = new int[5000];
+        int[] buffer = IntArrays.EMPTY_ARRAY;
+
+        for (int i = 0; i < lists.length; i++) {
+            final ListIterator iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore, cursor, buffer);
+            final int size = iterator.nextInts(values, 1);
+            buffer = iterator.getBuffer();
+
+            assertEquals(lists[i], new IntArrayList(values, 1, size));
+        }
+    }
+
+    private static void assertSkip(final boolean sizeHeader) throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.LIST);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST, SKIP_INDEX_PARAMETERS, sizeHeader);
+        final Random random = new Random(0x5eed);
+
+        for (int i = 0; i < lists.length; i++) {
+            final ListIterator iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore);
+            int index = 0;
+            while (index < lists[i].size()) {
+                index += iterator.skip(random.nextInt(40));
+                assertEquals(index < lists[i].size() ? lists[i].getInt(index) : -1, iterator.nextInt());
+                index++;
+            }
+        }
+    }
+
+    @Test
+    public void listsNextIntsShouldDecodeRemainingElementsIntoArray() throws IOException {
+        assertNextInts(SkipIndexParameters.DISABLED, false);
+        assertNextInts(SKIP_INDEX_PARAMETERS, false);
+    }
+
+    @Test
+    public void whenListsHaveSizeHeaderNextIntsShouldDecodeRemainingElementsIntoArray() throws IOException {
+        assertNextInts(SkipIndexParameters.DISABLED, true);
+        assertNextInts(SKIP_INDEX_PARAMETERS, true);
+    }
+
+    @Test
+    public void listsSkipShouldSkipElementsWithoutDecodingThem() throws IOException {
+        assertSkip(false);
+        assertSkip(true);
+    }
+
+    @Test
+    public void whenListsDontHaveSizeHeaderBuildShouldNotDecodeTheValues() throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.LIST);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST, SKIP_INDEX_PARAMETERS, false);
+        final InputBitCursor cursor = new InputBitCursor();
+
+        for (int i = 0; i < lists.length; i++) {
+            final ListIterator iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore, cursor);
+
+            assertEquals(lists[i].size(), iterator.skip(Integer.MAX_VALUE));
+            assertSame(IntArrays.EMPTY_ARRAY, iterator.getBuffer());
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
+import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.ints.IntListsDecoderHelper.ListType;
+import org.pebble.core.decoding.iterators.ints.DifferenceIterator;
+import org.pebble.core.decoding.iterators.ints.IntersectionIterator;
+import org.pebble.core.decoding.iterators.ints.UnionIterator;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class IntsListsOperationsDecodingTest {
+
+    private static final int NUMBER_OF_LISTS = 60;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static IntList toList(final IntIterator iterator) {
+        final IntList list = new IntArrayList();
+        while (iterator.hasNext()) {
+            list.add(iterator.nextInt());
+        }
+        return list;
+    }
+
+    private static int[][] getRandomListIndices(final int numberOfLists) {
+        final Random random = new Random(0x5eed);
+        final int[][] listIndices = new int[numberOfLists][];
+        for (int i = 0; i < listIndices.length; i++) {
+            listIndices[i] = new int[1 + random.nextInt(3)];
+            for (int j = 0; j < listIndices[i].length; j++) {
+                listIndices[i][j] = random.nextInt(numberOfLists);
+            }
+        }
+        return listIndices;
+    }
+
+    private static IntList getExpectedIntersection(final IntList[] lists, final int[] listIndices) {
+        final IntSortedSet set = new IntRBTreeSet(lists[listIndices[0]]);
+        for (int i = 1; i < listIndices.length; i++) {
+            set.retainAll(lists[listIndices[i]]);
+        }
+        return new IntArrayList(set);
+    }
+
+    private static IntList getExpectedUnion(final IntList[] lists, final int[] listIndices) {
+        final IntSortedSet set = new IntRBTreeSet();
+        for (int listIndex : listIndices) {
+            set.addAll(lists[listIndex]);
+        }
+        return new IntArrayList(set);
+    }
+
+    private static IntList getExpectedDifference(final IntList[] lists, final int[] listIndices) {
+        final IntSortedSet set = new IntRBTreeSet(lists[listIndices[0]]);
+        for (int i = 1; i < listIndices.length; i++) {
+            set.removeAll(lists[listIndices[i]]);
+        }
+        return new IntArrayList(set);
+    }
+
+    @Test
+    public void operationsOverStrictlyIncrementalListsShouldReturnExpectedElements() throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+
+        for (int[] listIndices : getRandomListIndices(NUMBER_OF_LISTS)) {
+            assertEquals(
+                getExpectedIntersection(lists, listIndices),
+                toList(IntersectionIterator.build(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+            assertEquals(
+                getExpectedUnion(lists, listIndices),
+                toList(UnionIterator.build(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+            assertEquals(
+                getExpectedDifference(lists, listIndices),
+                toList(DifferenceIterator.build(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+        }
+    }
+
+    @Test
+    public void operationsOverIncrementalListsShouldReturnExpectedDistinctElements() throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.INCREMENTAL);
+
+        for (int[] listIndices : getRandomListIndices(NUMBER_OF_LISTS)) {
+            assertEquals(
+                getExpectedIntersection(lists, listIndices),
+                toList(IntersectionIterator.buildIncremental(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+            assertEquals(
+                getExpectedUnion(lists, listIndices),
+                toList(UnionIterator.buildIncremental(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+            assertEquals(
+                getExpectedDifference(lists, listIndices),
+                toList(DifferenceIterator.buildIncremental(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+        }
+    }
+
+    @Test
+    public void skipToShouldReturnFirstElementOfOperationGreaterOrEqualThanTarget() throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final Random random = new Random(0x5eed);
+
+        for (int[] listIndices : getRandomListIndices(NUMBER_OF_LISTS)) {
+            final IntList expected = getExpectedUnion(lists, listIndices);
+            final UnionIterator iterator = UnionIterator.build(listIndices, VALUE_BIT_SIZE, bytesStore);
+            int index = 0;
+            int target = 0;
+            while (index < expected.size()) {
+                target += random.nextInt(20);
+                while (index < expected.size() && expected.getInt(index) < target) {
+                    index++;
+                }
+                assertEquals(index < expected.size() ? expected.getInt(index) : -1, iterator.skipTo(target));
+                index++;
+            }
+            assertEquals(-1, iterator.skipTo(target));
+            assertEquals(-1, iterator.nextInt());
+        }
+    }
+
+    @Test
+    public void skipToShouldNotMoveBackwards() throws IOException {
+        final IntList[] lists = getRandomLists(2, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final IntersectionIterator iterator = IntersectionIterator.build(new int[] {1, 1}, VALUE_BIT_SIZE, bytesStore);
+        iterator.skip(5);
+
+        assertEquals(lists[1].getInt(5), iterator.skipTo(0));
+    }
+
+    @Test
+    public void intersectionOfNoListsShouldBeEmpty() throws IOException {
+        final IntList[] lists = getRandomLists(1, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+
+        assertFalse(IntersectionIterator.build(new int[0], VALUE_BIT_SIZE, bytesStore).hasNext());
+        assertFalse(UnionIterator.build(new int[0], VALUE_BIT_SIZE, bytesStore).hasNext());
+    }
+
+    @Test
+    public void nextShouldReturnBoxedElementsAndNullAtTheEnd() throws IOException {
+        final IntList[] lists = getRandomLists(2, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final UnionIterator iterator = UnionIterator.build(new int[] {1}, VALUE_BIT_SIZE, bytesStore);
+
+        assertEquals(Integer.valueOf(lists[1].getInt(0)), iterator.next());
+        assertEquals(lists[1].size() - 1, iterator.skip(lists[1].size()));
+        assertNull(iterator.next());
+    }
+
+    @Test
+    public void removeShouldThrowUnsupportedOperationException() throws IOException {
+        final IntList[] lists = getRandomLists(2, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final DifferenceIterator iterator = DifferenceIterator.build(new int[] {1, 0}, VALUE_BIT_SIZE, bytesStore);
+        expectedException.expect(UnsupportedOperationException.class);
+
+        iterator.remove();
+    }
+
+}
@@ -0,0 +1,192 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayInputStream;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.ints.IntListsAccessor;
+import org.pebble.core.decoding.ints.IntListsDecoder;
+import org.pebble.core.decoding.ints.IntListsDecoderHelper.ListType;
+import org.pebble.core.decoding.ints.IntListsSequentialReader;
+import org.pebble.core.decoding.iterators.ints.IncrementalListIterator;
+import org.pebble.core.decoding.iterators.ints.ListIterator;
+import org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator;
+import org.pebble.core.encoding.SkipIndexParameters;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class IntsMinIntervalSizeDecodingTest {
+
+    private static final int NUMBER_OF_LISTS = 50;
+    private static final int[] MIN_INTERVAL_SIZES = new int[] {1, 2, 8};
+    private static final SkipIndexParameters SKIP_INDEX_PARAMETERS = new SkipIndexParameters(2, 4);
+
+    private static IntList toList(final IntIterator iterator) {
+        final IntList list = new IntArrayList();
+        while (iterator.hasNext()) {
+            list.add(iterator.nextInt());
+        }
+        return list;
+    }
+
+    private static IntIterator build(
+        final ListType listType,
+        final int listIndex,
+        final PebbleBytesStore bytesStore
+    ) throws IOException {
+        if (listType == ListType.STRICTLY_INCREMENTAL) {
+            return StrictlyIncrementalListIterator.build(listIndex, VALUE_BIT_SIZE, bytesStore);
+        }
+        if (listType == ListType.INCREMENTAL) {
+            return IncrementalListIterator.build(listIndex, VALUE_BIT_SIZE, bytesStore);
+        }
+        return ListIterator.build(listIndex, VALUE_BIT_SIZE, bytesStore);
+    }
+
+    private static int decode(
+        final IntListsDecoder decoder,
+        final ListType listType,
+        final int listIndex,
+        final int[] values
+    ) throws IOException {
+        if (listType == ListType.STRICTLY_INCREMENTAL) {
+            return decoder.decodeStrictlyIncrementalList(listIndex, values, 0);
+        }
+        if (listType == ListType.INCREMENTAL) {
+            return decoder.decodeIncrementalList(listIndex, values, 0);
+        }
+        return decoder.decodeList(listIndex, values, 0);
+    }
+
+    private static int read(
+        final IntListsSequentialReader reader,
+        final ListType listType,
+        final int[] values
+    ) throws IOException {
+        if (listType == ListType.STRICTLY_INCREMENTAL) {
+            return reader.readStrictlyIncrementalList(values, 0);
+        }
+        if (listType == ListType.INCREMENTAL) {
+            return reader.readIncrementalList(values, 0);
+        }
+        return reader.readList(values, 0);
+    }
+
+    @Test
+    public void listsWithMinIntervalSizeShouldBeIteratedSuccessfully() throws IOException {
+        for (ListType listType : ListType.values()) {
+            final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+            for (int minIntervalSize : MIN_INTERVAL_SIZES) {
+                final PebbleBytesStore bytesStore =
+                    write(lists, listType, SKIP_INDEX_PARAMETERS, false, minIntervalSize);
+
+                for (int i = 0; i < lists.length; i++) {
+                    assertEquals(lists[i], toList(build(listType, i, bytesStore)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void listsWithMinIntervalSizeShouldBeDecodedSuccessfully() throws IOException {
+        final int[] values = new int[4096];
+        for (ListType listType : ListType.values()) {
+            final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+            for (int minIntervalSize : MIN_INTERVAL_SIZES) {
+                final PebbleBytesStore bytesStore =
+                    write(lists, listType, SKIP_INDEX_PARAMETERS, false, minIntervalSize);
+                final IntListsDecoder decoder = new IntListsDecoder(VALUE_BIT_SIZE, bytesStore);
+
+                for (int i = 0; i < lists.length; i++) {
+                    assertEquals(lists[i], new IntArrayList(values, 0, decode(decoder, listType, i, values)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void listsWithMinIntervalSizeShouldBeReadSequentially() throws IOException {
+        final int[] values = new int[4096];
+        for (ListType listType : ListType.values()) {
+            final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+            for (int minIntervalSize : MIN_INTERVAL_SIZES) {
+                final PebbleBytesStore bytesStore =
+                    write(lists, listType, SKIP_INDEX_PARAMETERS, false, minIntervalSize);
+                final byte[] bytes =
+                    write(lists, listType, SKIP_INDEX_PARAMETERS, false, minIntervalSize, new long[lists.length]);
+                final IntListsSequentialReader bytesStoreReader =
+                    new IntListsSequentialReader(VALUE_BIT_SIZE, 1, bytesStore);
+                final IntListsSequentialReader inputStreamReader = new IntListsSequentialReader(
+                    VALUE_BIT_SIZE,
+                    lists.length,
+                    new FastByteArrayInputStream(bytes),
+                    SKIP_INDEX_PARAMETERS,
+                    false,
+                    minIntervalSize
+                );
+
+                for (int i = 0; i < lists.length; i++) {
+                    assertEquals(lists[i], new IntArrayList(values, 0, read(bytesStoreReader, listType, values)));
+                    assertEquals(lists[i], new IntArrayList(values, 0, read(inputStreamReader, listType, values)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void listsWithMinIntervalSizeShouldBeAccessedSuccessfully() throws IOException {
+        final IntList[] strictlyIncrementalLists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final IntList[] incrementalLists = getRandomLists(NUMBER_OF_LISTS, ListType.INCREMENTAL);
+        for (int minIntervalSize : MIN_INTERVAL_SIZES) {
+            final IntListsAccessor strictlyIncrementalAccessor = new IntListsAccessor(
+                VALUE_BIT_SIZE,
+                write(
+                    strictlyIncrementalLists,
+                    ListType.STRICTLY_INCREMENTAL,
+                    SkipIndexParameters.DISABLED,
+                    false,
+                    minIntervalSize
+                )
+            );
+            final IntListsAccessor incrementalAccessor = new IntListsAccessor(
+                VALUE_BIT_SIZE,
+                write(incrementalLists, ListType.INCREMENTAL, SkipIndexParameters.DISABLED, false, minIntervalSize)
+            );
+
+            for (int i = 0; i < NUMBER_OF_LISTS; i++) {
+                final IntList list = strictlyIncrementalLists[i];
+                assertEquals(list.size(), strictlyIncrementalAccessor.size(i));
+                for (int position = 0; position < list.size(); position += 7) {
+                    assertEquals(list.getInt(position), strictlyIncrementalAccessor.get(i, position));
+                }
+                assertEquals(incrementalLists[i].size(), incrementalAccessor.sizeIncremental(i));
+            }
+        }
+    }
+
+}
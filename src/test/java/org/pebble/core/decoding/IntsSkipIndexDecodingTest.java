@@ -0,0 +1,209 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.ints.IntListsAccessor;
+import org.pebble.core.decoding.ints.IntListsDecoder;
+import org.pebble.core.decoding.ints.IntListsDecoderHelper.ListType;
+import org.pebble.core.decoding.iterators.ints.IncrementalListIterator;
+import org.pebble.core.decoding.iterators.ints.ListIterator;
+import org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator;
+import org.pebble.core.encoding.SkipIndexParameters;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class IntsSkipIndexDecodingTest {
+
+    private static final int NUMBER_OF_LISTS = 50;
+    private static final SkipIndexParameters SKIP_INDEX_PARAMETERS = new SkipIndexParameters(2, 4);
+
+    private static IntList toList(final IntIterator iterator) {
+        final IntList list = new IntArrayList();
+        while (iterator.hasNext()) {
+            list.add(iterator.nextInt());
+        }
+        return list;
+    }
+
+    private static int getExpectedSkipTo(final IntList list, final int from, final int target) {
+        for (int i = from; i < list.size(); i++) {
+            if (list.getInt(i) >= target) {
+                return i;
+            }
+        }
+        return list.size();
+    }
+
+    private static IntList decode(final IntListsDecoder decoder, final ListType listType, final int listIndex)
+        throws IOException
+    {
+        final int[] values = new int[4096];
+        final int size;
+        if (listType == ListType.STRICTLY_INCREMENTAL) {
+            size = decoder.decodeStrictlyIncrementalList(listIndex, values, 0);
+        } else if (listType == ListType.INCREMENTAL) {
+            size = decoder.decodeIncrementalList(listIndex, values, 0);
+        } else {
+            size = decoder.decodeList(listIndex, values, 0);
+        }
+        return new IntArrayList(values, 0, size);
+    }
+
+    @Test
+    public void listsWithSkipIndexShouldBeIteratedSuccessfully() throws IOException {
+        final IntList[] strictlyIncrementalLists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final IntList[] incrementalLists = getRandomLists(NUMBER_OF_LISTS, ListType.INCREMENTAL);
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.LIST);
+        final PebbleBytesStore strictlyIncrementalBytesStore =
+            write(strictlyIncrementalLists, ListType.STRICTLY_INCREMENTAL, SKIP_INDEX_PARAMETERS);
+        final PebbleBytesStore incrementalBytesStore =
+            write(incrementalLists, ListType.INCREMENTAL, SKIP_INDEX_PARAMETERS);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST, SKIP_INDEX_PARAMETERS);
+        final InputBitCursor cursor = new InputBitCursor();
+
+        for (int i = 0; i < NUMBER_OF_LISTS; i++) {
+            assertEquals(
+                strictlyIncrementalLists[i],
+                toList(StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, strictlyIncrementalBytesStore))
+            );
+            assertEquals(
+                strictlyIncrementalLists[i],
+                toList(StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, strictlyIncrementalBytesStore, cursor))
+            );
+            assertEquals(
+                incrementalLists[i],
+                toList(IncrementalListIterator.build(i, VALUE_BIT_SIZE, incrementalBytesStore))
+            );
+            assertEquals(lists[i], toList(ListIterator.build(i, VALUE_BIT_SIZE, bytesStore)));
+            assertEquals(lists[i], toList(ListIterator.build(i, VALUE_BIT_SIZE, bytesStore, cursor)));
+        }
+    }
+
+    @Test
+    public void listsWithSkipIndexShouldBeDecodedSuccessfully() throws IOException {
+        for (ListType listType : ListType.values()) {
+            final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+            final PebbleBytesStore bytesStore = write(lists, listType, SKIP_INDEX_PARAMETERS);
+            final IntListsDecoder decoder = new IntListsDecoder(VALUE_BIT_SIZE, bytesStore);
+
+            for (int i = 0; i < NUMBER_OF_LISTS; i++) {
+                assertEquals(lists[i], decode(decoder, listType, i));
+            }
+        }
+    }
+
+    @Test
+    public void strictlyIncrementalListsSkipToShouldJumpThroughSkipIndex() throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL, SKIP_INDEX_PARAMETERS);
+        final Random random = new Random(0x5eed);
+
+        for (int i = 0; i < lists.length; i++) {
+            final StrictlyIncrementalListIterator iterator =
+                StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore);
+            int index = 0;
+            int target = 0;
+            while (index < lists[i].size()) {
+                target += random.nextInt(random.nextBoolean() ? 10 : 600);
+                index = getExpectedSkipTo(lists[i], index, target);
+                assertEquals(index < lists[i].size() ? lists[i].getInt(index) : -1, iterator.skipTo(target));
+                index++;
+                if (index < lists[i].size() && random.nextBoolean()) {
+                    assertEquals(lists[i].getInt(index++), iterator.nextInt());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void incrementalListsSkipToShouldJumpThroughSkipIndex() throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.INCREMENTAL, SKIP_INDEX_PARAMETERS);
+        final Random random = new Random(0x5eed);
+
+        for (int i = 0; i < lists.length; i++) {
+            final IncrementalListIterator iterator = IncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore);
+            int index = 0;
+            int target = 0;
+            while (index < lists[i].size()) {
+                target += random.nextInt(random.nextBoolean() ? 10 : 600);
+                index = getExpectedSkipTo(lists[i], index, target);
+                assertEquals(index < lists[i].size() ? lists[i].getInt(index) : -1, iterator.skipTo(target));
+                index++;
+                if (index < lists[i].size() && random.nextBoolean()) {
+                    assertEquals(lists[i].getInt(index++), iterator.nextInt());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void whenEverySectionIsIndexedListsWithoutIntervalsShouldBeIteratedSuccessfully() throws IOException {
+        final IntList[] lists = new IntList[] {new IntArrayList(new int[] {1, 5, 9, 20})};
+        final SkipIndexParameters skipIndexParameters = new SkipIndexParameters(1, 0);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL, skipIndexParameters, true);
+        final IntListsDecoder decoder = new IntListsDecoder(VALUE_BIT_SIZE, bytesStore);
+        final IntListsAccessor accessor = new IntListsAccessor(VALUE_BIT_SIZE, bytesStore);
+
+        assertEquals(lists[0], toList(StrictlyIncrementalListIterator.build(0, VALUE_BIT_SIZE, bytesStore)));
+        assertEquals(lists[0], decode(decoder, ListType.STRICTLY_INCREMENTAL, 0));
+        assertEquals(lists[0].getInt(2), accessor.get(0, 2));
+        assertEquals(4, accessor.size(0));
+    }
+
+    @Test
+    public void listsShouldBeDecodedWithTheSamplingRateTheyWereEncodedWith() throws IOException {
+        for (ListType listType : ListType.values()) {
+            final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+            final PebbleBytesStore bytesStore = write(lists, listType, SKIP_INDEX_PARAMETERS);
+            bytesStore.setSkipIndexParameters(new SkipIndexParameters(3, 1));
+            final IntListsDecoder decoder = new IntListsDecoder(VALUE_BIT_SIZE, bytesStore);
+            final IntListsAccessor accessor = new IntListsAccessor(VALUE_BIT_SIZE, bytesStore);
+
+            for (int i = 0; i < NUMBER_OF_LISTS; i++) {
+                assertEquals(lists[i], decode(decoder, listType, i));
+                if (listType == ListType.STRICTLY_INCREMENTAL) {
+                    assertEquals(lists[i].size(), accessor.size(i));
+                    assertEquals(
+                        lists[i],
+                        toList(StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore))
+                    );
+                } else if (listType == ListType.INCREMENTAL) {
+                    assertEquals(lists[i].size(), accessor.sizeIncremental(i));
+                    assertEquals(lists[i], toList(IncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore)));
+                } else {
+                    assertEquals(lists[i].size(), accessor.sizeList(i));
+                    assertEquals(lists[i], toList(ListIterator.build(i, VALUE_BIT_SIZE, bytesStore)));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.iterators.longs.IncrementalListIterator;
+import org.pebble.core.decoding.iterators.longs.ListIterator;
+import org.pebble.core.decoding.iterators.longs.StrictlyIncrementalListIterator;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+import org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex;
+import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+@Category(FastIntegrationTest.class)
+public class LongsInputBitCursorDecodingTest {
+
+    private static final int VALUE_BIT_SIZE = 10;
+    private static final int NUMBER_OF_LISTS = 200;
+
+    private interface ListWriter {
+        void write(
+            OutputSuccinctStream outputSuccinctStream,
+            LongList list,
+            int listIndex,
+            LongReferenceListsStore referenceListsStore
+        ) throws IOException;
+    }
+
+    private interface ListIteratorBuilder {
+        LongIterator build(int listIndex, PebbleBytesStore bytesStore, InputBitCursor cursor) throws IOException;
+    }
+
+    private static LongList[] getRandomLists(final boolean sorted, final boolean unique) {
+        final Random random = new Random(0x5eed);
+        final LongList base = new LongArrayList();
+        for (long value = 0L; value < 1000L; value += 1 + random.nextInt(20)) {
+            base.add(value);
+        }
+        final LongList[] lists = new LongList[NUMBER_OF_LISTS];
+        LongList list;
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = list = new LongArrayList();
+            for (int j = 0; j < base.size(); j++) {
+                if (random.nextInt(8) != 0) {
+                    list.add(base.getLong(j));
+                    if (!unique && random.nextInt(10) == 0) {
+                        list.add(base.getLong(j));
+                    }
+                }
+            }
+            if (!sorted) {
+                for (int j = list.size() - 1; j > 0; j--) {
+                    list.set(j, list.set(random.nextInt(j + 1), list.getLong(j)));
+                }
+            }
+        }
+        return lists;
+    }
+
+    private static PebbleBytesStore write(final LongList[] lists, final ListWriter listWriter) throws IOException {
+        final FastByteArrayOutputStream outputStream = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(outputStream);
+        final LongReferenceListsStore referenceListsStore = new LongReferenceListsStore(
+            16,
+            3,
+            1,
+            new InvertedListLongReferenceListsIndex()
+        );
+        final long[] offsets = new long[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            offsets[i] = outputSuccinctStream.writtenBits();
+            listWriter.write(outputSuccinctStream, new LongArrayList(lists[i]), i, referenceListsStore);
+        }
+        outputSuccinctStream.close();
+        return new BytesArrayPebbleBytesStore(outputStream.array, offsets);
+    }
+
+    private static void assertDecodedThroughCursor(
+        final LongList[] expectedLists,
+        final PebbleBytesStore bytesStore,
+        final ListIteratorBuilder listIteratorBuilder
+    ) throws IOException {
+        final InputBitCursor cursor = new InputBitCursor();
+        LongIterator iterator;
+        LongList list;
+        for (int i = expectedLists.length - 1; i >= 0; i--) {
+            iterator = listIteratorBuilder.build(i, bytesStore, cursor);
+            list = new LongArrayList();
+            while (iterator.hasNext()) {
+                list.add(iterator.nextLong());
+            }
+            assertEquals(expectedLists[i], list);
+        }
+    }
+
+    @Test
+    public void strictlyIncrementalListsShouldBeDecodedThroughCursorSuccessfully() throws IOException {
+        final LongList[] lists = getRandomLists(true, true);
+        final PebbleBytesStore bytesStore = write(lists, new ListWriter() {
+            @Override
+            public void write(
+                final OutputSuccinctStream outputSuccinctStream,
+                final LongList list,
+                final int listIndex,
+                final LongReferenceListsStore referenceListsStore
+            ) throws IOException {
+                outputSuccinctStream.writeStrictlyIncrementalList(list, listIndex, VALUE_BIT_SIZE, referenceListsStore);
+            }
+        });
+
+        assertDecodedThroughCursor(lists, bytesStore, new ListIteratorBuilder() {
+            @Override
+            public LongIterator build(
+                final int listIndex,
+                final PebbleBytesStore bytesStore,
+                final InputBitCursor cursor
+            ) throws IOException {
+                return StrictlyIncrementalListIterator.build(listIndex, VALUE_BIT_SIZE, bytesStore, cursor);
+            }
+        });
+    }
+
+    @Test
+    public void incrementalListsShouldBeDecodedThroughCursorSuccessfully() throws IOException {
+        final LongList[] lists = getRandomLists(true, false);
+        final PebbleBytesStore bytesStore = write(lists, new ListWriter() {
+            @Override
+            public void write(
+                final OutputSuccinctStream outputSuccinctStream,
+                final LongList list,
+                final int listIndex,
+                final LongReferenceListsStore referenceListsStore
+            ) throws IOException {
+                outputSuccinctStream.writeIncrementalList(list, listIndex, VALUE_BIT_SIZE, referenceListsStore);
+            }
+        });
+
+        assertDecodedThroughCursor(lists, bytesStore, new ListIteratorBuilder() {
+            @Override
+            public LongIterator build(
+                final int listIndex,
+                final PebbleBytesStore bytesStore,
+                final InputBitCursor cursor
+            ) throws IOException {
+                return IncrementalListIterator.build(listIndex, VALUE_BIT_SIZE, bytesStore, cursor);
+            }
+        });
+    }
+
+    @Test
+    public void listsShouldBeDecodedThroughCursorSuccessfully() throws IOException {
+        final LongList[] lists = getRandomLists(false, false);
+        final PebbleBytesStore bytesStore = write(lists, new ListWriter() {
+            @Override
+            public void write(
+                final OutputSuccinctStream outputSuccinctStream,
+                final LongList list,
+                final int listIndex,
+                final LongReferenceListsStore referenceListsStore
+            ) throws IOException {
+                outputSuccinctStream.writeList(list, listIndex, VALUE_BIT_SIZE, referenceListsStore);
+            }
+        });
+
+        assertDecodedThroughCursor(lists, bytesStore, new ListIteratorBuilder() {
+            @Override
+            public LongIterator build(
+                final int listIndex,
+                final PebbleBytesStore bytesStore,
+                final InputBitCursor cursor
+            ) throws IOException {
+                return ListIterator.build(listIndex, VALUE_BIT_SIZE, bytesStore, cursor);
+            }
+        });
+    }
+
+}
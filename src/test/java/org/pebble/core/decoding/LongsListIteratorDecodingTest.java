@@ -0,0 +1,110 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.longs.LongListsDecoderHelper.ListType;
+import org.pebble.core.decoding.iterators.longs.ListIterator;
+import org.pebble.core.encoding.SkipIndexParameters;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class LongsListIteratorDecodingTest {
+
+    private static final int NUMBER_OF_LISTS = 100;
+    private static final SkipIndexParameters SKIP_INDEX_PARAMETERS = new SkipIndexParameters(2, 4);
+
+    private static void assertNextLongs(final SkipIndexParameters skipIndexParameters, final boolean sizeHeader)
+        throws IOException
+    {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.LIST);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST, skipIndexParameters, sizeHeader);
+        final InputBitCursor cursor = new InputBitCursor();
+        final long[] values = new long[5000];
+        long[] buffer = LongArrays.EMPTY_ARRAY;
+
+        for (int i = 0; i < lists.length; i++) {
+            final ListIterator iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore, cursor, buffer);
+            final int size = iterator.nextLongs(values, 1);
+            buffer = iterator.getBuffer();
+
+            assertEquals(lists[i], new LongArrayList(values, 1, size));
+        }
+    }
+
+    private static void assertSkip(final boolean sizeHeader) throws IOException {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.LIST);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST, SKIP_INDEX_PARAMETERS, sizeHeader);
+        final Random random = new Random(0x5eed);
+
+        for (int i = 0; i < lists.length; i++) {
+            final ListIterator iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore);
+            int index = 0;
+            while (index < lists[i].size()) {
+                index += iterator.skip(random.nextInt(40));
+                assertEquals(index < lists[i].size() ? lists[i].getLong(index) : -1L, iterator.nextLong());
+                index++;
+            }
+        }
+    }
+
+    @Test
+    public void listsNextLongsShouldDecodeRemainingElementsIntoArray() throws IOException {
+        assertNextLongs(SkipIndexParameters.DISABLED, false);
+        assertNextLongs(SKIP_INDEX_PARAMETERS, false);
+    }
+
+    @Test
+    public void whenListsHaveSizeHeaderNextLongsShouldDecodeRemainingElementsIntoArray() throws IOException {
+        assertNextLongs(SkipIndexParameters.DISABLED, true);
+        assertNextLongs(SKIP_INDEX_PARAMETERS, true);
+    }
+
+    @Test
+    public void listsSkipShouldSkipElementsWithoutDecodingThem() throws IOException {
+        assertSkip(false);
+        assertSkip(true);
+    }
+
+    @Test
+    public void whenListsDontHaveSizeHeaderBuildShouldNotDecodeTheValues() throws IOException {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.LIST);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST, SKIP_INDEX_PARAMETERS, false);
+        final InputBitCursor cursor = new InputBitCursor();
+
+        for (int i = 0; i < lists.length; i++) {
+            final ListIterator iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore, cursor);
+
+            assertEquals(lists[i].size(), iterator.skip(Integer.MAX_VALUE));
+            assertSame(LongArrays.EMPTY_ARRAY, iterator.getBuffer());
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongRBTreeSet;
+import it.unimi.dsi.fastutil.longs.LongSortedSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.longs.LongListsDecoderHelper.ListType;
+import org.pebble.core.decoding.iterators.longs.DifferenceIterator;
+import org.pebble.core.decoding.iterators.longs.IntersectionIterator;
+import org.pebble.core.decoding.iterators.longs.UnionIterator;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class LongsListsOperationsDecodingTest {
+
+    private static final int NUMBER_OF_LISTS = 60;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static LongList toList(final LongIterator iterator) {
+        final LongList list = new LongArrayList();
+        while (iterator.hasNext()) {
+            list.add(iterator.nextLong());
+        }
+        return list;
+    }
+
+    private static int[][] getRandomListIndices(final int numberOfLists) {
+        final Random random = new Random(0x5eed);
+        final int[][] listIndices = new int[numberOfLists][];
+        for (int i = 0; i < listIndices.length; i++) {
+            listIndices[i] = new int[1 + random.nextInt(3)];
+            for (int j = 0; j < listIndices[i].length; j++) {
+                listIndices[i][j] = random.nextInt(numberOfLists);
+            }
+        }
+        return listIndices;
+    }
+
+    private static LongList getExpectedIntersection(final LongList[] lists, final int[] listIndices) {
+        final LongSortedSet set = new LongRBTreeSet(lists[listIndices[0]]);
+        for (int i = 1; i < listIndices.length; i++) {
+            set.retainAll(lists[listIndices[i]]);
+        }
+        return new LongArrayList(set);
+    }
+
+    private static LongList getExpectedUnion(final LongList[] lists, final int[] listIndices) {
+        final LongSortedSet set = new LongRBTreeSet();
+        for (int listIndex : listIndices) {
+            set.addAll(lists[listIndex]);
+        }
+        return new LongArrayList(set);
+    }
+
+    private static LongList getExpectedDifference(final LongList[] lists, final int[] listIndices) {
+        final LongSortedSet set = new LongRBTreeSet(lists[listIndices[0]]);
+        for (int i = 1; i < listIndices.length; i++) {
+            set.removeAll(lists[listIndices[i]]);
+        }
+        return new LongArrayList(set);
+    }
+
+    @Test
+    public void operationsOverStrictlyIncrementalListsShouldReturnExpectedElements() throws IOException {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+
+        for (int[] listIndices : getRandomListIndices(NUMBER_OF_LISTS)) {
+            assertEquals(
+                getExpectedIntersection(lists, listIndices),
+                toList(IntersectionIterator.build(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+            assertEquals(
+                getExpectedUnion(lists, listIndices),
+                toList(UnionIterator.build(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+            assertEquals(
+                getExpectedDifference(lists, listIndices),
+                toList(DifferenceIterator.build(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+        }
+    }
+
+    @Test
+    public void operationsOverIncrementalListsShouldReturnExpectedDistinctElements() throws IOException {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.INCREMENTAL);
+
+        for (int[] listIndices : getRandomListIndices(NUMBER_OF_LISTS)) {
+            assertEquals(
+                getExpectedIntersection(lists, listIndices),
+                toList(IntersectionIterator.buildIncremental(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+            assertEquals(
+                getExpectedUnion(lists, listIndices),
+                toList(UnionIterator.buildIncremental(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+            assertEquals(
+                getExpectedDifference(lists, listIndices),
+                toList(DifferenceIterator.buildIncremental(listIndices, VALUE_BIT_SIZE, bytesStore))
+            );
+        }
+    }
+
+    @Test
+    public void skipToShouldReturnFirstElementOfOperationGreaterOrEqualThanTarget() throws IOException {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final Random random = new Random(0x5eed);
+
+        for (int[] listIndices : getRandomListIndices(NUMBER_OF_LISTS)) {
+            final LongList expected = getExpectedUnion(lists, listIndices);
+            final UnionIterator iterator = UnionIterator.build(listIndices, VALUE_BIT_SIZE, bytesStore);
+            int index = 0;
+            long target = 1L << 40;
+            while (index < expected.size()) {
+                target += random.nextInt(20);
+                while (index < expected.size() && expected.getLong(index) < target) {
+                    index++;
+                }
+                assertEquals(index < expected.size() ? expected.getLong(index) : -1, iterator.skipTo(target));
+                index++;
+            }
+            assertEquals(-1L, iterator.skipTo(target));
+            assertEquals(-1L, iterator.nextLong());
+        }
+    }
+
+    @Test
+    public void skipToShouldNotMoveBackwards() throws IOException {
+        final LongList[] lists = getRandomLists(2, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final IntersectionIterator iterator = IntersectionIterator.build(new int[] {1, 1}, VALUE_BIT_SIZE, bytesStore);
+        iterator.skip(5);
+
+        assertEquals(lists[1].getLong(5), iterator.skipTo(0));
+    }
+
+    @Test
+    public void intersectionOfNoListsShouldBeEmpty() throws IOException {
+        final LongList[] lists = getRandomLists(1, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+
+        assertFalse(IntersectionIterator.build(new int[0], VALUE_BIT_SIZE, bytesStore).hasNext());
+        assertFalse(UnionIterator.build(new int[0], VALUE_BIT_SIZE, bytesStore).hasNext());
+    }
+
+    @Test
+    public void nextShouldReturnBoxedElementsAndNullAtTheEnd() throws IOException {
+        final LongList[] lists = getRandomLists(2, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final UnionIterator iterator = UnionIterator.build(new int[] {1}, VALUE_BIT_SIZE, bytesStore);
+
+        assertEquals(Long.valueOf(lists[1].getLong(0)), iterator.next());
+        assertEquals(lists[1].size() - 1, iterator.skip(lists[1].size()));
+        assertNull(iterator.next());
+    }
+
+    @Test
+    public void removeShouldThrowUnsupportedOperationException() throws IOException {
+        final LongList[] lists = getRandomLists(2, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final DifferenceIterator iterator = DifferenceIterator.build(new int[] {1, 0}, VALUE_BIT_SIZE, bytesStore);
+        expectedException.expect(UnsupportedOperationException.class);
+
+        iterator.remove();
+    }
+
+}
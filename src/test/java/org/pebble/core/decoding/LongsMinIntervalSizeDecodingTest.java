@@ -0,0 +1,192 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.io.FastByteArrayInputStream;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.longs.LongListsAccessor;
+import org.pebble.core.decoding.longs.LongListsDecoder;
+import org.pebble.core.decoding.longs.LongListsDecoderHelper.ListType;
+import org.pebble.core.decoding.longs.LongListsSequentialReader;
+import org.pebble.core.decoding.iterators.longs.IncrementalListIterator;
+import org.pebble.core.decoding.iterators.longs.ListIterator;
+import org.pebble.core.decoding.iterators.longs.StrictlyIncrementalListIterator;
+import org.pebble.core.encoding.SkipIndexParameters;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class LongsMinIntervalSizeDecodingTest {
+
+    private static final int NUMBER_OF_LISTS = 50;
+    private static final int[] MIN_INTERVAL_SIZES = new int[] {1, 2, 8};
+    private static final SkipIndexParameters SKIP_INDEX_PARAMETERS = new SkipIndexParameters(2, 4);
+
+    private static LongList toList(final LongIterator iterator) {
+        final LongList list = new LongArrayList();
+        while (iterator.hasNext()) {
+            list.add(iterator.nextLong());
+        }
+        return list;
+    }
+
+    private static LongIterator build(
+        final ListType listType,
+        final int listIndex,
+        final PebbleBytesStore bytesStore
+    ) throws IOException {
+        if (listType == ListType.STRICTLY_INCREMENTAL) {
+            return StrictlyIncrementalListIterator.build(listIndex, VALUE_BIT_SIZE, bytesStore);
+        }
+        if (listType == ListType.INCREMENTAL) {
+            return IncrementalListIterator.build(listIndex, VALUE_BIT_SIZE, bytesStore);
+        }
+        return ListIterator.build(listIndex, VALUE_BIT_SIZE, bytesStore);
+    }
+
+    private static int decode(
+        final LongListsDecoder decoder,
+        final ListType listType,
+        final int listIndex,
+        final long[] values
+    ) throws IOException {
+        if (listType == ListType.STRICTLY_INCREMENTAL) {
+            return decoder.decodeStrictlyIncrementalList(listIndex, values, 0);
+        }
+        if (listType == ListType.INCREMENTAL) {
+            return decoder.decodeIncrementalList(listIndex, values, 0);
+        }
+        return decoder.decodeList(listIndex, values, 0);
+    }
+
+    private static int read(
+        final LongListsSequentialReader reader,
+        final ListType listType,
+        final long[] values
+    ) throws IOException {
+        if (listType == ListType.STRICTLY_INCREMENTAL) {
+            return reader.readStrictlyIncrementalList(values, 0);
+        }
+        if (listType == ListType.INCREMENTAL) {
+            return reader.readIncrementalList(values, 0);
+        }
+        return reader.readList(values, 0);
+    }
+
+    @Test
+    public void listsWithMinIntervalSizeShouldBeIteratedSuccessfully() throws IOException {
+        for (ListType listType : ListType.values()) {
+            final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+            for (int minIntervalSize : MIN_INTERVAL_SIZES) {
+                final PebbleBytesStore bytesStore =
+                    write(lists, listType, SKIP_INDEX_PARAMETERS, false, minIntervalSize);
+
+                for (int i = 0; i < lists.length; i++) {
+                    assertEquals(lists[i], toList(build(listType, i, bytesStore)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void listsWithMinIntervalSizeShouldBeDecodedSuccessfully() throws IOException {
+        final long[] values = new long[4096];
+        for (ListType listType : ListType.values()) {
+            final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+            for (int minIntervalSize : MIN_INTERVAL_SIZES) {
+                final PebbleBytesStore bytesStore =
+                    write(lists, listType, SKIP_INDEX_PARAMETERS, false, minIntervalSize);
+                final LongListsDecoder decoder = new LongListsDecoder(VALUE_BIT_SIZE, bytesStore);
+
+                for (int i = 0; i < lists.length; i++) {
+                    assertEquals(lists[i], new LongArrayList(values, 0, decode(decoder, listType, i, values)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void listsWithMinIntervalSizeShouldBeReadSequentially() throws IOException {
+        final long[] values = new long[4096];
+        for (ListType listType : ListType.values()) {
+            final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+            for (int minIntervalSize : MIN_INTERVAL_SIZES) {
+                final PebbleBytesStore bytesStore =
+                    write(lists, listType, SKIP_INDEX_PARAMETERS, false, minIntervalSize);
+                final byte[] bytes =
+                    write(lists, listType, SKIP_INDEX_PARAMETERS, false, minIntervalSize, new long[lists.length]);
+                final LongListsSequentialReader bytesStoreReader =
+                    new LongListsSequentialReader(VALUE_BIT_SIZE, 1, bytesStore);
+                final LongListsSequentialReader inputStreamReader = new LongListsSequentialReader(
+                    VALUE_BIT_SIZE,
+                    lists.length,
+                    new FastByteArrayInputStream(bytes),
+                    SKIP_INDEX_PARAMETERS,
+                    false,
+                    minIntervalSize
+                );
+
+                for (int i = 0; i < lists.length; i++) {
+                    assertEquals(lists[i], new LongArrayList(values, 0, read(bytesStoreReader, listType, values)));
+                    assertEquals(lists[i], new LongArrayList(values, 0, read(inputStreamReader, listType, values)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void listsWithMinIntervalSizeShouldBeAccessedSuccessfully() throws IOException {
+        final LongList[] strictlyIncrementalLists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final LongList[] incrementalLists = getRandomLists(NUMBER_OF_LISTS, ListType.INCREMENTAL);
+        for (int minIntervalSize : MIN_INTERVAL_SIZES) {
+            final LongListsAccessor strictlyIncrementalAccessor = new LongListsAccessor(
+                VALUE_BIT_SIZE,
+                write(
+                    strictlyIncrementalLists,
+                    ListType.STRICTLY_INCREMENTAL,
+                    SkipIndexParameters.DISABLED,
+                    false,
+                    minIntervalSize
+                )
+            );
+            final LongListsAccessor incrementalAccessor = new LongListsAccessor(
+                VALUE_BIT_SIZE,
+                write(incrementalLists, ListType.INCREMENTAL, SkipIndexParameters.DISABLED, false, minIntervalSize)
+            );
+
+            for (int i = 0; i < NUMBER_OF_LISTS; i++) {
+                final LongList list = strictlyIncrementalLists[i];
+                assertEquals(list.size(), strictlyIncrementalAccessor.size(i));
+                for (int position = 0; position < list.size(); position += 7) {
+                    assertEquals(list.getLong(position), strictlyIncrementalAccessor.get(i, position));
+                }
+                assertEquals(incrementalLists[i].size(), incrementalAccessor.sizeIncremental(i));
+            }
+        }
+    }
+
+}
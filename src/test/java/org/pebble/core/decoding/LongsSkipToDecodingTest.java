@@ -0,0 +1,159 @@
+package org.pebble.core.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.longs.LongListsDecoderHelper.ListType;
+import org.pebble.core.decoding.iterators.longs.IncrementalListIterator;
+import org.pebble.core.decoding.iterators.longs.ListIterator;
+import org.pebble.core.decoding.iterators.longs.StrictlyIncrementalListIterator;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class LongsSkipToDecodingTest {
+
+    private static final int NUMBER_OF_LISTS = 100;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static int getExpectedSkipTo(final LongList list, final int from, final long target) {
+        for (int i = from; i < list.size(); i++) {
+            if (list.getLong(i) >= target) {
+                return i;
+            }
+        }
+        return list.size();
+    }
+
+    @Test
+    public void strictlyIncrementalListsSkipToShouldReturnFirstElementGreaterOrEqualThanTarget() throws IOException {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final Random random = new Random(0x5eed);
+
+        for (int i = 0; i < lists.length; i++) {
+            final StrictlyIncrementalListIterator iterator =
+                StrictlyIncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore);
+            int index = 0;
+            long target = 1L << 40;
+            while (index < lists[i].size()) {
+                target += random.nextInt(200);
+                index = getExpectedSkipTo(lists[i], index, target);
+                assertEquals(index < lists[i].size() ? lists[i].getLong(index) : -1L, iterator.skipTo(target));
+                index++;
+                if (index < lists[i].size() && random.nextBoolean()) {
+                    assertEquals(lists[i].getLong(index++), iterator.nextLong());
+                }
+            }
+            assertEquals(-1L, iterator.skipTo(target));
+        }
+    }
+
+    @Test
+    public void incrementalListsSkipToShouldReturnFirstElementGreaterOrEqualThanTarget() throws IOException {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.INCREMENTAL);
+        final Random random = new Random(0x5eed);
+
+        for (int i = 0; i < lists.length; i++) {
+            final IncrementalListIterator iterator = IncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore);
+            int index = 0;
+            long target = 1L << 40;
+            while (index < lists[i].size()) {
+                target += random.nextInt(200);
+                index = getExpectedSkipTo(lists[i], index, target);
+                assertEquals(index < lists[i].size() ? lists[i].getLong(index) : -1L, iterator.skipTo(target));
+                index++;
+                if (index < lists[i].size() && random.nextBoolean()) {
+                    assertEquals(lists[i].getLong(index++), iterator.nextLong());
+                }
+            }
+            assertEquals(-1L, iterator.skipTo(target));
+        }
+    }
+
+    @Test
+    public void skipToShouldKeepIteratingTheRemainingElements() throws IOException {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.INCREMENTAL);
+
+        for (int i = 0; i < lists.length; i++) {
+            final IncrementalListIterator iterator = IncrementalListIterator.build(i, VALUE_BIT_SIZE, bytesStore);
+            final long target = (1L << 40) + 1500L;
+            final int index = getExpectedSkipTo(lists[i], 0, target);
+            final LongList list = new LongArrayList();
+            if (index < lists[i].size()) {
+                list.add(iterator.skipTo(target));
+            }
+            while (iterator.hasNext()) {
+                list.add(iterator.nextLong());
+            }
+            assertEquals(lists[i].subList(index, lists[i].size()), list);
+        }
+    }
+
+    @Test
+    public void listsSkipToShouldThrowUnsupportedOperationException() throws IOException {
+        final LongList[] lists = getRandomLists(2, ListType.LIST);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST);
+        final ListIterator iterator = ListIterator.build(1, VALUE_BIT_SIZE, bytesStore);
+        expectedException.expect(UnsupportedOperationException.class);
+
+        iterator.skipTo(0L);
+    }
+
+    @Test
+    public void listsAdvanceShouldThrowUnsupportedOperationException() throws IOException {
+        final LongList[] lists = getRandomLists(2, ListType.LIST);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST);
+        final ListIterator iterator = ListIterator.build(1, VALUE_BIT_SIZE, bytesStore);
+        expectedException.expect(UnsupportedOperationException.class);
+
+        iterator.advance(0);
+    }
+
+    @Test
+    public void listsSkipShouldSkipExpectedElements() throws IOException {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.LIST);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST);
+        ListIterator iterator;
+        int skipped;
+
+        for (int i = 0; i < lists.length; i++) {
+            iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore);
+            skipped = iterator.skip(lists[i].size() / 2);
+
+            assertEquals(lists[i].size() / 2, skipped);
+            assertEquals(lists[i].subList(skipped, lists[i].size()), new LongArrayList(iterator));
+        }
+    }
+
+}
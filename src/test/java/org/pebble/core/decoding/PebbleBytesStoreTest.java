@@ -17,17 +17,41 @@ package org.pebble.core.decoding;
  */
 
 import it.unimi.dsi.io.InputBitStream;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
 import org.pebble.UnitTest;
 import org.pebble.core.decoding.iterators.Helper.Input;
+import org.pebble.core.encoding.DefaultParametersValues;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.pebble.core.decoding.iterators.Helper.getInput;
 
 @Category(UnitTest.class)
 public class PebbleBytesStoreTest {
 
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static PebbleBytesStore getSizeHeaderBytesStore(final Input input, final long offset) {
+        final PebbleBytesStore bytesStore = new PebbleBytesStore() {
+            @Override
+            protected byte[] get(int listIndex) {
+                return input.buffer;
+            }
+
+            @Override
+            protected long offset(int listIndex) {
+                return offset;
+            }
+        };
+        bytesStore.setSizeHeader(true);
+        return bytesStore;
+    }
+
     @Test
     public void getInputBitStreamItShouldReturnInputBitStreamWithCursorInExpectedPosition() throws Exception {
         final int expectedOffset = 3;
@@ -50,4 +74,129 @@ public class PebbleBytesStoreTest {
         assertEquals(expectedOffset, inputBitStream.position());
     }
 
+    @Test
+    public void getInputBitStreamItShouldReturnGivenCursorInExpectedPosition() throws Exception {
+        final int expectedOffset = 3;
+        final Input input = getInput("1 1 1 1 1");
+        final PebbleBytesStore bytesStore = new PebbleBytesStore() {
+            @Override
+            protected byte[] get(int listIndex) {
+                return input.buffer;
+            }
+
+            @Override
+            protected long offset(int listIndex) {
+                return expectedOffset;
+            }
+        };
+        final InputBitCursor cursor = new InputBitCursor();
+        final int listIndex = 1;
+
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(listIndex, cursor);
+
+        assertSame(cursor, inputBitStream);
+        assertEquals(expectedOffset, inputBitStream.position());
+    }
+
+    @Test
+    public void getInputBitStreamOfSectionItShouldReturnNewInputBitStreamInGivenStreamPosition() throws Exception {
+        final Input input = getInput("1 1 1 0 1 0 1 1 0 1");
+        final PebbleBytesStore bytesStore = new PebbleBytesStore() {
+            @Override
+            protected byte[] get(int listIndex) {
+                return input.buffer;
+            }
+
+            @Override
+            protected long offset(int listIndex) {
+                return 0L;
+            }
+        };
+        final int listIndex = 1;
+        input.stream.readInt(3);
+
+        final InputBitStream inputBitStream =
+            bytesStore.getInputBitStream(listIndex, input.stream, InputBitCursor.DELTAS_SECTION);
+        inputBitStream.readInt(4);
+
+        assertNotSame(input.stream, inputBitStream);
+        assertEquals(7L, inputBitStream.position());
+        assertEquals(3L, input.stream.position());
+        assertEquals(0, input.stream.readBit());
+    }
+
+    @Test
+    public void getInputBitStreamOfSectionItShouldReturnForkOfGivenCursorInCursorPosition() throws Exception {
+        final Input input = getInput("1 1 1 0 1 0 1 1 0 1");
+        final PebbleBytesStore bytesStore = new PebbleBytesStore() {
+            @Override
+            protected byte[] get(int listIndex) {
+                return input.buffer;
+            }
+
+            @Override
+            protected long offset(int listIndex) {
+                return 0L;
+            }
+        };
+        final InputBitCursor cursor = new InputBitCursor();
+        final int listIndex = 1;
+        bytesStore.getInputBitStream(listIndex, cursor).readInt(3);
+
+        final InputBitStream inputBitStream =
+            bytesStore.getInputBitStream(listIndex, cursor, InputBitCursor.DELTAS_SECTION);
+
+        assertSame(cursor.fork(InputBitCursor.DELTAS_SECTION), inputBitStream);
+        assertEquals(3L, inputBitStream.position());
+    }
+
+    @Test
+    public void readSizeItShouldReturnSizeHeaderOfList() throws Exception {
+        final Input input = getInput("1 1 1 0 1 1 0 1 1");
+        final PebbleBytesStore bytesStore = getSizeHeaderBytesStore(input, 3L);
+        final int listIndex = 1;
+
+        assertEquals(true, bytesStore.hasSizeHeader());
+        assertEquals(4, bytesStore.readSize(listIndex, new InputBitCursor()));
+    }
+
+    @Test
+    public void whenThereIsNoSizeHeaderReadSizeShouldThrowAnException() throws Exception {
+        final Input input = getInput("1 1 1 0 1 1 0 1 1");
+        final PebbleBytesStore bytesStore = getSizeHeaderBytesStore(input, 3L);
+        bytesStore.setSizeHeader(false);
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("The compressed lists don't have size header");
+
+        bytesStore.readSize(1, new InputBitCursor());
+    }
+
+    @Test
+    public void getInputBitStreamItShouldSkipSizeHeader() throws Exception {
+        final Input input = getInput("1 1 1 0 1 1 0 1 1");
+        final PebbleBytesStore bytesStore = getSizeHeaderBytesStore(input, 3L);
+        final int listIndex = 1;
+
+        assertEquals(8L, bytesStore.getInputBitStream(listIndex).position());
+        assertEquals(8L, bytesStore.getInputBitStream(listIndex, new InputBitCursor()).position());
+    }
+
+    @Test
+    public void itShouldSetMinIntervalSize() throws Exception {
+        final PebbleBytesStore bytesStore = getSizeHeaderBytesStore(getInput("1"), 0L);
+
+        assertEquals(DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE, bytesStore.getMinIntervalSize());
+        bytesStore.setMinIntervalSize(2);
+        assertEquals(2, bytesStore.getMinIntervalSize());
+    }
+
+    @Test
+    public void whenMinIntervalSizeIsNotPositiveItShouldThrowAnException() throws Exception {
+        final PebbleBytesStore bytesStore = getSizeHeaderBytesStore(getInput("1"), 0L);
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Min interval size must be positive, found 0");
+
+        bytesStore.setMinIntervalSize(0);
+    }
+
 }
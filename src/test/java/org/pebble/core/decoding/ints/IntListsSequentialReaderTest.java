@@ -0,0 +1,337 @@
+package org.pebble.core.decoding.ints;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayInputStream;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.decoding.ints.IntListsDecoderHelper.ListType;
+import org.pebble.core.encoding.DefaultParametersValues;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.SkipIndexParameters;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.ints.IntListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class IntListsSequentialReaderTest {
+
+    private static final int NUMBER_OF_LISTS = 300;
+    private static final int REFERENCE_WINDOW_SIZE = 16;
+    private static final SkipIndexParameters SKIP_INDEX_PARAMETERS = new SkipIndexParameters(2, 4);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static int read(
+        final IntListsSequentialReader reader,
+        final ListType listType,
+        final int[] values
+    ) throws IOException {
+        if (listType == ListType.STRICTLY_INCREMENTAL) {
+            return reader.readStrictlyIncrementalList(values, 1);
+        }
+        if (listType == ListType.INCREMENTAL) {
+            return reader.readIncrementalList(values, 1);
+        }
+        return reader.readList(values, 1);
+    }
+
+    private static void assertRead(
+        final IntListsSequentialReader reader,
+        final ListType listType,
+        final IntList[] lists
+    ) throws IOException {
+        final int[] values = new int[5000];
+        int size;
+
+        for (int i = 0; i < lists.length; i++) {
+            assertEquals(i, reader.getListIndex());
+            size = read(reader, listType, values);
+
+            assertEquals(lists[i], new IntArrayList(values, 1, size));
+        }
+    }
+
+    private static void assertReadFromBytesStore(
+        final ListType listType,
+        final int windowSize,
+        final SkipIndexParameters skipIndexParameters
+    ) throws IOException {
+        assertReadFromBytesStore(listType, windowSize, skipIndexParameters, false);
+    }
+
+    private static void assertReadFromBytesStore(
+        final ListType listType,
+        final int windowSize,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader
+    ) throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+        final PebbleBytesStore bytesStore = write(lists, listType, skipIndexParameters, sizeHeader);
+
+        assertRead(new IntListsSequentialReader(VALUE_BIT_SIZE, windowSize, bytesStore), listType, lists);
+    }
+
+    private static void assertReadFromInputStream(
+        final ListType listType,
+        final SkipIndexParameters skipIndexParameters
+    ) throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+        final byte[] bytes = write(lists, listType, skipIndexParameters, new long[lists.length]);
+        final IntListsSequentialReader reader = new IntListsSequentialReader(
+            VALUE_BIT_SIZE,
+            lists.length,
+            new FastByteArrayInputStream(bytes),
+            skipIndexParameters
+        );
+
+        assertRead(reader, listType, lists);
+    }
+
+    private static IntList[] getRandomListsWithDuplicates(final ListType listType) {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = lists[i - i % 6];
+        }
+        return lists;
+    }
+
+    private static void assertReadFromInputStreamWithDuplicates(final ListType listType) throws IOException {
+        final IntList[] lists = getRandomListsWithDuplicates(listType);
+        final byte[] bytes = write(lists, listType, SkipIndexParameters.DISABLED, new long[lists.length]);
+        final IntListsSequentialReader reader = new IntListsSequentialReader(
+            VALUE_BIT_SIZE,
+            REFERENCE_WINDOW_SIZE,
+            new FastByteArrayInputStream(bytes),
+            SkipIndexParameters.DISABLED
+        );
+
+        assertRead(reader, listType, lists);
+    }
+
+    private static void assertReadFromInputStreamWithSizeHeader(final ListType listType) throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+        final byte[] bytes = write(lists, listType, SKIP_INDEX_PARAMETERS, true, new long[lists.length]);
+        final IntListsSequentialReader reader = new IntListsSequentialReader(
+            VALUE_BIT_SIZE,
+            lists.length,
+            new FastByteArrayInputStream(bytes),
+            SKIP_INDEX_PARAMETERS,
+            true
+        );
+
+        assertRead(reader, listType, lists);
+    }
+
+    private static IntList[] getListsBiggerThanArena() {
+        final IntList[] lists = new IntList[10];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new IntArrayList();
+            for (int j = 0; j < (i % 2 == 0 ? 10 : 100); j++) {
+                lists[i].add(i % 2 + j * 3);
+            }
+        }
+        return lists;
+    }
+
+    private static byte[] writeWithFixedArena(final IntList[] lists, final int arenaSize) throws IOException {
+        final FastByteArrayOutputStream outputStream = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(outputStream);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(
+            1,
+            3,
+            1,
+            arenaSize,
+            new InvertedListIntReferenceListsIndex()
+        );
+        for (int i = 0; i < lists.length; i++) {
+            outputSuccinctStream.writeStrictlyIncrementalList(
+                new IntArrayList(lists[i]),
+                i,
+                VALUE_BIT_SIZE,
+                referenceListsStore
+            );
+        }
+        outputSuccinctStream.close();
+        return outputStream.array;
+    }
+
+    @Test
+    public void itShouldReadStrictlyIncrementalListsFromBytesStore() throws IOException {
+        assertReadFromBytesStore(ListType.STRICTLY_INCREMENTAL, NUMBER_OF_LISTS, SkipIndexParameters.DISABLED);
+        assertReadFromBytesStore(ListType.STRICTLY_INCREMENTAL, NUMBER_OF_LISTS, SKIP_INDEX_PARAMETERS);
+    }
+
+    @Test
+    public void itShouldReadIncrementalListsFromBytesStore() throws IOException {
+        assertReadFromBytesStore(ListType.INCREMENTAL, NUMBER_OF_LISTS, SkipIndexParameters.DISABLED);
+        assertReadFromBytesStore(ListType.INCREMENTAL, NUMBER_OF_LISTS, SKIP_INDEX_PARAMETERS);
+    }
+
+    @Test
+    public void itShouldReadListsFromBytesStore() throws IOException {
+        assertReadFromBytesStore(ListType.LIST, NUMBER_OF_LISTS, SkipIndexParameters.DISABLED);
+        assertReadFromBytesStore(ListType.LIST, NUMBER_OF_LISTS, SKIP_INDEX_PARAMETERS);
+    }
+
+    @Test
+    public void whenReferencesAreOutOfTheWindowItShouldDecodeThemFromBytesStore() throws IOException {
+        assertReadFromBytesStore(ListType.STRICTLY_INCREMENTAL, 1, SkipIndexParameters.DISABLED);
+        assertReadFromBytesStore(ListType.INCREMENTAL, 1, SkipIndexParameters.DISABLED);
+        assertReadFromBytesStore(ListType.LIST, 1, SkipIndexParameters.DISABLED);
+    }
+
+    @Test
+    public void itShouldReadStrictlyIncrementalListsFromInputStream() throws IOException {
+        assertReadFromInputStream(ListType.STRICTLY_INCREMENTAL, SkipIndexParameters.DISABLED);
+        assertReadFromInputStream(ListType.STRICTLY_INCREMENTAL, SKIP_INDEX_PARAMETERS);
+    }
+
+    @Test
+    public void itShouldReadIncrementalListsFromInputStream() throws IOException {
+        assertReadFromInputStream(ListType.INCREMENTAL, SkipIndexParameters.DISABLED);
+        assertReadFromInputStream(ListType.INCREMENTAL, SKIP_INDEX_PARAMETERS);
+    }
+
+    @Test
+    public void itShouldReadListsFromInputStream() throws IOException {
+        assertReadFromInputStream(ListType.LIST, SkipIndexParameters.DISABLED);
+        assertReadFromInputStream(ListType.LIST, SKIP_INDEX_PARAMETERS);
+    }
+
+    @Test
+    public void itShouldReadListsWithSizeHeader() throws IOException {
+        assertReadFromBytesStore(ListType.STRICTLY_INCREMENTAL, NUMBER_OF_LISTS, SKIP_INDEX_PARAMETERS, true);
+        assertReadFromBytesStore(ListType.INCREMENTAL, 1, SKIP_INDEX_PARAMETERS, true);
+        assertReadFromBytesStore(ListType.LIST, NUMBER_OF_LISTS, SKIP_INDEX_PARAMETERS, true);
+        assertReadFromInputStreamWithSizeHeader(ListType.STRICTLY_INCREMENTAL);
+        assertReadFromInputStreamWithSizeHeader(ListType.INCREMENTAL);
+        assertReadFromInputStreamWithSizeHeader(ListType.LIST);
+    }
+
+    @Test
+    public void whenListsAreRepeatedItShouldReadThemFromInputStreamWithTheWindowOfTheEncoder() throws IOException {
+        assertReadFromInputStreamWithDuplicates(ListType.STRICTLY_INCREMENTAL);
+        assertReadFromInputStreamWithDuplicates(ListType.INCREMENTAL);
+        assertReadFromInputStreamWithDuplicates(ListType.LIST);
+    }
+
+    @Test
+    public void whenListsAreRepeatedItShouldReadThemFromBytesStoreWithTheWindowOfTheEncoder() throws IOException {
+        final IntList[] lists = getRandomListsWithDuplicates(ListType.LIST);
+        final PebbleBytesStore bytesStore = write(lists, ListType.LIST);
+
+        assertRead(
+            new IntListsSequentialReader(VALUE_BIT_SIZE, REFERENCE_WINDOW_SIZE, 3, 1, bytesStore),
+            ListType.LIST,
+            lists
+        );
+    }
+
+    @Test
+    public void whenListsAreSmallerThanMinListSizeItShouldNotKeepThemOnTheWindow() throws IOException {
+        final IntList[] lists = getRandomListsWithDuplicates(ListType.STRICTLY_INCREMENTAL);
+        final byte[] bytes =
+            write(lists, ListType.STRICTLY_INCREMENTAL, SkipIndexParameters.DISABLED, new long[lists.length]);
+        final IntListsSequentialReader reader = new IntListsSequentialReader(
+            VALUE_BIT_SIZE,
+            REFERENCE_WINDOW_SIZE,
+            3,
+            Integer.MAX_VALUE,
+            new FastByteArrayInputStream(bytes),
+            SkipIndexParameters.DISABLED,
+            false,
+            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE
+        );
+        expectedException.expect(IllegalStateException.class);
+
+        assertRead(reader, ListType.STRICTLY_INCREMENTAL, lists);
+    }
+
+    @Test
+    public void whenReferencesAreOutOfTheWindowOfInputStreamItShouldThrowAnException() throws IOException {
+        final IntList[] lists = getRandomLists(NUMBER_OF_LISTS, ListType.STRICTLY_INCREMENTAL);
+        final byte[] bytes =
+            write(lists, ListType.STRICTLY_INCREMENTAL, SkipIndexParameters.DISABLED, new long[lists.length]);
+        final IntListsSequentialReader reader = new IntListsSequentialReader(
+            VALUE_BIT_SIZE,
+            1,
+            new FastByteArrayInputStream(bytes),
+            SkipIndexParameters.DISABLED
+        );
+        expectedException.expect(IllegalStateException.class);
+
+        assertRead(reader, ListType.STRICTLY_INCREMENTAL, lists);
+    }
+
+    @Test
+    public void whenListsAreBiggerThanTheArenaOfTheEncoderItShouldReadThemWithoutTheArenaSize() throws IOException {
+        final IntList[] lists = getListsBiggerThanArena();
+        final byte[] bytes = writeWithFixedArena(lists, 50);
+        final IntListsSequentialReader reader = new IntListsSequentialReader(
+            VALUE_BIT_SIZE,
+            1,
+            3,
+            1,
+            new FastByteArrayInputStream(bytes),
+            SkipIndexParameters.DISABLED,
+            false,
+            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE
+        );
+
+        assertRead(reader, ListType.STRICTLY_INCREMENTAL, lists);
+    }
+
+    @Test
+    public void whenWindowSizeIsNotPositiveItShouldThrowAnException() throws IOException {
+        final PebbleBytesStore bytesStore = write(new IntList[0], ListType.STRICTLY_INCREMENTAL);
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Window size must be positive, found 0");
+
+        new IntListsSequentialReader(VALUE_BIT_SIZE, 0, bytesStore);
+    }
+
+    @Test
+    public void whenMinIntervalSizeIsNotPositiveItShouldThrowAnException() throws IOException {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Min interval size must be positive, found 0");
+
+        new IntListsSequentialReader(
+            VALUE_BIT_SIZE,
+            1,
+            new FastByteArrayInputStream(new byte[0]),
+            SkipIndexParameters.DISABLED,
+            false,
+            0
+        );
+    }
+
+}
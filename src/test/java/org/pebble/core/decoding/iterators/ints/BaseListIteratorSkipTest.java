@@ -19,42 +19,123 @@ package org.pebble.core.decoding.iterators.ints;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.pebble.UnitTest;
+import org.pebble.core.decoding.iterators.Helper;
+
+import java.io.IOException;
 
 import static junit.framework.TestCase.assertEquals;
-import static org.mockito.Mockito.CALLS_REAL_METHODS;
-import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.mock;
+import static junit.framework.TestCase.assertFalse;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
-import static org.mockito.internal.verification.VerificationModeFactory.times;
+import static org.pebble.core.decoding.iterators.Helper.getInput;
+import static org.pebble.core.decoding.iterators.ints.BaseListIteratorHelper.BaseListIteratorBuilder;
 
 @Category(UnitTest.class)
 public class BaseListIteratorSkipTest {
 
     @Test
-    public void whenTheListHasMoreElementsThanSkipElementsItShouldSkipExpectedElements() {
+    public void whenTheListHasMoreElementsThanSkipElementsItShouldSkipExpectedElements() throws IOException {
+        final BaseListIterator baseListIterator = buildIterator(
+            "1" +                                      // Empty Reference list
+            "0100 0000000000000000000000000000111 1" + // Interval list [7, 1]
+            "0100 0000000000000000000000000001100"     // Delta list [12]
+        );
         final int expectedNumberOfSkips = 3;
-        final BaseListIterator baseListIterator = mock(BaseListIterator.class, CALLS_REAL_METHODS);
-        doReturn(true).when(baseListIterator).hasNext();
-        doReturn(1).when(baseListIterator).nextInt();
 
         final int numberOfSkips = baseListIterator.skip(expectedNumberOfSkips);
 
-        verify(baseListIterator, times(expectedNumberOfSkips)).nextInt();
         assertEquals(expectedNumberOfSkips, numberOfSkips);
+        assertEquals(10, baseListIterator.nextInt());
     }
 
     @Test
-    public void whenTheListHasLessElementsThanSkipElementsItShouldSkipUntilEndOfList() {
-        final int expectedNumberOfSkips = 3;
-        final int numberOfSkips = 5;
-        final BaseListIterator baseListIterator = mock(BaseListIterator.class, CALLS_REAL_METHODS);
-        doReturn(true).doReturn(true).doReturn(true).doReturn(false).when(baseListIterator).hasNext();
-        doReturn(1).when(baseListIterator).nextInt();
+    public void whenTheListHasLessElementsThanSkipElementsItShouldSkipUntilEndOfList() throws IOException {
+        final BaseListIterator baseListIterator = buildIterator(
+            "1" +                                      // Empty Reference list
+            "0100 0000000000000000000000000000111 1" + // Interval list [7, 1]
+            "0100 0000000000000000000000000001100"     // Delta list [12]
+        );
+        final int expectedNumberOfSkips = 5;
+
+        final int numberOfSkips = baseListIterator.skip(7);
+
+        assertEquals(expectedNumberOfSkips, numberOfSkips);
+        assertFalse(baseListIterator.hasNext());
+    }
+
+    @Test
+    public void whenSkipElementsEndAfterAnIntervalItShouldContinueWithTheNextElement() throws IOException {
+        final BaseListIterator baseListIterator = buildIterator(
+            "1" +                                      // Empty Reference list
+            "0100 0000000000000000000000000000111 1" + // Interval list [7, 1]
+            "0100 0000000000000000000000000001100"     // Delta list [12]
+        );
+        final int expectedNumberOfSkips = 4;
+
+        final int numberOfSkips = baseListIterator.skip(expectedNumberOfSkips);
+
+        assertEquals(expectedNumberOfSkips, numberOfSkips);
+        assertEquals(12, baseListIterator.nextInt());
+    }
+
+    @Test
+    public void whenDeltasComeBeforeAnIntervalItShouldSkipExpectedElements() throws IOException {
+        final BaseListIterator baseListIterator = buildIterator(
+            "1" +                                      // Empty Reference list
+            "0100 0000000000000000000000000000111 1" + // Interval list [7, 1]
+            "0100 0000000000000000000000000000011"     // Delta list [3]
+        );
+        final int expectedNumberOfSkips = 2;
+
+        final int numberOfSkips = baseListIterator.skip(expectedNumberOfSkips);
 
-        final int actualNumberOfSkips = baseListIterator.skip(numberOfSkips);
+        assertEquals(expectedNumberOfSkips, numberOfSkips);
+        assertEquals(8, baseListIterator.nextInt());
+    }
+
+    @Test
+    public void whenTheReferenceComesAfterAnIntervalItShouldSkipTheIntervalWithoutIteratingTheReference()
+        throws IOException
+    {
+        final Helper.Input input = getInput(
+            "1" +                                  // Empty Reference list
+            "0100 0000000000000000000000000000111 1" + // Interval list [7, 1]
+            "0100 0000000000000000000000000001100"      // Delta list [12]
+        );
+        final BaseListIteratorBuilder baseListIteratorBuilder = new BaseListIteratorBuilder(input, 1);
+        baseListIteratorBuilder.getReferenceIterator().currentValue = 20;
+        final BaseListIterator baseListIterator = baseListIteratorBuilder.build();
+        final int expectedNumberOfSkips = 5;
+
+        final int numberOfSkips = baseListIterator.skip(expectedNumberOfSkips);
+
+        assertEquals(expectedNumberOfSkips, numberOfSkips);
+        verify(baseListIteratorBuilder.getReferenceIterator(), never()).next();
+    }
+
+    @Test
+    public void whenTheReferenceComesBeforeAnIntervalItShouldSkipTheReferenceElement() throws IOException {
+        final Helper.Input input = getInput(
+            "1" +                                  // Empty Reference list
+            "0100 0000000000000000000000000000111 1" + // Interval list [7, 1]
+            "0100 0000000000000000000000000001100"      // Delta list [12]
+        );
+        final BaseListIteratorBuilder baseListIteratorBuilder = new BaseListIteratorBuilder(input, 1);
+        baseListIteratorBuilder.getReferenceIterator().currentValue = 1;
+        final BaseListIterator baseListIterator = baseListIteratorBuilder.build();
+        final int expectedNumberOfSkips = 1;
+
+        final int numberOfSkips = baseListIterator.skip(expectedNumberOfSkips);
+
+        assertEquals(expectedNumberOfSkips, numberOfSkips);
+        verify(baseListIteratorBuilder.getReferenceIterator()).next();
+    }
 
-        verify(baseListIterator, times(expectedNumberOfSkips)).nextInt();
-        assertEquals(expectedNumberOfSkips, actualNumberOfSkips);
+    private static BaseListIterator buildIterator(final String bits) throws IOException {
+        final Helper.Input input = getInput(bits);
+        final BaseListIteratorBuilder baseListIteratorBuilder = new BaseListIteratorBuilder(input, 1);
+        baseListIteratorBuilder.getReferenceIterator().currentValue = -1;
+        return baseListIteratorBuilder.build();
     }
 
 }
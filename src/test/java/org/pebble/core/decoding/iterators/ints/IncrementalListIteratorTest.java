@@ -16,16 +16,19 @@ package org.pebble.core.decoding.iterators.ints;
  *  limitations under the License.
  */
 
+import it.unimi.dsi.io.InputBitStream;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.rules.ExpectedException;
 import org.pebble.UnitTest;
+import org.pebble.core.decoding.InputBitCursor;
 import org.pebble.core.decoding.PebbleBytesStore;
 import org.pebble.core.decoding.iterators.Helper;
 import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
@@ -81,15 +84,37 @@ public class IncrementalListIteratorTest {
 
     @Test
     public void whenInputStreamIsCorruptedNextIntItShouldThrowExpectedIllegalStateException() throws IOException {
-        final Helper.Input input = Helper.getInput("0101 1 1 1 1 1 1 0101 11 1");
-        final IncrementalListIterator iterator = buildIncrementalIterator(input);
-        input.buffer[0] = 0;
-        input.buffer[1] = 0;
-        input.buffer[2] = 0;
-        iterator.nextInt();
+        final StringBuilder data = new StringBuilder("00111000001");
+        for (int i = 0; i < 64; i++) {
+            data.append("1 1 ");
+        }
+        data.append("1 1 00111000001 11");
+        for (int i = 0; i < 63; i++) {
+            data.append(" 1");
+        }
+        final Helper.Input input = Helper.getInput(data.toString());
+        final byte[] truncatedBuffer = Arrays.copyOf(input.buffer, 3);
+        final PebbleBytesStore bytesStore = new BytesArrayPebbleBytesStore(input.buffer, new long[] {0L}) {
+            @Override
+            public InputBitStream getInputBitStream(
+                final int listIndex,
+                final InputBitStream inputBitStream,
+                final int section
+            ) throws IOException {
+                if (section != InputBitCursor.REPEATS_SECTION) {
+                    return super.getInputBitStream(listIndex, inputBitStream, section);
+                }
+                final InputBitStream repeatsInputBitStream = new InputBitStream(truncatedBuffer);
+                repeatsInputBitStream.position(inputBitStream.position());
+                return repeatsInputBitStream;
+            }
+        };
+        final IncrementalListIterator iterator = IncrementalListIterator.build(0, 2, bytesStore);
         expectedException.expect(IllegalStateException.class);
 
-        iterator.nextInt();
+        for (int i = 0; i < 128; i++) {
+            iterator.nextInt();
+        }
     }
 
     private static IncrementalListIterator buildIncrementalIterator(final Helper.Input input) throws IOException {
@@ -25,6 +25,7 @@ import org.pebble.core.decoding.iterators.Helper;
 import org.pebble.core.encoding.DefaultParametersValues;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.pebble.core.decoding.iterators.Helper.getInput;
 
 @Category(UnitTest.class)
@@ -68,4 +69,89 @@ public class IntervalIteratorTest {
         assertEquals(expectedList, list);
     }
 
+    @Test
+    public void advanceToTargetInsideAnIntervalItShouldSkipTheElementsBeforeTarget() throws Exception {
+        Helper.Input input = getInput(
+            "01100 0000000000000000000000000000111 1 0101 1 1 0101"
+        );
+        IntervalIterator intervalIterator = new IntervalIterator(
+            DefaultParametersValues.INT_BITS,
+            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE,
+            input.stream
+        );
+
+        final int skipped = intervalIterator.advance(9);
+
+        assertEquals(2, skipped);
+        assertEquals(9, intervalIterator.next());
+    }
+
+    @Test
+    public void advanceToTargetAfterAnIntervalItShouldJumpOverTheWholeInterval() throws Exception {
+        Helper.Input input = getInput(
+            "01100 0000000000000000000000000000111 1 0101 1 1 0101"
+        );
+        IntervalIterator intervalIterator = new IntervalIterator(
+            DefaultParametersValues.INT_BITS,
+            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE,
+            input.stream
+        );
+
+        final int skipped = intervalIterator.advance(15);
+
+        assertEquals(5, skipped);
+        assertEquals(15, intervalIterator.next());
+    }
+
+    @Test
+    public void advanceToTargetBetweenIntervalsItShouldMoveToTheNextIntervalStart() throws Exception {
+        Helper.Input input = getInput(
+            "01100 0000000000000000000000000000111 1 0101 1 1 0101"
+        );
+        IntervalIterator intervalIterator = new IntervalIterator(
+            DefaultParametersValues.INT_BITS,
+            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE,
+            input.stream
+        );
+
+        final int skipped = intervalIterator.advance(12);
+
+        assertEquals(4, skipped);
+        assertEquals(14, intervalIterator.next());
+    }
+
+    @Test
+    public void advanceToTargetBeforeCurrentElementItShouldNotSkipElements() throws Exception {
+        Helper.Input input = getInput(
+            "01100 0000000000000000000000000000111 1 0101 1 1 0101"
+        );
+        IntervalIterator intervalIterator = new IntervalIterator(
+            DefaultParametersValues.INT_BITS,
+            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE,
+            input.stream
+        );
+
+        final int skipped = intervalIterator.advance(5);
+
+        assertEquals(0, skipped);
+        assertEquals(7, intervalIterator.next());
+    }
+
+    @Test
+    public void advanceToTargetAfterLastIntervalItShouldFinishIteration() throws Exception {
+        Helper.Input input = getInput(
+            "01100 0000000000000000000000000000111 1 0101 1 1 0101"
+        );
+        IntervalIterator intervalIterator = new IntervalIterator(
+            DefaultParametersValues.INT_BITS,
+            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE,
+            input.stream
+        );
+
+        final int skipped = intervalIterator.advance(30);
+
+        assertEquals(14, skipped);
+        assertFalse(intervalIterator.hasNext());
+    }
+
 }
@@ -130,4 +130,19 @@ public class ReferenceIteratorTest {
         assertEquals(expectedList, list);
     }
 
+    @Test
+    public void advanceItShouldSkipTheElementsOfTheReferenceBeforeTarget() throws Exception {
+        final Helper.Input input = getInput("0100 01100 0 1 0101 1");
+        final int listIndex = 1;
+        final IntList referenceList = new IntArrayList(new int[] {0, 2, 3, 5, 9, 12, 13});
+
+        ReferenceIterator referenceIterator = new ReferenceIteratorBuilder(input, listIndex, referenceList).build();
+        final int skipped = referenceIterator.advance(6);
+
+        assertEquals(3, skipped);
+        assertEquals(12, referenceIterator.next());
+        assertEquals(0, referenceIterator.advance(1));
+        assertEquals(13, referenceIterator.next());
+    }
+
 }
@@ -22,6 +22,7 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.pebble.UnitTest;
 import org.pebble.core.decoding.iterators.Helper;
+import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
 
 import static org.junit.Assert.assertEquals;
 import static org.pebble.core.decoding.iterators.Helper.getInput;
@@ -98,4 +99,60 @@ public class RepeatsIteratorTest {
         assertEquals(expectedRemainingElements, remainingElements);
     }
 
+    @Test
+    public void buildItShouldReadRepetitionsFromItsOwnStreamAndMoveGivenStreamToTheEndOfRepetitions()
+        throws Exception
+    {
+        final int originalListSize = 16;
+        final long expectedPosition = 30L;
+        Helper.Input input = getInput("01110 1 1 0100 0100 0100 1 0101 1 0100 1 0 1");
+        final IntList expectedRepetitions = new IntArrayList(
+            new int[] {1, 0, 0, 1, 1, 0, 0, 1, 0, 0, 0, 1, 0, 0, 1, 0}
+        );
+        final IntList repetitions = new IntArrayList();
+
+        RepeatsIterator repeatsIterator = RepeatsIterator.build(
+            0,
+            input.stream,
+            new BytesArrayPebbleBytesStore(input.buffer, new long[] {0L})
+        );
+
+        assertEquals(expectedPosition, input.stream.position());
+        for(int i = 0; i < originalListSize; i++) {
+            repetitions.add(repeatsIterator.next());
+        }
+        assertEquals(expectedRepetitions, repetitions);
+        assertEquals(expectedPosition, input.stream.position());
+    }
+
+    @Test
+    public void skipItShouldDropRepetitionsOfSkippedElements() throws Exception {
+        Helper.Input input = getInput("01110 1 1 0100 0100 0100 1 0101 1 0100 1");
+        /**
+         * 1, 1, 2, 3, 3, 3, 5, 6, 6, 7, 10, 11, 11, 16, 19, 19 List from which the repetitions where extracted
+         * 1, 2, 3, 5, 6, 7, 10, 11, 16, 19 Distinct elements
+         */
+        RepeatsIterator repeatsIterator = new RepeatsIterator(input.stream);
+        repeatsIterator.next();
+
+        final int skipped = repeatsIterator.skip(3);
+
+        assertEquals(2, skipped);
+        assertEquals(0, repeatsIterator.next());
+        assertEquals(1, repeatsIterator.next());
+    }
+
+    @Test
+    public void skipBeyondLastRepetitionItShouldDropAllRemainingRepetitions() throws Exception {
+        Helper.Input input = getInput("01110 1 1 0100 0100 0100 1 0101 1 0100 1");
+
+        RepeatsIterator repeatsIterator = new RepeatsIterator(input.stream);
+
+        final int skipped = repeatsIterator.skip(12);
+
+        assertEquals(6, skipped);
+        assertEquals(0, repeatsIterator.next());
+        assertEquals(0, repeatsIterator.next());
+    }
+
 }
@@ -0,0 +1,65 @@
+package org.pebble.core.decoding.iterators.longs;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.UnitTest;
+
+import java.io.IOException;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+@Category(UnitTest.class)
+public class BaseListIteratorSkipToTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void skipToItShouldAdvanceToTargetAndReturnNextElement() throws IOException {
+        final long target = 7L;
+        final long expectedElement = 9L;
+        final BaseListIterator baseListIterator = mock(BaseListIterator.class, CALLS_REAL_METHODS);
+        doReturn(2).when(baseListIterator).advance(target);
+        doReturn(expectedElement).when(baseListIterator).nextLong();
+
+        final long element = baseListIterator.skipTo(target);
+
+        inOrder(baseListIterator).verify(baseListIterator).advance(target);
+        inOrder(baseListIterator).verify(baseListIterator).nextLong();
+        assertEquals(expectedElement, element);
+    }
+
+    @Test
+    public void whenAdvanceThrowsIOExceptionSkipToItShouldThrowIllegalStateException() throws IOException {
+        final BaseListIterator baseListIterator = mock(BaseListIterator.class, CALLS_REAL_METHODS);
+        doThrow(new IOException()).when(baseListIterator).advance(anyLong());
+        expectedException.expect(IllegalStateException.class);
+
+        baseListIterator.skipTo(7L);
+    }
+
+}
@@ -26,50 +26,11 @@ import java.io.IOException;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
-import static org.junit.Assert.assertNotEquals;
 import static org.pebble.core.decoding.iterators.Helper.getInput;
 
 @Category(UnitTest.class)
 public class CompressionIteratorTest {
 
-    @Test
-    public void updateOffsetItShouldSetOffsetWithTheCurrentStreamOffsetSuccessfully() throws Exception {
-        final Input input = getInput("01110");
-        final CompressionIterator compressionIterator = new CompressionIterator(input.stream) {
-            @Override
-            public long next() throws IOException {
-                return 0L;
-            }
-        };
-        final int expectedOffset = 5;
-
-        assertEquals(0L, compressionIterator.offset);
-
-        compressionIterator.recordOffset();
-
-        assertEquals(expectedOffset, compressionIterator.offset);
-    }
-
-    @Test
-    public void seekItShouldSetStreamOffsetWithTheCurrentOffsetSuccessfully() throws Exception {
-        final Input input = getInput("01110 1 1 1 1 1");
-        final CompressionIterator compressionIterator = new CompressionIterator(input.stream) {
-            @Override
-            public long next() throws IOException {
-                return 0L;
-            }
-        };
-        final int expectedOffset = 5;
-        compressionIterator.offset = expectedOffset;
-        input.stream.readInt(expectedOffset);
-
-        assertNotEquals(expectedOffset, input.stream.position());
-
-        compressionIterator.seek();
-
-        assertEquals(expectedOffset, input.stream.position());
-    }
-
     @Test
     public void whenCurrentValueIsNotNegativeOneHasNextItShouldReturnTrueSuccessfully() throws Exception {
         final Input input = getInput("1");
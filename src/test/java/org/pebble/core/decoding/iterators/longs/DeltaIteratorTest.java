@@ -25,6 +25,7 @@ import org.pebble.core.decoding.iterators.Helper;
 import org.pebble.core.encoding.DefaultParametersValues;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.pebble.core.decoding.iterators.Helper.getInput;
 
 @Category(UnitTest.class)
@@ -60,4 +61,30 @@ public class DeltaIteratorTest {
         assertEquals(expectedList, list);
     }
 
+    @Test
+    public void advanceToTargetItShouldSkipTheElementsBeforeTarget() throws Exception {
+        Helper.Input input = getInput(
+            "01111 000000000000000000000000000000000000000000000000000000000000001 1 1 0100 0100 0101"
+        );
+        DeltaIterator deltaIterator = new DeltaIterator(DefaultParametersValues.LONG_BITS, input.stream);
+
+        final int skipped = deltaIterator.advance(6L);
+
+        assertEquals(4, skipped);
+        assertEquals(7L, deltaIterator.next());
+    }
+
+    @Test
+    public void advanceToTargetAfterLastElementItShouldFinishIteration() throws Exception {
+        Helper.Input input = getInput(
+            "01111 000000000000000000000000000000000000000000000000000000000000001 1 1 0100 0100 0101"
+        );
+        DeltaIterator deltaIterator = new DeltaIterator(DefaultParametersValues.LONG_BITS, input.stream);
+
+        final int skipped = deltaIterator.advance(11L);
+
+        assertEquals(6, skipped);
+        assertFalse(deltaIterator.hasNext());
+    }
+
 }
@@ -89,6 +89,25 @@ public class ListIteratorTest {
         iterator.nextLong();
     }
 
+    @Test
+    public void whenInputStreamIsCorruptedSkipItShouldThrowExpectedIllegalStateException() throws IOException {
+        final Helper.Input input = Helper.getInput("1 1 0101 11 1 1");
+        final ListIterator iterator = buildIterator(input);
+        expectedException.expect(IllegalStateException.class);
+
+        iterator.skip(1);
+    }
+
+    @Test
+    public void whenIndexIsOutOfTheUniqueValuesItShouldThrowExpectedIllegalStateException() throws IOException {
+        final Helper.Input input = Helper.getInput("1 1 0100 11 1 0101");
+        final ListIterator iterator = buildIterator(input);
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("Index 1 is out of the unique values");
+
+        iterator.nextLong();
+    }
+
     private static ListIterator buildIterator(final Helper.Input input) throws IOException {
         final int valueBitSize = 2;
         final int listIndex = 0;
@@ -130,4 +130,19 @@ public class ReferenceIteratorTest {
         assertEquals(expectedList, list);
     }
 
+    @Test
+    public void advanceItShouldSkipTheElementsOfTheReferenceBeforeTarget() throws Exception {
+        final Helper.Input input = getInput("0100 01100 0 1 0101 1");
+        final int listIndex = 1;
+        final LongList referenceList = new LongArrayList(new long[] {0L, 2L, 3L, 5L, 9L, 12L, 13L});
+
+        ReferenceIterator referenceIterator = new ReferenceIteratorBuilder(input, listIndex, referenceList).build();
+        final int skipped = referenceIterator.advance(6L);
+
+        assertEquals(3, skipped);
+        assertEquals(12L, referenceIterator.next());
+        assertEquals(0, referenceIterator.advance(1L));
+        assertEquals(13L, referenceIterator.next());
+    }
+
 }
@@ -0,0 +1,210 @@
+package org.pebble.core.decoding.longs;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.decoding.longs.LongListsDecoderHelper.ListType;
+import org.pebble.core.encoding.SkipIndexParameters;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class LongListsAccessorTest {
+
+    private static final int NUMBER_OF_LISTS = 20;
+    private static final SkipIndexParameters SKIP_INDEX_PARAMETERS = new SkipIndexParameters(2, 4);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static int getExpectedRank(final LongList list, final long value) {
+        int rank = 0;
+        while (rank < list.size() && list.getLong(rank) < value) {
+            rank++;
+        }
+        return rank;
+    }
+
+    private static long[] getValues(final LongList list) {
+        final long[] values = new long[list.size() * 2 + 2];
+        for (int i = 0; i < list.size(); i++) {
+            values[i * 2] = list.getLong(i);
+            values[i * 2 + 1] = list.getLong(i) + 1;
+        }
+        values[values.length - 1] = list.isEmpty() ? 0 : list.getLong(0) - 1;
+        return values;
+    }
+
+    private static void assertGet(final ListType listType, final SkipIndexParameters skipIndexParameters)
+        throws IOException
+    {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+        final PebbleBytesStore bytesStore = write(lists, listType, skipIndexParameters);
+        final LongListsAccessor accessor = new LongListsAccessor(VALUE_BIT_SIZE, bytesStore);
+
+        for (int i = 0; i < lists.length; i++) {
+            for (int position = 0; position < lists[i].size(); position++) {
+                assertEquals(
+                    lists[i].getLong(position),
+                    listType == ListType.STRICTLY_INCREMENTAL ?
+                        accessor.get(i, position) : accessor.getIncremental(i, position)
+                );
+            }
+        }
+    }
+
+    private static void assertRankAndContains(final ListType listType, final SkipIndexParameters skipIndexParameters)
+        throws IOException
+    {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+        final PebbleBytesStore bytesStore = write(lists, listType, skipIndexParameters);
+        final LongListsAccessor accessor = new LongListsAccessor(VALUE_BIT_SIZE, bytesStore);
+
+        for (int i = 0; i < lists.length; i++) {
+            for (long value : getValues(lists[i])) {
+                if (listType == ListType.STRICTLY_INCREMENTAL) {
+                    assertEquals(getExpectedRank(lists[i], value), accessor.rank(i, value));
+                    assertEquals(lists[i].contains(value), accessor.contains(i, value));
+                } else {
+                    assertEquals(getExpectedRank(lists[i], value), accessor.rankIncremental(i, value));
+                    assertEquals(lists[i].contains(value), accessor.containsIncremental(i, value));
+                }
+            }
+        }
+    }
+
+    private static void assertSize(
+        final ListType listType,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader
+    ) throws IOException {
+        final LongList[] lists = getRandomLists(NUMBER_OF_LISTS, listType);
+        final PebbleBytesStore bytesStore = write(lists, listType, skipIndexParameters, sizeHeader);
+        final LongListsAccessor accessor = new LongListsAccessor(VALUE_BIT_SIZE, bytesStore);
+
+        for (int i = 0; i < lists.length; i++) {
+            if (listType == ListType.STRICTLY_INCREMENTAL) {
+                assertEquals(lists[i].size(), accessor.size(i));
+                if (!lists[i].isEmpty()) {
+                    assertEquals(lists[i].getLong(0), accessor.get(i, 0));
+                }
+            } else if (listType == ListType.INCREMENTAL) {
+                assertEquals(lists[i].size(), accessor.sizeIncremental(i));
+            } else {
+                assertEquals(lists[i].size(), accessor.sizeList(i));
+            }
+        }
+    }
+
+    @Test
+    public void getShouldReturnElementAtPositionOfStrictlyIncrementalLists() throws IOException {
+        assertGet(ListType.STRICTLY_INCREMENTAL, SkipIndexParameters.DISABLED);
+        assertGet(ListType.STRICTLY_INCREMENTAL, SKIP_INDEX_PARAMETERS);
+    }
+
+    @Test
+    public void getIncrementalShouldReturnElementAtPositionOfIncrementalLists() throws IOException {
+        assertGet(ListType.INCREMENTAL, SkipIndexParameters.DISABLED);
+        assertGet(ListType.INCREMENTAL, SKIP_INDEX_PARAMETERS);
+    }
+
+    @Test
+    public void rankAndContainsShouldMatchStrictlyIncrementalLists() throws IOException {
+        assertRankAndContains(ListType.STRICTLY_INCREMENTAL, SkipIndexParameters.DISABLED);
+        assertRankAndContains(ListType.STRICTLY_INCREMENTAL, SKIP_INDEX_PARAMETERS);
+    }
+
+    @Test
+    public void rankIncrementalAndContainsIncrementalShouldMatchIncrementalLists() throws IOException {
+        assertRankAndContains(ListType.INCREMENTAL, SkipIndexParameters.DISABLED);
+        assertRankAndContains(ListType.INCREMENTAL, SKIP_INDEX_PARAMETERS);
+    }
+
+    @Test
+    public void sizeShouldReturnNumberOfElementsOfStrictlyIncrementalLists() throws IOException {
+        assertSize(ListType.STRICTLY_INCREMENTAL, SkipIndexParameters.DISABLED, false);
+        assertSize(ListType.STRICTLY_INCREMENTAL, SKIP_INDEX_PARAMETERS, false);
+        assertSize(ListType.STRICTLY_INCREMENTAL, SKIP_INDEX_PARAMETERS, true);
+    }
+
+    @Test
+    public void sizeIncrementalShouldReturnNumberOfElementsOfIncrementalLists() throws IOException {
+        assertSize(ListType.INCREMENTAL, SkipIndexParameters.DISABLED, false);
+        assertSize(ListType.INCREMENTAL, SKIP_INDEX_PARAMETERS, false);
+        assertSize(ListType.INCREMENTAL, SKIP_INDEX_PARAMETERS, true);
+    }
+
+    @Test
+    public void sizeListShouldReturnNumberOfElementsOfLists() throws IOException {
+        assertSize(ListType.LIST, SkipIndexParameters.DISABLED, false);
+        assertSize(ListType.LIST, SKIP_INDEX_PARAMETERS, false);
+        assertSize(ListType.LIST, SKIP_INDEX_PARAMETERS, true);
+    }
+
+    @Test
+    public void containsShouldReturnFalseForNegativeValues() throws IOException {
+        final LongList[] lists = getRandomLists(1, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final LongListsAccessor accessor = new LongListsAccessor(VALUE_BIT_SIZE, bytesStore);
+
+        assertEquals(false, accessor.contains(0, -1L));
+        assertEquals(false, accessor.containsIncremental(0, -1L));
+    }
+
+    @Test
+    public void whenPositionIsNegativeGetShouldThrowAnException() throws IOException {
+        final LongList[] lists = getRandomLists(1, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final LongListsAccessor accessor = new LongListsAccessor(VALUE_BIT_SIZE, bytesStore);
+        expectedException.expect(IndexOutOfBoundsException.class);
+
+        accessor.get(0, -1);
+    }
+
+    @Test
+    public void whenPositionIsTheListSizeGetShouldThrowAnException() throws IOException {
+        final LongList[] lists = getRandomLists(1, ListType.STRICTLY_INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.STRICTLY_INCREMENTAL);
+        final LongListsAccessor accessor = new LongListsAccessor(VALUE_BIT_SIZE, bytesStore);
+        expectedException.expect(IndexOutOfBoundsException.class);
+        expectedException.expectMessage(String.format("Position %d is out of bounds for list 0", lists[0].size()));
+
+        accessor.get(0, lists[0].size());
+    }
+
+    @Test
+    public void whenPositionIsBeyondTheListSizeGetIncrementalShouldThrowAnException() throws IOException {
+        final LongList[] lists = getRandomLists(1, ListType.INCREMENTAL);
+        final PebbleBytesStore bytesStore = write(lists, ListType.INCREMENTAL);
+        final LongListsAccessor accessor = new LongListsAccessor(VALUE_BIT_SIZE, bytesStore);
+        expectedException.expect(IndexOutOfBoundsException.class);
+
+        accessor.getIncremental(0, lists[0].size() + 3);
+    }
+
+}
@@ -0,0 +1,120 @@
+package org.pebble.core.decoding.longs;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.decoding.longs.LongListsDecoderHelper.ListType;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.VALUE_BIT_SIZE;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.getRandomLists;
+import static org.pebble.core.decoding.longs.LongListsDecoderHelper.write;
+
+@Category(FastIntegrationTest.class)
+public class LongListsDecoderDecodeIncrementalListTest {
+
+    private static final ListType LIST_TYPE = ListType.INCREMENTAL;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void itShouldDecodeListsIntoArraySuccessfully() throws IOException {
+        final LongList[] expectedLists = getRandomLists(300, LIST_TYPE);
+        final PebbleBytesStore bytesStore = write(expectedLists, LIST_TYPE);
+        final LongListsDecoder decoder = new LongListsDecoder(VALUE_BIT_SIZE, bytesStore);
+        final long[] values = new long[5000];
+        final int from = 3;
+        int size;
+
+        for (int i = expectedLists.length - 1; i >= 0; i--) {
+            size = decoder.decodeIncrementalList(i, values, from);
+
+            assertEquals(expectedLists[i], new LongArrayList(values, from, size));
+        }
+    }
+
+    @Test
+    public void itShouldDecodeListsIntoHeapBufferSuccessfully() throws IOException {
+        final LongList[] expectedLists = getRandomLists(100, LIST_TYPE);
+        final PebbleBytesStore bytesStore = write(expectedLists, LIST_TYPE);
+        final LongListsDecoder decoder = new LongListsDecoder(VALUE_BIT_SIZE, bytesStore);
+        final LongBuffer buffer = LongBuffer.allocate(5000);
+        int size;
+
+        for (int i = 0; i < expectedLists.length; i++) {
+            buffer.clear();
+            buffer.position(2);
+            size = decoder.decodeIncrementalList(i, buffer);
+
+            assertEquals(2 + size, buffer.position());
+            assertEquals(expectedLists[i], new LongArrayList(buffer.array(), 2, size));
+        }
+    }
+
+    @Test
+    public void itShouldDecodeListsIntoDirectBufferSuccessfully() throws IOException {
+        final LongList[] expectedLists = getRandomLists(100, LIST_TYPE);
+        final PebbleBytesStore bytesStore = write(expectedLists, LIST_TYPE);
+        final LongListsDecoder decoder = new LongListsDecoder(VALUE_BIT_SIZE, bytesStore);
+        final LongBuffer buffer = ByteBuffer.allocateDirect(5000 * 8).asLongBuffer();
+        final long[] values = new long[5000];
+        int size;
+
+        for (int i = 0; i < expectedLists.length; i++) {
+            buffer.clear();
+            size = decoder.decodeIncrementalList(i, buffer);
+            buffer.flip();
+            buffer.get(values, 0, size);
+
+            assertEquals(expectedLists[i], new LongArrayList(values, 0, size));
+        }
+    }
+
+    @Test
+    public void whenArrayIsTooSmallItShouldThrowAnException() throws IOException {
+        final LongList[] expectedLists = {new LongArrayList(new long[] {1, 2, 3, 7})};
+        final PebbleBytesStore bytesStore = write(expectedLists, LIST_TYPE);
+        final LongListsDecoder decoder = new LongListsDecoder(VALUE_BIT_SIZE, bytesStore);
+        expectedException.expect(ArrayIndexOutOfBoundsException.class);
+
+        decoder.decodeIncrementalList(0, new long[4], 1);
+    }
+
+    @Test
+    public void whenBufferIsTooSmallItShouldThrowAnException() throws IOException {
+        final LongList[] expectedLists = {new LongArrayList(new long[] {1, 2, 3, 7})};
+        final PebbleBytesStore bytesStore = write(expectedLists, LIST_TYPE);
+        final LongListsDecoder decoder = new LongListsDecoder(VALUE_BIT_SIZE, bytesStore);
+        expectedException.expect(BufferOverflowException.class);
+
+        decoder.decodeIncrementalList(0, LongBuffer.allocate(3));
+    }
+
+}
@@ -0,0 +1,172 @@
+package org.pebble.core.decoding.longs;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.encoding.DefaultParametersValues;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.SkipIndexParameters;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+import org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex;
+import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
+
+import java.io.IOException;
+import java.util.Random;
+
+public class LongListsDecoderHelper {
+
+    public static final int VALUE_BIT_SIZE = 48;
+
+    public enum ListType {
+        STRICTLY_INCREMENTAL,
+        INCREMENTAL,
+        LIST
+    }
+
+    public static LongList[] getRandomLists(final int numberOfLists, final ListType listType) {
+        final Random random = new Random(0x5eed);
+        final LongList base = new LongArrayList();
+        for (long value = (1L << 40) + random.nextInt(10); value < (1L << 40) + 3000L; value += random.nextBoolean() ? 1 : 2 + random.nextInt(30)) {
+            base.add(value);
+        }
+        final LongList[] lists = new LongList[numberOfLists];
+        LongList list;
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = list = new LongArrayList();
+            if (random.nextInt(10) == 0) {
+                continue;
+            }
+            for (int j = 0; j < base.size(); j++) {
+                if (random.nextInt(6) != 0) {
+                    list.add(base.getLong(j));
+                    while (listType != ListType.STRICTLY_INCREMENTAL && random.nextInt(8) == 0) {
+                        list.add(base.getLong(j));
+                    }
+                }
+            }
+            if (listType == ListType.LIST) {
+                for (int j = list.size() - 1; j > 0; j--) {
+                    list.set(j, list.set(random.nextInt(j + 1), list.getLong(j)));
+                }
+            }
+        }
+        return lists;
+    }
+
+    public static PebbleBytesStore write(final LongList[] lists, final ListType listType) throws IOException {
+        return write(lists, listType, SkipIndexParameters.DISABLED);
+    }
+
+    public static PebbleBytesStore write(
+        final LongList[] lists,
+        final ListType listType,
+        final SkipIndexParameters skipIndexParameters
+    ) throws IOException {
+        return write(lists, listType, skipIndexParameters, false);
+    }
+
+    public static PebbleBytesStore write(
+        final LongList[] lists,
+        final ListType listType,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader
+    ) throws IOException {
+        final int minIntervalSize = DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE;
+        return write(lists, listType, skipIndexParameters, sizeHeader, minIntervalSize);
+    }
+
+    public static PebbleBytesStore write(
+        final LongList[] lists,
+        final ListType listType,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader,
+        final int minIntervalSize
+    ) throws IOException {
+        final long[] offsets = new long[lists.length];
+        final byte[] bytes = write(lists, listType, skipIndexParameters, sizeHeader, minIntervalSize, offsets);
+        final PebbleBytesStore bytesStore = new BytesArrayPebbleBytesStore(bytes, offsets);
+        bytesStore.setSkipIndexParameters(skipIndexParameters);
+        bytesStore.setSizeHeader(sizeHeader);
+        bytesStore.setMinIntervalSize(minIntervalSize);
+        return bytesStore;
+    }
+
+    public static byte[] write(
+        final LongList[] lists,
+        final ListType listType,
+        final SkipIndexParameters skipIndexParameters,
+        final long[] offsets
+    ) throws IOException {
+        return write(lists, listType, skipIndexParameters, false, offsets);
+    }
+
+    public static byte[] write(
+        final LongList[] lists,
+        final ListType listType,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader,
+        final long[] offsets
+    ) throws IOException {
+        return write(
+            lists,
+            listType,
+            skipIndexParameters,
+            sizeHeader,
+            DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE,
+            offsets
+        );
+    }
+
+    public static byte[] write(
+        final LongList[] lists,
+        final ListType listType,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader,
+        final int minIntervalSize,
+        final long[] offsets
+    ) throws IOException {
+        final FastByteArrayOutputStream outputStream = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(outputStream);
+        outputSuccinctStream.setSkipIndexParameters(skipIndexParameters);
+        outputSuccinctStream.setSizeHeader(sizeHeader);
+        outputSuccinctStream.setMinIntervalSize(minIntervalSize);
+        final LongReferenceListsStore referenceListsStore = new LongReferenceListsStore(
+            16,
+            3,
+            1,
+            new InvertedListLongReferenceListsIndex()
+        );
+        LongList list;
+        for (int i = 0; i < lists.length; i++) {
+            offsets[i] = outputSuccinctStream.writtenBits();
+            list = new LongArrayList(lists[i]);
+            if (listType == ListType.STRICTLY_INCREMENTAL) {
+                outputSuccinctStream.writeStrictlyIncrementalList(list, i, VALUE_BIT_SIZE, referenceListsStore);
+            } else if (listType == ListType.INCREMENTAL) {
+                outputSuccinctStream.writeIncrementalList(list, i, VALUE_BIT_SIZE, referenceListsStore);
+            } else {
+                outputSuccinctStream.writeList(list, i, VALUE_BIT_SIZE, referenceListsStore);
+            }
+        }
+        outputSuccinctStream.close();
+        return outputStream.array;
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.pebble.core.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@Category(UnitTest.class)
+public class EncodingStatsTest {
+
+    private static EncodingStats getStats() {
+        final EncodingStats stats = new EncodingStats();
+        stats.onReferenceLookup(0, 0);
+        stats.onSection(EncodingSection.REFERENCE_OFFSET, 1, 1);
+        stats.onSection(EncodingSection.INTERVALS, 1, 14);
+        stats.onSection(EncodingSection.DELTAS, 5, 35);
+        stats.onList(0, 12, 50);
+        stats.onReferenceLookup(1, 1);
+        stats.onSection(EncodingSection.REFERENCE_OFFSET, 1, 3);
+        stats.onSection(EncodingSection.DIFFERENCE_BLOCKS, 3, 10);
+        stats.onSection(EncodingSection.INTERVALS, 0, 0);
+        stats.onSection(EncodingSection.DELTAS, 3, 22);
+        stats.onList(1, 8, 35);
+        return stats;
+    }
+
+    @Test
+    public void itShouldAccumulateTheBitsAndEntriesOfEverySection() {
+        final EncodingStats stats = getStats();
+
+        assertEquals(4L, stats.getBits(EncodingSection.REFERENCE_OFFSET));
+        assertEquals(2L, stats.getEntries(EncodingSection.REFERENCE_OFFSET));
+        assertEquals(10L, stats.getBits(EncodingSection.DIFFERENCE_BLOCKS));
+        assertEquals(3L, stats.getEntries(EncodingSection.DIFFERENCE_BLOCKS));
+        assertEquals(14L, stats.getBits(EncodingSection.INTERVALS));
+        assertEquals(1L, stats.getEntries(EncodingSection.INTERVALS));
+        assertEquals(57L, stats.getBits(EncodingSection.DELTAS));
+        assertEquals(8L, stats.getEntries(EncodingSection.DELTAS));
+        assertEquals(0L, stats.getBits(EncodingSection.REPETITIONS));
+        assertEquals(0L, stats.getEntries(EncodingSection.INDEXES));
+        assertEquals(2L, stats.getLists());
+        assertEquals(20L, stats.getElements());
+        assertEquals(85L, stats.getBits());
+    }
+
+    @Test
+    public void itShouldAccumulateTheReferenceLookups() {
+        final EncodingStats stats = getStats();
+        stats.onReferenceLookup(4, 3);
+
+        assertEquals(3L, stats.getReferenceLookups());
+        assertEquals(2L, stats.getReferenceHits());
+        assertEquals(5L, stats.getCandidates());
+        assertEquals(4, stats.getMaxCandidates());
+        assertArrayEquals(new long[] {1L, 1L, 0L, 1L}, stats.getChainsLengths());
+    }
+
+    @Test
+    public void itShouldReturnACopyOfTheChainsLengths() {
+        final EncodingStats stats = getStats();
+
+        stats.getChainsLengths()[0] = 10L;
+
+        assertArrayEquals(new long[] {1L, 1L}, stats.getChainsLengths());
+    }
+
+    @Test
+    public void itShouldSummarizeTheStatistics() {
+        final String expectedSummary = String.format(
+            "lists: 2, elements: 20, bits: 85, bits/element: %.3f%n" +
+            "section                entries           bits  bits/element%n" +
+            "SIZE_HEADER                  0              0 %13.3f%n" +
+            "REPETITIONS                  0              0 %13.3f%n" +
+            "REFERENCE_OFFSET             2              4 %13.3f%n" +
+            "DIFFERENCE_BLOCKS            3             10 %13.3f%n" +
+            "INTERVALS                    1             14 %13.3f%n" +
+            "DELTAS                       8             57 %13.3f%n" +
+            "SKIP_INDEX                   0              0 %13.3f%n" +
+            "INDEXES                      0              0 %13.3f%n" +
+            "reference lookups: 2, hits: 1, hit rate: %.3f%n" +
+            "candidates: 1, candidates/lookup: %.3f, max candidates: 1%n" +
+            "chains lengths: [1, 1]%n",
+            4.25, 0.0, 0.0, 0.2, 0.5, 0.7, 2.85, 0.0, 0.0, 0.5, 0.5
+        );
+
+        assertEquals(expectedSummary, getStats().getSummary());
+    }
+
+    @Test
+    public void whenThereAreNoListsItShouldSummarizeZeroRatios() {
+        final String summary = new EncodingStats().getSummary();
+
+        assertEquals(
+            String.format("lists: 0, elements: 0, bits: 0, bits/element: %.3f", 0.0),
+            summary.substring(0, summary.indexOf(String.format("%n")))
+        );
+        assertEquals(EncodingSection.DELTAS, EncodingSection.valueOf("DELTAS"));
+    }
+
+}
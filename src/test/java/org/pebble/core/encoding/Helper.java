@@ -17,6 +17,7 @@ package org.pebble.core.encoding;
  */
 
 import it.unimi.dsi.fastutil.ints.IntList;
+import org.pebble.core.encoding.commons.InvertedListPostings;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -73,6 +74,25 @@ public class Helper {
         return translatedMap;
     }
 
+    public static <T, Q extends Map<T, InvertedListPostings>> Map<T, List<Integer>> translateToUtilsCollection(
+        final Q map,
+        final int[] generations
+    ) {
+        final Map<T, List<Integer>> translatedMap = new HashMap<T, List<Integer>>();
+        InvertedListPostings postings;
+        List<Integer> list;
+        for(Map.Entry<T, InvertedListPostings> entry : map.entrySet()) {
+            translatedMap.put(entry.getKey(), list = new ArrayList<Integer>());
+            postings = entry.getValue();
+            for(int i = 0; i < postings.size(); i++) {
+                if (postings.isLive(i, generations)) {
+                    list.add(postings.getIndex(i));
+                }
+            }
+        }
+        return translatedMap;
+    }
+
     public static <T, Q extends List<T>> List<List<T>> translateToUtilsCollection(final Q[] lists) {
         //TODO: fix equals of Int2ReferenceMap or replace with trove library.
         final List<List<T>> translatedLists = new ArrayList<List<T>>();
@@ -20,12 +20,14 @@ import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.mockito.InOrder;
 import org.mockito.Matchers;
 import org.pebble.UnitTest;
 import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
 
 import static junit.framework.TestCase.assertEquals;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -123,4 +125,21 @@ public class IntsOutputSuccinctStreamWriteReferenceTest {
         verify(outStreamSpy, times(1)).writeDifference(list, referenceList);
     }
 
+    @Test
+    public void itShouldPassItsMinIntervalSizeToTheStoreBeforeLookingForTheReferenceList() throws Exception {
+        final int valueBitSize = 1;
+        final int listIndex = 12;
+        final IntList list = new IntArrayList(new int[] {1, 2, 3, 5, 6, 7, 10, 11, 16, 19});
+        final IntReferenceListsStore referenceListsStore = mock(IntReferenceListsStore.class);
+        final Helper.Output out = getOutput();
+        out.stream.setMinIntervalSize(2);
+
+        out.stream.writeReference(list, listIndex, valueBitSize, referenceListsStore);
+        out.close();
+
+        final InOrder inOrder = inOrder(referenceListsStore);
+        inOrder.verify(referenceListsStore).setMinIntervalSize(2);
+        inOrder.verify(referenceListsStore).get(list, valueBitSize, listIndex);
+    }
+
 }
@@ -0,0 +1,214 @@
+package org.pebble.core.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+import org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.pebble.core.encoding.Helper.getOutput;
+
+@Category(UnitTest.class)
+public class LongsOutputSuccinctStreamEncodingListenerTest {
+
+    private static final int VALUE_BIT_SIZE = 10;
+    private static final int NUMBER_OF_LISTS = 50;
+
+    private static LongList[] getLists(final boolean repetitions, final boolean sorted) {
+        final Random random = new Random(7);
+        final LongList[] lists = new LongList[NUMBER_OF_LISTS];
+        for (int i = 0; i < NUMBER_OF_LISTS; i++) {
+            lists[i] = new LongArrayList();
+            for (long value = i; value < i + 300; value += 1 + random.nextInt(8) / 5) {
+                lists[i].add(value);
+                if (repetitions && random.nextInt(4) == 0) {
+                    lists[i].add(value);
+                }
+            }
+            if (!sorted) {
+                Collections.shuffle(lists[i], random);
+            }
+        }
+        return lists;
+    }
+
+    private static EncodingStats write(final LongList[] lists, final ListType listType) throws IOException {
+        final EncodingStats stats = new EncodingStats();
+        final OutputSuccinctStream out = new OutputSuccinctStream(new FastByteArrayOutputStream());
+        out.setEncodingListener(stats);
+        out.setSizeHeader(true);
+        out.setSkipIndexParameters(new SkipIndexParameters(4, 8));
+        final LongReferenceListsStore referenceListsStore =
+            new LongReferenceListsStore(8, 2, 1, new InvertedListLongReferenceListsIndex());
+        for (int i = 0; i < lists.length; i++) {
+            if (listType == ListType.STRICTLY_INCREMENTAL) {
+                out.writeStrictlyIncrementalList(lists[i], i, VALUE_BIT_SIZE, referenceListsStore);
+            } else if (listType == ListType.INCREMENTAL) {
+                out.writeIncrementalList(lists[i], i, VALUE_BIT_SIZE, referenceListsStore);
+            } else {
+                out.writeList(lists[i], i, VALUE_BIT_SIZE, referenceListsStore);
+            }
+        }
+        assertEquals(out.writtenBits(), stats.getBits());
+        return stats;
+    }
+
+    private static int getElements(final LongList[] lists) {
+        int elements = 0;
+        for (LongList list : lists) {
+            elements += list.size();
+        }
+        return elements;
+    }
+
+    private static void assertStats(final EncodingStats stats) {
+        long sectionsBits = 0L;
+        for (EncodingSection section : EncodingSection.values()) {
+            sectionsBits += stats.getBits(section);
+        }
+        long chainsLengths = 0L;
+        for (long chainLength : stats.getChainsLengths()) {
+            chainsLengths += chainLength;
+        }
+        assertEquals(stats.getBits(), sectionsBits);
+        assertEquals(NUMBER_OF_LISTS, stats.getLists());
+        assertEquals(NUMBER_OF_LISTS, stats.getReferenceLookups());
+        assertEquals(NUMBER_OF_LISTS, stats.getEntries(EncodingSection.SIZE_HEADER));
+        assertEquals(NUMBER_OF_LISTS, stats.getEntries(EncodingSection.REFERENCE_OFFSET));
+        assertEquals(NUMBER_OF_LISTS, chainsLengths);
+        assertTrue(stats.getChainsLengths().length > 1);
+        assertTrue(stats.getReferenceHits() > 0);
+        assertTrue(stats.getCandidates() >= stats.getReferenceHits());
+        assertTrue(stats.getEntries(EncodingSection.DIFFERENCE_BLOCKS) > 0);
+        assertTrue(stats.getEntries(EncodingSection.INTERVALS) > 0);
+        assertTrue(stats.getEntries(EncodingSection.DELTAS) > 0);
+        assertTrue(stats.getEntries(EncodingSection.SKIP_INDEX) > 0);
+    }
+
+    @Test
+    public void itShouldReportTheSectionsOfStrictlyIncrementalLists() throws IOException {
+        final LongList[] lists = getLists(false, true);
+        final int elements = getElements(lists);
+
+        final EncodingStats stats = write(lists, ListType.STRICTLY_INCREMENTAL);
+
+        assertStats(stats);
+        assertEquals(elements, stats.getElements());
+        assertEquals(0L, stats.getEntries(EncodingSection.REPETITIONS));
+        assertEquals(0L, stats.getEntries(EncodingSection.INDEXES));
+    }
+
+    @Test
+    public void itShouldReportTheSectionsOfIncrementalLists() throws IOException {
+        final LongList[] lists = getLists(true, true);
+        final int elements = getElements(lists);
+
+        final EncodingStats stats = write(lists, ListType.INCREMENTAL);
+
+        assertStats(stats);
+        assertEquals(elements, stats.getElements());
+        assertTrue(stats.getEntries(EncodingSection.REPETITIONS) > 0);
+        assertEquals(0L, stats.getEntries(EncodingSection.INDEXES));
+    }
+
+    @Test
+    public void itShouldReportTheSectionsOfLists() throws IOException {
+        final LongList[] lists = getLists(true, false);
+        final int elements = getElements(lists);
+
+        final EncodingStats stats = write(lists, ListType.LIST);
+
+        assertStats(stats);
+        assertEquals(elements, stats.getElements());
+        assertEquals(0L, stats.getEntries(EncodingSection.REPETITIONS));
+        assertEquals(elements, stats.getEntries(EncodingSection.INDEXES));
+    }
+
+    @Test
+    public void itShouldReportTheRepetitionsSection() throws IOException {
+        final LongList list = new LongArrayList(
+            new long[] {1, 1, 2, 3, 3, 3, 5, 6, 6, 7, 10, 11, 11, 12, 12, 12, 16, 19, 19}
+        );
+        final EncodingListener listener = mock(EncodingListener.class);
+        final Helper.Output out = getOutput();
+        out.stream.setEncodingListener(listener);
+
+        final int offset = out.stream.writeRepetitions(list);
+        out.close();
+
+        verify(listener).onSection(EncodingSection.REPETITIONS, 6, offset);
+    }
+
+    @Test
+    public void itShouldReportTheReferenceLookup() throws IOException {
+        final LongList referenceList = new LongArrayList(new long[] {1, 3, 5, 7, 9, 11, 13, 15, 17, 19});
+        final LongList list = new LongArrayList(new long[] {1, 3, 5, 7, 9, 11, 13, 15, 17, 20});
+        final LongReferenceListsStore referenceListsStore =
+            new LongReferenceListsStore(4, 2, 1, new InvertedListLongReferenceListsIndex());
+        referenceListsStore.add(60, 0, referenceList);
+        final EncodingStats stats = new EncodingStats();
+        final Helper.Output out = getOutput();
+        out.stream.setEncodingListener(stats);
+
+        final int offset = out.stream.writeReference(list, 63, 5, referenceListsStore);
+        out.close();
+
+        assertEquals(1L, stats.getReferenceHits());
+        assertEquals(1L, stats.getCandidates());
+        assertArrayEquals(new long[] {0L, 1L}, stats.getChainsLengths());
+        assertEquals(5L, stats.getBits(EncodingSection.REFERENCE_OFFSET));
+        assertEquals(offset - 5L, stats.getBits(EncodingSection.DIFFERENCE_BLOCKS));
+    }
+
+    @Test
+    public void whenTheListenerIsRemovedItShouldStopReporting() throws IOException {
+        final LongList[] lists = getLists(false, true);
+        final EncodingStats stats = new EncodingStats();
+        final OutputSuccinctStream out = new OutputSuccinctStream(new FastByteArrayOutputStream());
+        final LongReferenceListsStore referenceListsStore =
+            new LongReferenceListsStore(8, 2, 1, new InvertedListLongReferenceListsIndex());
+        out.setEncodingListener(stats);
+        out.writeStrictlyIncrementalList(lists[0], 0, VALUE_BIT_SIZE, referenceListsStore);
+        out.setEncodingListener(null);
+
+        out.writeStrictlyIncrementalList(lists[1], 1, VALUE_BIT_SIZE, referenceListsStore);
+
+        assertEquals(1L, stats.getLists());
+        assertEquals(1L, stats.getReferenceLookups());
+    }
+
+    private enum ListType {
+        STRICTLY_INCREMENTAL,
+        INCREMENTAL,
+        LIST
+    }
+
+}
@@ -96,4 +96,45 @@ public class LongsOutputSuccinctStreamWriteDeltaTest {
         out.stream.writeDelta(list, valueBitSize);
     }
 
+    @Test
+    public void whenSkipIndexIsEnabledItShouldWriteDeltaSuccinctRepresentationWithSkipIndexSuccessfully()
+        throws Exception
+    {
+        final int valueBitSize = 4;
+        final LongList list = new LongArrayList(new long[] {1L, 2L, 3L, 5L, 7L, 10L});
+        /**
+         * 6     - 2    18        [3    6]     [7    14]    1    0 0 1    1    2    Length, rate, index and deltas.
+         * 01111 1 0101 001010011 0011 00110   0111 01110  0001 1 1 0100 0100 0101 Delta encoding and fixed values.
+         */
+        final String expectedOutput =
+            "01111 1 0101 001010011 0011 00110 0111 01110 0001 1 1 0100 0100 0101".replace(" ", "");
+        final int expectedOffset = 55;
+        final Helper.Output out = getOutput();
+        out.stream.setSkipIndexParameters(new SkipIndexParameters(2, 0));
+
+        final int offset = out.stream.writeDelta(list, valueBitSize);
+        out.close();
+
+        assertEquals(expectedOutput, toBinaryString(out.buffer, offset));
+        assertEquals(expectedOffset, offset);
+    }
+
+    @Test
+    public void whenListIsSmallerThanSkipIndexMinSectionSizeItShouldWriteDeltaSuccinctRepresentationWithoutSkipIndex()
+        throws Exception
+    {
+        final int valueBitSize = 1;
+        final LongList list = new LongArrayList(new long[] {1L, 2L, 3L, 5L, 7L, 10L});
+        final String expectedOutput = "01111 0 1 1 1 0100 0100 0101".replace(" ", "");
+        final int expectedOffset = 21;
+        final Helper.Output out = getOutput();
+        out.stream.setSkipIndexParameters(new SkipIndexParameters(2, 7));
+
+        final int offset = out.stream.writeDelta(list, valueBitSize);
+        out.close();
+
+        assertEquals(expectedOutput, toBinaryString(out.buffer, offset));
+        assertEquals(expectedOffset, offset);
+    }
+
 }
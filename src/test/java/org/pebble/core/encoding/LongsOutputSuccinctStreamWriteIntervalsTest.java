@@ -181,4 +181,81 @@ public class LongsOutputSuccinctStreamWriteIntervalsTest {
         out.stream.writeIntervals(list, valueBitSize);
     }
 
+    @Test
+    public void whenSkipIndexIsEnabledItShouldWriteIntervalsSuccinctRepresentationWithSkipIndexSuccessfully()
+        throws Exception
+    {
+        final int valueBitSize = 5;
+        final LongList list = new LongArrayList(
+            new long[] {1L, 3L, 4L, 5L, 7L, 8L, 9L, 10L, 12L, 14L, 15L, 16L, 17L, 19L, 20L, 21L, 22L, 23L, 24L, 30L}
+        );
+        /**
+         * 3     - 1    16        14       [14    4    10]    [19    8    12]    [7, 0]  [2,  0]  [0, 2]  Intervals.
+         * 01100 1 0100 001010001 00100111 01110 0100 01010   10011 1000 01100   00111 1 0101 1  1 0101   Encoding.
+         */
+        final String expectedOutput =
+            "01100 1 0100 001010001 00100111 01110 0100 01010 10011 1000 01100 00111 1 0101 1 1 0101"
+                .replace(" ", "");
+        final int expectedOffset = 71;
+        final Helper.Output out = getOutput();
+        out.stream.setSkipIndexParameters(new SkipIndexParameters(1, 0));
+
+        final int offset = out.stream.writeIntervals(list, valueBitSize);
+        out.close();
+
+        assertEquals(expectedOutput, toBinaryString(out.buffer, offset));
+        assertEquals(expectedOffset, offset);
+    }
+
+    @Test
+    public void whenThereAreFewIntervalsItShouldWriteIntervalsSuccinctRepresentationWithoutSkipIndex()
+        throws Exception
+    {
+        final int valueBitSize = 5;
+        final LongList list = new LongArrayList(
+            new long[] {1L, 3L, 4L, 5L, 7L, 8L, 9L, 10L, 12L, 14L, 15L, 16L, 17L, 19L, 20L, 21L, 22L, 23L, 24L, 30L}
+        );
+        final String expectedOutput = "01100 0 00111 1 0101 1 1 0101".replace(" ", "");
+        final int expectedOffset = 22;
+        final Helper.Output out = getOutput();
+        out.stream.setSkipIndexParameters(new SkipIndexParameters(1, 4));
+
+        final int offset = out.stream.writeIntervals(list, valueBitSize);
+        out.close();
+
+        assertEquals(expectedOutput, toBinaryString(out.buffer, offset));
+        assertEquals(expectedOffset, offset);
+    }
+
+    @Test
+    public void whenMinIntervalSizeIsSetItShouldWriteShorterIntervalsSuccessfully() throws Exception {
+        final int valueBitSize = 3;
+        final LongList list = new LongArrayList(new long[] {1L, 3L, 4L, 8L});
+        /**
+         * 1 [3, 4]    Intervals from list.
+         * 1 [3, 0]    Interval delta format, the length is stored minus the min interval size.
+         * 0100 011 1  Delta Encoding.
+         */
+        final String expectedOutput = "0100 011 1".replace(" ", "");
+        final int expectedOffset = 8;
+        final Helper.Output out = getOutput();
+        out.stream.setMinIntervalSize(2);
+
+        final int offset = out.stream.writeIntervals(list, valueBitSize);
+        out.close();
+
+        assertEquals(2, out.stream.getMinIntervalSize());
+        assertEquals(expectedOutput, toBinaryString(out.buffer, offset));
+        assertEquals(expectedOffset, offset);
+    }
+
+    @Test
+    public void whenMinIntervalSizeIsNotPositiveItShouldThrowAnException() throws Exception {
+        final Helper.Output out = getOutput();
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Min interval size must be positive, found 0");
+
+        out.stream.setMinIntervalSize(0);
+    }
+
 }
@@ -20,12 +20,14 @@ import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongList;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.mockito.InOrder;
 import org.mockito.Matchers;
 import org.pebble.UnitTest;
 import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
 
 import static junit.framework.TestCase.assertEquals;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -123,4 +125,21 @@ public class LongsOutputSuccinctStreamWriteReferenceTest {
         verify(outStreamSpy, times(1)).writeDifference(list, referenceList);
     }
 
+    @Test
+    public void itShouldPassItsMinIntervalSizeToTheStoreBeforeLookingForTheReferenceList() throws Exception {
+        final int valueBitSize = 1;
+        final int listIndex = 12;
+        final LongList list = new LongArrayList(new long[] {1L, 2L, 3L, 5L, 6L, 7L, 10L, 11L, 16L, 19L});
+        final LongReferenceListsStore referenceListsStore = mock(LongReferenceListsStore.class);
+        final Helper.Output out = getOutput();
+        out.stream.setMinIntervalSize(2);
+
+        out.stream.writeReference(list, listIndex, valueBitSize, referenceListsStore);
+        out.close();
+
+        final InOrder inOrder = inOrder(referenceListsStore);
+        inOrder.verify(referenceListsStore).setMinIntervalSize(2);
+        inOrder.verify(referenceListsStore).get(list, valueBitSize, listIndex);
+    }
+
 }
@@ -0,0 +1,129 @@
+package org.pebble.core.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.io.InputBitStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.UnitTest;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(UnitTest.class)
+public class SkipIndexParametersTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void itShouldSampleEverySamplingRateEntriesAfterTheFirstOne() {
+        final SkipIndexParameters skipIndexParameters = new SkipIndexParameters(4, 9);
+
+        assertEquals(4, skipIndexParameters.getSamplingRate());
+        assertEquals(9, skipIndexParameters.getMinSectionSize());
+        assertEquals(0, skipIndexParameters.getNumberOfSamples(8));
+        assertEquals(2, skipIndexParameters.getNumberOfSamples(9));
+        assertEquals(2, skipIndexParameters.getNumberOfSamples(12));
+        assertEquals(3, skipIndexParameters.getNumberOfSamples(13));
+    }
+
+    @Test
+    public void itShouldNotSampleEmptySections() {
+        final SkipIndexParameters skipIndexParameters = new SkipIndexParameters(1, 0);
+
+        assertEquals(0, skipIndexParameters.getNumberOfSamples(0));
+        assertEquals(0, skipIndexParameters.getNumberOfSamples(1));
+        assertEquals(1, skipIndexParameters.getNumberOfSamples(2));
+    }
+
+    @Test
+    public void defaultParametersShouldUseDefaultValues() {
+        final SkipIndexParameters skipIndexParameters = new SkipIndexParameters();
+
+        assertEquals(DefaultParametersValues.DEFAULT_SKIP_INDEX_SAMPLING_RATE, skipIndexParameters.getSamplingRate());
+        assertEquals(
+            DefaultParametersValues.DEFAULT_SKIP_INDEX_MIN_SECTION_SIZE,
+            skipIndexParameters.getMinSectionSize()
+        );
+    }
+
+    @Test
+    public void disabledParametersShouldNotSampleAnySection() {
+        assertEquals(0, SkipIndexParameters.DISABLED.getNumberOfSamples(Integer.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void onlyDisabledParametersShouldNotBeEnabled() {
+        assertFalse(SkipIndexParameters.DISABLED.isEnabled());
+        assertTrue(new SkipIndexParameters(Integer.MAX_VALUE, 0).isEnabled());
+        assertTrue(new SkipIndexParameters().isEnabled());
+    }
+
+    @Test
+    public void itShouldReadTheSamplingRateOfIndexedSections() throws IOException {
+        /**
+         * 1 4     0 Flag and sampling rate of an indexed section and flag of a non indexed one.
+         * 1 01101 0 Delta encoding.
+         */
+        final InputBitStream inputBitStream = new InputBitStream(new byte[] {(byte) 0xb4});
+        final SkipIndexParameters skipIndexParameters = new SkipIndexParameters(64, 1024);
+
+        assertEquals(4, skipIndexParameters.readSamplingRate(inputBitStream, 9));
+        assertEquals(0, skipIndexParameters.readSamplingRate(inputBitStream, 0));
+        assertEquals(0, skipIndexParameters.readSamplingRate(inputBitStream, 3));
+        assertEquals(7, inputBitStream.position());
+    }
+
+    @Test
+    public void disabledParametersShouldNotReadAnySamplingRate() throws IOException {
+        final InputBitStream inputBitStream = new InputBitStream(new byte[] {(byte) 0xff});
+
+        assertEquals(0, SkipIndexParameters.DISABLED.readSamplingRate(inputBitStream, 9));
+        assertEquals(0, inputBitStream.position());
+    }
+
+    @Test
+    public void itShouldSampleEverySamplingRateEntriesOfIndexedSections() {
+        assertEquals(0, SkipIndexParameters.getNumberOfSamples(9, 0));
+        assertEquals(0, SkipIndexParameters.getNumberOfSamples(0, 1));
+        assertEquals(2, SkipIndexParameters.getNumberOfSamples(9, 4));
+        assertEquals(3, SkipIndexParameters.getNumberOfSamples(13, 4));
+    }
+
+    @Test
+    public void itShouldThrowAnExceptionWhenSamplingRateIsNotPositive() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Sampling rate must be positive, found 0");
+
+        new SkipIndexParameters(0, 1);
+    }
+
+    @Test
+    public void itShouldThrowAnExceptionWhenMinSectionSizeIsNegative() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Min section size can't be negative, found -1");
+
+        new SkipIndexParameters(1, -1);
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.pebble.core.encoding.commons;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+@Category(UnitTest.class)
+public class InvertedListPostingsRemoveStaleEntryTest {
+
+    @Test
+    public void whenLessThanHalfOfTheEntriesAreStaleItShouldKeepThem() {
+        final int[] generations = new int[] {0, 1, 0};
+        final InvertedListPostings postings = new InvertedListPostings(new int[] {0, 1, 2});
+        final int expectedLiveSize = 2;
+        final int expectedSize = 3;
+
+        final int liveSize = postings.removeStaleEntry(generations);
+
+        assertEquals(expectedLiveSize, liveSize);
+        assertEquals(expectedSize, postings.size());
+        assertFalse(postings.isLive(1, generations));
+    }
+
+    @Test
+    public void whenMoreThanHalfOfTheEntriesAreStaleItShouldDiscardThemKeepingEntriesOrder() {
+        final int[] generations = new int[] {1, 0, 1, 1};
+        final InvertedListPostings postings = new InvertedListPostings(new int[] {3, 0, 1, 2});
+        postings.add(0, 1);
+        final int expectedLiveSize = 2;
+        final int expectedSize = 2;
+
+        postings.removeStaleEntry(generations);
+        postings.removeStaleEntry(generations);
+        final int liveSize = postings.removeStaleEntry(generations);
+
+        assertEquals(expectedLiveSize, liveSize);
+        assertEquals(expectedSize, postings.size());
+        assertEquals(1, postings.getIndex(0));
+        assertEquals(0, postings.getIndex(1));
+        assertTrue(postings.isLive(0, generations));
+        assertTrue(postings.isLive(1, generations));
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.pebble.core.encoding.commons;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+
+import static org.junit.Assert.assertArrayEquals;
+
+@Category(UnitTest.class)
+public class ReferenceCandidatesSelectTest {
+
+    @Test
+    public void itShouldKeepTheCandidatesFoundOnTheMostPostingLists() {
+        final int[] generations = new int[] {0, 0, 0, 0};
+        final ReferenceCandidates candidates = new ReferenceCandidates(2, 10);
+        final int[] expectedCandidates = new int[] {1, 2};
+
+        candidates.clear(generations.length);
+        candidates.add(new InvertedListPostings(new int[] {0, 1, 2, 3}), generations);
+        candidates.add(new InvertedListPostings(new int[] {1, 2}), generations);
+        candidates.add(new InvertedListPostings(new int[] {2, 3}), generations);
+        candidates.add(new InvertedListPostings(new int[] {1}), generations);
+        candidates.select();
+
+        assertArrayEquals(expectedCandidates, getCandidates(candidates));
+    }
+
+    @Test
+    public void itShouldOnlyTakeIntoAccountTheMostRecentLiveEntriesOfEveryPostingList() {
+        final int[] generations = new int[] {0, 0, 0, 1};
+        final ReferenceCandidates candidates = new ReferenceCandidates(10, 2);
+        final int[] expectedCandidates = new int[] {1, 2};
+
+        candidates.clear(generations.length);
+        candidates.add(new InvertedListPostings(new int[] {0, 1, 2, 3}), generations);
+        candidates.select();
+
+        assertArrayEquals(expectedCandidates, getCandidates(candidates));
+    }
+
+    @Test
+    public void whenClearedItShouldCountTheCandidatesOfTheNewListFromScratch() {
+        final int[] generations = new int[] {0, 0, 0};
+        final ReferenceCandidates candidates = new ReferenceCandidates(1, 10);
+        final int[] expectedCandidates = new int[] {2};
+
+        candidates.clear(generations.length);
+        candidates.add(new InvertedListPostings(new int[] {0, 1}), generations);
+        candidates.add(new InvertedListPostings(new int[] {0}), generations);
+        candidates.select();
+        candidates.clear(generations.length);
+        candidates.add(new InvertedListPostings(new int[] {0, 2}), generations);
+        candidates.add(new InvertedListPostings(new int[] {2}), generations);
+        candidates.select();
+
+        assertArrayEquals(expectedCandidates, getCandidates(candidates));
+    }
+
+    private static int[] getCandidates(final ReferenceCandidates candidates) {
+        final int[] indexes = new int[candidates.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = candidates.get(i);
+        }
+        IntArrays.quickSort(indexes);
+        return indexes;
+    }
+
+}
@@ -0,0 +1,129 @@
+package org.pebble.core.encoding.ints;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+@Category(UnitTest.class)
+public class IntOutputOffsetGetWriteDifferenceIntervalsAndDeltaOffsetTest {
+
+    private static int getExpectedOffset(final IntList list, final IntList referenceList, final int valueBitSize) {
+        final IntOutputOffset outputOffset = new IntOutputOffset();
+        final IntList clonedList = new IntArrayList(list);
+        return outputOffset.getWriteDifferenceOffset(clonedList, referenceList) +
+            outputOffset.getWriteIntervalsOffset(clonedList, valueBitSize) +
+            outputOffset.getWriteDeltaOffset(clonedList, valueBitSize);
+    }
+
+    private static IntList getRandomList(final Random random, final int maxSize) {
+        final IntList list = new IntArrayList();
+        final int size = 1 + random.nextInt(maxSize);
+        int value = random.nextInt(4);
+        for (int i = 0; i < size; i++) {
+            list.add(value);
+            value += random.nextInt(3) == 0 ? 2 + random.nextInt(4) : 1;
+        }
+        return list;
+    }
+
+    @Test
+    public void itShouldGetSameOffsetThanWritingDifferenceIntervalsAndDeltaSuccessfully() {
+        final int valueBitSize = 5;
+        final IntList list = new IntArrayList(new int[] {3, 4, 5, 8, 9, 11, 12, 13, 14, 20});
+        final IntList referenceList = new IntArrayList(new int[] {1, 2, 4, 8, 9, 10, 11});
+        final IntOutputOffset outputOffset = new IntOutputOffset();
+        final int expectedOffset = getExpectedOffset(list, referenceList, valueBitSize);
+
+        final int offset = outputOffset.getWriteDifferenceIntervalsAndDeltaOffset(
+            list,
+            referenceList,
+            valueBitSize,
+            Integer.MAX_VALUE
+        );
+
+        assertEquals(expectedOffset, offset);
+    }
+
+    @Test
+    public void itShouldNotModifyTheGivenLists() {
+        final int valueBitSize = 5;
+        final IntList list = new IntArrayList(new int[] {3, 4, 5, 8, 9, 11, 12, 13});
+        final IntList referenceList = new IntArrayList(new int[] {1, 2, 4, 8, 9, 10, 11});
+        final IntList expectedList = new IntArrayList(list);
+        final IntList expectedReferenceList = new IntArrayList(referenceList);
+        final IntOutputOffset outputOffset = new IntOutputOffset();
+
+        outputOffset.getWriteDifferenceIntervalsAndDeltaOffset(list, referenceList, valueBitSize, Integer.MAX_VALUE);
+
+        assertEquals(expectedList, list);
+        assertEquals(expectedReferenceList, referenceList);
+    }
+
+    @Test
+    public void whenOffsetIsBiggerThanMaxOffsetItShouldReturnAnOffsetBiggerThanMaxOffset() {
+        final int valueBitSize = 5;
+        final IntList list = new IntArrayList(new int[] {3, 4, 5, 8, 9, 11, 12, 13});
+        final IntList referenceList = new IntArrayList(new int[] {1, 2, 4, 8, 9, 10, 11});
+        final IntOutputOffset outputOffset = new IntOutputOffset();
+        final int maxOffset = getExpectedOffset(list, referenceList, valueBitSize) - 1;
+
+        final int offset = outputOffset.getWriteDifferenceIntervalsAndDeltaOffset(
+            list,
+            referenceList,
+            valueBitSize,
+            maxOffset
+        );
+
+        assertTrue(offset > maxOffset);
+    }
+
+    @Test
+    public void forRandomListsItShouldGetSameOffsetThanWritingDifferenceIntervalsAndDeltaWhenNotBiggerThanMaxOffset() {
+        final int valueBitSize = 7;
+        final Random random = new Random(0x5eed);
+        final IntOutputOffset outputOffset = new IntOutputOffset();
+        IntList list;
+        IntList referenceList;
+        int expectedOffset;
+        int maxOffset;
+        int offset;
+        for (int i = 0; i < 2000; i++) {
+            list = getRandomList(random, 24);
+            referenceList = getRandomList(random, 24);
+            expectedOffset = getExpectedOffset(list, referenceList, valueBitSize);
+            maxOffset = random.nextInt(2 * expectedOffset);
+
+            offset = outputOffset.getWriteDifferenceIntervalsAndDeltaOffset(list, referenceList, valueBitSize, maxOffset);
+
+            if (expectedOffset <= maxOffset) {
+                assertEquals(expectedOffset, offset);
+            } else {
+                assertTrue(offset > maxOffset);
+            }
+        }
+    }
+
+}
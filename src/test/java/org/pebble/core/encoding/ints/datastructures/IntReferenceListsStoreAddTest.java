@@ -18,22 +18,46 @@ package org.pebble.core.encoding.ints.datastructures;
 
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
 import org.pebble.UnitTest;
 
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @Category(UnitTest.class)
 public class IntReferenceListsStoreAddTest {
 
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static IntList getList(
+        final IntReferenceListsStore referenceListsStore,
+        final IntReferenceListsIndex referenceListsIndex,
+        final int index
+    ) {
+        doReturn(index).when(referenceListsIndex).getIndexOfReferenceList(
+            any(IntList.class),
+            anyInt(),
+            anyInt(),
+            any(IntList[].class),
+            any(int[].class),
+            any(int[].class)
+        );
+        return new IntArrayList(referenceListsStore.get(new IntArrayList(new int[] {1}), 1, 10).getList());
+    }
+
     @Test
     public void whenNumberOfRecursiveReferencesIsBiggerThanMaxNumberOfRecursiveReferencesItShouldNotAddList() {
         final IntReferenceListsIndex referenceListsIndex = mock(IntReferenceListsIndex.class);
@@ -128,4 +152,137 @@ public class IntReferenceListsStoreAddTest {
         verify(referenceListsIndex).addListIntoListsInvertedIndex(anyInt(), eq(list));
     }
 
+    @Test
+    public void whenArenaIsFixedAndListDoesNotFitItShouldOverwriteTheOldestLists() {
+        final IntReferenceListsIndex referenceListsIndex = mock(IntReferenceListsIndex.class);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(4, 1, 1, 8, referenceListsIndex);
+        final IntList firstList = new IntArrayList(new int[] {1, 2, 3, 4});
+        final IntList secondList = new IntArrayList(new int[] {5, 6, 7});
+        final IntList thirdList = new IntArrayList(new int[] {8, 9, 10});
+        referenceListsStore.add(0, 0, firstList);
+        referenceListsStore.add(1, 0, secondList);
+
+        final boolean added = referenceListsStore.add(2, 0, thirdList);
+
+        assertTrue(added);
+        verify(referenceListsIndex).removeListFromListsInvertedIndex(eq(0), any(IntList.class));
+        verify(referenceListsIndex, never()).removeListFromListsInvertedIndex(eq(1), any(IntList.class));
+        assertEquals(secondList, getList(referenceListsStore, referenceListsIndex, 1));
+        assertEquals(thirdList, getList(referenceListsStore, referenceListsIndex, 2));
+    }
+
+    @Test
+    public void whenArenaIsFixedAndFullItShouldOverwriteTheOldestListsUntilListFits() {
+        final IntReferenceListsIndex referenceListsIndex = mock(IntReferenceListsIndex.class);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(4, 1, 1, 6, referenceListsIndex);
+        final IntList firstList = new IntArrayList(new int[] {1, 2});
+        final IntList secondList = new IntArrayList(new int[] {3, 4});
+        final IntList thirdList = new IntArrayList(new int[] {5, 6});
+        final IntList fourthList = new IntArrayList(new int[] {7, 8, 9});
+        referenceListsStore.add(0, 0, firstList);
+        referenceListsStore.add(1, 0, secondList);
+        referenceListsStore.add(2, 0, thirdList);
+
+        final boolean added = referenceListsStore.add(3, 0, fourthList);
+
+        assertTrue(added);
+        verify(referenceListsIndex).removeListFromListsInvertedIndex(eq(0), any(IntList.class));
+        verify(referenceListsIndex).removeListFromListsInvertedIndex(eq(1), any(IntList.class));
+        assertEquals(thirdList, getList(referenceListsStore, referenceListsIndex, 2));
+        assertEquals(fourthList, getList(referenceListsStore, referenceListsIndex, 3));
+    }
+
+    @Test
+    public void whenArenaIsFixedAndListIsBiggerThanArenaItShouldNotAddList() {
+        final IntReferenceListsIndex referenceListsIndex = mock(IntReferenceListsIndex.class);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(4, 1, 1, 3, referenceListsIndex);
+
+        final boolean added = referenceListsStore.add(0, 0, new IntArrayList(new int[] {1, 2, 3, 4}));
+
+        assertFalse(added);
+        verify(referenceListsIndex, never()).addListIntoListsInvertedIndex(anyInt(), any(IntList.class));
+    }
+
+    @Test
+    public void whenListIsBiggerThanArenaItShouldOverwriteTheListOnItsPlaceOfTheRing() {
+        final IntReferenceListsIndex referenceListsIndex = mock(IntReferenceListsIndex.class);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(2, 1, 1, 3, referenceListsIndex);
+        final IntList firstList = new IntArrayList(new int[] {1, 2});
+        final IntList secondList = new IntArrayList(new int[] {3, 4});
+        referenceListsStore.add(0, 0, firstList);
+        referenceListsStore.add(1, 0, new IntArrayList(new int[] {5, 6, 7, 8}));
+
+        final boolean added = referenceListsStore.add(2, 0, secondList);
+
+        assertTrue(added);
+        verify(referenceListsIndex, times(1)).removeListFromListsInvertedIndex(eq(0), any(IntList.class));
+        verify(referenceListsIndex, never()).removeListFromListsInvertedIndex(eq(1), any(IntList.class));
+        assertEquals(secondList, getList(referenceListsStore, referenceListsIndex, 0));
+    }
+
+    @Test
+    public void whenArenaIsFixedItShouldGrowUntilItReachesItsSize() {
+        final IntReferenceListsIndex referenceListsIndex = mock(IntReferenceListsIndex.class);
+        final IntReferenceListsStore referenceListsStore =
+            new IntReferenceListsStore(4, 1, 1, 2000, referenceListsIndex);
+        final IntList[] lists = new IntList[3];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new IntArrayList();
+            for (int j = 0; j < 900; j++) {
+                lists[i].add(i + j);
+            }
+
+            assertTrue(referenceListsStore.add(i, 0, lists[i]));
+        }
+
+        verify(referenceListsIndex, times(1)).removeListFromListsInvertedIndex(eq(0), any(IntList.class));
+        assertEquals(lists[1], getList(referenceListsStore, referenceListsIndex, 1));
+        assertEquals(lists[2], getList(referenceListsStore, referenceListsIndex, 2));
+    }
+
+    @Test
+    public void whenArenaIsGrowableItShouldKeepEveryListOfTheWindow() {
+        final IntReferenceListsIndex referenceListsIndex = mock(IntReferenceListsIndex.class);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(3, 1, 1, referenceListsIndex);
+        final IntList[] lists = new IntList[5];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new IntArrayList();
+            for (int j = 0; j < 700 * (i + 1); j++) {
+                lists[i].add(i + j);
+            }
+
+            assertTrue(referenceListsStore.add(i, 0, lists[i]));
+        }
+
+        verify(referenceListsIndex, times(2)).removeListFromListsInvertedIndex(anyInt(), any(IntList.class));
+        assertEquals(lists[3], getList(referenceListsStore, referenceListsIndex, 0));
+        assertEquals(lists[4], getList(referenceListsStore, referenceListsIndex, 1));
+        assertEquals(lists[2], getList(referenceListsStore, referenceListsIndex, 2));
+    }
+
+    @Test
+    public void whenArenaIsGrowableAndStoreIsEmptyItShouldGrowArenaToFitTheList() {
+        final IntReferenceListsIndex referenceListsIndex = mock(IntReferenceListsIndex.class);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(1, 1, 1, referenceListsIndex);
+        final IntList[] lists = new IntList[2];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new IntArrayList();
+            for (int j = 0; j < 1500 * i + 10; j++) {
+                lists[i].add(i + j);
+            }
+
+            assertTrue(referenceListsStore.add(i, 0, lists[i]));
+        }
+
+        assertEquals(lists[1], getList(referenceListsStore, referenceListsIndex, 0));
+    }
+
+    @Test
+    public void whenArenaSizeIsNotPositiveItShouldThrowAnException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Arena size must be positive, found 0");
+
+        new IntReferenceListsStore(4, 1, 1, 0, mock(IntReferenceListsIndex.class));
+    }
+
 }
@@ -21,7 +21,10 @@ import it.unimi.dsi.fastutil.ints.IntList;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.pebble.UnitTest;
+import org.pebble.core.encoding.commons.MinIntervalSizeAware;
+import org.pebble.core.encoding.commons.ReferenceCandidatesCounter;
 
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNull;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertThat;
@@ -29,6 +32,8 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
 
 @Category(UnitTest.class)
 public class IntReferenceListsStoreGetTest {
@@ -91,4 +96,60 @@ public class IntReferenceListsStoreGetTest {
         assertThat(referenceList, instanceOf(IntReferenceListsStore.ReferenceList.class));
     }
 
+    @Test
+    public void itShouldReturnTheNumberOfCandidatesOfTheIndex() {
+        final IntReferenceListsIndex referenceListsIndex = mock(
+            IntReferenceListsIndex.class,
+            withSettings().extraInterfaces(ReferenceCandidatesCounter.class)
+        );
+        doReturn(5).when((ReferenceCandidatesCounter) referenceListsIndex).getNumberOfCandidates();
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(3, 1, 3, referenceListsIndex);
+
+        assertEquals(5, referenceListsStore.getNumberOfCandidates());
+    }
+
+    @Test
+    public void whenTheIndexDoesNotCountCandidatesItShouldReturnZeroCandidates() {
+        final IntReferenceListsIndex referenceListsIndex = mock(IntReferenceListsIndex.class);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(3, 1, 3, referenceListsIndex);
+
+        assertEquals(0, referenceListsStore.getNumberOfCandidates());
+    }
+
+    @Test
+    public void itShouldPassTheMinIntervalSizeToTheIndex() {
+        final IntReferenceListsIndex referenceListsIndex = mock(
+            IntReferenceListsIndex.class,
+            withSettings().extraInterfaces(MinIntervalSizeAware.class)
+        );
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(3, 1, 3, referenceListsIndex);
+
+        referenceListsStore.setMinIntervalSize(2);
+
+        verify((MinIntervalSizeAware) referenceListsIndex).setMinIntervalSize(2);
+    }
+
+    @Test
+    public void returnedReferenceListShouldNotChangeWhenItsSlotIsOverwritten() {
+        final IntReferenceListsIndex referenceListsIndex = mock(IntReferenceListsIndex.class);
+        doReturn(0).when(referenceListsIndex).getIndexOfReferenceList(
+            any(IntList.class),
+            anyInt(),
+            anyInt(),
+            any(IntList[].class),
+            any(int[].class),
+            any(int[].class)
+        );
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(1, 1, 1, 4, referenceListsIndex);
+        referenceListsStore.add(0, 0, new IntArrayList(new int[] {1, 2, 3, 4}));
+        final IntList list = new IntArrayList(new int[] {1, 2, 3, 5});
+
+        final IntReferenceListsStore.ReferenceList referenceList = referenceListsStore.get(list, 3, 1);
+        referenceListsStore.add(1, 1, new IntArrayList(new int[] {5, 6, 7, 8}));
+
+        assertEquals(new IntArrayList(new int[] {1, 2, 3, 4}), referenceList.getList());
+        assertEquals(0, referenceList.getOffset());
+        assertEquals(0, referenceList.getRecursiveReferences());
+    }
+
 }
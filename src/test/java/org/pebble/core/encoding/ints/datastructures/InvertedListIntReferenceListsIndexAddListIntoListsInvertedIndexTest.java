@@ -24,6 +24,7 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.pebble.UnitTest;
 import org.pebble.core.encoding.Helper;
+import org.pebble.core.encoding.commons.InvertedListPostings;
 
 import static org.junit.Assert.assertEquals;
 
@@ -47,7 +48,10 @@ public class InvertedListIntReferenceListsIndexAddListIntoListsInvertedIndexTest
 
         assertEquals(
             Helper.<Integer, Int2ReferenceMap<IntList>>translateToUtilsCollection(expectedListsInvertedIndex),
-            Helper.<Integer, Int2ReferenceMap<IntList>>translateToUtilsCollection(listsIndex.listsInvertedIndex)
+            Helper.<Integer, Int2ReferenceMap<InvertedListPostings>>translateToUtilsCollection(
+                listsIndex.listsInvertedIndex,
+                listsIndex.generations
+            )
         );
     }
 
@@ -62,9 +66,9 @@ public class InvertedListIntReferenceListsIndexAddListIntoListsInvertedIndexTest
             put(8, new IntArrayList(new int[] {1}));
         }};
         final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex();
-        listsIndex.listsInvertedIndex.put(2, new IntArrayList(new int[]{0}));
-        listsIndex.listsInvertedIndex.put(3, new IntArrayList(new int[]{0}));
-        listsIndex.listsInvertedIndex.put(5, new IntArrayList(new int[]{0}));
+        listsIndex.listsInvertedIndex.put(2, new InvertedListPostings(new int[] {0}));
+        listsIndex.listsInvertedIndex.put(3, new InvertedListPostings(new int[] {0}));
+        listsIndex.listsInvertedIndex.put(5, new InvertedListPostings(new int[] {0}));
         final int index = 1;
         final IntList list = new IntArrayList(new int[] {1, 3, 4, 5, 8});
 
@@ -72,7 +76,10 @@ public class InvertedListIntReferenceListsIndexAddListIntoListsInvertedIndexTest
 
         assertEquals(
             Helper.<Integer, Int2ReferenceMap<IntList>>translateToUtilsCollection(expectedListsInvertedIndex),
-            Helper.<Integer, Int2ReferenceMap<IntList>>translateToUtilsCollection(listsIndex.listsInvertedIndex)
+            Helper.<Integer, Int2ReferenceMap<InvertedListPostings>>translateToUtilsCollection(
+                listsIndex.listsInvertedIndex,
+                listsIndex.generations
+            )
         );
     }
 
@@ -21,6 +21,7 @@ import it.unimi.dsi.fastutil.ints.IntList;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.pebble.UnitTest;
+import org.pebble.core.encoding.commons.InvertedListPostings;
 
 import static junit.framework.TestCase.assertEquals;
 
@@ -35,13 +36,13 @@ public class InvertedListIntReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex() {{
-            listsInvertedIndex.put(2, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(4, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(5, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(6, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(7, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(9, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(11, new IntArrayList(new int[] {1}));
+            listsInvertedIndex.put(2, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(4, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(5, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(7, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(9, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(11, new InvertedListPostings(new int[] {1}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {0, 0};
@@ -59,6 +60,7 @@ public class InvertedListIntReferenceListsIndexGetIndexOfReferenceListTest {
         );
 
         assertEquals(expectedReferenceListIndex, referenceListIndex);
+        assertEquals(2, listsIndex.getNumberOfCandidates());
     }
 
     @Test
@@ -69,13 +71,13 @@ public class InvertedListIntReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex() {{
-            listsInvertedIndex.put(2, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(4, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(5, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(6, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(7, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(9, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(11, new IntArrayList(new int[] {0}));
+            listsInvertedIndex.put(2, new InvertedListPostings(new int[] {1}));
+            listsInvertedIndex.put(4, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(5, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(7, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(9, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(11, new InvertedListPostings(new int[] {0}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {0, 0};
@@ -103,13 +105,13 @@ public class InvertedListIntReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex() {{
-            listsInvertedIndex.put(2, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(4, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(5, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(6, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(7, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(9, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(11, new IntArrayList(new int[] {0}));
+            listsInvertedIndex.put(2, new InvertedListPostings(new int[] {1}));
+            listsInvertedIndex.put(4, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(5, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(7, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(9, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(11, new InvertedListPostings(new int[] {0}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {1, 0};
@@ -137,14 +139,14 @@ public class InvertedListIntReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex() {{
-            listsInvertedIndex.put(2, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(3, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(4, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(5, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(6, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(7, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(8, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(10, new IntArrayList(new int[] {1}));
+            listsInvertedIndex.put(2, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(3, new InvertedListPostings(new int[] {1}));
+            listsInvertedIndex.put(4, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(5, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(6, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(7, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(8, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(10, new InvertedListPostings(new int[] {1}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {0, 0};
@@ -172,13 +174,13 @@ public class InvertedListIntReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex() {{
-            listsInvertedIndex.put(6, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(10, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(12, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(14, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(16, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(18, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(20, new IntArrayList(new int[] {0, 1}));
+            listsInvertedIndex.put(6, new InvertedListPostings(new int[] {1}));
+            listsInvertedIndex.put(10, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(12, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(14, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(16, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(18, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(20, new InvertedListPostings(new int[] {0, 1}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {0, 0};
@@ -206,11 +208,11 @@ public class InvertedListIntReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex() {{
-            listsInvertedIndex.put(2, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(4, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(6, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(8, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(9, new IntArrayList(new int[] {1}));
+            listsInvertedIndex.put(2, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(4, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(8, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(9, new InvertedListPostings(new int[] {1}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {1, 0};
@@ -238,11 +240,11 @@ public class InvertedListIntReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex() {{
-            listsInvertedIndex.put(2, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(4, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(6, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(8, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(9, new IntArrayList(new int[] {1}));
+            listsInvertedIndex.put(2, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(4, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(8, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(9, new InvertedListPostings(new int[] {1}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {0, 0};
@@ -262,4 +264,210 @@ public class InvertedListIntReferenceListsIndexGetIndexOfReferenceListTest {
         assertEquals(expectedReferenceListIndex, referenceListIndex);
     }
 
+    @Test
+    public void whenReferenceListOffsetIsTooBigItShouldBeDiscardedWithoutComputingItsDifference() {
+        final IntList[] lists = new IntList[] {
+            new IntArrayList(new int[] {2, 4, 6})
+        };
+        final int valueBitSize = 3;
+        final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex() {{
+            listsInvertedIndex.put(2, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(4, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(6, new InvertedListPostings(new int[] {0}));
+        }};
+        final int[] offsets = new int[] {0};
+        final int[] recursiveReferences = new int[] {0};
+        final int listIndex = 1 << 20;
+        final IntList list = new IntArrayList(new int[] {2, 4, 6});
+        final int expectedReferenceListIndex = -1;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenLimitingNumberOfCandidatesItShouldOnlyEvaluateTheCandidatesWithMoreMatchingValues() {
+        final IntList[] lists = new IntList[] {
+            new IntArrayList(new int[] {2, 4, 6, 8}),
+            new IntArrayList(new int[] {2, 9}),
+            new IntArrayList(new int[] {2, 4, 6, 7})
+        };
+        final int valueBitSize = 3;
+        final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex(
+            1,
+            Integer.MAX_VALUE
+        ) {{
+            listsInvertedIndex.put(2, new InvertedListPostings(new int[] {1, 2, 0}));
+            listsInvertedIndex.put(4, new InvertedListPostings(new int[] {0, 2}));
+            listsInvertedIndex.put(6, new InvertedListPostings(new int[] {0, 2}));
+            listsInvertedIndex.put(7, new InvertedListPostings(new int[] {2}));
+            listsInvertedIndex.put(8, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(9, new InvertedListPostings(new int[] {1}));
+        }};
+        final int[] offsets = new int[] {2, 1, 0};
+        final int[] recursiveReferences = new int[] {0, 0, 0};
+        final int listIndex = 3;
+        final IntList list = new IntArrayList(new int[] {2, 4, 6, 7});
+        final int expectedReferenceListIndex = 2;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenLimitingPostingListsSizeItShouldOnlyEvaluateTheMostRecentlyAddedLists() {
+        final IntList[] lists = new IntList[] {
+            new IntArrayList(new int[] {2, 4, 6, 8}),
+            new IntArrayList(new int[] {1, 2, 4, 6, 8})
+        };
+        final int valueBitSize = 3;
+        final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex(
+            2,
+            1
+        ) {{
+            listsInvertedIndex.put(2, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(4, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(8, new InvertedListPostings(new int[] {0, 1}));
+        }};
+        final int[] offsets = new int[] {0, 1};
+        final int[] recursiveReferences = new int[] {0, 0};
+        final int listIndex = 2;
+        final IntList list = new IntArrayList(new int[] {2, 4, 6, 8});
+        final int expectedReferenceListIndex = 1;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenListsHaveBeenRemovedItShouldOnlyEvaluateTheListsThatAreStillIndexed() {
+        final IntList[] lists = new IntList[] {
+            new IntArrayList(new int[] {2, 4, 6, 8}),
+            new IntArrayList(new int[] {1, 2, 4, 6, 8}),
+            new IntArrayList(new int[] {2, 4, 6, 9})
+        };
+        final int valueBitSize = 3;
+        final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex(
+            Integer.MAX_VALUE,
+            1
+        );
+        listsIndex.addListIntoListsInvertedIndex(0, lists[0]);
+        listsIndex.addListIntoListsInvertedIndex(1, lists[1]);
+        listsIndex.removeListFromListsInvertedIndex(1, lists[1]);
+        listsIndex.addListIntoListsInvertedIndex(2, lists[2]);
+        listsIndex.removeListFromListsInvertedIndex(2, lists[2]);
+        final int[] offsets = new int[] {0, 1, 2};
+        final int[] recursiveReferences = new int[] {0, 0, 0};
+        final int listIndex = 3;
+        final IntList list = new IntArrayList(new int[] {2, 4, 6, 8});
+        final int expectedReferenceListIndex = 0;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenLimitingNumberOfCandidatesItShouldKeepTheCandidatesWithMoreMatchingValues() {
+        final IntList[] lists = new IntList[] {
+            new IntArrayList(new int[] {2}),
+            new IntArrayList(new int[] {2, 4}),
+            new IntArrayList(new int[] {2, 4, 6}),
+            new IntArrayList(new int[] {2, 4, 6, 8})
+        };
+        final int valueBitSize = 3;
+        final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex(
+            2,
+            Integer.MAX_VALUE
+        ) {{
+            listsInvertedIndex.put(2, new InvertedListPostings(new int[] {0, 3, 2, 1}));
+            listsInvertedIndex.put(4, new InvertedListPostings(new int[] {1, 2, 3}));
+            listsInvertedIndex.put(6, new InvertedListPostings(new int[] {2, 3}));
+            listsInvertedIndex.put(8, new InvertedListPostings(new int[] {3}));
+        }};
+        final int[] offsets = new int[] {0, 1, 2, 3};
+        final int[] recursiveReferences = new int[] {0, 0, 0, 0};
+        final int listIndex = 4;
+        final IntList list = new IntArrayList(new int[] {2, 4, 6, 8});
+        final int expectedReferenceListIndex = 3;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenLimitingPostingListsSizeItShouldNotTakeIntoAccountRemovedLists() {
+        final IntList[] lists = new IntList[] {
+            new IntArrayList(new int[] {2, 4, 6, 8}),
+            new IntArrayList(new int[] {2, 4, 6, 8, 10}),
+            new IntArrayList(new int[] {2, 4, 6, 8}),
+            new IntArrayList(new int[] {2, 4, 6, 8, 12, 14, 16, 18, 20, 22, 24})
+        };
+        final int valueBitSize = 4;
+        final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex(
+            Integer.MAX_VALUE,
+            2
+        );
+        for (int i = 0; i < lists.length; i++) {
+            listsIndex.addListIntoListsInvertedIndex(i, lists[i]);
+        }
+        listsIndex.removeListFromListsInvertedIndex(2, lists[2]);
+        final int[] offsets = new int[] {0, 1, 2, 3};
+        final int[] recursiveReferences = new int[] {0, 0, 0, 0};
+        final int listIndex = 4;
+        final IntList list = new IntArrayList(new int[] {2, 4, 6, 8});
+        final int expectedReferenceListIndex = 3;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
 }
@@ -24,6 +24,7 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.pebble.UnitTest;
 import org.pebble.core.encoding.Helper;
+import org.pebble.core.encoding.commons.InvertedListPostings;
 
 import static junit.framework.TestCase.assertEquals;
 
@@ -38,15 +39,10 @@ public class InvertedListIntReferenceListsIndexRemoveListFromListsInvertedIndexT
             put(5, new IntArrayList(new int[] {0, 2}));
             put(9, new IntArrayList(new int[] {2}));
         }};
-        final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex() {{
-            listsInvertedIndex.put(1, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(2, new IntArrayList(new int[] {2}));
-            listsInvertedIndex.put(3, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(4, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(5, new IntArrayList(new int[] {0, 1, 2}));
-            listsInvertedIndex.put(8, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(9, new IntArrayList() {{ add(2); }});
-        }};
+        final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex();
+        listsIndex.addListIntoListsInvertedIndex(0, new IntArrayList(new int[] {3, 5}));
+        listsIndex.addListIntoListsInvertedIndex(1, new IntArrayList(new int[] {1, 3, 4, 5, 8}));
+        listsIndex.addListIntoListsInvertedIndex(2, new IntArrayList(new int[] {2, 5, 9}));
         final int index = 1;
         final IntList list = new IntArrayList(new int[] {1, 3, 4, 5, 8});
 
@@ -54,7 +50,35 @@ public class InvertedListIntReferenceListsIndexRemoveListFromListsInvertedIndexT
 
         assertEquals(
             Helper.<Integer, Int2ReferenceMap<IntList>>translateToUtilsCollection(expectedListsInvertedIndex),
-            Helper.<Integer, Int2ReferenceMap<IntList>>translateToUtilsCollection(listsIndex.listsInvertedIndex)
+            Helper.<Integer, Int2ReferenceMap<InvertedListPostings>>translateToUtilsCollection(
+                listsIndex.listsInvertedIndex,
+                listsIndex.generations
+            )
+        );
+    }
+
+    @Test
+    public void whenRemovedListIndexIsReusedItShouldOnlyKeepTheNewListOnTheIndex() {
+        final Int2ReferenceMap<IntList> expectedListsInvertedIndex = new Int2ReferenceOpenHashMap<IntList>() {{
+            put(3, new IntArrayList(new int[] {0, 1}));
+            put(5, new IntArrayList(new int[] {0}));
+            put(7, new IntArrayList(new int[] {1}));
+        }};
+        final InvertedListIntReferenceListsIndex listsIndex = new InvertedListIntReferenceListsIndex();
+        listsIndex.addListIntoListsInvertedIndex(0, new IntArrayList(new int[] {3, 5}));
+        listsIndex.addListIntoListsInvertedIndex(1, new IntArrayList(new int[] {3, 5}));
+        final int index = 1;
+        final IntList list = new IntArrayList(new int[] {3, 5});
+
+        listsIndex.removeListFromListsInvertedIndex(index, list);
+        listsIndex.addListIntoListsInvertedIndex(index, new IntArrayList(new int[] {3, 7}));
+
+        assertEquals(
+            Helper.<Integer, Int2ReferenceMap<IntList>>translateToUtilsCollection(expectedListsInvertedIndex),
+            Helper.<Integer, Int2ReferenceMap<InvertedListPostings>>translateToUtilsCollection(
+                listsIndex.listsInvertedIndex,
+                listsIndex.generations
+            )
         );
     }
 
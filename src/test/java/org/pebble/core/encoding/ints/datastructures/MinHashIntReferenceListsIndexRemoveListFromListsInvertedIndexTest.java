@@ -0,0 +1,69 @@
+package org.pebble.core.encoding.ints.datastructures;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+import org.pebble.core.encoding.Helper;
+import org.pebble.core.encoding.commons.InvertedListPostings;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+@Category(UnitTest.class)
+public class MinHashIntReferenceListsIndexRemoveListFromListsInvertedIndexTest {
+
+    @Test
+    public void whenIndexHasAnIdenticalListItShouldOnlyRemoveTheGivenIndex() {
+        final int bands = 4;
+        final MinHashIntReferenceListsIndex listsIndex = new MinHashIntReferenceListsIndex(bands, 2, 8);
+        listsIndex.addListIntoListsInvertedIndex(0, new IntArrayList(new int[] {1, 3, 4, 5, 8}));
+        listsIndex.addListIntoListsInvertedIndex(1, new IntArrayList(new int[] {1, 3, 4, 5, 8}));
+        final int index = 1;
+        final IntList list = new IntArrayList(new int[] {1, 3, 4, 5, 8});
+
+        listsIndex.removeListFromListsInvertedIndex(index, list);
+
+        final Map<Long, List<Integer>> bandsIndex = Helper.<Long, Long2ReferenceMap<InvertedListPostings>>
+            translateToUtilsCollection(listsIndex.bandsIndex, listsIndex.generations);
+        assertEquals(bands, bandsIndex.size());
+        for (List<Integer> indexes : bandsIndex.values()) {
+            assertEquals(Arrays.asList(0), indexes);
+        }
+    }
+
+    @Test
+    public void whenRemovingTheOnlyListItShouldLeaveIndexEmpty() {
+        final MinHashIntReferenceListsIndex listsIndex = new MinHashIntReferenceListsIndex(4, 2, 8);
+        listsIndex.addListIntoListsInvertedIndex(0, new IntArrayList(new int[] {1, 3, 4, 5, 8}));
+        final int index = 0;
+        final IntList list = new IntArrayList(new int[] {1, 3, 4, 5, 8});
+
+        listsIndex.removeListFromListsInvertedIndex(index, list);
+
+        assertTrue(listsIndex.bandsIndex.isEmpty());
+    }
+
+}
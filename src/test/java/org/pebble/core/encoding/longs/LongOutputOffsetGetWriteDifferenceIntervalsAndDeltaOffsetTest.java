@@ -0,0 +1,129 @@
+package org.pebble.core.encoding.longs;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+@Category(UnitTest.class)
+public class LongOutputOffsetGetWriteDifferenceIntervalsAndDeltaOffsetTest {
+
+    private static int getExpectedOffset(final LongList list, final LongList referenceList, final int valueBitSize) {
+        final LongOutputOffset outputOffset = new LongOutputOffset();
+        final LongList clonedList = new LongArrayList(list);
+        return outputOffset.getWriteDifferenceOffset(clonedList, referenceList) +
+            outputOffset.getWriteIntervalsOffset(clonedList, valueBitSize) +
+            outputOffset.getWriteDeltaOffset(clonedList, valueBitSize);
+    }
+
+    private static LongList getRandomList(final Random random, final int maxSize) {
+        final LongList list = new LongArrayList();
+        final int size = 1 + random.nextInt(maxSize);
+        long value = random.nextInt(4);
+        for (int i = 0; i < size; i++) {
+            list.add(value);
+            value += random.nextInt(3) == 0 ? 2 + random.nextInt(4) : 1;
+        }
+        return list;
+    }
+
+    @Test
+    public void itShouldGetSameOffsetThanWritingDifferenceIntervalsAndDeltaSuccessfully() {
+        final int valueBitSize = 5;
+        final LongList list = new LongArrayList(new long[] {3, 4, 5, 8, 9, 11, 12, 13, 14, 20});
+        final LongList referenceList = new LongArrayList(new long[] {1, 2, 4, 8, 9, 10, 11});
+        final LongOutputOffset outputOffset = new LongOutputOffset();
+        final int expectedOffset = getExpectedOffset(list, referenceList, valueBitSize);
+
+        final int offset = outputOffset.getWriteDifferenceIntervalsAndDeltaOffset(
+            list,
+            referenceList,
+            valueBitSize,
+            Integer.MAX_VALUE
+        );
+
+        assertEquals(expectedOffset, offset);
+    }
+
+    @Test
+    public void itShouldNotModifyTheGivenLists() {
+        final int valueBitSize = 5;
+        final LongList list = new LongArrayList(new long[] {3, 4, 5, 8, 9, 11, 12, 13});
+        final LongList referenceList = new LongArrayList(new long[] {1, 2, 4, 8, 9, 10, 11});
+        final LongList expectedList = new LongArrayList(list);
+        final LongList expectedReferenceList = new LongArrayList(referenceList);
+        final LongOutputOffset outputOffset = new LongOutputOffset();
+
+        outputOffset.getWriteDifferenceIntervalsAndDeltaOffset(list, referenceList, valueBitSize, Integer.MAX_VALUE);
+
+        assertEquals(expectedList, list);
+        assertEquals(expectedReferenceList, referenceList);
+    }
+
+    @Test
+    public void whenOffsetIsBiggerThanMaxOffsetItShouldReturnAnOffsetBiggerThanMaxOffset() {
+        final int valueBitSize = 5;
+        final LongList list = new LongArrayList(new long[] {3, 4, 5, 8, 9, 11, 12, 13});
+        final LongList referenceList = new LongArrayList(new long[] {1, 2, 4, 8, 9, 10, 11});
+        final LongOutputOffset outputOffset = new LongOutputOffset();
+        final int maxOffset = getExpectedOffset(list, referenceList, valueBitSize) - 1;
+
+        final int offset = outputOffset.getWriteDifferenceIntervalsAndDeltaOffset(
+            list,
+            referenceList,
+            valueBitSize,
+            maxOffset
+        );
+
+        assertTrue(offset > maxOffset);
+    }
+
+    @Test
+    public void forRandomListsItShouldGetSameOffsetThanWritingDifferenceIntervalsAndDeltaWhenNotBiggerThanMaxOffset() {
+        final int valueBitSize = 7;
+        final Random random = new Random(0x5eed);
+        final LongOutputOffset outputOffset = new LongOutputOffset();
+        LongList list;
+        LongList referenceList;
+        int expectedOffset;
+        int maxOffset;
+        int offset;
+        for (int i = 0; i < 2000; i++) {
+            list = getRandomList(random, 24);
+            referenceList = getRandomList(random, 24);
+            expectedOffset = getExpectedOffset(list, referenceList, valueBitSize);
+            maxOffset = random.nextInt(2 * expectedOffset);
+
+            offset = outputOffset.getWriteDifferenceIntervalsAndDeltaOffset(list, referenceList, valueBitSize, maxOffset);
+
+            if (expectedOffset <= maxOffset) {
+                assertEquals(expectedOffset, offset);
+            } else {
+                assertTrue(offset > maxOffset);
+            }
+        }
+    }
+
+}
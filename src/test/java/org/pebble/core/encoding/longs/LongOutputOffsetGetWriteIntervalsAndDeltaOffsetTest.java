@@ -0,0 +1,70 @@
+package org.pebble.core.encoding.longs;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+
+import static junit.framework.TestCase.assertEquals;
+
+@Category(UnitTest.class)
+public class LongOutputOffsetGetWriteIntervalsAndDeltaOffsetTest {
+
+    @Test
+    public void itShouldGetSameOffsetThanWritingIntervalsAndDeltaSuccessfully() {
+        final int valueBitSize = 5;
+        final LongList list = new LongArrayList(
+            new long[] {1, 3, 4, 5, 7, 8, 9, 10, 12, 14, 15, 16, 17, 19, 20, 21, 22, 23, 24, 30}
+        );
+        final LongOutputOffset outputOffset = new LongOutputOffset();
+        final LongList clonedList = new LongArrayList(list);
+        final int expectedOffset = outputOffset.getWriteIntervalsOffset(clonedList, valueBitSize) +
+            outputOffset.getWriteDeltaOffset(clonedList, valueBitSize);
+
+        final int offset = outputOffset.getWriteIntervalsAndDeltaOffset(list, valueBitSize);
+
+        assertEquals(expectedOffset, offset);
+    }
+
+    @Test
+    public void whenListIsEmptyItShouldGetExpectedOffsetSuccessfully() {
+        final int valueBitSize = 5;
+        final LongList list = new LongArrayList();
+        final int expectedOffset = 2;
+        final LongOutputOffset outputOffset = new LongOutputOffset();
+
+        final int offset = outputOffset.getWriteIntervalsAndDeltaOffset(list, valueBitSize);
+
+        assertEquals(expectedOffset, offset);
+    }
+
+    @Test
+    public void itShouldNotModifyTheGivenList() {
+        final int valueBitSize = 5;
+        final LongList list = new LongArrayList(new long[] {1, 2, 3, 4, 5, 10, 12});
+        final LongList expectedList = new LongArrayList(list);
+        final LongOutputOffset outputOffset = new LongOutputOffset();
+
+        outputOffset.getWriteIntervalsAndDeltaOffset(list, valueBitSize);
+
+        assertEquals(expectedList, list);
+    }
+
+}
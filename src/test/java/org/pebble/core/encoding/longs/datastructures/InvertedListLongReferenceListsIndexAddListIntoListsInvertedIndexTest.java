@@ -26,6 +26,7 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.pebble.UnitTest;
 import org.pebble.core.encoding.Helper;
+import org.pebble.core.encoding.commons.InvertedListPostings;
 
 import static org.junit.Assert.assertEquals;
 
@@ -48,7 +49,10 @@ public class InvertedListLongReferenceListsIndexAddListIntoListsInvertedIndexTes
         listsIndex.addListIntoListsInvertedIndex(index, list);
         assertEquals(
             Helper.<Long, Long2ReferenceMap<IntList>>translateToUtilsCollection(expectedListsInvertedIndex),
-            Helper.<Long, Long2ReferenceMap<IntList>>translateToUtilsCollection(listsIndex.listsInvertedIndex)
+            Helper.<Long, Long2ReferenceMap<InvertedListPostings>>translateToUtilsCollection(
+                listsIndex.listsInvertedIndex,
+                listsIndex.generations
+            )
         );
     }
 
@@ -63,9 +67,9 @@ public class InvertedListLongReferenceListsIndexAddListIntoListsInvertedIndexTes
             put(8L, new IntArrayList(new int[] {1}));
         }};
         final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex();
-        listsIndex.listsInvertedIndex.put(2L, new IntArrayList(new int[]{0}));
-        listsIndex.listsInvertedIndex.put(3L, new IntArrayList(new int[]{0}));
-        listsIndex.listsInvertedIndex.put(5L, new IntArrayList(new int[]{0}));
+        listsIndex.listsInvertedIndex.put(2L, new InvertedListPostings(new int[] {0}));
+        listsIndex.listsInvertedIndex.put(3L, new InvertedListPostings(new int[] {0}));
+        listsIndex.listsInvertedIndex.put(5L, new InvertedListPostings(new int[] {0}));
         final int index = 1;
         final LongList list = new LongArrayList(new long[] {1L, 3L, 4L, 5L, 8L});
 
@@ -73,7 +77,10 @@ public class InvertedListLongReferenceListsIndexAddListIntoListsInvertedIndexTes
 
         assertEquals(
             Helper.<Long, Long2ReferenceMap<IntList>>translateToUtilsCollection(expectedListsInvertedIndex),
-            Helper.<Long, Long2ReferenceMap<IntList>>translateToUtilsCollection(listsIndex.listsInvertedIndex)
+            Helper.<Long, Long2ReferenceMap<InvertedListPostings>>translateToUtilsCollection(
+                listsIndex.listsInvertedIndex,
+                listsIndex.generations
+            )
         );
     }
 
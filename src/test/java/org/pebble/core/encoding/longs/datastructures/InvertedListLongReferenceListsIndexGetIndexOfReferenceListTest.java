@@ -16,12 +16,12 @@ package org.pebble.core.encoding.longs.datastructures;
  *  limitations under the License.
  */
 
-import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongList;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.pebble.UnitTest;
+import org.pebble.core.encoding.commons.InvertedListPostings;
 
 import static junit.framework.TestCase.assertEquals;
 
@@ -36,13 +36,13 @@ public class InvertedListLongReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex() {{
-            listsInvertedIndex.put(2L, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(4L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(5L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(6L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(7L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(9L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(11L, new IntArrayList(new int[] {1}));
+            listsInvertedIndex.put(2L, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(4L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(5L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(7L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(9L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(11L, new InvertedListPostings(new int[] {1}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {0, 0};
@@ -60,6 +60,7 @@ public class InvertedListLongReferenceListsIndexGetIndexOfReferenceListTest {
         );
 
         assertEquals(expectedReferenceListIndex, referenceListIndex);
+        assertEquals(2, listsIndex.getNumberOfCandidates());
     }
 
     @Test
@@ -70,13 +71,13 @@ public class InvertedListLongReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex() {{
-            listsInvertedIndex.put(2L, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(4L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(5L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(6L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(7L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(9L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(11L, new IntArrayList(new int[] {0}));
+            listsInvertedIndex.put(2L, new InvertedListPostings(new int[] {1}));
+            listsInvertedIndex.put(4L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(5L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(7L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(9L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(11L, new InvertedListPostings(new int[] {0}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {0, 0};
@@ -104,13 +105,13 @@ public class InvertedListLongReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex() {{
-            listsInvertedIndex.put(2L, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(4L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(5L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(6L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(7L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(9L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(11L, new IntArrayList(new int[] {0}));
+            listsInvertedIndex.put(2L, new InvertedListPostings(new int[] {1}));
+            listsInvertedIndex.put(4L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(5L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(7L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(9L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(11L, new InvertedListPostings(new int[] {0}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {1, 0};
@@ -138,14 +139,14 @@ public class InvertedListLongReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex() {{
-            listsInvertedIndex.put(2L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(3L, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(4L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(5L, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(6L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(7L, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(8L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(10L, new IntArrayList(new int[] {1}));
+            listsInvertedIndex.put(2L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(3L, new InvertedListPostings(new int[] {1}));
+            listsInvertedIndex.put(4L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(5L, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(6L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(7L, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(8L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(10L, new InvertedListPostings(new int[] {1}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {0, 0};
@@ -173,13 +174,13 @@ public class InvertedListLongReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex() {{
-            listsInvertedIndex.put(6L, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(10L, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(12L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(14L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(16L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(18L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(20L, new IntArrayList(new int[] {0, 1}));
+            listsInvertedIndex.put(6L, new InvertedListPostings(new int[] {1}));
+            listsInvertedIndex.put(10L, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(12L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(14L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(16L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(18L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(20L, new InvertedListPostings(new int[] {0, 1}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {0, 0};
@@ -209,11 +210,11 @@ public class InvertedListLongReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex() {{
-            listsInvertedIndex.put(2L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(4L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(6L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(8L, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(9L, new IntArrayList(new int[] {1}));
+            listsInvertedIndex.put(2L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(4L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(8L, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(9L, new InvertedListPostings(new int[] {1}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {1, 0};
@@ -241,11 +242,11 @@ public class InvertedListLongReferenceListsIndexGetIndexOfReferenceListTest {
         };
         final int valueBitSize = 3;
         final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex() {{
-            listsInvertedIndex.put(2L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(4L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(6L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(8L, new IntArrayList(new int[] {0}));
-            listsInvertedIndex.put(9L, new IntArrayList(new int[] {1}));
+            listsInvertedIndex.put(2L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(4L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(8L, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(9L, new InvertedListPostings(new int[] {1}));
         }};
         final int[] offsets = new int[] {0, 1};
         final int[] recursiveReferences = new int[] {0, 0};
@@ -265,4 +266,210 @@ public class InvertedListLongReferenceListsIndexGetIndexOfReferenceListTest {
         assertEquals(expectedReferenceListIndex, referenceListIndex);
     }
 
+    @Test
+    public void whenReferenceListOffsetIsTooBigItShouldBeDiscardedWithoutComputingItsDifference() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2, 4, 6})
+        };
+        final int valueBitSize = 3;
+        final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex() {{
+            listsInvertedIndex.put(2L, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(4L, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(6L, new InvertedListPostings(new int[] {0}));
+        }};
+        final int[] offsets = new int[] {0};
+        final int[] recursiveReferences = new int[] {0};
+        final int listIndex = 1 << 20;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6});
+        final int expectedReferenceListIndex = -1;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenLimitingNumberOfCandidatesItShouldOnlyEvaluateTheCandidatesWithMoreMatchingValues() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2, 4, 6, 8}),
+            new LongArrayList(new long[] {2, 9}),
+            new LongArrayList(new long[] {2, 4, 6, 7})
+        };
+        final int valueBitSize = 3;
+        final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex(
+            1,
+            Integer.MAX_VALUE
+        ) {{
+            listsInvertedIndex.put(2L, new InvertedListPostings(new int[] {1, 2, 0}));
+            listsInvertedIndex.put(4L, new InvertedListPostings(new int[] {0, 2}));
+            listsInvertedIndex.put(6L, new InvertedListPostings(new int[] {0, 2}));
+            listsInvertedIndex.put(7L, new InvertedListPostings(new int[] {2}));
+            listsInvertedIndex.put(8L, new InvertedListPostings(new int[] {0}));
+            listsInvertedIndex.put(9L, new InvertedListPostings(new int[] {1}));
+        }};
+        final int[] offsets = new int[] {2, 1, 0};
+        final int[] recursiveReferences = new int[] {0, 0, 0};
+        final int listIndex = 3;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6, 7});
+        final int expectedReferenceListIndex = 2;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenLimitingPostingListsSizeItShouldOnlyEvaluateTheMostRecentlyAddedLists() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2, 4, 6, 8}),
+            new LongArrayList(new long[] {1, 2, 4, 6, 8})
+        };
+        final int valueBitSize = 3;
+        final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex(
+            2,
+            1
+        ) {{
+            listsInvertedIndex.put(2L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(4L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(6L, new InvertedListPostings(new int[] {0, 1}));
+            listsInvertedIndex.put(8L, new InvertedListPostings(new int[] {0, 1}));
+        }};
+        final int[] offsets = new int[] {0, 1};
+        final int[] recursiveReferences = new int[] {0, 0};
+        final int listIndex = 2;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6, 8});
+        final int expectedReferenceListIndex = 1;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenListsHaveBeenRemovedItShouldOnlyEvaluateTheListsThatAreStillIndexed() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2, 4, 6, 8}),
+            new LongArrayList(new long[] {1, 2, 4, 6, 8}),
+            new LongArrayList(new long[] {2, 4, 6, 9})
+        };
+        final int valueBitSize = 3;
+        final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex(
+            Integer.MAX_VALUE,
+            1
+        );
+        listsIndex.addListIntoListsInvertedIndex(0, lists[0]);
+        listsIndex.addListIntoListsInvertedIndex(1, lists[1]);
+        listsIndex.removeListFromListsInvertedIndex(1, lists[1]);
+        listsIndex.addListIntoListsInvertedIndex(2, lists[2]);
+        listsIndex.removeListFromListsInvertedIndex(2, lists[2]);
+        final int[] offsets = new int[] {0, 1, 2};
+        final int[] recursiveReferences = new int[] {0, 0, 0};
+        final int listIndex = 3;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6, 8});
+        final int expectedReferenceListIndex = 0;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenLimitingNumberOfCandidatesItShouldKeepTheCandidatesWithMoreMatchingValues() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2}),
+            new LongArrayList(new long[] {2, 4}),
+            new LongArrayList(new long[] {2, 4, 6}),
+            new LongArrayList(new long[] {2, 4, 6, 8})
+        };
+        final int valueBitSize = 3;
+        final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex(
+            2,
+            Integer.MAX_VALUE
+        ) {{
+            listsInvertedIndex.put(2L, new InvertedListPostings(new int[] {0, 3, 2, 1}));
+            listsInvertedIndex.put(4L, new InvertedListPostings(new int[] {1, 2, 3}));
+            listsInvertedIndex.put(6L, new InvertedListPostings(new int[] {2, 3}));
+            listsInvertedIndex.put(8L, new InvertedListPostings(new int[] {3}));
+        }};
+        final int[] offsets = new int[] {0, 1, 2, 3};
+        final int[] recursiveReferences = new int[] {0, 0, 0, 0};
+        final int listIndex = 4;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6, 8});
+        final int expectedReferenceListIndex = 3;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenLimitingPostingListsSizeItShouldNotTakeIntoAccountRemovedLists() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2, 4, 6, 8}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10}),
+            new LongArrayList(new long[] {2, 4, 6, 8}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 12, 14, 16, 18, 20, 22, 24})
+        };
+        final int valueBitSize = 4;
+        final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex(
+            Integer.MAX_VALUE,
+            2
+        );
+        for (int i = 0; i < lists.length; i++) {
+            listsIndex.addListIntoListsInvertedIndex(i, lists[i]);
+        }
+        listsIndex.removeListFromListsInvertedIndex(2, lists[2]);
+        final int[] offsets = new int[] {0, 1, 2, 3};
+        final int[] recursiveReferences = new int[] {0, 0, 0, 0};
+        final int listIndex = 4;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6, 8});
+        final int expectedReferenceListIndex = 3;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
 }
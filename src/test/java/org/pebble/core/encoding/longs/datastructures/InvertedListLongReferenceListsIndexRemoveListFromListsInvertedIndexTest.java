@@ -26,6 +26,7 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.pebble.UnitTest;
 import org.pebble.core.encoding.Helper;
+import org.pebble.core.encoding.commons.InvertedListPostings;
 
 import static junit.framework.TestCase.assertEquals;
 
@@ -40,15 +41,10 @@ public class InvertedListLongReferenceListsIndexRemoveListFromListsInvertedIndex
             put(5L, new IntArrayList(new int[] {0, 2}));
             put(9L, new IntArrayList(new int[] {2}));
         }};
-        final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex() {{
-            listsInvertedIndex.put(1L, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(2L, new IntArrayList(new int[] {2}));
-            listsInvertedIndex.put(3L, new IntArrayList(new int[] {0, 1}));
-            listsInvertedIndex.put(4L, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(5L, new IntArrayList(new int[] {0, 1, 2}));
-            listsInvertedIndex.put(8L, new IntArrayList(new int[] {1}));
-            listsInvertedIndex.put(9L, new IntArrayList() {{ add(2); }});
-        }};
+        final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex();
+        listsIndex.addListIntoListsInvertedIndex(0, new LongArrayList(new long[] {3L, 5L}));
+        listsIndex.addListIntoListsInvertedIndex(1, new LongArrayList(new long[] {1L, 3L, 4L, 5L, 8L}));
+        listsIndex.addListIntoListsInvertedIndex(2, new LongArrayList(new long[] {2L, 5L, 9L}));
         final int index = 1;
         final LongList list = new LongArrayList(new long[] {1L, 3L, 4L, 5L, 8L});
 
@@ -56,7 +52,35 @@ public class InvertedListLongReferenceListsIndexRemoveListFromListsInvertedIndex
 
         assertEquals(
             Helper.<Long, Long2ReferenceMap<IntList>>translateToUtilsCollection(expectedListsInvertedIndex),
-            Helper.<Long, Long2ReferenceMap<IntList>>translateToUtilsCollection(listsIndex.listsInvertedIndex)
+            Helper.<Long, Long2ReferenceMap<InvertedListPostings>>translateToUtilsCollection(
+                listsIndex.listsInvertedIndex,
+                listsIndex.generations
+            )
+        );
+    }
+
+    @Test
+    public void whenRemovedListIndexIsReusedItShouldOnlyKeepTheNewListOnTheIndex() {
+        final Long2ReferenceMap<IntList> expectedListsInvertedIndex = new Long2ReferenceOpenHashMap<IntList>() {{
+            put(3L, new IntArrayList(new int[] {0, 1}));
+            put(5L, new IntArrayList(new int[] {0}));
+            put(7L, new IntArrayList(new int[] {1}));
+        }};
+        final InvertedListLongReferenceListsIndex listsIndex = new InvertedListLongReferenceListsIndex();
+        listsIndex.addListIntoListsInvertedIndex(0, new LongArrayList(new long[] {3L, 5L}));
+        listsIndex.addListIntoListsInvertedIndex(1, new LongArrayList(new long[] {3L, 5L}));
+        final int index = 1;
+        final LongList list = new LongArrayList(new long[] {3L, 5L});
+
+        listsIndex.removeListFromListsInvertedIndex(index, list);
+        listsIndex.addListIntoListsInvertedIndex(index, new LongArrayList(new long[] {3L, 7L}));
+
+        assertEquals(
+            Helper.<Long, Long2ReferenceMap<IntList>>translateToUtilsCollection(expectedListsInvertedIndex),
+            Helper.<Long, Long2ReferenceMap<InvertedListPostings>>translateToUtilsCollection(
+                listsIndex.listsInvertedIndex,
+                listsIndex.generations
+            )
         );
     }
 
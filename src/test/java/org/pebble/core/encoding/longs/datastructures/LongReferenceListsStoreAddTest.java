@@ -18,22 +18,46 @@ package org.pebble.core.encoding.longs.datastructures;
 
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
 import org.pebble.UnitTest;
 
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @Category(UnitTest.class)
 public class LongReferenceListsStoreAddTest {
 
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static LongList getList(
+        final LongReferenceListsStore referenceListsStore,
+        final LongReferenceListsIndex referenceListsIndex,
+        final int index
+    ) {
+        doReturn(index).when(referenceListsIndex).getIndexOfReferenceList(
+            any(LongList.class),
+            anyInt(),
+            anyInt(),
+            any(LongList[].class),
+            any(int[].class),
+            any(int[].class)
+        );
+        return new LongArrayList(referenceListsStore.get(new LongArrayList(new long[] {1L}), 1, 10).getList());
+    }
+
     @Test
     public void whenNumberOfRecursiveReferencesIsBiggerThanMaxNumberOfRecursiveReferencesItShouldNotAddList() {
         final LongReferenceListsIndex referenceListsIndex = mock(LongReferenceListsIndex.class);
@@ -128,4 +152,141 @@ public class LongReferenceListsStoreAddTest {
         verify(referenceListsIndex).addListIntoListsInvertedIndex(anyInt(), eq(list));
     }
 
+    @Test
+    public void whenArenaIsFixedAndListDoesNotFitItShouldOverwriteTheOldestLists() {
+        final LongReferenceListsIndex referenceListsIndex = mock(LongReferenceListsIndex.class);
+        final LongReferenceListsStore referenceListsStore =
+            new LongReferenceListsStore(4, 1, 1, 8, referenceListsIndex);
+        final LongList firstList = new LongArrayList(new long[] {1L, 2L, 3L, 4L});
+        final LongList secondList = new LongArrayList(new long[] {5L, 6L, 7L});
+        final LongList thirdList = new LongArrayList(new long[] {8L, 9L, 10L});
+        referenceListsStore.add(0, 0, firstList);
+        referenceListsStore.add(1, 0, secondList);
+
+        final boolean added = referenceListsStore.add(2, 0, thirdList);
+
+        assertTrue(added);
+        verify(referenceListsIndex).removeListFromListsInvertedIndex(eq(0), any(LongList.class));
+        verify(referenceListsIndex, never()).removeListFromListsInvertedIndex(eq(1), any(LongList.class));
+        assertEquals(secondList, getList(referenceListsStore, referenceListsIndex, 1));
+        assertEquals(thirdList, getList(referenceListsStore, referenceListsIndex, 2));
+    }
+
+    @Test
+    public void whenArenaIsFixedAndFullItShouldOverwriteTheOldestListsUntilListFits() {
+        final LongReferenceListsIndex referenceListsIndex = mock(LongReferenceListsIndex.class);
+        final LongReferenceListsStore referenceListsStore =
+            new LongReferenceListsStore(4, 1, 1, 6, referenceListsIndex);
+        final LongList firstList = new LongArrayList(new long[] {1L, 2L});
+        final LongList secondList = new LongArrayList(new long[] {3L, 4L});
+        final LongList thirdList = new LongArrayList(new long[] {5L, 6L});
+        final LongList fourthList = new LongArrayList(new long[] {7L, 8L, 9L});
+        referenceListsStore.add(0, 0, firstList);
+        referenceListsStore.add(1, 0, secondList);
+        referenceListsStore.add(2, 0, thirdList);
+
+        final boolean added = referenceListsStore.add(3, 0, fourthList);
+
+        assertTrue(added);
+        verify(referenceListsIndex).removeListFromListsInvertedIndex(eq(0), any(LongList.class));
+        verify(referenceListsIndex).removeListFromListsInvertedIndex(eq(1), any(LongList.class));
+        assertEquals(thirdList, getList(referenceListsStore, referenceListsIndex, 2));
+        assertEquals(fourthList, getList(referenceListsStore, referenceListsIndex, 3));
+    }
+
+    @Test
+    public void whenArenaIsFixedAndListIsBiggerThanArenaItShouldNotAddList() {
+        final LongReferenceListsIndex referenceListsIndex = mock(LongReferenceListsIndex.class);
+        final LongReferenceListsStore referenceListsStore =
+            new LongReferenceListsStore(4, 1, 1, 3, referenceListsIndex);
+
+        final boolean added = referenceListsStore.add(0, 0, new LongArrayList(new long[] {1L, 2L, 3L, 4L}));
+
+        assertFalse(added);
+        verify(referenceListsIndex, never()).addListIntoListsInvertedIndex(anyInt(), any(LongList.class));
+    }
+
+    @Test
+    public void whenListIsBiggerThanArenaItShouldOverwriteTheListOnItsPlaceOfTheRing() {
+        final LongReferenceListsIndex referenceListsIndex = mock(LongReferenceListsIndex.class);
+        final LongReferenceListsStore referenceListsStore =
+            new LongReferenceListsStore(2, 1, 1, 3, referenceListsIndex);
+        final LongList firstList = new LongArrayList(new long[] {1L, 2L});
+        final LongList secondList = new LongArrayList(new long[] {3L, 4L});
+        referenceListsStore.add(0, 0, firstList);
+        referenceListsStore.add(1, 0, new LongArrayList(new long[] {5L, 6L, 7L, 8L}));
+
+        final boolean added = referenceListsStore.add(2, 0, secondList);
+
+        assertTrue(added);
+        verify(referenceListsIndex, times(1)).removeListFromListsInvertedIndex(eq(0), any(LongList.class));
+        verify(referenceListsIndex, never()).removeListFromListsInvertedIndex(eq(1), any(LongList.class));
+        assertEquals(secondList, getList(referenceListsStore, referenceListsIndex, 0));
+    }
+
+    @Test
+    public void whenArenaIsFixedItShouldGrowUntilItReachesItsSize() {
+        final LongReferenceListsIndex referenceListsIndex = mock(LongReferenceListsIndex.class);
+        final LongReferenceListsStore referenceListsStore =
+            new LongReferenceListsStore(4, 1, 1, 2000, referenceListsIndex);
+        final LongList[] lists = new LongList[3];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new LongArrayList();
+            for (int j = 0; j < 900; j++) {
+                lists[i].add(i + j);
+            }
+
+            assertTrue(referenceListsStore.add(i, 0, lists[i]));
+        }
+
+        verify(referenceListsIndex, times(1)).removeListFromListsInvertedIndex(eq(0), any(LongList.class));
+        assertEquals(lists[1], getList(referenceListsStore, referenceListsIndex, 1));
+        assertEquals(lists[2], getList(referenceListsStore, referenceListsIndex, 2));
+    }
+
+    @Test
+    public void whenArenaIsGrowableItShouldKeepEveryListOfTheWindow() {
+        final LongReferenceListsIndex referenceListsIndex = mock(LongReferenceListsIndex.class);
+        final LongReferenceListsStore referenceListsStore = new LongReferenceListsStore(3, 1, 1, referenceListsIndex);
+        final LongList[] lists = new LongList[5];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new LongArrayList();
+            for (int j = 0; j < 700 * (i + 1); j++) {
+                lists[i].add((long) (i + j));
+            }
+
+            assertTrue(referenceListsStore.add(i, 0, lists[i]));
+        }
+
+        verify(referenceListsIndex, times(2)).removeListFromListsInvertedIndex(anyInt(), any(LongList.class));
+        assertEquals(lists[3], getList(referenceListsStore, referenceListsIndex, 0));
+        assertEquals(lists[4], getList(referenceListsStore, referenceListsIndex, 1));
+        assertEquals(lists[2], getList(referenceListsStore, referenceListsIndex, 2));
+    }
+
+    @Test
+    public void whenArenaIsGrowableAndStoreIsEmptyItShouldGrowArenaToFitTheList() {
+        final LongReferenceListsIndex referenceListsIndex = mock(LongReferenceListsIndex.class);
+        final LongReferenceListsStore referenceListsStore = new LongReferenceListsStore(1, 1, 1, referenceListsIndex);
+        final LongList[] lists = new LongList[2];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new LongArrayList();
+            for (int j = 0; j < 1500 * i + 10; j++) {
+                lists[i].add((long) (i + j));
+            }
+
+            assertTrue(referenceListsStore.add(i, 0, lists[i]));
+        }
+
+        assertEquals(lists[1], getList(referenceListsStore, referenceListsIndex, 0));
+    }
+
+    @Test
+    public void whenArenaSizeIsNotPositiveItShouldThrowAnException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Arena size must be positive, found 0");
+
+        new LongReferenceListsStore(4, 1, 1, 0, mock(LongReferenceListsIndex.class));
+    }
+
 }
@@ -21,7 +21,10 @@ import it.unimi.dsi.fastutil.longs.LongList;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.pebble.UnitTest;
+import org.pebble.core.encoding.commons.MinIntervalSizeAware;
+import org.pebble.core.encoding.commons.ReferenceCandidatesCounter;
 
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNull;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertThat;
@@ -29,6 +32,8 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
 
 @Category(UnitTest.class)
 public class LongReferenceListsStoreGetTest {
@@ -91,4 +96,61 @@ public class LongReferenceListsStoreGetTest {
         assertThat(referenceList, instanceOf(LongReferenceListsStore.ReferenceList.class));
     }
 
+    @Test
+    public void itShouldReturnTheNumberOfCandidatesOfTheIndex() {
+        final LongReferenceListsIndex referenceListsIndex = mock(
+            LongReferenceListsIndex.class,
+            withSettings().extraInterfaces(ReferenceCandidatesCounter.class)
+        );
+        doReturn(5).when((ReferenceCandidatesCounter) referenceListsIndex).getNumberOfCandidates();
+        final LongReferenceListsStore referenceListsStore = new LongReferenceListsStore(3, 1, 3, referenceListsIndex);
+
+        assertEquals(5, referenceListsStore.getNumberOfCandidates());
+    }
+
+    @Test
+    public void whenTheIndexDoesNotCountCandidatesItShouldReturnZeroCandidates() {
+        final LongReferenceListsIndex referenceListsIndex = mock(LongReferenceListsIndex.class);
+        final LongReferenceListsStore referenceListsStore = new LongReferenceListsStore(3, 1, 3, referenceListsIndex);
+
+        assertEquals(0, referenceListsStore.getNumberOfCandidates());
+    }
+
+    @Test
+    public void itShouldPassTheMinIntervalSizeToTheIndex() {
+        final LongReferenceListsIndex referenceListsIndex = mock(
+            LongReferenceListsIndex.class,
+            withSettings().extraInterfaces(MinIntervalSizeAware.class)
+        );
+        final LongReferenceListsStore referenceListsStore = new LongReferenceListsStore(3, 1, 3, referenceListsIndex);
+
+        referenceListsStore.setMinIntervalSize(2);
+
+        verify((MinIntervalSizeAware) referenceListsIndex).setMinIntervalSize(2);
+    }
+
+    @Test
+    public void returnedReferenceListShouldNotChangeWhenItsSlotIsOverwritten() {
+        final LongReferenceListsIndex referenceListsIndex = mock(LongReferenceListsIndex.class);
+        doReturn(0).when(referenceListsIndex).getIndexOfReferenceList(
+            any(LongList.class),
+            anyInt(),
+            anyInt(),
+            any(LongList[].class),
+            any(int[].class),
+            any(int[].class)
+        );
+        final LongReferenceListsStore referenceListsStore =
+            new LongReferenceListsStore(1, 1, 1, 4, referenceListsIndex);
+        referenceListsStore.add(0, 0, new LongArrayList(new long[] {1L, 2L, 3L, 4L}));
+        final LongList list = new LongArrayList(new long[] {1L, 2L, 3L, 5L});
+
+        final LongReferenceListsStore.ReferenceList referenceList = referenceListsStore.get(list, 3, 1);
+        referenceListsStore.add(1, 1, new LongArrayList(new long[] {5L, 6L, 7L, 8L}));
+
+        assertEquals(new LongArrayList(new long[] {1L, 2L, 3L, 4L}), referenceList.getList());
+        assertEquals(0, referenceList.getOffset());
+        assertEquals(0, referenceList.getRecursiveReferences());
+    }
+
 }
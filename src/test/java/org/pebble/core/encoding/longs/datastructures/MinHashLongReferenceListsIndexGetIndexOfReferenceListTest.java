@@ -0,0 +1,331 @@
+package org.pebble.core.encoding.longs.datastructures;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+@Category(UnitTest.class)
+public class MinHashLongReferenceListsIndexGetIndexOfReferenceListTest {
+
+    @Test
+    public void whenIndexHasAnIdenticalListItShouldReturnIt() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {1, 3, 5, 7, 9, 11}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12})
+        };
+        final int valueBitSize = 4;
+        final MinHashLongReferenceListsIndex listsIndex = new MinHashLongReferenceListsIndex();
+        listsIndex.addListIntoListsInvertedIndex(0, lists[0]);
+        listsIndex.addListIntoListsInvertedIndex(1, lists[1]);
+        final int[] offsets = new int[] {0, 1};
+        final int[] recursiveReferences = new int[] {0, 0};
+        final int listIndex = 2;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6, 8, 10, 12});
+        final int expectedReferenceListIndex = 1;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenIndexDoesNotHaveSimilarListsItShouldReturnNotFound() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {1, 3, 5, 7, 9, 11}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12})
+        };
+        final int valueBitSize = 5;
+        final MinHashLongReferenceListsIndex listsIndex = new MinHashLongReferenceListsIndex();
+        listsIndex.addListIntoListsInvertedIndex(0, lists[0]);
+        listsIndex.addListIntoListsInvertedIndex(1, lists[1]);
+        final int[] offsets = new int[] {0, 1};
+        final int[] recursiveReferences = new int[] {0, 0};
+        final int listIndex = 2;
+        final LongList list = new LongArrayList(new long[] {20, 22, 24, 26, 28});
+        final int expectedReferenceListIndex = -1;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenLimitingNumberOfCandidatesItShouldOnlyEvaluateTheCandidatesSharingMoreBands() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12, 14, 16, 18, 21}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12, 14, 16, 18, 20}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12, 14, 17, 19, 21})
+        };
+        final int valueBitSize = 5;
+        final MinHashLongReferenceListsIndex listsIndex = new MinHashLongReferenceListsIndex(32, 1, 1);
+        listsIndex.addListIntoListsInvertedIndex(0, lists[0]);
+        listsIndex.addListIntoListsInvertedIndex(1, lists[1]);
+        listsIndex.addListIntoListsInvertedIndex(2, lists[2]);
+        final int[] offsets = new int[] {2, 1, 0};
+        final int[] recursiveReferences = new int[] {0, 0, 0};
+        final int listIndex = 3;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6, 8, 10, 12, 14, 16, 18, 20});
+        final int expectedReferenceListIndex = 1;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+        assertEquals(1, listsIndex.getNumberOfCandidates());
+    }
+
+    @Test
+    public void whenLimitingNumberOfCandidatesItShouldKeepTheCandidatesSharingMoreBands() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12, 14, 16, 18, 20, 22, 24, 26, 28, 29, 31, 33, 35, 37, 39}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12, 14, 16, 18, 20, 22, 24, 26, 28, 30, 32, 34, 35, 37, 39}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12, 14, 16, 18, 20, 22, 23, 25, 27, 29, 31, 33, 35, 37, 39}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12, 14, 16, 18, 20, 22, 24, 26, 28, 30, 32, 34, 36, 38, 40}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12, 14, 16, 17, 19, 21, 23, 25, 27, 29, 31, 33, 35, 37, 39})
+        };
+        final int valueBitSize = 6;
+        final MinHashLongReferenceListsIndex listsIndex = new MinHashLongReferenceListsIndex(32, 1, 2);
+        for (int i = 0; i < lists.length; i++) {
+            listsIndex.addListIntoListsInvertedIndex(i, lists[i]);
+        }
+        final int[] offsets = new int[] {0, 1, 2, 3, 4};
+        final int[] recursiveReferences = new int[] {0, 0, 0, 0, 0};
+        final int listIndex = 5;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6, 8, 10, 12, 14, 16, 18, 20, 22, 24, 26, 28, 30, 32, 34, 36, 38, 40});
+        final int expectedReferenceListIndex = 3;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenListsHaveBeenRemovedItShouldOnlyEvaluateTheListsThatAreStillIndexed() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12})
+        };
+        final int valueBitSize = 4;
+        final MinHashLongReferenceListsIndex listsIndex = new MinHashLongReferenceListsIndex();
+        listsIndex.addListIntoListsInvertedIndex(0, lists[0]);
+        listsIndex.addListIntoListsInvertedIndex(1, lists[1]);
+        listsIndex.removeListFromListsInvertedIndex(1, lists[1]);
+        final int[] offsets = new int[] {0, 1};
+        final int[] recursiveReferences = new int[] {0, 0};
+        final int listIndex = 2;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6, 8, 10, 12});
+        final int expectedReferenceListIndex = 0;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenFindingListsThatGeneratesSameCompressionItShouldReturnTheOneWithLessRecursiveReferences() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12})
+        };
+        final int valueBitSize = 4;
+        final MinHashLongReferenceListsIndex listsIndex = new MinHashLongReferenceListsIndex();
+        listsIndex.addListIntoListsInvertedIndex(0, lists[0]);
+        listsIndex.addListIntoListsInvertedIndex(1, lists[1]);
+        final int[] offsets = new int[] {0, 0};
+        final int[] recursiveReferences = new int[] {1, 0};
+        final int listIndex = 2;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6, 8, 10, 12});
+        final int expectedReferenceListIndex = 1;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenReferenceListOffsetIsTooBigItShouldBeDiscardedWithoutComputingItsDifference() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2, 4, 6})
+        };
+        final int valueBitSize = 3;
+        final MinHashLongReferenceListsIndex listsIndex = new MinHashLongReferenceListsIndex();
+        listsIndex.addListIntoListsInvertedIndex(0, lists[0]);
+        final int[] offsets = new int[] {0};
+        final int[] recursiveReferences = new int[] {0};
+        final int listIndex = 1 << 20;
+        final LongList list = new LongArrayList(new long[] {2, 4, 6});
+        final int expectedReferenceListIndex = -1;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+    }
+
+    @Test
+    public void whenUsedByAStoreItShouldOnlyFindTheListsOnTheStoreWindow() {
+        final int storeSize = 2;
+        final int maxRecursiveReferences = 1;
+        final int minListSize = 1;
+        final int valueBitSize = 5;
+        final LongReferenceListsStore referenceListsStore = new LongReferenceListsStore(
+            storeSize,
+            maxRecursiveReferences,
+            minListSize,
+            new MinHashLongReferenceListsIndex()
+        );
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {1, 3, 5, 7, 9, 11, 13}),
+            new LongArrayList(new long[] {2, 4, 6, 8, 10, 12, 14}),
+            new LongArrayList(new long[] {15, 17, 19, 21, 23, 25, 27})
+        };
+        for (int i = 0; i < lists.length; i++) {
+            referenceListsStore.add(i, 0, lists[i]);
+        }
+
+        final LongReferenceListsStore.ReferenceList evictedReferenceList = referenceListsStore.get(
+            lists[0],
+            valueBitSize,
+            lists.length
+        );
+        final LongReferenceListsStore.ReferenceList referenceList = referenceListsStore.get(
+            lists[2],
+            valueBitSize,
+            lists.length
+        );
+
+        assertNull(evictedReferenceList);
+        assertEquals(lists[2], referenceList.getList());
+        assertEquals(2, referenceList.getOffset());
+    }
+
+    @Test
+    public void whenLimitingPostingListSizeItShouldOnlyEvaluateTheListsMostRecentlyAdded() {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {2L, 4L, 6L, 8L, 10L, 12L}),
+            new LongArrayList(new long[] {2L, 4L, 6L, 8L, 10L, 12L})
+        };
+        final int valueBitSize = 4;
+        final MinHashLongReferenceListsIndex listsIndex = new MinHashLongReferenceListsIndex(16, 2, 16, 1);
+        listsIndex.addListIntoListsInvertedIndex(0, lists[0]);
+        listsIndex.addListIntoListsInvertedIndex(1, lists[1]);
+        final int[] offsets = new int[] {1, 1};
+        final int[] recursiveReferences = new int[] {0, 1};
+        final int listIndex = 2;
+        final LongList list = new LongArrayList(new long[] {2L, 4L, 6L, 8L, 10L, 12L});
+        final int expectedReferenceListIndex = 1;
+
+        final int referenceListIndex = listsIndex.getIndexOfReferenceList(
+            list,
+            valueBitSize,
+            listIndex,
+            lists,
+            offsets,
+            recursiveReferences
+        );
+
+        assertEquals(expectedReferenceListIndex, referenceListIndex);
+        assertEquals(1, listsIndex.getNumberOfCandidates());
+    }
+
+    @Test
+    public void whenUsedByAStoreItShouldAddListsAfterLookingForTheirReferences() {
+        final int storeSize = 1000;
+        final int maxRecursiveReferences = 3;
+        final int minListSize = 1;
+        final int valueBitSize = 5;
+        final LongReferenceListsStore referenceListsStore = new LongReferenceListsStore(
+            storeSize,
+            maxRecursiveReferences,
+            minListSize,
+            new MinHashLongReferenceListsIndex()
+        );
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {1L, 3L, 5L, 7L, 9L, 11L, 13L}),
+            new LongArrayList(new long[] {2L, 4L, 6L, 8L, 10L, 12L, 14L})
+        };
+        for (int i = 0; i < lists.length; i++) {
+            assertNull(referenceListsStore.get(lists[i], valueBitSize, i));
+            assertTrue(referenceListsStore.add(i, 0, lists[i]));
+        }
+
+        final LongReferenceListsStore.ReferenceList referenceList = referenceListsStore.get(
+            lists[1],
+            valueBitSize,
+            lists.length
+        );
+
+        assertEquals(lists[1], referenceList.getList());
+        assertEquals(1, referenceList.getOffset());
+    }
+
+}
@@ -0,0 +1,384 @@
+package org.pebble.utils.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.io.InputBitStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.encoding.DefaultParametersValues;
+import org.pebble.core.encoding.SkipIndexParameters;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+import org.pebble.utils.encoding.ContainerWriter;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+@Category(FastIntegrationTest.class)
+public class ContainerPebbleBytesStoreTest {
+
+    private static final int VALUE_BIT_SIZE = 12;
+    private static final SkipIndexParameters SKIP_INDEX_PARAMETERS = new SkipIndexParameters(2, 4);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static IntReferenceListsStore getIntReferenceListsStore() {
+        return new IntReferenceListsStore(16, 3, 1, new InvertedListIntReferenceListsIndex());
+    }
+
+    private static LongReferenceListsStore getLongReferenceListsStore() {
+        return new LongReferenceListsStore(16, 3, 1, new InvertedListLongReferenceListsIndex());
+    }
+
+    private static IntList[] getRandomLists(final int numberOfLists) {
+        final Random random = new Random(0x5eed);
+        final IntList[] lists = new IntList[numberOfLists];
+        IntList list;
+        int size;
+        int value;
+        for (int i = 0; i < numberOfLists; i++) {
+            lists[i] = list = new IntArrayList();
+            size = 1 + random.nextInt(200);
+            value = random.nextInt(64);
+            for (int j = 0; j < size; j++) {
+                if (i % 3 == ContainerWriter.STRICTLY_INCREMENTAL_LIST) {
+                    value += 1 + (random.nextBoolean() ? 0 : random.nextInt(8));
+                } else if (i % 3 == ContainerWriter.INCREMENTAL_LIST) {
+                    value += random.nextBoolean() ? 0 : random.nextInt(8);
+                } else {
+                    value = random.nextInt(2048);
+                }
+                list.add(value);
+            }
+        }
+        return lists;
+    }
+
+    private static LongList[] getRandomLongLists(final int numberOfLists) {
+        final IntList[] intLists = getRandomLists(numberOfLists);
+        final LongList[] lists = new LongList[numberOfLists];
+        for (int i = 0; i < numberOfLists; i++) {
+            lists[i] = new LongArrayList();
+            for (int j = 0; j < intLists[i].size(); j++) {
+                lists[i].add(intLists[i].getInt(j));
+            }
+        }
+        return lists;
+    }
+
+    private static IntList read(final IntIterator iterator) {
+        final IntList list = new IntArrayList();
+        while (iterator.hasNext()) {
+            list.add(iterator.nextInt());
+        }
+        return list;
+    }
+
+    private static LongList read(final LongIterator iterator) {
+        final LongList list = new LongArrayList();
+        while (iterator.hasNext()) {
+            list.add(iterator.nextLong());
+        }
+        return list;
+    }
+
+    private File write(
+        final IntList[] lists,
+        final SkipIndexParameters skipIndexParameters,
+        final boolean sizeHeader,
+        final int minIntervalSize
+    ) throws IOException {
+        final File file = temporaryFolder.newFile();
+        final ContainerWriter writer = new ContainerWriter(
+            new FileOutputStream(file),
+            VALUE_BIT_SIZE,
+            getIntReferenceListsStore(),
+            getIntReferenceListsStore(),
+            getIntReferenceListsStore(),
+            skipIndexParameters,
+            sizeHeader,
+            minIntervalSize
+        );
+        for (int i = 0; i < lists.length; i++) {
+            if (i % 3 == ContainerWriter.STRICTLY_INCREMENTAL_LIST) {
+                writer.writeStrictlyIncrementalList(new IntArrayList(lists[i]));
+            } else if (i % 3 == ContainerWriter.INCREMENTAL_LIST) {
+                writer.writeIncrementalList(new IntArrayList(lists[i]));
+            } else {
+                writer.writeList(new IntArrayList(lists[i]));
+            }
+        }
+        writer.close();
+        return file;
+    }
+
+    private File write(final LongList[] lists) throws IOException {
+        final File file = temporaryFolder.newFile();
+        final ContainerWriter writer = new ContainerWriter(
+            new FileOutputStream(file),
+            VALUE_BIT_SIZE,
+            getLongReferenceListsStore(),
+            getLongReferenceListsStore(),
+            getLongReferenceListsStore(),
+            SKIP_INDEX_PARAMETERS,
+            true,
+            2
+        );
+        for (int i = 0; i < lists.length; i++) {
+            if (i % 3 == ContainerWriter.STRICTLY_INCREMENTAL_LIST) {
+                writer.writeStrictlyIncrementalList(new LongArrayList(lists[i]));
+            } else if (i % 3 == ContainerWriter.INCREMENTAL_LIST) {
+                writer.writeIncrementalList(new LongArrayList(lists[i]));
+            } else {
+                writer.writeList(new LongArrayList(lists[i]));
+            }
+        }
+        writer.close();
+        return file;
+    }
+
+    private File write(final IntList[] lists) throws IOException {
+        return write(lists, SkipIndexParameters.DISABLED, false, DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE);
+    }
+
+    @Test
+    public void itShouldDecodeIntListsWithTheParametersRecordedInTheContainer() throws IOException {
+        final IntList[] expectedLists = getRandomLists(300);
+        final File file = write(expectedLists, SKIP_INDEX_PARAMETERS, true, 2);
+
+        final ContainerPebbleBytesStore bytesStore = ContainerPebbleBytesStore.open(file.toPath());
+
+        assertEquals(expectedLists.length, bytesStore.size());
+        assertEquals(VALUE_BIT_SIZE, bytesStore.getValueBitSize());
+        assertFalse(bytesStore.hasLongValues());
+        assertTrue(bytesStore.hasSizeHeader());
+        assertEquals(2, bytesStore.getMinIntervalSize());
+        assertEquals(SKIP_INDEX_PARAMETERS.getSamplingRate(), bytesStore.getSkipIndexParameters().getSamplingRate());
+        assertEquals(
+            SKIP_INDEX_PARAMETERS.getMinSectionSize(),
+            bytesStore.getSkipIndexParameters().getMinSectionSize()
+        );
+        for (int i = 0; i < expectedLists.length; i++) {
+            assertEquals(i % 3, bytesStore.getListType(i));
+            assertEquals(expectedLists[i], read(bytesStore.intIterator(i)));
+            assertEquals(expectedLists[i].size(), bytesStore.readSize(i, new InputBitCursor()));
+        }
+    }
+
+    @Test
+    public void itShouldDecodeLongListsWithTheParametersRecordedInTheContainer() throws IOException {
+        final LongList[] expectedLists = getRandomLongLists(300);
+        final File file = write(expectedLists);
+
+        final ContainerPebbleBytesStore bytesStore = ContainerPebbleBytesStore.open(file.toPath());
+
+        assertEquals(expectedLists.length, bytesStore.size());
+        assertTrue(bytesStore.hasLongValues());
+        assertTrue(bytesStore.hasSizeHeader());
+        assertEquals(2, bytesStore.getMinIntervalSize());
+        for (int i = 0; i < expectedLists.length; i++) {
+            assertEquals(i % 3, bytesStore.getListType(i));
+            assertEquals(expectedLists[i], read(bytesStore.longIterator(i)));
+        }
+    }
+
+    @Test
+    public void whenContainerUsesDefaultParametersItShouldDecodeListsWithoutBuffer() throws IOException {
+        final IntList[] expectedLists = getRandomLists(50);
+        final File file = write(expectedLists);
+
+        final ContainerPebbleBytesStore bytesStore = ContainerPebbleBytesStore.open(file.toPath(), 0);
+
+        assertFalse(bytesStore.hasSizeHeader());
+        assertEquals(DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE, bytesStore.getMinIntervalSize());
+        assertEquals(
+            SkipIndexParameters.DISABLED.getSamplingRate(),
+            bytesStore.getSkipIndexParameters().getSamplingRate()
+        );
+        for (int i = expectedLists.length - 1; i >= 0; i--) {
+            assertEquals(expectedLists[i], read(bytesStore.intIterator(i)));
+        }
+    }
+
+    @Test
+    public void whenContainerIsEmptyItShouldHaveNoLists() throws IOException {
+        final ContainerPebbleBytesStore bytesStore = ContainerPebbleBytesStore.open(write(new IntList[0]).toPath());
+
+        assertEquals(0, bytesStore.size());
+    }
+
+    @Test
+    public void getInputBitStreamWithCursorShouldDecodeListsWithoutTheCursor() throws IOException {
+        final IntList[] expectedLists = getRandomLists(20);
+        final ContainerPebbleBytesStore bytesStore = ContainerPebbleBytesStore.open(write(expectedLists).toPath());
+        final InputBitCursor cursor = new InputBitCursor();
+
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(5, cursor);
+
+        assertNotSame(cursor, inputBitStream);
+        assertEquals(bytesStore.offset(5), inputBitStream.position());
+        for (int i = 0; i < expectedLists.length; i += 3) {
+            assertEquals(
+                expectedLists[i],
+                read(
+                    org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator.build(
+                        i,
+                        VALUE_BIT_SIZE,
+                        bytesStore,
+                        cursor
+                    )
+                )
+            );
+        }
+    }
+
+    @Test
+    public void getInputBitStreamOfSectionShouldReturnNewInputBitStreamInGivenStreamPosition() throws IOException {
+        final ContainerPebbleBytesStore bytesStore = ContainerPebbleBytesStore.open(write(getRandomLists(20)).toPath());
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(5);
+        inputBitStream.readDelta();
+
+        final InputBitStream sectionInputBitStream =
+            bytesStore.getInputBitStream(5, inputBitStream, InputBitCursor.INTERVALS_SECTION);
+        sectionInputBitStream.readDelta();
+
+        assertNotSame(inputBitStream, sectionInputBitStream);
+        assertEquals(inputBitStream.position(), bytesStore.getInputBitStream(5, inputBitStream, 0).position());
+        assertTrue(sectionInputBitStream.position() > inputBitStream.position());
+    }
+
+    @Test
+    public void offsetShouldIncludeTheHeader() throws IOException {
+        final ContainerPebbleBytesStore bytesStore = ContainerPebbleBytesStore.open(write(getRandomLists(2)).toPath());
+
+        assertEquals(ContainerWriter.HEADER_SIZE * 8L, bytesStore.offset(0));
+        assertTrue(bytesStore.offset(1) > bytesStore.offset(0));
+    }
+
+    @Test
+    public void getShouldThrowAnException() throws IOException {
+        final ContainerPebbleBytesStore bytesStore = ContainerPebbleBytesStore.open(write(getRandomLists(1)).toPath());
+        expectedException.expect(UnsupportedOperationException.class);
+
+        bytesStore.get(0);
+    }
+
+    @Test
+    public void whenContainerHasNoSizeHeaderReadSizeShouldThrowAnException() throws IOException {
+        final ContainerPebbleBytesStore bytesStore = ContainerPebbleBytesStore.open(write(getRandomLists(1)).toPath());
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("The compressed lists don't have size header");
+
+        bytesStore.readSize(0, null);
+    }
+
+    @Test
+    public void whenContainerStoresIntListsLongIteratorShouldThrowAnException() throws IOException {
+        final ContainerPebbleBytesStore bytesStore = ContainerPebbleBytesStore.open(write(getRandomLists(1)).toPath());
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("Container stores int lists");
+
+        bytesStore.longIterator(0);
+    }
+
+    @Test
+    public void whenContainerStoresLongListsIntIteratorShouldThrowAnException() throws IOException {
+        final ContainerPebbleBytesStore bytesStore =
+            ContainerPebbleBytesStore.open(write(getRandomLongLists(1)).toPath());
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("Container stores long lists");
+
+        bytesStore.intIterator(0);
+    }
+
+    @Test
+    public void whenFileIsTooSmallItShouldThrowAnException() throws IOException {
+        final File file = temporaryFolder.newFile();
+        final DataOutputStream outputStream = new DataOutputStream(new FileOutputStream(file));
+        outputStream.writeInt(ContainerWriter.MAGIC);
+        outputStream.close();
+        expectedException.expect(IOException.class);
+        expectedException.expectMessage("Container is too small, found 4 bytes");
+
+        ContainerPebbleBytesStore.open(file.toPath());
+    }
+
+    @Test
+    public void whenHeaderMagicNumberIsInvalidItShouldThrowAnException() throws IOException {
+        final File file = write(getRandomLists(3));
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.writeInt(0x12345678);
+        randomAccessFile.close();
+        expectedException.expect(IOException.class);
+        expectedException.expectMessage("Invalid container magic number 12345678");
+
+        ContainerPebbleBytesStore.open(file.toPath());
+    }
+
+    @Test
+    public void whenFooterMagicNumberIsInvalidItShouldThrowAnException() throws IOException {
+        final File file = write(getRandomLists(3));
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.seek(randomAccessFile.length() - 4);
+        randomAccessFile.writeInt(0);
+        randomAccessFile.close();
+        expectedException.expect(IOException.class);
+        expectedException.expectMessage("Invalid container magic number 0");
+
+        ContainerPebbleBytesStore.open(file.toPath());
+    }
+
+    @Test
+    public void whenVersionIsNotSupportedItShouldThrowAnException() throws IOException {
+        final File file = write(getRandomLists(3));
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.seek(4);
+        randomAccessFile.writeInt(ContainerWriter.VERSION + 1);
+        randomAccessFile.close();
+        expectedException.expect(IOException.class);
+        expectedException.expectMessage(String.format("Unsupported container version %d", ContainerWriter.VERSION + 1));
+
+        ContainerPebbleBytesStore.open(file.toPath());
+    }
+
+}
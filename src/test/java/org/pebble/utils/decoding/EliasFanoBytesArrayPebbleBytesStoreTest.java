@@ -0,0 +1,117 @@
+package org.pebble.utils.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+import org.pebble.core.decoding.EliasFanoOffsets;
+import org.pebble.core.decoding.iterators.Helper;
+import org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.pebble.core.decoding.iterators.Helper.getInput;
+
+@Category(UnitTest.class)
+public class EliasFanoBytesArrayPebbleBytesStoreTest {
+
+    @Test
+    public void getShouldReturnExpectedByteArray() throws IOException {
+        final Helper.Input input = getInput(
+            "1 1 01101 00101 0101 01100 1 01101 01101 0100 0100 01101 0101 01110 01111 01100" +
+            "0100 1 1 1 1 01111 01111 1 01110 0101 0100 0101 0101 0101 0100 1"
+        );
+        final EliasFanoOffsets offsets = new EliasFanoOffsets(new long[] {0L, 64L});
+        final EliasFanoBytesArrayPebbleBytesStore pebbleBytesStore = new EliasFanoBytesArrayPebbleBytesStore(
+            input.buffer,
+            offsets
+        );
+
+        assertSame(pebbleBytesStore.get(0), input.buffer);
+    }
+
+    @Test
+    public void offsetShouldReturnExpectedOffsetFromListIndex() throws IOException {
+        final Helper.Input input = getInput(
+            "1 1 01101 00101 0101 01100 1 01101 01101 0100 0100 01101 0101 01110 01111 01100" +
+            "0100 1 1 1 1 01111 01111 1 01110 0101 0100 0101 0101 0101 0100 1"
+        );
+        final EliasFanoOffsets offsets = new EliasFanoOffsets(new long[] {0L, 64L});
+        final EliasFanoBytesArrayPebbleBytesStore pebbleBytesStore = new EliasFanoBytesArrayPebbleBytesStore(
+            input.buffer,
+            offsets
+        );
+
+        assertEquals(64L, pebbleBytesStore.offset(1));
+    }
+
+    @Test
+    public void itShouldDecodeListsWhoseOffsetsWereAddedWhileWritingSuccessfully() throws IOException {
+        final int valueBitSize = 10;
+        final Random random = new Random(0x5eed);
+        final IntList[] lists = new IntList[3 * EliasFanoOffsets.BLOCK_SIZE + 5];
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final FastByteArrayOutputStream outputStream = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(outputStream);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(
+            16,
+            3,
+            1,
+            new InvertedListIntReferenceListsIndex()
+        );
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new IntArrayList();
+            for (int value = random.nextInt(5); value < 1000; value += 1 + random.nextInt(200)) {
+                lists[i].add(value);
+            }
+            offsets.add(outputSuccinctStream.writtenBits());
+            outputSuccinctStream.writeStrictlyIncrementalList(
+                new IntArrayList(lists[i]),
+                i,
+                valueBitSize,
+                referenceListsStore
+            );
+        }
+        outputSuccinctStream.close();
+        final EliasFanoBytesArrayPebbleBytesStore pebbleBytesStore = new EliasFanoBytesArrayPebbleBytesStore(
+            outputStream.array,
+            offsets
+        );
+
+        IntIterator iterator;
+        for (int i = 0; i < lists.length; i++) {
+            iterator = StrictlyIncrementalListIterator.build(i, valueBitSize, pebbleBytesStore);
+            final IntList list = new IntArrayList();
+            while (iterator.hasNext()) {
+                list.add(iterator.nextInt());
+            }
+            assertEquals(lists[i], list);
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.pebble.utils.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.io.FastByteArrayInputStream;
+import it.unimi.dsi.io.InputBitStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.UnitTest;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.decoding.iterators.Helper.Input;
+
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.pebble.core.decoding.iterators.Helper.getInput;
+
+@Category(UnitTest.class)
+public class InputStreamPebbleBytesStoreTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static InputStreamPebbleBytesStore getBytesStore(
+        final Input input,
+        final long offset,
+        final boolean sizeHeader
+    ) {
+        final InputStreamPebbleBytesStore bytesStore = new InputStreamPebbleBytesStore(4) {
+            @Override
+            protected InputStream newInputStream() {
+                return new FastByteArrayInputStream(input.buffer);
+            }
+
+            @Override
+            protected long offset(int listIndex) {
+                return offset;
+            }
+        };
+        bytesStore.setSizeHeader(sizeHeader);
+        return bytesStore;
+    }
+
+    @Test
+    public void getInputBitStreamWithCursorShouldReturnInputBitStreamAttachedToCursor() throws Exception {
+        final Input input = getInput("1 1 1 0 1 1 0 1 1");
+        final InputStreamPebbleBytesStore bytesStore = getBytesStore(input, 3L, true);
+        final InputBitCursor cursor = new InputBitCursor();
+        final int listIndex = 1;
+
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(listIndex, cursor);
+
+        assertNotSame(cursor, inputBitStream);
+        assertSame(cursor.getAttachment(), inputBitStream);
+        assertEquals(8L, inputBitStream.position());
+        assertEquals(4, bytesStore.readSize(listIndex, cursor));
+    }
+
+    @Test
+    public void getInputBitStreamWithSameCursorShouldReuseAttachedInputBitStream() throws Exception {
+        final Input input = getInput("1 1 1 0 1 1 0 1 1");
+        final InputStreamPebbleBytesStore bytesStore = getBytesStore(input, 3L, false);
+        final InputBitCursor cursor = new InputBitCursor();
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(0, cursor);
+        inputBitStream.readInt(4);
+
+        final InputBitStream reusedInputBitStream = bytesStore.getInputBitStream(1, cursor);
+
+        assertSame(inputBitStream, reusedInputBitStream);
+        assertEquals(3L, reusedInputBitStream.position());
+    }
+
+    @Test
+    public void whenCursorHasStreamAttachedByOtherStoreGetInputBitStreamShouldAttachNewInputBitStream()
+        throws Exception {
+        final Input input = getInput("1 1 1 0 1 1 0 1 1");
+        final InputBitCursor cursor = new InputBitCursor();
+        final InputBitStream otherInputBitStream = getBytesStore(input, 3L, false).getInputBitStream(0, cursor);
+
+        final InputBitStream inputBitStream = getBytesStore(input, 3L, false).getInputBitStream(0, cursor);
+
+        assertNotSame(otherInputBitStream, inputBitStream);
+        assertSame(cursor.getAttachment(), inputBitStream);
+    }
+
+    @Test
+    public void getInputBitStreamOfSectionShouldReturnNewInputBitStreamInGivenStreamPosition() throws Exception {
+        final Input input = getInput("1 1 1 0 1 0 1 1 0 1");
+        final InputStreamPebbleBytesStore bytesStore = getBytesStore(input, 0L, false);
+        final int listIndex = 1;
+        final InputBitStream listInputBitStream = bytesStore.getInputBitStream(listIndex);
+        listInputBitStream.readInt(3);
+
+        final InputBitStream inputBitStream =
+            bytesStore.getInputBitStream(listIndex, listInputBitStream, InputBitCursor.DELTAS_SECTION);
+        inputBitStream.readInt(4);
+
+        assertNotSame(listInputBitStream, inputBitStream);
+        assertEquals(7L, inputBitStream.position());
+        assertEquals(3L, listInputBitStream.position());
+    }
+
+    @Test
+    public void getInputBitStreamOfSameSectionShouldReuseInputBitStreamOfSection() throws Exception {
+        final Input input = getInput("1 1 1 0 1 0 1 1 0 1");
+        final InputStreamPebbleBytesStore bytesStore = getBytesStore(input, 0L, false);
+        final InputBitStream listInputBitStream = bytesStore.getInputBitStream(0);
+        final InputBitStream inputBitStream =
+            bytesStore.getInputBitStream(0, listInputBitStream, InputBitCursor.DELTAS_SECTION);
+        inputBitStream.readInt(4);
+        listInputBitStream.readInt(2);
+
+        final InputBitStream reusedInputBitStream =
+            bytesStore.getInputBitStream(0, listInputBitStream, InputBitCursor.DELTAS_SECTION);
+
+        assertSame(inputBitStream, reusedInputBitStream);
+        assertEquals(2L, reusedInputBitStream.position());
+    }
+
+    @Test
+    public void getInputBitStreamOfSectionOfStreamFromOtherStoreShouldReturnNewInputBitStream() throws Exception {
+        final Input input = getInput("1 1 1 0 1 0 1 1 0 1");
+        final InputStreamPebbleBytesStore bytesStore = getBytesStore(input, 0L, false);
+        input.stream.readInt(3);
+
+        final InputBitStream inputBitStream =
+            bytesStore.getInputBitStream(0, input.stream, InputBitCursor.DELTAS_SECTION);
+
+        assertNotSame(input.stream, inputBitStream);
+        assertEquals(3L, inputBitStream.position());
+    }
+
+    @Test
+    public void getShouldThrowAnException() {
+        final InputStreamPebbleBytesStore bytesStore = getBytesStore(null, 0L, false);
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("Compressed data is not stored in bytes arrays");
+
+        bytesStore.get(0);
+    }
+
+}
@@ -0,0 +1,247 @@
+package org.pebble.utils.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.io.InputBitStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.EliasFanoOffsets;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.decoding.ints.IntListsAccessor;
+import org.pebble.core.decoding.iterators.ints.ListIterator;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+@Category(FastIntegrationTest.class)
+public class MappedPebbleBytesStoreTest {
+
+    private static final int VALUE_BIT_SIZE = 10;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static IntList[] getRandomLists(final int numberOfLists) {
+        final Random random = new Random(0x5eed);
+        final IntList[] lists = new IntList[numberOfLists];
+        IntList list;
+        int size;
+        for (int i = 0; i < numberOfLists; i++) {
+            lists[i] = list = new IntArrayList();
+            size = 1 + random.nextInt(24);
+            for (int j = 0; j < size; j++) {
+                list.add(random.nextInt(64));
+            }
+        }
+        return lists;
+    }
+
+    private static IntList read(final int listIndex, final MappedPebbleBytesStore bytesStore) throws IOException {
+        final IntIterator iterator = ListIterator.build(listIndex, VALUE_BIT_SIZE, bytesStore);
+        final IntList list = new IntArrayList();
+        while (iterator.hasNext()) {
+            list.add(iterator.nextInt());
+        }
+        return list;
+    }
+
+    private File write(final IntList[] lists, final EliasFanoOffsets offsets) throws IOException {
+        return write(lists, offsets, false);
+    }
+
+    private File write(
+        final IntList[] lists,
+        final EliasFanoOffsets offsets,
+        final boolean sizeHeader
+    ) throws IOException {
+        final File file = temporaryFolder.newFile();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(new FileOutputStream(file));
+        outputSuccinctStream.setSizeHeader(sizeHeader);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(
+            16,
+            3,
+            1,
+            new InvertedListIntReferenceListsIndex()
+        );
+        for (int i = 0; i < lists.length; i++) {
+            offsets.add(outputSuccinctStream.writtenBits());
+            outputSuccinctStream.writeList(new IntArrayList(lists[i]), i, VALUE_BIT_SIZE, referenceListsStore);
+        }
+        outputSuccinctStream.close();
+        return file;
+    }
+
+    @Test
+    public void itShouldDecodeListsStraightFromTheMappedFileSuccessfully() throws IOException {
+        final IntList[] expectedLists = getRandomLists(300);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final File file = write(expectedLists, offsets);
+
+        final MappedPebbleBytesStore bytesStore = MappedPebbleBytesStore.map(file.toPath(), offsets);
+
+        for (int i = 0; i < expectedLists.length; i++) {
+            assertEquals(expectedLists[i], read(i, bytesStore));
+        }
+    }
+
+    @Test
+    public void whenListsHaveSizeHeaderItShouldDecodeListsAndSizesStraightFromTheMappedFile() throws IOException {
+        final IntList[] expectedLists = getRandomLists(300);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final File file = write(expectedLists, offsets, true);
+
+        final MappedPebbleBytesStore bytesStore = MappedPebbleBytesStore.map(file.toPath(), offsets);
+        bytesStore.setSizeHeader(true);
+        final IntListsAccessor accessor = new IntListsAccessor(VALUE_BIT_SIZE, bytesStore);
+
+        for (int i = 0; i < expectedLists.length; i++) {
+            assertEquals(expectedLists[i], read(i, bytesStore));
+            assertEquals(expectedLists[i].size(), accessor.sizeList(i));
+        }
+    }
+
+    @Test
+    public void whenListsDoNotHaveSizeHeaderReadSizeShouldThrowAnException() throws IOException {
+        final IntList[] lists = getRandomLists(1);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final File file = write(lists, offsets);
+        final MappedPebbleBytesStore bytesStore = MappedPebbleBytesStore.map(file.toPath(), offsets);
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("The compressed lists don't have size header");
+
+        bytesStore.readSize(0, new InputBitCursor());
+    }
+
+    @Test
+    public void whenBufferIsDisabledItShouldDecodeListsStraightFromTheMappedFileSuccessfully() throws IOException {
+        final IntList[] expectedLists = getRandomLists(50);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final File file = write(expectedLists, offsets);
+
+        final MappedPebbleBytesStore bytesStore = MappedPebbleBytesStore.map(file.toPath(), offsets, 0);
+
+        for (int i = expectedLists.length - 1; i >= 0; i--) {
+            assertEquals(expectedLists[i], read(i, bytesStore));
+        }
+    }
+
+    @Test
+    public void itShouldDecodeInterleavedListsIndependently() throws IOException {
+        final IntList[] expectedLists = getRandomLists(20);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final File file = write(expectedLists, offsets);
+        final MappedPebbleBytesStore bytesStore = MappedPebbleBytesStore.map(file.toPath(), offsets);
+        final IntIterator firstIterator = ListIterator.build(3, VALUE_BIT_SIZE, bytesStore);
+        final IntIterator secondIterator = ListIterator.build(17, VALUE_BIT_SIZE, bytesStore);
+        final IntList firstList = new IntArrayList();
+        final IntList secondList = new IntArrayList();
+
+        while (firstIterator.hasNext() || secondIterator.hasNext()) {
+            if (firstIterator.hasNext()) {
+                firstList.add(firstIterator.nextInt());
+            }
+            if (secondIterator.hasNext()) {
+                secondList.add(secondIterator.nextInt());
+            }
+        }
+
+        assertEquals(expectedLists[3], firstList);
+        assertEquals(expectedLists[17], secondList);
+    }
+
+    @Test
+    public void getInputBitStreamWithCursorShouldDecodeListsWithoutTheCursor() throws IOException {
+        final IntList[] expectedLists = getRandomLists(20);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final File file = write(expectedLists, offsets);
+        final MappedPebbleBytesStore bytesStore = MappedPebbleBytesStore.map(file.toPath(), offsets);
+        final InputBitCursor cursor = new InputBitCursor();
+
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(5, cursor);
+
+        assertNotSame(cursor, inputBitStream);
+        assertEquals(offsets.get(5), inputBitStream.position());
+        for (int i = 0; i < expectedLists.length; i++) {
+            final IntIterator iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore, cursor);
+            final IntList list = new IntArrayList();
+            while (iterator.hasNext()) {
+                list.add(iterator.nextInt());
+            }
+            assertEquals(expectedLists[i], list);
+        }
+    }
+
+    @Test
+    public void getInputBitStreamOfSectionShouldReturnNewInputBitStreamInGivenStreamPosition() throws IOException {
+        final IntList[] expectedLists = getRandomLists(20);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final File file = write(expectedLists, offsets);
+        final MappedPebbleBytesStore bytesStore = MappedPebbleBytesStore.map(file.toPath(), offsets);
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(5);
+        inputBitStream.readDelta();
+
+        final InputBitStream sectionInputBitStream =
+            bytesStore.getInputBitStream(5, inputBitStream, InputBitCursor.INTERVALS_SECTION);
+        sectionInputBitStream.readDelta();
+
+        assertNotSame(inputBitStream, sectionInputBitStream);
+        assertEquals(inputBitStream.position(), bytesStore.getInputBitStream(5, inputBitStream, 0).position());
+        assertTrue(sectionInputBitStream.position() > inputBitStream.position());
+    }
+
+    @Test
+    public void offsetShouldReturnExpectedOffsetFromListIndex() throws IOException {
+        final IntList[] lists = getRandomLists(2);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final File file = write(lists, offsets);
+
+        final MappedPebbleBytesStore bytesStore = MappedPebbleBytesStore.map(file.toPath(), offsets);
+
+        assertEquals(offsets.get(1), bytesStore.offset(1));
+    }
+
+    @Test
+    public void getShouldThrowAnException() throws IOException {
+        final IntList[] lists = getRandomLists(1);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final File file = write(lists, offsets);
+        final MappedPebbleBytesStore bytesStore = MappedPebbleBytesStore.map(file.toPath(), offsets);
+        expectedException.expect(UnsupportedOperationException.class);
+
+        bytesStore.get(0);
+    }
+
+}
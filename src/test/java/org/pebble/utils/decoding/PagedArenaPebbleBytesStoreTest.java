@@ -0,0 +1,220 @@
+package org.pebble.utils.decoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.io.InputBitStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.EliasFanoOffsets;
+import org.pebble.core.decoding.InputBitCursor;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.decoding.ints.IntListsAccessor;
+import org.pebble.core.decoding.iterators.ints.ListIterator;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.utils.encoding.PagedArena;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+@Category(FastIntegrationTest.class)
+public class PagedArenaPebbleBytesStoreTest {
+
+    private static final int VALUE_BIT_SIZE = 10;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static IntList[] getRandomLists(final int numberOfLists) {
+        final Random random = new Random(0x5eed);
+        final IntList[] lists = new IntList[numberOfLists];
+        IntList list;
+        int size;
+        for (int i = 0; i < numberOfLists; i++) {
+            lists[i] = list = new IntArrayList();
+            size = 3 + random.nextInt(24);
+            for (int j = 0; j < size; j++) {
+                list.add(random.nextInt(64));
+            }
+        }
+        return lists;
+    }
+
+    private static IntReferenceListsStore getReferenceListsStore() {
+        return new IntReferenceListsStore(16, 3, 1, new InvertedListIntReferenceListsIndex());
+    }
+
+    private static IntList read(final int listIndex, final PebbleBytesStore bytesStore) throws IOException {
+        final IntIterator iterator = ListIterator.build(listIndex, VALUE_BIT_SIZE, bytesStore);
+        final IntList list = new IntArrayList();
+        while (iterator.hasNext()) {
+            list.add(iterator.nextInt());
+        }
+        return list;
+    }
+
+    @Test
+    public void itShouldDecodeListsWhileEncodingContinues() throws IOException {
+        final IntList[] expectedLists = getRandomLists(200);
+        final PagedArena arena = new PagedArena(6, false);
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(arena, 0);
+        final IntReferenceListsStore referenceListsStore = getReferenceListsStore();
+        final PagedArenaPebbleBytesStore bytesStore = new PagedArenaPebbleBytesStore(arena, offsets, 0);
+
+        for (int i = 0; i < expectedLists.length; i++) {
+            offsets.add(outputSuccinctStream.writtenBits());
+            outputSuccinctStream.writeList(new IntArrayList(expectedLists[i]), i, VALUE_BIT_SIZE, referenceListsStore);
+            if (i > 0) {
+                assertEquals(expectedLists[i - 1], read(i - 1, bytesStore));
+            }
+        }
+    }
+
+    @Test
+    public void itShouldDecodeListsOnceTheEncoderIsFlushed() throws IOException {
+        final IntList[] expectedLists = getRandomLists(300);
+        final PagedArena arena = new PagedArena();
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(arena);
+        final IntReferenceListsStore referenceListsStore = getReferenceListsStore();
+        for (int i = 0; i < expectedLists.length; i++) {
+            offsets.add(outputSuccinctStream.writtenBits());
+            outputSuccinctStream.writeList(new IntArrayList(expectedLists[i]), i, VALUE_BIT_SIZE, referenceListsStore);
+        }
+        outputSuccinctStream.flush();
+
+        final PagedArenaPebbleBytesStore bytesStore = new PagedArenaPebbleBytesStore(arena, offsets);
+
+        for (int i = 0; i < expectedLists.length; i++) {
+            assertEquals(expectedLists[i], read(i, bytesStore));
+        }
+    }
+
+    @Test
+    public void whenListsHaveSizeHeaderItShouldDecodeListsAndSizesFromTheArena() throws IOException {
+        final IntList[] expectedLists = getRandomLists(300);
+        final PagedArena arena = new PagedArena();
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(arena);
+        outputSuccinctStream.setSizeHeader(true);
+        final IntReferenceListsStore referenceListsStore = getReferenceListsStore();
+        for (int i = 0; i < expectedLists.length; i++) {
+            offsets.add(outputSuccinctStream.writtenBits());
+            outputSuccinctStream.writeList(new IntArrayList(expectedLists[i]), i, VALUE_BIT_SIZE, referenceListsStore);
+        }
+        outputSuccinctStream.flush();
+
+        final PagedArenaPebbleBytesStore bytesStore = new PagedArenaPebbleBytesStore(arena, offsets);
+        bytesStore.setSizeHeader(true);
+        final IntListsAccessor accessor = new IntListsAccessor(VALUE_BIT_SIZE, bytesStore);
+
+        for (int i = 0; i < expectedLists.length; i++) {
+            assertEquals(expectedLists[i], read(i, bytesStore));
+            assertEquals(expectedLists[i].size(), accessor.sizeList(i));
+        }
+    }
+
+    @Test
+    public void whenListsDoNotHaveSizeHeaderReadSizeShouldThrowAnException() throws IOException {
+        final PagedArenaPebbleBytesStore bytesStore = new PagedArenaPebbleBytesStore(
+            new PagedArena(),
+            new EliasFanoOffsets()
+        );
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("The compressed lists don't have size header");
+
+        bytesStore.readSize(0, new InputBitCursor());
+    }
+
+    @Test
+    public void getInputBitStreamOfSectionShouldReturnNewInputBitStreamInGivenStreamPosition() throws IOException {
+        final PagedArena arena = new PagedArena();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(arena);
+        outputSuccinctStream.writeDelta(5);
+        outputSuccinctStream.writeDelta(7);
+        outputSuccinctStream.flush();
+        final PagedArenaPebbleBytesStore bytesStore =
+            new PagedArenaPebbleBytesStore(arena, new EliasFanoOffsets(new long[] {0L}));
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(0);
+        inputBitStream.readDelta();
+
+        final InputBitStream sectionInputBitStream =
+            bytesStore.getInputBitStream(0, inputBitStream, InputBitCursor.INTERVALS_SECTION);
+
+        assertNotSame(inputBitStream, sectionInputBitStream);
+        assertEquals(7, sectionInputBitStream.readDelta());
+        assertEquals(inputBitStream.position(), bytesStore.getInputBitStream(0, inputBitStream, 0).position());
+    }
+
+    @Test
+    public void getInputBitStreamWithCursorShouldDecodeListsWithoutTheCursor() throws IOException {
+        final IntList[] expectedLists = getRandomLists(20);
+        final PagedArena arena = new PagedArena();
+        final EliasFanoOffsets offsets = new EliasFanoOffsets();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(arena);
+        final IntReferenceListsStore referenceListsStore = getReferenceListsStore();
+        for (int i = 0; i < expectedLists.length; i++) {
+            offsets.add(outputSuccinctStream.writtenBits());
+            outputSuccinctStream.writeList(new IntArrayList(expectedLists[i]), i, VALUE_BIT_SIZE, referenceListsStore);
+        }
+        outputSuccinctStream.flush();
+        final PagedArenaPebbleBytesStore bytesStore = new PagedArenaPebbleBytesStore(arena, offsets);
+        final InputBitCursor cursor = new InputBitCursor();
+
+        final InputBitStream inputBitStream = bytesStore.getInputBitStream(5, cursor);
+
+        assertNotSame(cursor, inputBitStream);
+        assertEquals(offsets.get(5), inputBitStream.position());
+        for (int i = 0; i < expectedLists.length; i++) {
+            final IntIterator iterator = ListIterator.build(i, VALUE_BIT_SIZE, bytesStore, cursor);
+            final IntList list = new IntArrayList();
+            while (iterator.hasNext()) {
+                list.add(iterator.nextInt());
+            }
+            assertEquals(expectedLists[i], list);
+        }
+    }
+
+    @Test
+    public void offsetShouldReturnExpectedOffsetFromListIndex() {
+        final EliasFanoOffsets offsets = new EliasFanoOffsets(new long[] {0L, 64L});
+        final PagedArenaPebbleBytesStore bytesStore = new PagedArenaPebbleBytesStore(new PagedArena(), offsets);
+
+        assertEquals(64L, bytesStore.offset(1));
+    }
+
+    @Test
+    public void getShouldThrowAnException() {
+        final EliasFanoOffsets offsets = new EliasFanoOffsets(new long[] {0L});
+        final PagedArenaPebbleBytesStore bytesStore = new PagedArenaPebbleBytesStore(new PagedArena(), offsets);
+        expectedException.expect(UnsupportedOperationException.class);
+
+        bytesStore.get(0);
+    }
+
+}
@@ -0,0 +1,204 @@
+package org.pebble.utils.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.io.FastByteArrayInputStream;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.UnitTest;
+import org.pebble.core.encoding.DefaultParametersValues;
+import org.pebble.core.encoding.SkipIndexParameters;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+@Category(UnitTest.class)
+public class ContainerWriterTest {
+
+    private static final int VALUE_BIT_SIZE = 5;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static IntReferenceListsStore getIntReferenceListsStore() {
+        return new IntReferenceListsStore(16, 3, 1, new InvertedListIntReferenceListsIndex());
+    }
+
+    private static LongReferenceListsStore getLongReferenceListsStore() {
+        return new LongReferenceListsStore(16, 3, 1, new InvertedListLongReferenceListsIndex());
+    }
+
+    @Test
+    public void itShouldWriteHeaderListsTagsDirectoryAndFooter() throws IOException {
+        final FastByteArrayOutputStream outputStream = new FastByteArrayOutputStream();
+        final ContainerWriter writer = new ContainerWriter(
+            outputStream,
+            VALUE_BIT_SIZE,
+            getIntReferenceListsStore(),
+            getIntReferenceListsStore(),
+            getIntReferenceListsStore(),
+            new SkipIndexParameters(2, 4),
+            true,
+            3
+        );
+        final int[] bits = new int[5];
+
+        bits[0] = writer.writeList(new IntArrayList(new int[] {3, 1, 2}));
+        bits[1] = writer.writeStrictlyIncrementalList(new IntArrayList(new int[] {1, 2, 3, 4, 8}));
+        bits[2] = writer.writeIncrementalList(new IntArrayList(new int[] {1, 1, 2}));
+        bits[3] = writer.writeList(new IntArrayList(new int[] {7}));
+        bits[4] = writer.writeIncrementalList(new IntArrayList(new int[] {4, 4}));
+        writer.close();
+        writer.close();
+
+        assertEquals(5, writer.size());
+        final DataInputStream inputStream =
+            new DataInputStream(new FastByteArrayInputStream(outputStream.array, 0, (int) outputStream.length()));
+        assertEquals(ContainerWriter.MAGIC, inputStream.readInt());
+        assertEquals(ContainerWriter.VERSION, inputStream.readInt());
+        assertEquals(VALUE_BIT_SIZE, inputStream.readInt());
+        assertEquals(ContainerWriter.SIZE_HEADER_FLAG, inputStream.readInt());
+        assertEquals(3, inputStream.readInt());
+        assertEquals(2, inputStream.readInt());
+        assertEquals(4, inputStream.readInt());
+        assertEquals(0, inputStream.readInt());
+        final long listsBytes = (bits[0] + bits[1] + bits[2] + bits[3] + bits[4] + 7) / 8;
+        inputStream.skipBytes((int) listsBytes);
+        assertEquals(
+            ContainerWriter.LIST |
+                ContainerWriter.STRICTLY_INCREMENTAL_LIST << 2 |
+                ContainerWriter.INCREMENTAL_LIST << 4 |
+                ContainerWriter.LIST << 6,
+            inputStream.readUnsignedByte()
+        );
+        assertEquals(ContainerWriter.INCREMENTAL_LIST, inputStream.readUnsignedByte());
+        final long tagsPosition = ContainerWriter.HEADER_SIZE + listsBytes;
+        final long directoryPosition = (tagsPosition + 2 + 7) / 8 * 8;
+        inputStream.skipBytes((int) (directoryPosition - tagsPosition - 2));
+        long offset = 0L;
+        for (int i = 0; i < bits.length; i++) {
+            assertEquals(offset, inputStream.readLong());
+            offset += bits[i];
+        }
+        assertEquals(tagsPosition, inputStream.readLong());
+        assertEquals(directoryPosition, inputStream.readLong());
+        assertEquals(5, inputStream.readInt());
+        assertEquals(ContainerWriter.MAGIC, inputStream.readInt());
+        assertEquals(-1, inputStream.read());
+    }
+
+    @Test
+    public void itShouldFlagLongValues() throws IOException {
+        final FastByteArrayOutputStream outputStream = new FastByteArrayOutputStream();
+        final ContainerWriter writer = new ContainerWriter(
+            outputStream,
+            VALUE_BIT_SIZE,
+            getLongReferenceListsStore(),
+            getLongReferenceListsStore(),
+            getLongReferenceListsStore()
+        );
+
+        writer.writeStrictlyIncrementalList(new LongArrayList(new long[] {1L, 2L}));
+        writer.writeIncrementalList(new LongArrayList(new long[] {1L, 1L}));
+        writer.writeList(new LongArrayList(new long[] {2L, 1L}));
+        writer.close();
+
+        final DataInputStream inputStream =
+            new DataInputStream(new FastByteArrayInputStream(outputStream.array, 0, (int) outputStream.length()));
+        inputStream.skipBytes(12);
+        assertEquals(ContainerWriter.LONG_VALUES_FLAG, inputStream.readInt());
+        assertEquals(DefaultParametersValues.DEFAULT_MIN_INTERVAL_SIZE, inputStream.readInt());
+        assertEquals(SkipIndexParameters.DISABLED.getSamplingRate(), inputStream.readInt());
+        assertEquals(SkipIndexParameters.DISABLED.getMinSectionSize(), inputStream.readInt());
+        assertEquals(3, writer.size());
+    }
+
+    @Test
+    public void whenWriterStoresIntListsWritingLongListsShouldThrowAnException() throws IOException {
+        final ContainerWriter writer = new ContainerWriter(
+            new FastByteArrayOutputStream(),
+            VALUE_BIT_SIZE,
+            getIntReferenceListsStore(),
+            getIntReferenceListsStore(),
+            getIntReferenceListsStore()
+        );
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("Container stores int lists");
+
+        writer.writeList(new LongArrayList(new long[] {1L}));
+    }
+
+    @Test
+    public void whenWriterStoresLongListsWritingIntListsShouldThrowAnException() throws IOException {
+        final ContainerWriter writer = new ContainerWriter(
+            new FastByteArrayOutputStream(),
+            VALUE_BIT_SIZE,
+            getLongReferenceListsStore(),
+            getLongReferenceListsStore(),
+            getLongReferenceListsStore()
+        );
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("Container stores long lists");
+
+        writer.writeList(new IntArrayList(new int[] {1}));
+    }
+
+    @Test
+    public void whenWriterIsClosedWritingListsShouldThrowAnException() throws IOException {
+        final ContainerWriter writer = new ContainerWriter(
+            new FastByteArrayOutputStream(),
+            VALUE_BIT_SIZE,
+            getIntReferenceListsStore(),
+            getIntReferenceListsStore(),
+            getIntReferenceListsStore()
+        );
+        writer.close();
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("Container is closed");
+
+        writer.writeList(new IntArrayList(new int[] {1}));
+    }
+
+    @Test
+    public void whenMinIntervalSizeIsNotPositiveItShouldThrowAnException() throws IOException {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Min interval size must be positive, found 0");
+
+        new ContainerWriter(
+            new FastByteArrayOutputStream(),
+            VALUE_BIT_SIZE,
+            getIntReferenceListsStore(),
+            getIntReferenceListsStore(),
+            getIntReferenceListsStore(),
+            SkipIndexParameters.DISABLED,
+            false,
+            0
+        );
+    }
+
+}
@@ -0,0 +1,268 @@
+package org.pebble.utils.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.decoding.iterators.ints.ListIterator;
+import org.pebble.core.encoding.Helper;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+@Category(FastIntegrationTest.class)
+public class IntsParallelListsEncoderWriteListsTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private static IntList[] getRandomLists(final int numberOfLists) {
+        final Random random = new Random(0x5eed);
+        final IntList[] lists = new IntList[numberOfLists];
+        IntList list;
+        int size;
+        for (int i = 0; i < numberOfLists; i++) {
+            lists[i] = list = new IntArrayList();
+            size = 1 + random.nextInt(24);
+            for (int j = 0; j < size; j++) {
+                list.add(random.nextInt(64));
+            }
+        }
+        return lists;
+    }
+
+    private static IntList[] copy(final IntList[] lists) {
+        final IntList[] copiedLists = new IntList[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            copiedLists[i] = new IntArrayList(lists[i]);
+        }
+        return copiedLists;
+    }
+
+    @Test
+    public void itShouldCompressListsThatCanBeDecompressedWithTheListIterators() throws IOException {
+        final int valueBitSize = 10;
+        final IntList[] expectedLists = getRandomLists(100);
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+        final ParallelListsEncoder encoder = new ParallelListsEncoder(7, 16, 3, 1, executorService);
+
+        final long[] offsets = encoder.writeLists(copy(expectedLists), valueBitSize, out);
+
+        final PebbleBytesStore bytesStore = new BytesArrayPebbleBytesStore(out.array, offsets);
+        final IntList[] lists = new IntList[expectedLists.length];
+        IntIterator iterator;
+        for (int i = 0; i < lists.length; i++) {
+            iterator = ListIterator.build(i, valueBitSize, bytesStore);
+            lists[i] = new IntArrayList();
+            while (iterator.hasNext()) {
+                lists[i].add(iterator.nextInt());
+            }
+        }
+        assertEquals(
+            Helper.<Integer, IntList>translateToUtilsCollection(expectedLists),
+            Helper.<Integer, IntList>translateToUtilsCollection(lists)
+        );
+    }
+
+    @Test
+    public void whenChunkSizeIsNotSmallerThanNumberOfListsItShouldWriteSameOutputThanOutputSuccinctStream()
+        throws IOException {
+        final int valueBitSize = 10;
+        final IntList[] lists = getRandomLists(20);
+        final FastByteArrayOutputStream expectedOut = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(expectedOut);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(
+            16,
+            3,
+            1,
+            new InvertedListIntReferenceListsIndex()
+        );
+        final long[] expectedOffsets = new long[lists.length];
+        final IntList[] copiedLists = copy(lists);
+        long offset = 0L;
+        for (int i = 0; i < lists.length; i++) {
+            expectedOffsets[i] = offset;
+            offset += outputSuccinctStream.writeList(copiedLists[i], i, valueBitSize, referenceListsStore);
+        }
+        outputSuccinctStream.flush();
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+        final ParallelListsEncoder encoder = new ParallelListsEncoder(lists.length, 16, 3, 1, executorService);
+
+        final long[] offsets = encoder.writeLists(lists, valueBitSize, out);
+
+        assertEquals(Arrays.toString(expectedOffsets), Arrays.toString(offsets));
+        assertEquals(
+            Arrays.toString(Arrays.copyOf(expectedOut.array, expectedOut.length)),
+            Arrays.toString(Arrays.copyOf(out.array, out.length))
+        );
+    }
+
+    @Test
+    public void whenChunkSizeIsNotPositiveItShouldThrowAnException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Chunk size must be positive, found 0");
+
+        new ParallelListsEncoder(0, executorService);
+    }
+
+    @Test
+    public void whenMaxPendingChunksIsNotPositiveItShouldThrowAnException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Max pending chunks must be positive, found 0");
+
+        new ParallelListsEncoder(7, 16, 3, 1, 0, executorService);
+    }
+
+    @Test
+    public void itShouldNotHaveMoreThanMaxPendingChunksSubmittedAndNotWritten() throws IOException {
+        final int valueBitSize = 10;
+        final IntList[] lists = getRandomLists(100);
+        final int maxPendingChunks = 2;
+        final int[] submittedChunks = new int[1];
+        final int[] writtenChunks = new int[1];
+        final int[] maxSubmittedAndNotWrittenChunks = new int[1];
+        final ExecutorService countingExecutorService = new ThreadPoolExecutor(
+            4,
+            4,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>()
+        ) {
+            @Override
+            public void execute(final Runnable command) {
+                submittedChunks[0]++;
+                maxSubmittedAndNotWrittenChunks[0] = Math.max(
+                    maxSubmittedAndNotWrittenChunks[0],
+                    submittedChunks[0] - writtenChunks[0]
+                );
+                super.execute(command);
+            }
+        };
+        final FastByteArrayOutputStream expectedOut = new FastByteArrayOutputStream();
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream() {
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                writtenChunks[0]++;
+                super.write(b, off, len);
+            }
+        };
+        final long[] expectedOffsets = new ParallelListsEncoder(7, 16, 3, 1, executorService)
+            .writeLists(copy(lists), valueBitSize, expectedOut);
+        final ParallelListsEncoder encoder = new ParallelListsEncoder(
+            7,
+            16,
+            3,
+            1,
+            maxPendingChunks,
+            countingExecutorService
+        );
+
+        try {
+            final long[] offsets = encoder.writeLists(lists, valueBitSize, out);
+
+            assertEquals(Arrays.toString(expectedOffsets), Arrays.toString(offsets));
+            assertEquals(
+                Arrays.toString(Arrays.copyOf(expectedOut.array, expectedOut.length)),
+                Arrays.toString(Arrays.copyOf(out.array, out.length))
+            );
+            assertEquals(15, submittedChunks[0]);
+            assertEquals(maxPendingChunks, maxSubmittedAndNotWrittenChunks[0]);
+        } finally {
+            countingExecutorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void whenCompressingAListFailsWithAnErrorItShouldThrowAnIOException() throws IOException {
+        final IntList[] lists = new IntList[] {
+            new IntArrayList(new int[] {1, 2, 3}),
+            new IntArrayList(new int[] {3, 2, 1}) {
+                @Override
+                public int size() {
+                    throw new AssertionError();
+                }
+            }
+        };
+        final ParallelListsEncoder encoder = new ParallelListsEncoder(1, executorService);
+
+        expectedException.expect(IOException.class);
+
+        encoder.writeLists(lists, 2, new FastByteArrayOutputStream());
+    }
+
+    @Test
+    public void whenThreadIsInterruptedWhileWaitingForTheChunksItShouldThrowAnInterruptedIOException() throws Exception {
+        final IntList[] lists = new IntList[] {
+            new IntArrayList(new int[] {1, 2, 3})
+        };
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ParallelListsEncoder encoder = new ParallelListsEncoder(1, executorService);
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Thread.currentThread().interrupt();
+
+        try {
+            encoder.writeLists(lists, 2, new FastByteArrayOutputStream());
+            fail();
+        } catch (InterruptedIOException e) {
+            assertTrue(Thread.interrupted());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+}
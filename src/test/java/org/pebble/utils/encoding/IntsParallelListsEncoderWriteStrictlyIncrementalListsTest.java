@@ -0,0 +1,160 @@
+package org.pebble.utils.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.decoding.iterators.ints.StrictlyIncrementalListIterator;
+import org.pebble.core.encoding.Helper;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static junit.framework.TestCase.assertEquals;
+
+@Category(FastIntegrationTest.class)
+public class IntsParallelListsEncoderWriteStrictlyIncrementalListsTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private static IntList[] getRandomLists(final int numberOfLists) {
+        final Random random = new Random(0x5eed);
+        final IntList[] lists = new IntList[numberOfLists];
+        IntList list;
+        int size;
+        int value;
+        for (int i = 0; i < numberOfLists; i++) {
+            lists[i] = list = new IntArrayList();
+            size = 1 + random.nextInt(24);
+            value = random.nextInt(4);
+            for (int j = 0; j < size; j++) {
+                list.add(value);
+                value += 1 + (random.nextBoolean() ? 0 : random.nextInt(16));
+            }
+        }
+        return lists;
+    }
+
+    private static IntList[] copy(final IntList[] lists) {
+        final IntList[] copiedLists = new IntList[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            copiedLists[i] = new IntArrayList(lists[i]);
+        }
+        return copiedLists;
+    }
+
+    @Test
+    public void itShouldCompressListsThatCanBeDecompressedWithTheListIterators() throws IOException {
+        final int valueBitSize = 10;
+        final IntList[] expectedLists = getRandomLists(100);
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+        final ParallelListsEncoder encoder = new ParallelListsEncoder(7, 16, 3, 1, executorService);
+
+        final long[] offsets = encoder.writeStrictlyIncrementalLists(copy(expectedLists), valueBitSize, out);
+
+        final PebbleBytesStore bytesStore = new BytesArrayPebbleBytesStore(out.array, offsets);
+        final IntList[] lists = new IntList[expectedLists.length];
+        IntIterator iterator;
+        for (int i = 0; i < lists.length; i++) {
+            iterator = StrictlyIncrementalListIterator.build(i, valueBitSize, bytesStore);
+            lists[i] = new IntArrayList();
+            while (iterator.hasNext()) {
+                lists[i].add(iterator.nextInt());
+            }
+        }
+        assertEquals(
+            Helper.<Integer, IntList>translateToUtilsCollection(expectedLists),
+            Helper.<Integer, IntList>translateToUtilsCollection(lists)
+        );
+    }
+
+    @Test
+    public void whenChunkSizeIsNotSmallerThanNumberOfListsItShouldWriteSameOutputThanOutputSuccinctStream()
+        throws IOException {
+        final int valueBitSize = 10;
+        final IntList[] lists = getRandomLists(20);
+        final FastByteArrayOutputStream expectedOut = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(expectedOut);
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(
+            16,
+            3,
+            1,
+            new InvertedListIntReferenceListsIndex()
+        );
+        final long[] expectedOffsets = new long[lists.length];
+        final IntList[] copiedLists = copy(lists);
+        long offset = 0L;
+        for (int i = 0; i < lists.length; i++) {
+            expectedOffsets[i] = offset;
+            offset += outputSuccinctStream.writeStrictlyIncrementalList(copiedLists[i], i, valueBitSize, referenceListsStore);
+        }
+        outputSuccinctStream.flush();
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+        final ParallelListsEncoder encoder = new ParallelListsEncoder(lists.length, 16, 3, 1, executorService);
+
+        final long[] offsets = encoder.writeStrictlyIncrementalLists(lists, valueBitSize, out);
+
+        assertEquals(Arrays.toString(expectedOffsets), Arrays.toString(offsets));
+        assertEquals(
+            Arrays.toString(Arrays.copyOf(expectedOut.array, expectedOut.length)),
+            Arrays.toString(Arrays.copyOf(out.array, out.length))
+        );
+    }
+
+    @Test
+    public void whenCompressingAListFailsWithARuntimeExceptionItShouldThrowIt() throws IOException {
+        final IntList[] lists = new IntList[] {
+            new IntArrayList(new int[] {1, 2, 3}),
+            new IntArrayList(new int[] {4, 5, 6}) {
+                @Override
+                public int size() {
+                    throw new UnsupportedOperationException();
+                }
+            }
+        };
+        final ParallelListsEncoder encoder = new ParallelListsEncoder(1, executorService);
+
+        expectedException.expect(UnsupportedOperationException.class);
+
+        encoder.writeStrictlyIncrementalLists(lists, 3, new FastByteArrayOutputStream());
+    }
+
+}
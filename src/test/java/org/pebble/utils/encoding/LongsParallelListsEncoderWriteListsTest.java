@@ -0,0 +1,197 @@
+package org.pebble.utils.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.decoding.PebbleBytesStore;
+import org.pebble.core.decoding.iterators.longs.ListIterator;
+import org.pebble.core.encoding.Helper;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+import org.pebble.utils.decoding.BytesArrayPebbleBytesStore;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.TestCase.assertEquals;
+
+@Category(FastIntegrationTest.class)
+public class LongsParallelListsEncoderWriteListsTest {
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private static LongList[] getRandomLists(final int numberOfLists) {
+        final Random random = new Random(0x5eed);
+        final LongList[] lists = new LongList[numberOfLists];
+        LongList list;
+        int size;
+        for (int i = 0; i < numberOfLists; i++) {
+            lists[i] = list = new LongArrayList();
+            size = 1 + random.nextInt(24);
+            for (int j = 0; j < size; j++) {
+                list.add(random.nextInt(64));
+            }
+        }
+        return lists;
+    }
+
+    private static LongList[] copy(final LongList[] lists) {
+        final LongList[] copiedLists = new LongList[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            copiedLists[i] = new LongArrayList(lists[i]);
+        }
+        return copiedLists;
+    }
+
+    @Test
+    public void itShouldCompressListsThatCanBeDecompressedWithTheListIterators() throws IOException {
+        final int valueBitSize = 10;
+        final LongList[] expectedLists = getRandomLists(100);
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+        final ParallelListsEncoder encoder = new ParallelListsEncoder(7, 16, 3, 1, executorService);
+
+        final long[] offsets = encoder.writeLists(copy(expectedLists), valueBitSize, out);
+
+        final PebbleBytesStore bytesStore = new BytesArrayPebbleBytesStore(out.array, offsets);
+        final LongList[] lists = new LongList[expectedLists.length];
+        LongIterator iterator;
+        for (int i = 0; i < lists.length; i++) {
+            iterator = ListIterator.build(i, valueBitSize, bytesStore);
+            lists[i] = new LongArrayList();
+            while (iterator.hasNext()) {
+                lists[i].add(iterator.nextLong());
+            }
+        }
+        assertEquals(
+            Helper.<Long, LongList>translateToUtilsCollection(expectedLists),
+            Helper.<Long, LongList>translateToUtilsCollection(lists)
+        );
+    }
+
+    @Test
+    public void whenChunkSizeIsNotSmallerThanNumberOfListsItShouldWriteSameOutputThanOutputSuccinctStream()
+        throws IOException {
+        final int valueBitSize = 10;
+        final LongList[] lists = getRandomLists(20);
+        final FastByteArrayOutputStream expectedOut = new FastByteArrayOutputStream();
+        final OutputSuccinctStream outputSuccinctStream = new OutputSuccinctStream(expectedOut);
+        final LongReferenceListsStore referenceListsStore = new LongReferenceListsStore(
+            16,
+            3,
+            1,
+            new InvertedListLongReferenceListsIndex()
+        );
+        final long[] expectedOffsets = new long[lists.length];
+        final LongList[] copiedLists = copy(lists);
+        long offset = 0L;
+        for (int i = 0; i < lists.length; i++) {
+            expectedOffsets[i] = offset;
+            offset += outputSuccinctStream.writeList(copiedLists[i], i, valueBitSize, referenceListsStore);
+        }
+        outputSuccinctStream.flush();
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+        final ParallelListsEncoder encoder = new ParallelListsEncoder(lists.length, 16, 3, 1, executorService);
+
+        final long[] offsets = encoder.writeLists(lists, valueBitSize, out);
+
+        assertEquals(Arrays.toString(expectedOffsets), Arrays.toString(offsets));
+        assertEquals(
+            Arrays.toString(Arrays.copyOf(expectedOut.array, expectedOut.length)),
+            Arrays.toString(Arrays.copyOf(out.array, out.length))
+        );
+    }
+
+
+    @Test
+    public void itShouldNotHaveMoreThanMaxPendingChunksSubmittedAndNotWritten() throws IOException {
+        final int valueBitSize = 10;
+        final LongList[] lists = getRandomLists(100);
+        final int maxPendingChunks = 2;
+        final int[] submittedChunks = new int[1];
+        final int[] writtenChunks = new int[1];
+        final int[] maxSubmittedAndNotWrittenChunks = new int[1];
+        final ExecutorService countingExecutorService = new ThreadPoolExecutor(
+            4,
+            4,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>()
+        ) {
+            @Override
+            public void execute(final Runnable command) {
+                submittedChunks[0]++;
+                maxSubmittedAndNotWrittenChunks[0] = Math.max(
+                    maxSubmittedAndNotWrittenChunks[0],
+                    submittedChunks[0] - writtenChunks[0]
+                );
+                super.execute(command);
+            }
+        };
+        final FastByteArrayOutputStream expectedOut = new FastByteArrayOutputStream();
+        final FastByteArrayOutputStream out = new FastByteArrayOutputStream() {
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                writtenChunks[0]++;
+                super.write(b, off, len);
+            }
+        };
+        final long[] expectedOffsets = new ParallelListsEncoder(7, 16, 3, 1, executorService)
+            .writeLists(copy(lists), valueBitSize, expectedOut);
+        final ParallelListsEncoder encoder = new ParallelListsEncoder(
+            7,
+            16,
+            3,
+            1,
+            maxPendingChunks,
+            countingExecutorService
+        );
+
+        try {
+            final long[] offsets = encoder.writeLists(lists, valueBitSize, out);
+
+            assertEquals(Arrays.toString(expectedOffsets), Arrays.toString(offsets));
+            assertEquals(
+                Arrays.toString(Arrays.copyOf(expectedOut.array, expectedOut.length)),
+                Arrays.toString(Arrays.copyOf(out.array, out.length))
+            );
+            assertEquals(15, submittedChunks[0]);
+            assertEquals(maxPendingChunks, maxSubmittedAndNotWrittenChunks[0]);
+        } finally {
+            countingExecutorService.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.pebble.utils.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.io.RepositionableStream;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.pebble.UnitTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@Category(UnitTest.class)
+public class PagedArenaTest {
+
+    private static byte[] getBytes(final int size) {
+        final byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * 7 + 3);
+        }
+        return bytes;
+    }
+
+    @Test
+    public void itShouldReadBytesWrittenOneByOneSuccessfully() throws IOException {
+        final byte[] expectedBytes = getBytes(20);
+        final PagedArena arena = new PagedArena(3, false);
+        for (byte b : expectedBytes) {
+            arena.write(b);
+        }
+        final InputStream inputStream = arena.getInputStream();
+        final byte[] bytes = new byte[expectedBytes.length];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) inputStream.read();
+        }
+
+        assertEquals(expectedBytes.length, arena.length());
+        assertArrayEquals(expectedBytes, bytes);
+        assertEquals(-1, inputStream.read());
+    }
+
+    @Test
+    public void itShouldReadBytesWrittenAcrossPagesSuccessfully() throws IOException {
+        final byte[] expectedBytes = getBytes(100);
+        final PagedArena arena = new PagedArena(4, true);
+        arena.write(expectedBytes, 0, 5);
+        arena.write(expectedBytes, 5, 40);
+        arena.write(expectedBytes, 45, 55);
+        final InputStream inputStream = arena.getInputStream();
+        final byte[] bytes = new byte[expectedBytes.length + 10];
+
+        final int read = inputStream.read(bytes, 0, bytes.length);
+
+        assertEquals(expectedBytes.length, read);
+        assertArrayEquals(expectedBytes, Arrays.copyOf(bytes, read));
+        assertEquals(-1, inputStream.read(bytes, 0, 1));
+    }
+
+    @Test
+    public void itShouldReadBytesWrittenAfterTheInputStreamWasCreated() throws IOException {
+        final byte[] expectedBytes = getBytes(30);
+        final PagedArena arena = new PagedArena();
+        final InputStream inputStream = arena.getInputStream();
+        final byte[] bytes = new byte[expectedBytes.length];
+
+        assertEquals(0, inputStream.available());
+        assertEquals(-1, inputStream.read());
+        arena.write(expectedBytes, 0, 10);
+        assertEquals(10, inputStream.available());
+        assertEquals(10, inputStream.read(bytes, 0, bytes.length));
+        arena.write(expectedBytes, 10, 20);
+        assertEquals(20, inputStream.read(bytes, 10, 20));
+        assertArrayEquals(expectedBytes, bytes);
+    }
+
+    @Test
+    public void itShouldReadFromGivenPositionSuccessfully() throws IOException {
+        final byte[] expectedBytes = getBytes(50);
+        final PagedArena arena = new PagedArena(2, false);
+        arena.write(expectedBytes);
+        final InputStream inputStream = arena.getInputStream();
+        final byte[] bytes = new byte[10];
+
+        ((RepositionableStream) inputStream).position(33);
+
+        assertEquals(33L, ((RepositionableStream) inputStream).position());
+        assertEquals(10, inputStream.read(bytes, 0, bytes.length));
+        assertArrayEquals(Arrays.copyOfRange(expectedBytes, 33, 43), bytes);
+        assertEquals(7, inputStream.available());
+        ((RepositionableStream) inputStream).position(60);
+        assertEquals(0, inputStream.available());
+        assertEquals(-1, inputStream.read());
+    }
+
+    @Test
+    public void whenLengthIsZeroReadShouldNotReadAnyByte() throws IOException {
+        final PagedArena arena = new PagedArena();
+        final InputStream inputStream = arena.getInputStream();
+
+        assertEquals(0, inputStream.read(new byte[1], 0, 0));
+    }
+
+    @Test
+    public void inputStreamsShouldBeIndependent() throws IOException {
+        final byte[] expectedBytes = getBytes(10);
+        final PagedArena arena = new PagedArena(2, false);
+        arena.write(expectedBytes);
+        final InputStream firstInputStream = arena.getInputStream();
+        final InputStream secondInputStream = arena.getInputStream();
+
+        assertEquals(expectedBytes[0], (byte) firstInputStream.read());
+        assertEquals(expectedBytes[1], (byte) firstInputStream.read());
+        assertEquals(expectedBytes[0], (byte) secondInputStream.read());
+    }
+
+}
@@ -0,0 +1,341 @@
+package org.pebble.utils.encoding;
+
+/**
+ *  Copyright 2015 Groupon
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.pebble.FastIntegrationTest;
+import org.pebble.core.encoding.OutputSuccinctStream;
+import org.pebble.core.encoding.ints.datastructures.IntReferenceListsStore;
+import org.pebble.core.encoding.ints.datastructures.InvertedListIntReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.InvertedListLongReferenceListsIndex;
+import org.pebble.core.encoding.longs.datastructures.LongReferenceListsStore;
+import org.pebble.utils.encoding.ParametersTuner.Result;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+@Category(FastIntegrationTest.class)
+public class ParametersTunerTest {
+
+    private static final int VALUE_BIT_SIZE = 10;
+    private static final int NUMBER_OF_LISTS = 40;
+    private static final int LIST_SIZE = 30;
+    private static final int[] REFERENCE_WINDOW_SIZES = new int[] {1, 8};
+    private static final int[] MAX_RECURSIVE_REFERENCES = new int[] {0, 3};
+    private static final int[] MIN_REFERENCE_LIST_SIZES = new int[] {2};
+    private static final int[] MIN_INTERVAL_SIZES = new int[] {2, 4};
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private ParametersTuner getTuner(final int sampleSize) {
+        return new ParametersTuner(
+            sampleSize,
+            REFERENCE_WINDOW_SIZES,
+            MAX_RECURSIVE_REFERENCES,
+            MIN_REFERENCE_LIST_SIZES,
+            MIN_INTERVAL_SIZES,
+            executorService
+        );
+    }
+
+    private static IntList[] getRandomIntLists(final boolean strictlyIncremental) {
+        final Random random = new Random(0x5eed);
+        final IntList[] lists = new IntList[NUMBER_OF_LISTS];
+        int value;
+        for (int i = 0; i < NUMBER_OF_LISTS; i++) {
+            lists[i] = new IntArrayList();
+            value = random.nextInt(16);
+            for (int j = 0; j < LIST_SIZE; j++) {
+                lists[i].add(value);
+                value += (strictlyIncremental ? 1 : 0) + (random.nextBoolean() ? 0 : random.nextInt(4));
+            }
+        }
+        return lists;
+    }
+
+    private static LongList[] getRandomLongLists(final boolean strictlyIncremental) {
+        final IntList[] intLists = getRandomIntLists(strictlyIncremental);
+        final LongList[] lists = new LongList[intLists.length];
+        for (int i = 0; i < intLists.length; i++) {
+            lists[i] = new LongArrayList();
+            for (int j = 0; j < intLists[i].size(); j++) {
+                lists[i].add(intLists[i].getInt(j));
+            }
+        }
+        return lists;
+    }
+
+    private static long getBits(final IntList[] lists, final Result result, final int listType) throws IOException {
+        final OutputSuccinctStream output = new OutputSuccinctStream(new FastByteArrayOutputStream());
+        output.setMinIntervalSize(result.getMinIntervalSize());
+        final IntReferenceListsStore referenceListsStore = new IntReferenceListsStore(
+            result.getReferenceWindowSize(),
+            result.getMaxRecursiveReferences(),
+            result.getMinReferenceListSize(),
+            new InvertedListIntReferenceListsIndex()
+        );
+        long bits = 0L;
+        IntList list;
+        for (int i = 0; i < lists.length; i++) {
+            list = new IntArrayList(lists[i]);
+            if (listType == 0) {
+                bits += output.writeStrictlyIncrementalList(list, i, VALUE_BIT_SIZE, referenceListsStore);
+            } else if (listType == 1) {
+                bits += output.writeIncrementalList(list, i, VALUE_BIT_SIZE, referenceListsStore);
+            } else {
+                bits += output.writeList(list, i, VALUE_BIT_SIZE, referenceListsStore);
+            }
+        }
+        return bits;
+    }
+
+    private static long getBits(final LongList[] lists, final Result result, final int listType) throws IOException {
+        final OutputSuccinctStream output = new OutputSuccinctStream(new FastByteArrayOutputStream());
+        output.setMinIntervalSize(result.getMinIntervalSize());
+        final LongReferenceListsStore referenceListsStore = new LongReferenceListsStore(
+            result.getReferenceWindowSize(),
+            result.getMaxRecursiveReferences(),
+            result.getMinReferenceListSize(),
+            new InvertedListLongReferenceListsIndex()
+        );
+        long bits = 0L;
+        LongList list;
+        for (int i = 0; i < lists.length; i++) {
+            list = new LongArrayList(lists[i]);
+            if (listType == 0) {
+                bits += output.writeStrictlyIncrementalList(list, i, VALUE_BIT_SIZE, referenceListsStore);
+            } else if (listType == 1) {
+                bits += output.writeIncrementalList(list, i, VALUE_BIT_SIZE, referenceListsStore);
+            } else {
+                bits += output.writeList(list, i, VALUE_BIT_SIZE, referenceListsStore);
+            }
+        }
+        return bits;
+    }
+
+    private static void assertResults(final List<Result> results, final long elements) {
+        assertEquals(
+            REFERENCE_WINDOW_SIZES.length * MAX_RECURSIVE_REFERENCES.length * MIN_REFERENCE_LIST_SIZES.length *
+                MIN_INTERVAL_SIZES.length,
+            results.size()
+        );
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(elements, results.get(i).getElements());
+            assertTrue(results.get(i).getDecodingNanos() >= 0L);
+            assertEquals((double) results.get(i).getBits() / elements, results.get(i).getBitsPerElement());
+            assertEquals((double) results.get(i).getDecodingNanos() / elements, results.get(i).getNanosPerElement());
+            if (i > 0) {
+                assertTrue(results.get(i - 1).getBits() <= results.get(i).getBits());
+            }
+        }
+    }
+
+    @Test
+    public void itShouldEvaluateEveryCombinationForIntLists() throws IOException {
+        final ParametersTuner tuner = getTuner(NUMBER_OF_LISTS);
+        final IntList[] strictlyIncrementalLists = getRandomIntLists(true);
+        final IntList[] incrementalLists = getRandomIntLists(false);
+        final List<Result> strictlyIncrementalResults =
+            tuner.tuneStrictlyIncrementalLists(strictlyIncrementalLists, VALUE_BIT_SIZE);
+        final List<Result> incrementalResults = tuner.tuneIncrementalLists(incrementalLists, VALUE_BIT_SIZE);
+        final List<Result> listsResults = tuner.tuneLists(incrementalLists, VALUE_BIT_SIZE);
+
+        assertResults(strictlyIncrementalResults, NUMBER_OF_LISTS * LIST_SIZE);
+        assertResults(incrementalResults, NUMBER_OF_LISTS * LIST_SIZE);
+        assertResults(listsResults, NUMBER_OF_LISTS * LIST_SIZE);
+        for (int i = 0; i < strictlyIncrementalResults.size(); i++) {
+            assertEquals(
+                getBits(strictlyIncrementalLists, strictlyIncrementalResults.get(i), 0),
+                strictlyIncrementalResults.get(i).getBits()
+            );
+            assertEquals(getBits(incrementalLists, incrementalResults.get(i), 1), incrementalResults.get(i).getBits());
+            assertEquals(getBits(incrementalLists, listsResults.get(i), 2), listsResults.get(i).getBits());
+        }
+    }
+
+    @Test
+    public void itShouldEvaluateEveryCombinationForLongLists() throws IOException {
+        final ParametersTuner tuner = getTuner(NUMBER_OF_LISTS);
+        final LongList[] strictlyIncrementalLists = getRandomLongLists(true);
+        final LongList[] incrementalLists = getRandomLongLists(false);
+        final List<Result> strictlyIncrementalResults =
+            tuner.tuneStrictlyIncrementalLists(strictlyIncrementalLists, VALUE_BIT_SIZE);
+        final List<Result> incrementalResults = tuner.tuneIncrementalLists(incrementalLists, VALUE_BIT_SIZE);
+        final List<Result> listsResults = tuner.tuneLists(incrementalLists, VALUE_BIT_SIZE);
+
+        assertResults(strictlyIncrementalResults, NUMBER_OF_LISTS * LIST_SIZE);
+        assertResults(incrementalResults, NUMBER_OF_LISTS * LIST_SIZE);
+        assertResults(listsResults, NUMBER_OF_LISTS * LIST_SIZE);
+        for (int i = 0; i < strictlyIncrementalResults.size(); i++) {
+            assertEquals(
+                getBits(strictlyIncrementalLists, strictlyIncrementalResults.get(i), 0),
+                strictlyIncrementalResults.get(i).getBits()
+            );
+            assertEquals(getBits(incrementalLists, incrementalResults.get(i), 1), incrementalResults.get(i).getBits());
+            assertEquals(getBits(incrementalLists, listsResults.get(i), 2), listsResults.get(i).getBits());
+        }
+    }
+
+    @Test
+    public void whenThereAreMoreListsThanTheSampleSizeItShouldEvaluateASample() throws IOException {
+        final ParametersTuner tuner = getTuner(10);
+
+        assertResults(tuner.tuneStrictlyIncrementalLists(getRandomIntLists(true), VALUE_BIT_SIZE), 10 * LIST_SIZE);
+        assertResults(tuner.tuneStrictlyIncrementalLists(getRandomLongLists(true), VALUE_BIT_SIZE), 10 * LIST_SIZE);
+    }
+
+    @Test
+    public void whenThereAreNoListsItShouldReturnEmptyResults() throws IOException {
+        final List<Result> results = getTuner(NUMBER_OF_LISTS).tuneLists(new IntList[0], VALUE_BIT_SIZE);
+
+        assertEquals(8, results.size());
+        for (Result result : results) {
+            assertEquals(0L, result.getBits());
+            assertEquals(0L, result.getElements());
+            assertEquals(0.0, result.getBitsPerElement());
+            assertEquals(0.0, result.getNanosPerElement());
+        }
+    }
+
+    @Test
+    public void itShouldDescribeTheResult() throws IOException {
+        final Result result = new ParametersTuner(
+            1,
+            new int[] {1},
+            new int[] {0},
+            new int[] {2},
+            new int[] {3},
+            executorService
+        ).tuneLists(new IntList[] {new IntArrayList(new int[] {1, 2, 3})}, VALUE_BIT_SIZE).get(0);
+
+        assertTrue(
+            result.toString().startsWith(
+                "referenceWindowSize=1 maxRecursiveReferences=0 minReferenceListSize=2 minIntervalSize=3 bits="
+            )
+        );
+    }
+
+    @Test
+    public void whenSampleSizeIsNotPositiveItShouldThrowAnException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Sample size must be positive, found 0");
+
+        getTuner(0);
+    }
+
+    @Test
+    public void whenMinIntervalSizeIsNotPositiveItShouldThrowAnException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Min interval size must be positive, found 0");
+
+        new ParametersTuner(1, new int[] {1}, new int[] {0}, new int[] {2}, new int[] {2, 0}, executorService);
+    }
+
+    @Test
+    public void whenEvaluatingACombinationFailsWithARuntimeExceptionItShouldBeRethrown() throws IOException {
+        final IntList[] lists = new IntList[] {
+            new IntArrayList(new int[] {3, 2, 1}) {
+                @Override
+                public int size() {
+                    throw new IllegalStateException("Broken list");
+                }
+            }
+        };
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("Broken list");
+
+        getTuner(1).tuneLists(lists, VALUE_BIT_SIZE);
+    }
+
+    @Test
+    public void whenEvaluatingACombinationFailsWithAnErrorItShouldThrowAnIOException() throws IOException {
+        final LongList[] lists = new LongList[] {
+            new LongArrayList(new long[] {3L, 2L, 1L}) {
+                @Override
+                public int size() {
+                    throw new AssertionError();
+                }
+            }
+        };
+        expectedException.expect(IOException.class);
+
+        getTuner(1).tuneLists(lists, VALUE_BIT_SIZE);
+    }
+
+    @Test
+    public void whenThreadIsInterruptedWhileWaitingForTheResultsItShouldThrowAnInterruptedIOException()
+        throws Exception {
+        final ExecutorService singleThreadExecutorService = Executors.newSingleThreadExecutor();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ParametersTuner tuner = new ParametersTuner(
+            1,
+            new int[] {1},
+            new int[] {0},
+            new int[] {2},
+            new int[] {2},
+            singleThreadExecutorService
+        );
+        singleThreadExecutorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Thread.currentThread().interrupt();
+
+        try {
+            tuner.tuneLists(new IntList[] {new IntArrayList(new int[] {1, 2, 3})}, VALUE_BIT_SIZE);
+            fail();
+        } catch (InterruptedIOException e) {
+            assertTrue(Thread.interrupted());
+        } finally {
+            latch.countDown();
+            singleThreadExecutorService.shutdownNow();
+        }
+    }
+
+}